@@ -4,7 +4,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.aidsync.config.DatabaseConfig;
+import com.aidsync.service.AuditLog;
+import com.aidsync.service.StockAlertEngine;
+import com.aidsync.service.StockReconciler;
+import com.aidsync.service.StockSnapshots;
+import com.aidsync.service.SyncEngine;
+import com.aidsync.util.AlertUtil;
+import com.aidsync.util.SceneManager;
 import com.aidsync.util.SessionManager;
+import com.aidsync.util.StartupMetrics;
+import com.aidsync.util.TaskRunner;
 
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -19,8 +28,12 @@ public class AidSyncApplication extends Application {
     @Override
     public void start(Stage primaryStage) {
         try {
-            // Initialize database
-            DatabaseConfig.initialize();
+            StartupMetrics.mark("javafx-start");
+            
+            // Connect to the database in the background; login waits for it
+            DatabaseConfig.initializeAsync();
+            // Recent activity for the dashboard feed loads as soon as the database is up
+            AuditLog.getInstance();
             
             // Load login screen
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/login.fxml"));
@@ -40,10 +53,29 @@ public class AidSyncApplication extends Application {
             primaryStage.centerOnScreen();
             
             primaryStage.show();
+            StartupMetrics.mark("login-shown");
             
             // Set primary stage in session manager
             SessionManager.getInstance().setPrimaryStage(primaryStage);
             
+            SceneManager.preloadScreens()
+                .thenRun(() -> StartupMetrics.mark("screens-preloaded"));
+            DatabaseConfig.whenReady().whenComplete((ignored, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    logger.error("Database initialization failed", error);
+                    AlertUtil.showError("Database Error", "Unable to connect to the database. The application will now close.");
+                    cleanup();
+                    Platform.exit();
+                    return;
+                }
+                StartupMetrics.mark("database-ready");
+                StockReconciler.getInstance().start();
+                StockSnapshots.getInstance().start();
+                StockAlertEngine.getInstance().start();
+                SyncEngine.getInstance().start();
+                StartupMetrics.interactive(DatabaseConfig.isUsingMySQL() ? "mysql" : "sqlite");
+            }));
+            
             logger.info("AIDSYNC Application started successfully");
             
         } catch (java.io.IOException e) {
@@ -76,6 +108,19 @@ public class AidSyncApplication extends Application {
             cleanupSuccessful = false;
         }
         
+        StockReconciler.getInstance().shutdown();
+        StockSnapshots.getInstance().shutdown();
+        StockAlertEngine.getInstance().shutdown();
+        SyncEngine.getInstance().shutdown();
+        TaskRunner.shutdown();
+        
+        try {
+            AuditLog.getInstance().shutdown();
+        } catch (Exception e) {
+            logger.error("Error flushing audit log", e);
+            cleanupSuccessful = false;
+        }
+        
         try {
             DatabaseConfig.shutdown();
         } catch (Exception e) {
@@ -0,0 +1,331 @@
+package com.aidsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool.
+ * <p>
+ * Connections are handed out as proxies whose {@code close()} returns the physical
+ * connection to the pool, so existing {@code try (Connection conn = ...)} blocks keep
+ * working unchanged. Idle connections are validated on borrow, evicted after the idle
+ * timeout, and borrowed connections held past the leak threshold are reported together
+ * with the stack trace of the borrower.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    // Connections used this recently are trusted without a validation round-trip
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 3;
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Pool sizing and timing settings.
+     */
+    public record Settings(int maxSize, int minIdle, long idleTimeoutMs, long borrowTimeoutMs, long leakThresholdMs) {
+        public Settings {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("Pool size must be at least 1");
+            }
+            minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        }
+    }
+
+    /**
+     * Point-in-time view of pool usage and borrow-wait metrics.
+     */
+    public record Stats(String name, int active, int idle, int maxSize, long totalBorrows, long totalCreated,
+                        long totalTimeouts, LatencyHistogram.Snapshot borrowWait) {
+        @Override
+        public String toString() {
+            return String.format("%s[active=%d, idle=%d, max=%d, borrows=%d, created=%d, timeouts=%d, avgWait=%.2fms, p99Wait=%.2fms, maxWait=%.2fms]",
+                name, active, idle, maxSize, totalBorrows, totalCreated, totalTimeouts, borrowWait.meanMillis(), borrowWait.p99Millis(), borrowWait.maxMillis());
+        }
+    }
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicLong totalBorrows = new AtomicLong();
+    private final AtomicLong totalCreated = new AtomicLong();
+    private final AtomicLong totalTimeouts = new AtomicLong();
+    private final LatencyHistogram waits = new LatencyHistogram();
+
+    private volatile boolean closed;
+
+    public ConnectionPool(String name, ConnectionFactory factory, Settings settings) {
+        this.name = name;
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AIDSYNC-Pool-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+
+        long period = Math.max(1000, Math.min(settings.idleTimeoutMs(), settings.leakThresholdMs()) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the configured borrow timeout for one to become free.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool " + name + " is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                totalTimeouts.incrementAndGet();
+                throw new SQLException(String.format("Timed out after %dms waiting for a connection from pool %s (%d in use)",
+                    settings.borrowTimeoutMs(), name, borrowed.size()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            recordWait(System.nanoTime() - start);
+
+            pooled.borrowedAt = System.nanoTime();
+            pooled.borrowSite = settings.leakThresholdMs() > 0 ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            pooled.closePhysical();
+        }
+
+        Connection physical = factory.create();
+        totalCreated.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.nanoTime() - pooled.lastUsed < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            logger.debug("Validation failed for pooled connection in {}", name, e);
+            return false;
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalBorrows.incrementAndGet();
+        waits.record(waitNanos);
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (closed || !resetState(pooled)) {
+                pooled.closePhysical();
+            } else {
+                pooled.lastUsed = System.nanoTime();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean resetState(PooledConnection pooled) {
+        Connection physical = pooled.physical;
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Discarding connection from pool {} after failed reset: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            logger.error("Connection pool housekeeping failed for {}", name, e);
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMs());
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && idle.size() > settings.minIdle()) {
+            PooledConnection pooled = oldestFirst.next();
+            if (pooled.lastUsed < cutoff && idle.remove(pooled)) {
+                pooled.closePhysical();
+                logger.debug("Evicted idle connection from pool {}", name);
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (settings.leakThresholdMs() <= 0) {
+            return;
+        }
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(settings.leakThresholdMs());
+        long now = System.nanoTime();
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > thresholdNanos) {
+                pooled.leakReported = true;
+                logger.warn("Possible connection leak in pool {}: connection held for over {}ms",
+                    name, settings.leakThresholdMs(), pooled.borrowSite);
+            }
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(name, borrowed.size(), idle.size(), settings.maxSize(), totalBorrows.get(), totalCreated.get(),
+            totalTimeouts.get(), waits.snapshot());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+        if (!borrowed.isEmpty()) {
+            logger.warn("Pool {} closed with {} connection(s) still in use; they will be closed on return", name, borrowed.size());
+        }
+        logger.info("Connection pool closed: {}", getStats());
+    }
+
+    /**
+     * A physical connection plus the bookkeeping the pool needs for it.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsed = System.nanoTime();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Handle(this));
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing pooled connection in {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * Logical connection given to callers; closing it returns the physical connection to the pool.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean logicallyClosed;
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + name + ", " + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            if (logicallyClosed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
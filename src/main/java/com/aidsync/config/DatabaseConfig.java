@@ -6,14 +6,17 @@ import org.slf4j.LoggerFactory;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 public class DatabaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
     
     private static final String MYSQL_URL;
     private static final String SQLITE_URL;
+    private static final String REPLICA_URL;
+    private static final String SYNC_CENTRAL_URL;
+    private static final boolean OFFLINE_FIRST;
     private static final String USERNAME;
     private static final String PASSWORD;
     
@@ -21,6 +24,9 @@ public class DatabaseConfig {
         try {
             MYSQL_URL = System.getProperty("db.mysql.url", System.getenv().getOrDefault("DB_MYSQL_URL", "jdbc:mysql://localhost:3306/aidsync"));
             SQLITE_URL = System.getProperty("db.sqlite.url", System.getenv().getOrDefault("DB_SQLITE_URL", "jdbc:sqlite:aidsync.db"));
+            REPLICA_URL = System.getProperty("db.replica.url", System.getenv().getOrDefault("DB_REPLICA_URL", ""));
+            SYNC_CENTRAL_URL = System.getProperty("sync.centralUrl", System.getenv().getOrDefault("SYNC_CENTRAL_URL", MYSQL_URL));
+            OFFLINE_FIRST = Boolean.parseBoolean(System.getProperty("db.offlineFirst", System.getenv().getOrDefault("DB_OFFLINE_FIRST", "false")));
             USERNAME = System.getProperty("db.username", System.getenv().getOrDefault("DB_USERNAME", "root"));
             PASSWORD = System.getProperty("db.password", System.getenv().getOrDefault("DB_PASSWORD", ""));
             
@@ -39,489 +45,375 @@ public class DatabaseConfig {
         }
     }
     
-    private static Connection connection;
-    private static boolean useMysql = true;
+    private static final ConnectionPool.Settings POOL_SETTINGS = new ConnectionPool.Settings(
+        intSetting("db.pool.size", "DB_POOL_SIZE", 8),
+        intSetting("db.pool.minIdle", "DB_POOL_MIN_IDLE", 2),
+        intSetting("db.pool.idleTimeoutMs", "DB_POOL_IDLE_TIMEOUT_MS", 300_000),
+        intSetting("db.pool.borrowTimeoutMs", "DB_POOL_BORROW_TIMEOUT_MS", 10_000),
+        intSetting("db.pool.leakThresholdMs", "DB_POOL_LEAK_THRESHOLD_MS", 60_000));
+    private static final int STATEMENT_CACHE_SIZE = intSetting("db.statementCache.size", "DB_STATEMENT_CACHE_SIZE", 64);
+    // Keeps an unreachable MySQL host from holding up the SQLite fallback
+    private static final int MYSQL_CONNECT_TIMEOUT_MS = intSetting("db.mysql.connectTimeoutMs", "DB_MYSQL_CONNECT_TIMEOUT_MS", 3_000);
+    private static final int REPLICA_MAX_LAG_MS = intSetting("db.replica.maxLagMs", "DB_REPLICA_MAX_LAG_MS", 5_000);
+    private static final int REPLICA_HEARTBEAT_MS = intSetting("db.replica.heartbeatMs", "DB_REPLICA_HEARTBEAT_MS", 1_000);
+    
+    private static volatile ConnectionPool pool;
+    private static volatile SqliteWriteQueue sqliteWriter;
+    private static volatile ReplicaRouter replica;
+    private static volatile long lastWriteMillis;
+    private static volatile boolean useMysql = true;
+    private static volatile boolean centralMigrated;
+    
+    // Connection of the write transaction the current thread is running in, if any
+    private static final ThreadLocal<Connection> currentWrite = new ThreadLocal<>();
+    
+    private static final CompletableFuture<Void> ready = new CompletableFuture<>();
+    
+    /**
+     * Start {@link #initialize()} on a background thread so the UI can come up while the
+     * database is being reached. Callers that need the database can wait on {@link #whenReady()};
+     * {@link #getConnection()} and {@link #executeWrite(SqlWork)} block until it is done.
+     */
+    public static CompletableFuture<Void> initializeAsync() {
+        Thread initThread = new Thread(() -> {
+            try {
+                initialize();
+            } catch (RuntimeException e) {
+                ready.completeExceptionally(e);
+            }
+        }, "AIDSYNC-DB-Init");
+        initThread.setDaemon(true);
+        initThread.start();
+        return ready;
+    }
+    
+    /**
+     * Completes once the database is connected and migrated, or exceptionally if that failed.
+     */
+    public static CompletableFuture<Void> whenReady() {
+        return ready;
+    }
     
     public static synchronized void initialize() {
-        if (connection != null) {
+        if (pool != null) {
+            return; // Already initialized
+        }
+        
+        if (OFFLINE_FIRST) {
+            logger.info("Offline-first mode: working on the local SQLite database, synced with the central database in the background");
+        } else {
             try {
-                if (!connection.isClosed()) {
-                    return; // Already initialized
-                }
+                // Try MySQL first
+                pool = openMySQLPool();
+                useMysql = true;
+                logger.info("Connected to MySQL database");
             } catch (SQLException e) {
-                logger.debug("Checking connection status failed, reinitializing", e);
+                logger.warn("MySQL connection failed, falling back to SQLite: {}", e.getMessage());
             }
         }
         
-        try {
-            // Try MySQL first
-            connection = connectToMySQL();
-            useMysql = true;
-            logger.info("Connected to MySQL database");
-            createTables();
-            return;
-        } catch (SQLException e) {
-            logger.warn("MySQL connection failed, falling back to SQLite: {}", e.getMessage());
+        if (pool == null) {
+            try {
+                // Fallback to SQLite
+                useMysql = false;
+                openSQLite();
+                logger.info("Connected to SQLite database (WAL, single writer)");
+            } catch (SQLException e) {
+                logger.error("Failed to connect to any database", e);
+                RuntimeException failure = new RuntimeException("Database initialization failed", e);
+                ready.completeExceptionally(failure);
+                throw failure;
+            }
         }
         
+        if (!REPLICA_URL.isBlank()) {
+            replica = new ReplicaRouter(openReplicaPool(), REPLICA_MAX_LAG_MS, REPLICA_HEARTBEAT_MS);
+            logger.info("Read replica configured: {}", REPLICA_URL.replaceAll("password=[^&]*", "password=***"));
+        }
+        ready.complete(null);
+    }
+    
+    /**
+     * Open the MySQL pool and migrate the schema through its first connection, so a database
+     * that cannot be reached is detected before the pool is published.
+     */
+    private static ConnectionPool openMySQLPool() throws SQLException {
+        ConnectionPool candidate = new ConnectionPool("mysql",
+            () -> instrumented(connectToMySQL()), POOL_SETTINGS);
+        try (Connection conn = candidate.borrow()) {
+            SchemaMigrator.migrate(conn, true);
+            return candidate;
+        } catch (SQLException | RuntimeException e) {
+            candidate.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Open the SQLite writer, migrate the schema through it, then open the read-only pool.
+     * The writer goes first so the database file and its WAL exist before any reader.
+     */
+    private static void openSQLite() throws SQLException {
+        SqliteWriteQueue writer = new SqliteWriteQueue(instrumented(SqliteProfile.openWriter(SQLITE_URL)));
         try {
-            // Fallback to SQLite
-            connection = connectToSQLite();
-            useMysql = false;
-            logger.info("Connected to SQLite database");
-            createTables();
-        } catch (SQLException e) {
-            logger.error("Failed to connect to any database", e);
-            throw new RuntimeException("Database initialization failed", e);
+            writer.submit(conn -> {
+                SchemaMigrator.migrate(conn, false);
+                return null;
+            });
+            sqliteWriter = writer;
+            pool = new ConnectionPool("sqlite-read", () -> instrumented(SqliteProfile.openReader(SQLITE_URL)), POOL_SETTINGS);
+        } catch (SQLException | RuntimeException e) {
+            writer.close();
+            sqliteWriter = null;
+            throw e;
         }
     }
     
+    /**
+     * Pool for the read replica. A {@code jdbc:sqlite:} URL opens read-only SQLite connections,
+     * which makes it possible to try routing locally with a copy of the database file.
+     */
+    private static ConnectionPool openReplicaPool() {
+        ConnectionPool.ConnectionFactory factory = REPLICA_URL.startsWith("jdbc:sqlite:")
+            ? () -> SqliteProfile.openReader(REPLICA_URL)
+            : () -> {
+                Connection conn = connectToMySQL(REPLICA_URL);
+                conn.setReadOnly(true);
+                return conn;
+            };
+        return new ConnectionPool("replica", () -> instrumented(factory.create()), POOL_SETTINGS);
+    }
+    
+    /**
+     * Timed by {@link QueryMetrics} underneath the statement cache, so cache hits reuse
+     * statements that are already instrumented.
+     */
+    private static Connection instrumented(Connection physical) {
+        return StatementCache.wrap(QueryMetrics.wrap(physical), STATEMENT_CACHE_SIZE);
+    }
+    
     private static Connection connectToMySQL() throws SQLException {
+        return connectToMySQL(MYSQL_URL);
+    }
+    
+    private static Connection connectToMySQL(String url) throws SQLException {
+        return connectToMySQL(url, false);
+    }
+    
+    private static Connection connectToMySQL(String url, boolean compressed) throws SQLException {
         Properties props = new Properties();
         props.setProperty("user", USERNAME);
         props.setProperty("password", PASSWORD);
         props.setProperty("useSSL", "false");
         props.setProperty("allowPublicKeyRetrieval", "true");
         props.setProperty("serverTimezone", "Asia/Manila");
+        // Server-side prepares pay off now that statements are reused from the cache
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("connectTimeout", String.valueOf(MYSQL_CONNECT_TIMEOUT_MS));
+        if (compressed) {
+            props.setProperty("useCompression", "true");
+        }
         
-        return DriverManager.getConnection(MYSQL_URL, props);
+        return DriverManager.getConnection(mariaDbCompatibleUrl(url), props);
     }
     
-    private static Connection connectToSQLite() throws SQLException {
-        return DriverManager.getConnection(SQLITE_URL);
+    /**
+     * Open a dedicated connection to the central database for SyncEngine, in manual-commit
+     * mode, migrating the central schema and installing its change capture the first time.
+     * MySQL traffic is compressed, which pays off on the slow links sync runs over. A
+     * {@code jdbc:sqlite:} URL is accepted so the sync can be tried against a local file.
+     */
+    public static Connection openCentralConnection() throws SQLException {
+        boolean sqlite = SYNC_CENTRAL_URL.startsWith("jdbc:sqlite:");
+        Connection conn = QueryMetrics.wrap(sqlite ? SqliteProfile.openWriter(SYNC_CENTRAL_URL) : connectToMySQL(SYNC_CENTRAL_URL, true));
+        try {
+            if (!centralMigrated) {
+                // Same as at startup: MySQL migrates in auto-commit mode, SQLite in one transaction
+                if (sqlite) {
+                    conn.setAutoCommit(false);
+                    SchemaMigrator.migrate(conn, false);
+                    conn.commit();
+                } else {
+                    SchemaMigrator.migrate(conn, true);
+                    SchemaMigrator.installChangeCapture(conn);
+                }
+                centralMigrated = true;
+            }
+            conn.setAutoCommit(false);
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * MariaDB Connector/J 3.x only claims {@code jdbc:mysql:} URLs that opt in with
+     * {@code permitMysqlScheme}; without it the driver lookup fails before any connect attempt.
+     */
+    private static String mariaDbCompatibleUrl(String url) {
+        if (!url.startsWith("jdbc:mysql:") || url.contains("permitMysqlScheme")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + "permitMysqlScheme";
     }
     
+    /**
+     * Borrow a connection from the pool. Closing the returned connection hands it back.
+     * On SQLite these connections are read-only; writes go through {@link #executeWrite(SqlWork)}.
+     */
     public static Connection getConnection() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            initialize();
+            current = pool;
+        }
+        
         try {
-            if (connection == null || connection.isClosed()) {
-                initialize();
-            }
-            return connection;
+            return current.borrow();
         } catch (SQLException e) {
             logger.error("Error getting database connection", e);
             throw new RuntimeException("Database connection error", e);
         }
     }
     
-    private static void createTables() {
-        try (Statement stmt = connection.createStatement()) {
-            // Users table
-            String createUsersTable = useMysql ? 
-                "CREATE TABLE IF NOT EXISTS users (" +
-                "id INT PRIMARY KEY AUTO_INCREMENT," +
-                "username VARCHAR(50) UNIQUE NOT NULL," +
-                "password_hash VARCHAR(255) NOT NULL," +
-                "email VARCHAR(100)," +
-                "full_name VARCHAR(100) NOT NULL," +
-                "role VARCHAR(50) NOT NULL," +
-                "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-                "failed_login_attempts INT DEFAULT 0," +
-                "last_login TIMESTAMP NULL," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP" +
-                ")" :
-                "CREATE TABLE IF NOT EXISTS users (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "username VARCHAR(50) UNIQUE NOT NULL," +
-                "password_hash VARCHAR(255) NOT NULL," +
-                "email VARCHAR(100)," +
-                "full_name VARCHAR(100) NOT NULL," +
-                "role VARCHAR(50) NOT NULL," +
-                "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-                "failed_login_attempts INTEGER DEFAULT 0," +
-                "last_login TIMESTAMP NULL," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                ")";
-            stmt.execute(createUsersTable);
-            
-            // Barangays table
-            String createBarangaysTable = useMysql ?
-                "CREATE TABLE IF NOT EXISTS barangays (" +
-                "id INT PRIMARY KEY AUTO_INCREMENT," +
-                "name VARCHAR(100) NOT NULL," +
-                "code VARCHAR(20) UNIQUE NOT NULL," +
-                "population INT DEFAULT 0," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                ")" :
-                "CREATE TABLE IF NOT EXISTS barangays (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "name VARCHAR(100) NOT NULL," +
-                "code VARCHAR(20) UNIQUE NOT NULL," +
-                "population INTEGER DEFAULT 0," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                ")";
-            stmt.execute(createBarangaysTable);
-            
-            // Puroks table
-            String createPuroksTable = useMysql ?
-                "CREATE TABLE IF NOT EXISTS puroks (" +
-                "id INT PRIMARY KEY AUTO_INCREMENT," +
-                "barangay_id INT NOT NULL," +
-                "name VARCHAR(100) NOT NULL," +
-                "code VARCHAR(20) NOT NULL," +
-                "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
-                "UNIQUE KEY unique_purok (barangay_id, code)" +
-                ")" :
-                "CREATE TABLE IF NOT EXISTS puroks (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "barangay_id INTEGER NOT NULL," +
-                "name VARCHAR(100) NOT NULL," +
-                "code VARCHAR(20) NOT NULL," +
-                "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
-                "UNIQUE (barangay_id, code)" +
-                ")";
-            stmt.execute(createPuroksTable);
-            
-            // Beneficiaries table
-            String createBeneficiariesTable = useMysql ?
-                "CREATE TABLE IF NOT EXISTS beneficiaries (" +
-                "id INT PRIMARY KEY AUTO_INCREMENT," +
-                "beneficiary_id VARCHAR(10) UNIQUE NOT NULL," +
-                "full_name VARCHAR(150) NOT NULL," +
-                "birth_date DATE NOT NULL," +
-                "gender VARCHAR(20) NOT NULL," +
-                "civil_status VARCHAR(20) NOT NULL," +
-                "contact_number VARCHAR(20)," +
-                "email VARCHAR(100)," +
-                "barangay_id INT NOT NULL," +
-                "purok_id INT NOT NULL," +
-                "street_sitio VARCHAR(200)," +
-                "is_household_head BOOLEAN DEFAULT FALSE," +
-                "family_size INT DEFAULT 1," +
-                "monthly_income_range VARCHAR(20)," +
-                "employment_status VARCHAR(20)," +
-                "priority_level INT DEFAULT 3," +
-                "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-                "photo_path VARCHAR(500)," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
-                "created_by INT," +
-                "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
-                "FOREIGN KEY (purok_id) REFERENCES puroks(id)" +
-                ")" :
-                "CREATE TABLE IF NOT EXISTS beneficiaries (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "beneficiary_id VARCHAR(10) UNIQUE NOT NULL," +
-                "full_name VARCHAR(150) NOT NULL," +
-                "birth_date DATE NOT NULL," +
-                "gender VARCHAR(20) NOT NULL," +
-                "civil_status VARCHAR(20) NOT NULL," +
-                "contact_number VARCHAR(20)," +
-                "email VARCHAR(100)," +
-                "barangay_id INTEGER NOT NULL," +
-                "purok_id INTEGER NOT NULL," +
-                "street_sitio VARCHAR(200)," +
-                "is_household_head INTEGER DEFAULT 0," +
-                "family_size INTEGER DEFAULT 1," +
-                "monthly_income_range VARCHAR(20)," +
-                "employment_status VARCHAR(20)," +
-                "priority_level INTEGER DEFAULT 3," +
-                "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-                "photo_path VARCHAR(500)," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "created_by INTEGER," +
-                "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
-                "FOREIGN KEY (purok_id) REFERENCES puroks(id)" +
-                ")";
-            stmt.execute(createBeneficiariesTable);
-            
-            // Beneficiary vulnerabilities table
-            String createVulnerabilitiesTable = useMysql ?
-                "CREATE TABLE IF NOT EXISTS beneficiary_vulnerabilities (" +
-                "id INT PRIMARY KEY AUTO_INCREMENT," +
-                "beneficiary_id INT NOT NULL," +
-                "is_pwd BOOLEAN DEFAULT FALSE," +
-                "is_senior_citizen BOOLEAN DEFAULT FALSE," +
-                "is_pregnant_lactating BOOLEAN DEFAULT FALSE," +
-                "is_solo_parent BOOLEAN DEFAULT FALSE," +
-                "has_chronic_illness BOOLEAN DEFAULT FALSE," +
-                "is_orphan BOOLEAN DEFAULT FALSE," +
-                "is_indigenous BOOLEAN DEFAULT FALSE," +
-                "is_homeless BOOLEAN DEFAULT FALSE," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id) ON DELETE CASCADE" +
-                ")" :
-                "CREATE TABLE IF NOT EXISTS beneficiary_vulnerabilities (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "beneficiary_id INTEGER NOT NULL," +
-                "is_pwd INTEGER DEFAULT 0," +
-                "is_senior_citizen INTEGER DEFAULT 0," +
-                "is_pregnant_lactating INTEGER DEFAULT 0," +
-                "is_solo_parent INTEGER DEFAULT 0," +
-                "has_chronic_illness INTEGER DEFAULT 0," +
-                "is_orphan INTEGER DEFAULT 0," +
-                "is_indigenous INTEGER DEFAULT 0," +
-                "is_homeless INTEGER DEFAULT 0," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id) ON DELETE CASCADE" +
-                ")";
-            stmt.execute(createVulnerabilitiesTable);
-            
-            // Insert default admin user with simple password (temporary)
-            String passwordHash = "password"; // Temporary simple password
-            
-            String insertAdmin = useMysql ?
-                "INSERT IGNORE INTO users (username, password_hash, full_name, role) " +
-                "VALUES ('admin', '" + passwordHash + "', 'System Administrator', 'SUPER_ADMIN')" :
-                "INSERT OR IGNORE INTO users (username, password_hash, full_name, role) " +
-                "VALUES ('admin', '" + passwordHash + "', 'System Administrator', 'SUPER_ADMIN')";
-            
-            stmt.execute(insertAdmin);
-            
-            // Create inventory tables
-            createInventoryTables(stmt);
-            
-            // Create distribution tables
-            createDistributionTables(stmt);
-            
-            // Insert default barangays for Mati City
-            insertDefaultBarangays(stmt);
-            
-            logger.info("Database tables created successfully");
-            
-        } catch (SQLException e) {
-            logger.error("Error creating database tables", e);
-            throw new RuntimeException("Database table creation failed", e);
+    /**
+     * Borrow a connection for read-only work such as dashboard counts, searches and list screens.
+     * <p>
+     * Served by the read replica when one is configured and within the lag limit; otherwise, or
+     * shortly after this process wrote (so users see their own changes), by the primary.
+     */
+    public static Connection getReadConnection() {
+        ReplicaRouter router = replica;
+        if (router != null && System.currentTimeMillis() - lastWriteMillis > router.getMaxLagMs()) {
+            Connection conn = router.borrow();
+            if (conn != null) {
+                return conn;
+            }
         }
+        return getConnection();
+    }
+    
+    /**
+     * Run write work in a single transaction and return its result once committed.
+     * <p>
+     * On MySQL the work runs on a pooled connection in its own transaction. On SQLite it is
+     * queued to the single writer thread and may be group-committed with other writes.
+     * Calls made from inside running write work join the enclosing transaction.
+     */
+    public static <T> T executeWrite(SqlWork<T> work) throws SQLException {
+        T result = runWrite(work);
+        lastWriteMillis = System.currentTimeMillis();
+        return result;
     }
     
-    private static void insertDefaultBarangays(Statement stmt) throws SQLException {
-        String[] barangays = {
-            "Badas", "Bato", "Bohewan", "Cabuaya", "Central", "Culian", "Dahican", 
-            "Dawan", "Don Enrique Lopez", "Don Martin Marundan", "Don Salvador Lopez Sr.", 
-            "Langka", "Lawigan", "Libudon", "Luban", "Macambol", "Mamali", "Matiao", 
-            "Mayo", "Sainz", "Tagabakid", "Tagbinonga", "Taguibo", "Tamisan", "Tarragona", "Wasi"
-        };
+    /**
+     * {@link #executeWrite(SqlWork)} without marking the write as user-visible, for
+     * bookkeeping writes that should not pin reads to the primary.
+     */
+    static <T> T runWrite(SqlWork<T> work) throws SQLException {
+        Connection active = currentWrite.get();
+        if (active != null) {
+            return work.execute(active);
+        }
+        
+        if (pool == null) {
+            initialize();
+        }
         
-        String insertBarangaySQL = useMysql ? "INSERT IGNORE INTO" : "INSERT OR IGNORE INTO";
-        for (int i = 0; i < barangays.length; i++) {
+        SqliteWriteQueue writer = sqliteWriter;
+        if (writer != null) {
+            return writer.submit(work);
+        }
+        
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            currentWrite.set(ManagedTransaction.wrap(conn));
             try {
-                stmt.execute(String.format(
-                    "%s barangays (name, code) VALUES ('%s', 'BRG%03d')",
-                    insertBarangaySQL, barangays[i], i + 1
-                ));
-            } catch (SQLException e) {
-                logger.warn("Failed to insert barangay: {}", barangays[i], e);
+                T result = work.execute(currentWrite.get());
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                currentWrite.remove();
+                conn.setAutoCommit(true);
             }
         }
     }
     
-    public static void shutdown() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                logger.info("Database connection closed");
-            }
-        } catch (SQLException e) {
-            logger.error("Error closing database connection", e);
-        }
+    /**
+     * Whether the calling thread is running write work, i.e. further writes would join its transaction.
+     */
+    public static boolean isInWrite() {
+        SqliteWriteQueue writer = sqliteWriter;
+        return currentWrite.get() != null || (writer != null && writer.isWriterThread());
     }
     
-    private static void createInventoryTables(Statement stmt) throws SQLException {
-        // Inventory categories
-        String createCategoriesTable = useMysql ?
-            "CREATE TABLE IF NOT EXISTS inventory_categories (" +
-            "id INT PRIMARY KEY AUTO_INCREMENT," +
-            "name VARCHAR(100) NOT NULL," +
-            "code VARCHAR(20) UNIQUE NOT NULL," +
-            "description TEXT," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-            ")" :
-            "CREATE TABLE IF NOT EXISTS inventory_categories (" +
-            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-            "name VARCHAR(100) NOT NULL," +
-            "code VARCHAR(20) UNIQUE NOT NULL," +
-            "description TEXT," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-            ")";
-        stmt.execute(createCategoriesTable);
-        
-        // Suppliers
-        String createSuppliersTable = useMysql ?
-            "CREATE TABLE IF NOT EXISTS suppliers (" +
-            "id INT PRIMARY KEY AUTO_INCREMENT," +
-            "name VARCHAR(150) NOT NULL," +
-            "contact_person VARCHAR(100)," +
-            "contact_number VARCHAR(20)," +
-            "email VARCHAR(100)," +
-            "address TEXT," +
-            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-            ")" :
-            "CREATE TABLE IF NOT EXISTS suppliers (" +
-            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-            "name VARCHAR(150) NOT NULL," +
-            "contact_person VARCHAR(100)," +
-            "contact_number VARCHAR(20)," +
-            "email VARCHAR(100)," +
-            "address TEXT," +
-            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-            ")";
-        stmt.execute(createSuppliersTable);
-        
-        // Inventory items
-        String createItemsTable = useMysql ?
-            "CREATE TABLE IF NOT EXISTS inventory_items (" +
-            "id INT PRIMARY KEY AUTO_INCREMENT," +
-            "item_code VARCHAR(50) UNIQUE NOT NULL," +
-            "item_name VARCHAR(200) NOT NULL," +
-            "category_id INT NOT NULL," +
-            "unit_of_measure VARCHAR(20) NOT NULL," +
-            "current_stock DECIMAL(10,2) DEFAULT 0," +
-            "minimum_stock_level DECIMAL(10,2) DEFAULT 0," +
-            "maximum_stock_level DECIMAL(10,2) DEFAULT 0," +
-            "unit_cost DECIMAL(10,2) DEFAULT 0," +
-            "supplier_id INT," +
-            "batch_number VARCHAR(50)," +
-            "manufacture_date DATE," +
-            "expiration_date DATE," +
-            "storage_location VARCHAR(100)," +
-            "storage_conditions TEXT," +
-            "photo_path VARCHAR(500)," +
-            "barcode VARCHAR(100)," +
-            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (category_id) REFERENCES inventory_categories(id)," +
-            "FOREIGN KEY (supplier_id) REFERENCES suppliers(id)" +
-            ")" :
-            "CREATE TABLE IF NOT EXISTS inventory_items (" +
-            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-            "item_code VARCHAR(50) UNIQUE NOT NULL," +
-            "item_name VARCHAR(200) NOT NULL," +
-            "category_id INTEGER NOT NULL," +
-            "unit_of_measure VARCHAR(20) NOT NULL," +
-            "current_stock REAL DEFAULT 0," +
-            "minimum_stock_level REAL DEFAULT 0," +
-            "maximum_stock_level REAL DEFAULT 0," +
-            "unit_cost REAL DEFAULT 0," +
-            "supplier_id INTEGER," +
-            "batch_number VARCHAR(50)," +
-            "manufacture_date DATE," +
-            "expiration_date DATE," +
-            "storage_location VARCHAR(100)," +
-            "storage_conditions TEXT," +
-            "photo_path VARCHAR(500)," +
-            "barcode VARCHAR(100)," +
-            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (category_id) REFERENCES inventory_categories(id)," +
-            "FOREIGN KEY (supplier_id) REFERENCES suppliers(id)" +
-            ")";
-        stmt.execute(createItemsTable);
-        
-        // Stock movements
-        String createMovementsTable = useMysql ?
-            "CREATE TABLE IF NOT EXISTS stock_movements (" +
-            "id INT PRIMARY KEY AUTO_INCREMENT," +
-            "item_id INT NOT NULL," +
-            "movement_type VARCHAR(20) NOT NULL," +
-            "quantity DECIMAL(10,2) NOT NULL," +
-            "unit_cost DECIMAL(10,2)," +
-            "reference_number VARCHAR(50)," +
-            "reason VARCHAR(200)," +
-            "performed_by INT NOT NULL," +
-            "movement_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)," +
-            "FOREIGN KEY (performed_by) REFERENCES users(id)" +
-            ")" :
-            "CREATE TABLE IF NOT EXISTS stock_movements (" +
-            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-            "item_id INTEGER NOT NULL," +
-            "movement_type VARCHAR(20) NOT NULL," +
-            "quantity REAL NOT NULL," +
-            "unit_cost REAL," +
-            "reference_number VARCHAR(50)," +
-            "reason VARCHAR(200)," +
-            "performed_by INTEGER NOT NULL," +
-            "movement_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)," +
-            "FOREIGN KEY (performed_by) REFERENCES users(id)" +
-            ")";
-        stmt.execute(createMovementsTable);
-        
-        // Insert default categories
-        String insertCategorySQL = useMysql ? "INSERT IGNORE INTO" : "INSERT OR IGNORE INTO";
-        String[] categories = {
-            "Food & Nutrition,FOOD,Food items and nutritional supplements",
-            "Hygiene & Sanitation,HYGN,Personal hygiene and sanitation items",
-            "Medical & Health,MEDL,Medical supplies and health-related items",
-            "Clothing & Bedding,CLTH,Clothing blankets and bedding materials",
-            "Shelter Materials,SHLT,Construction and shelter materials"
-        };
-        
-        for (String category : categories) {
-            String[] parts = category.split(",");
-            stmt.execute(String.format(
-                "%s inventory_categories (name, code, description) VALUES ('%s', '%s', '%s')",
-                insertCategorySQL, parts[0], parts[1], parts[2]
-            ));
+    public static ConnectionPool.Stats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+    
+    /**
+     * Stats of the read replica's pool, or null when no replica is configured.
+     */
+    public static ConnectionPool.Stats getReplicaPoolStats() {
+        ReplicaRouter router = replica;
+        return router != null ? router.getPoolStats() : null;
+    }
+    
+    /**
+     * How long SQLite writes waited for the single writer, or null on MySQL.
+     */
+    public static LatencyHistogram.Snapshot getWriteQueueWait() {
+        SqliteWriteQueue writer = sqliteWriter;
+        return writer != null ? writer.getWaitStats() : null;
+    }
+    
+    public static StatementCache.Stats getStatementCacheStats() {
+        return StatementCache.getStats();
+    }
+    
+    public static int intSetting(String property, String envVariable, int defaultValue) {
+        String value = System.getProperty(property, System.getenv(envVariable));
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for {}, using default {}", value, property, defaultValue);
+            return defaultValue;
         }
     }
     
-    private static void createDistributionTables(Statement stmt) throws SQLException {
-        // Distribution events
-        String createEventsTable = useMysql ?
-            "CREATE TABLE IF NOT EXISTS distribution_events (" +
-            "id INT PRIMARY KEY AUTO_INCREMENT," +
-            "event_name VARCHAR(200) NOT NULL," +
-            "event_type VARCHAR(20) NOT NULL," +
-            "description TEXT," +
-            "planned_date DATE NOT NULL," +
-            "status VARCHAR(20) DEFAULT 'PLANNED'," +
-            "created_by INT NOT NULL," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (created_by) REFERENCES users(id)" +
-            ")" :
-            "CREATE TABLE IF NOT EXISTS distribution_events (" +
-            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-            "event_name VARCHAR(200) NOT NULL," +
-            "event_type VARCHAR(20) NOT NULL," +
-            "description TEXT," +
-            "planned_date DATE NOT NULL," +
-            "status VARCHAR(20) DEFAULT 'PLANNED'," +
-            "created_by INTEGER NOT NULL," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (created_by) REFERENCES users(id)" +
-            ")";
-        stmt.execute(createEventsTable);
-        
-        // Distributions
-        String createDistributionsTable = useMysql ?
-            "CREATE TABLE IF NOT EXISTS distributions (" +
-            "id INT PRIMARY KEY AUTO_INCREMENT," +
-            "distribution_event_id INT," +
-            "beneficiary_id INT NOT NULL," +
-            "distribution_date DATETIME DEFAULT CURRENT_TIMESTAMP," +
-            "distributed_by INT NOT NULL," +
-            "total_value DECIMAL(10,2) DEFAULT 0," +
-            "status VARCHAR(20) DEFAULT 'COMPLETED'," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (distribution_event_id) REFERENCES distribution_events(id)," +
-            "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id)," +
-            "FOREIGN KEY (distributed_by) REFERENCES users(id)" +
-            ")" :
-            "CREATE TABLE IF NOT EXISTS distributions (" +
-            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-            "distribution_event_id INTEGER," +
-            "beneficiary_id INTEGER NOT NULL," +
-            "distribution_date DATETIME DEFAULT CURRENT_TIMESTAMP," +
-            "distributed_by INTEGER NOT NULL," +
-            "total_value REAL DEFAULT 0," +
-            "status VARCHAR(20) DEFAULT 'COMPLETED'," +
-            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-            "FOREIGN KEY (distribution_event_id) REFERENCES distribution_events(id)," +
-            "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id)," +
-            "FOREIGN KEY (distributed_by) REFERENCES users(id)" +
-            ")";
-        stmt.execute(createDistributionsTable);
+    public static synchronized void shutdown() {
+        if (replica != null) {
+            replica.close();
+            replica = null;
+        }
+        if (sqliteWriter != null) {
+            sqliteWriter.close();
+            sqliteWriter = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+            logger.info("Database connection pool closed ({})", StatementCache.getStats());
+        }
     }
     
     public static boolean isUsingMySQL() {
         return useMysql;
     }
+    
+    /**
+     * Whether the application works on the local SQLite database even when MySQL is reachable
+     * ({@code db.offlineFirst}), leaving the central database to SyncEngine.
+     */
+    public static boolean isOfflineFirst() {
+        return OFFLINE_FIRST;
+    }
 }
\ No newline at end of file
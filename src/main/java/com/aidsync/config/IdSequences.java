@@ -0,0 +1,107 @@
+package com.aidsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named counters for human-readable IDs such as {@code BEN00042} or {@code FOOD-007}.
+ * <p>
+ * Each counter is a row in {@code id_sequences}. A process reserves a block of values by
+ * advancing the row in its own short transaction (the row lock, or SQLite's write lock,
+ * makes the reservation atomic across processes) and then hands the values out from memory.
+ * IDs are therefore unique across every instance sharing the database, but not gap-free:
+ * values left in a block when the application exits are never used.
+ * <p>
+ * Reservations must not be made from inside {@link DatabaseConfig#executeWrite(SqlWork)}:
+ * if the enclosing transaction rolled back, values already handed out would be reserved again.
+ */
+public final class IdSequences {
+    private static final Logger logger = LoggerFactory.getLogger(IdSequences.class);
+
+    private static final int BLOCK_SIZE = DatabaseConfig.intSetting("db.idBlockSize", "DB_ID_BLOCK_SIZE", 20);
+
+    private static final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private IdSequences() {
+    }
+
+    /**
+     * Values {@code [next, end)} reserved by this process and not yet handed out.
+     */
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+
+    /**
+     * Next value of the named counter. Counters start at 1.
+     */
+    public static long next(String name) throws SQLException {
+        Block block = blocks.computeIfAbsent(name, key -> new Block());
+        synchronized (block) {
+            if (block.next == block.end) {
+                block.next = reserve(name, BLOCK_SIZE);
+                block.end = block.next + BLOCK_SIZE;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Forget the values reserved by this process but not yet handed out, so the next call to
+     * {@link #next(String)} reserves from the counter again. Used after the counters have been
+     * moved to a new range from outside, as SyncEngine does.
+     */
+    public static void discardReserved() {
+        blocks.clear();
+    }
+
+    /**
+     * Reserve {@code count} consecutive values of the named counter straight from the database,
+     * for bulk inserts. Returns the first value.
+     */
+    public static long reserve(String name, int count) throws SQLException {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        if (DatabaseConfig.isInWrite()) {
+            throw new IllegalStateException("ID sequence '" + name + "' must be reserved outside write transactions");
+        }
+
+        long end = DatabaseConfig.runWrite(conn -> {
+            try (PreparedStatement advance = conn.prepareStatement(
+                    "UPDATE id_sequences SET next_value = next_value + ? WHERE name = ?")) {
+                advance.setInt(1, count);
+                advance.setString(2, name);
+                if (advance.executeUpdate() == 0) {
+                    String create = DatabaseConfig.isUsingMySQL()
+                        ? "INSERT IGNORE INTO id_sequences (name, next_value) VALUES (?, 1)"
+                        : "INSERT OR IGNORE INTO id_sequences (name, next_value) VALUES (?, 1)";
+                    try (PreparedStatement insert = conn.prepareStatement(create)) {
+                        insert.setString(1, name);
+                        insert.executeUpdate();
+                    }
+                    advance.executeUpdate();
+                }
+            }
+            try (PreparedStatement read = conn.prepareStatement("SELECT next_value FROM id_sequences WHERE name = ?")) {
+                read.setString(1, name);
+                try (ResultSet rs = read.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("ID sequence '" + name + "' could not be created");
+                    }
+                    return rs.getLong(1);
+                }
+            }
+        });
+
+        logger.debug("Reserved {} value(s) of ID sequence '{}' up to {}", count, name, end - 1);
+        return end - count;
+    }
+}
@@ -0,0 +1,48 @@
+package com.aidsync.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Wraps a connection whose transaction is owned by {@link DatabaseConfig}, so write work
+ * cannot commit or close it behind the transaction owner's back.
+ */
+final class ManagedTransaction {
+    
+    private ManagedTransaction() {
+    }
+    
+    static Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+            ManagedTransaction.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        // Closing is left to the transaction owner
+                        return null;
+                    case "commit":
+                    case "setAutoCommit":
+                        throw new SQLException("Transaction is managed by DatabaseConfig.executeWrite");
+                    case "rollback":
+                        if (args == null) {
+                            throw new SQLException("Transaction is managed by DatabaseConfig.executeWrite");
+                        }
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        break;
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+}
@@ -0,0 +1,59 @@
+package com.aidsync.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * One versioned schema change, with the statements to run for each dialect.
+ */
+record Migration(int version, String description, List<String> mysqlStatements, List<String> sqliteStatements) {
+
+    /**
+     * A secondary index. MySQL scopes index names per table while SQLite scopes them per
+     * database, so each dialect gets its own name.
+     */
+    record Index(String table, String mysqlName, String sqliteName, String columns) {
+    }
+
+    Migration {
+        mysqlStatements = List.copyOf(mysqlStatements);
+        sqliteStatements = List.copyOf(sqliteStatements);
+    }
+
+    /**
+     * Build a migration that only creates indexes.
+     */
+    static Migration indexes(int version, String description, Index... indexes) {
+        List<String> mysql = new ArrayList<>(indexes.length);
+        List<String> sqlite = new ArrayList<>(indexes.length);
+        for (Index index : indexes) {
+            mysql.add("CREATE INDEX " + index.mysqlName() + " ON " + index.table() + " (" + index.columns() + ")");
+            sqlite.add("CREATE INDEX IF NOT EXISTS " + index.sqliteName() + " ON " + index.table() + " (" + index.columns() + ")");
+        }
+        return new Migration(version, description, mysql, sqlite);
+    }
+
+    List<String> statements(boolean mysql) {
+        return mysql ? mysqlStatements : sqliteStatements;
+    }
+
+    /**
+     * SHA-256 over the statements for the given dialect, used to detect edits to applied migrations.
+     */
+    String checksum(boolean mysql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String statement : statements(mysql)) {
+                digest.update(statement.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
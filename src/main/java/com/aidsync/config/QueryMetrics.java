@@ -0,0 +1,350 @@
+package com.aidsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per-statement timings for every connection {@link DatabaseConfig} opens.
+ * <p>
+ * {@link #wrap(Connection)} returns a connection whose statements time each execute call
+ * and count the rows it returned or changed, keyed by the SQL with literals and the length
+ * of {@code IN} lists taken out, so one query shape is one entry however it is called.
+ * Executions slower than {@code db.slowQueryMs} (500 ms by default) are logged with that
+ * normalized SQL, which carries no parameter values. The connection sits under the
+ * statement cache, so a cached statement keeps its instrumentation and costs nothing more
+ * to reuse.
+ */
+public final class QueryMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetrics.class);
+
+    private static final int SLOW_QUERY_MS = DatabaseConfig.intSetting("db.slowQueryMs", "DB_SLOW_QUERY_MS", 500);
+    private static final long SLOW_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(SLOW_QUERY_MS);
+    // Bounds memory when SQL is built with values pasted in; the rest is counted together
+    private static final int MAX_STATEMENTS = 500;
+    private static final int MAX_RAW_SQL = 4 * MAX_STATEMENTS;
+    private static final String OTHER = "(other statements)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern VALUES_ROWS = Pattern.compile(
+        "(\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))(?:\\s*,\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))+");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Map<String, Entry> byNormalizedSql = new ConcurrentHashMap<>();
+    private static final Map<String, Entry> byRawSql = new ConcurrentHashMap<>();
+
+    /**
+     * Totals for one normalized statement since startup or the last {@link #reset()}.
+     */
+    public record QueryStats(String sql, long calls, long errors, long rows, long totalMillis,
+                             LatencyHistogram.Snapshot latency) {
+    }
+
+    private QueryMetrics() {
+    }
+
+    static Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+            QueryMetrics.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new InstrumentedConnection(physical));
+    }
+
+    /**
+     * Every statement run since startup or the last reset, slowest in total first.
+     */
+    public static List<QueryStats> snapshot() {
+        List<QueryStats> stats = new ArrayList<>(byNormalizedSql.size());
+        for (Entry entry : byNormalizedSql.values()) {
+            QueryStats entryStats = entry.snapshot();
+            if (entryStats.calls() > 0) {
+                stats.add(entryStats);
+            }
+        }
+        stats.sort((a, b) -> Long.compare(b.totalMillis(), a.totalMillis()));
+        return stats;
+    }
+
+    /**
+     * Start counting again from zero. Entries are cleared rather than dropped, because
+     * statements held in the statement cache keep recording into the entry they were
+     * prepared with.
+     */
+    public static void reset() {
+        byNormalizedSql.values().forEach(Entry::clear);
+    }
+
+    public static int getSlowQueryMillis() {
+        return SLOW_QUERY_MS;
+    }
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = VALUES_ROWS.matcher(normalized).replaceAll("$1, ...");
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (?, ...)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private static Entry entryFor(String sql) {
+        if (sql == null) {
+            return entryForNormalized(OTHER);
+        }
+        Entry entry = byRawSql.get(sql);
+        if (entry == null) {
+            entry = entryForNormalized(normalize(sql));
+            if (byRawSql.size() < MAX_RAW_SQL) {
+                byRawSql.put(sql, entry);
+            }
+        }
+        return entry;
+    }
+
+    private static Entry entryForNormalized(String sql) {
+        Entry entry = byNormalizedSql.get(sql);
+        if (entry != null) {
+            return entry;
+        }
+        if (byNormalizedSql.size() >= MAX_STATEMENTS && !sql.equals(OTHER)) {
+            return entryForNormalized(OTHER);
+        }
+        return byNormalizedSql.computeIfAbsent(sql, Entry::new);
+    }
+
+    private static final class Entry {
+        private final String sql;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Entry(String sql) {
+            this.sql = sql;
+        }
+
+        private void record(long nanos, boolean failed) {
+            calls.increment();
+            totalNanos.add(nanos);
+            latency.record(nanos);
+            if (failed) {
+                errors.increment();
+            }
+            if (nanos >= SLOW_QUERY_NANOS) {
+                logger.warn("Slow query took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+            }
+        }
+
+        private void clear() {
+            calls.reset();
+            errors.reset();
+            rows.reset();
+            totalNanos.reset();
+            latency.clear();
+        }
+
+        private QueryStats snapshot() {
+            return new QueryStats(sql, calls.sum(), errors.sum(), rows.sum(),
+                TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()), latency.snapshot());
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class InstrumentedConnection implements InvocationHandler {
+        private final Connection physical;
+
+        private InstrumentedConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "createStatement":
+                    return instrument(method, QueryMetrics.invoke(physical, method, args), null);
+                case "prepareStatement":
+                case "prepareCall":
+                    return instrument(method, QueryMetrics.invoke(physical, method, args), entryFor((String) args[0]));
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return QueryMetrics.invoke(physical, method, args);
+            }
+        }
+
+        private static Object instrument(Method method, Object statement, Entry entry) {
+            return Proxy.newProxyInstance(
+                QueryMetrics.class.getClassLoader(),
+                new Class<?>[] { method.getReturnType() },
+                new InstrumentedStatement((Statement) statement, entry));
+        }
+    }
+
+    /**
+     * Times execute calls. A prepared statement has one entry for its lifetime; a plain
+     * statement looks one up from the SQL passed to each call.
+     */
+    private static final class InstrumentedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final Entry prepared;
+        private Entry current;
+        private String batchSql;
+
+        private InstrumentedStatement(Statement statement, Entry prepared) {
+            this.statement = statement;
+            this.prepared = prepared;
+            this.current = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                switch (name) {
+                    case "getResultSet":
+                        ResultSet resultSet = (ResultSet) QueryMetrics.invoke(statement, method, args);
+                        return resultSet == null || current == null ? resultSet : countRows(resultSet, current);
+                    case "addBatch":
+                        if (args != null && args.length == 1 && batchSql == null) {
+                            batchSql = (String) args[0];
+                        }
+                        break;
+                    case "clearBatch":
+                        batchSql = null;
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        break;
+                }
+                return QueryMetrics.invoke(statement, method, args);
+            }
+
+            Entry entry = prepared;
+            if (entry == null) {
+                entry = entryFor(args != null && args.length > 0 ? (String) args[0] : batchSql);
+                if (name.contains("Batch")) {
+                    batchSql = null;
+                }
+            }
+            current = entry;
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryMetrics.invoke(statement, method, args);
+            } catch (Throwable e) {
+                entry.record(System.nanoTime() - start, true);
+                throw e;
+            }
+            entry.record(System.nanoTime() - start, false);
+
+            if (result instanceof ResultSet resultSet) {
+                return countRows(resultSet, entry);
+            }
+            if (Boolean.FALSE.equals(result)) {
+                int count = statement.getUpdateCount();
+                if (count > 0) {
+                    entry.rows.add(count);
+                }
+            } else if (result instanceof Integer count && count > 0) {
+                entry.rows.add(count);
+            } else if (result instanceof Long count && count > 0) {
+                entry.rows.add(count);
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    if (count > 0) {
+                        entry.rows.add(count);
+                    }
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    if (count > 0) {
+                        entry.rows.add(count);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static ResultSet countRows(ResultSet resultSet, Entry entry) {
+            return (ResultSet) Proxy.newProxyInstance(
+                QueryMetrics.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                new CountingResultSet(resultSet, entry));
+        }
+    }
+
+    /**
+     * Counts rows as they are read and adds them to the entry when the rows run out or the
+     * result set is closed, whichever comes first.
+     */
+    private static final class CountingResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+        private Entry entry;
+        private long rows;
+
+        private CountingResultSet(ResultSet resultSet, Entry entry) {
+            this.resultSet = resultSet;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    boolean more = (Boolean) QueryMetrics.invoke(resultSet, method, args);
+                    if (more) {
+                        rows++;
+                    } else {
+                        flush();
+                    }
+                    return more;
+                case "close":
+                    flush();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return QueryMetrics.invoke(resultSet, method, args);
+        }
+
+        private void flush() {
+            if (entry != null) {
+                entry.rows.add(rows);
+                entry = null;
+            }
+        }
+    }
+}
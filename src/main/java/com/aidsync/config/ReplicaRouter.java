@@ -0,0 +1,123 @@
+package com.aidsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes read-only work to a replica while it is reachable and fresh enough.
+ * <p>
+ * Freshness is measured with a heartbeat: a monitor thread stamps
+ * {@code replication_heartbeat} on the primary and reads the stamp back from the replica.
+ * The difference is the replication lag. While the lag is above the limit, or the replica
+ * cannot be read, {@link #borrow()} returns {@code null} and callers use the primary.
+ */
+final class ReplicaRouter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private final ConnectionPool pool;
+    private final long maxLagMs;
+    private final ScheduledExecutorService monitor;
+
+    private volatile boolean fresh;
+    private volatile long lastLagMs = -1;
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+
+    ReplicaRouter(ConnectionPool pool, long maxLagMs, long heartbeatIntervalMs) {
+        this.pool = pool;
+        this.maxLagMs = maxLagMs;
+        this.monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AIDSYNC-Replica-Monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        monitor.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a replica connection, or return {@code null} when reads should go to the primary.
+     */
+    Connection borrow() {
+        if (!fresh) {
+            primaryFallbacks.incrementAndGet();
+            return null;
+        }
+        try {
+            Connection conn = pool.borrow();
+            replicaReads.incrementAndGet();
+            return conn;
+        } catch (SQLException e) {
+            logger.warn("Replica unavailable, reading from primary: {}", e.getMessage());
+            markStale();
+            primaryFallbacks.incrementAndGet();
+            return null;
+        }
+    }
+
+    ConnectionPool.Stats getPoolStats() {
+        return pool.getStats();
+    }
+
+    long getMaxLagMs() {
+        return maxLagMs;
+    }
+
+    private void heartbeat() {
+        try {
+            long stamp = System.currentTimeMillis();
+            DatabaseConfig.runWrite(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1")) {
+                    stmt.setLong(1, stamp);
+                    return stmt.executeUpdate();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            logger.debug("Could not write replication heartbeat: {}", e.getMessage());
+        }
+
+        try (Connection conn = pool.borrow();
+             PreparedStatement stmt = conn.prepareStatement("SELECT beat_at FROM replication_heartbeat WHERE id = 1");
+             ResultSet rs = stmt.executeQuery()) {
+            long lag = rs.next() ? System.currentTimeMillis() - rs.getLong(1) : Long.MAX_VALUE;
+            lastLagMs = lag;
+            if (lag <= maxLagMs) {
+                if (!fresh) {
+                    logger.info("Read replica in sync (lag {}ms), routing read-only queries to it", lag);
+                }
+                fresh = true;
+            } else if (fresh) {
+                logger.warn("Read replica lagging by {}ms (limit {}ms), routing reads to primary", lag, maxLagMs);
+                fresh = false;
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (fresh) {
+                logger.warn("Read replica health check failed, routing reads to primary: {}", e.getMessage());
+            }
+            markStale();
+        }
+    }
+
+    private void markStale() {
+        fresh = false;
+        lastLagMs = -1;
+    }
+
+    @Override
+    public void close() {
+        monitor.shutdownNow();
+        pool.close();
+        logger.info("Read replica router closed: {} replica read(s), {} primary fallback(s), last lag {}ms",
+            replicaReads.get(), primaryFallbacks.get(), lastLagMs);
+    }
+}
@@ -0,0 +1,904 @@
+package com.aidsync.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered schema migrations for both supported dialects.
+ * <p>
+ * Applied migrations are recorded with a checksum, so once a migration has shipped it
+ * must never be edited; schema changes go into a new migration appended to {@link #all()}.
+ */
+final class SchemaMigrations {
+
+    // Synced tables in dependency order, each with the columns whose edits are synced
+    // (none for tables that are only ever inserted into)
+    private static final String[][] SYNCED_TABLES = {
+        {"users", "username", "password_hash", "email", "full_name", "role", "status"},
+        {"barangays", "name", "code", "population"},
+        {"puroks", "barangay_id", "name", "code"},
+        {"inventory_categories", "name", "code", "description"},
+        {"suppliers", "name", "contact_person", "contact_number", "email", "address", "status"},
+        {"beneficiaries", "beneficiary_id", "full_name", "birth_date", "gender", "civil_status", "contact_number",
+            "email", "barangay_id", "purok_id", "street_sitio", "is_household_head", "family_size",
+            "monthly_income_range", "employment_status", "priority_level", "status", "photo_path"},
+        {"beneficiary_vulnerabilities", "beneficiary_id", "is_pwd", "is_senior_citizen", "is_pregnant_lactating",
+            "is_solo_parent", "has_chronic_illness", "is_orphan", "is_indigenous", "is_homeless"},
+        {"inventory_items", "item_code", "item_name", "category_id", "unit_of_measure", "minimum_stock_level",
+            "maximum_stock_level", "unit_cost", "supplier_id", "batch_number", "manufacture_date", "expiration_date",
+            "storage_location", "storage_conditions", "photo_path", "barcode", "status"},
+        {"stock_lots", "batch_number", "expiration_date", "unit_cost"},
+        {"stock_movements"},
+        {"distribution_events", "event_name", "event_type", "description", "planned_date", "status"},
+        {"distributions", "distribution_event_id", "beneficiary_id", "distribution_date", "total_value", "status"},
+        {"distribution_items"}
+    };
+
+    private SchemaMigrations() {
+    }
+
+    static List<Migration> all() {
+        return List.of(
+            baseline(),
+            searchAndReportingIndexes(),
+            replicationHeartbeat(),
+            keysetPaginationIndexes(),
+            beneficiaryFullTextSearch(),
+            idSequences(),
+            referenceDataVersion(),
+            statCounters(),
+            auditLogs(),
+            distributionItems(),
+            stockLedgerOpeningBalances(),
+            stockSnapshots(),
+            stockLots(),
+            syncChangeCapture(),
+            seededAdminPasswordHash(),
+            stockLotsVersion());
+    }
+
+    /**
+     * The tables and reference data previously created on every connect. Written with
+     * IF NOT EXISTS / INSERT IGNORE so it also applies cleanly to databases created
+     * before schema versioning existed.
+     */
+    private static Migration baseline() {
+        return new Migration(1, "Baseline schema and reference data",
+            List.of(
+            // Users
+            "CREATE TABLE IF NOT EXISTS users (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "username VARCHAR(50) UNIQUE NOT NULL," +
+            "password_hash VARCHAR(255) NOT NULL," +
+            "email VARCHAR(100)," +
+            "full_name VARCHAR(100) NOT NULL," +
+            "role VARCHAR(50) NOT NULL," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "failed_login_attempts INT DEFAULT 0," +
+            "last_login TIMESTAMP NULL," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP" +
+            ")",
+            // Barangays
+            "CREATE TABLE IF NOT EXISTS barangays (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "name VARCHAR(100) NOT NULL," +
+            "code VARCHAR(20) UNIQUE NOT NULL," +
+            "population INT DEFAULT 0," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            // Puroks
+            "CREATE TABLE IF NOT EXISTS puroks (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "barangay_id INT NOT NULL," +
+            "name VARCHAR(100) NOT NULL," +
+            "code VARCHAR(20) NOT NULL," +
+            "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
+            "UNIQUE KEY unique_purok (barangay_id, code)" +
+            ")",
+            // Beneficiaries
+            "CREATE TABLE IF NOT EXISTS beneficiaries (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "beneficiary_id VARCHAR(10) UNIQUE NOT NULL," +
+            "full_name VARCHAR(150) NOT NULL," +
+            "birth_date DATE NOT NULL," +
+            "gender VARCHAR(20) NOT NULL," +
+            "civil_status VARCHAR(20) NOT NULL," +
+            "contact_number VARCHAR(20)," +
+            "email VARCHAR(100)," +
+            "barangay_id INT NOT NULL," +
+            "purok_id INT NOT NULL," +
+            "street_sitio VARCHAR(200)," +
+            "is_household_head BOOLEAN DEFAULT FALSE," +
+            "family_size INT DEFAULT 1," +
+            "monthly_income_range VARCHAR(20)," +
+            "employment_status VARCHAR(20)," +
+            "priority_level INT DEFAULT 3," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "photo_path VARCHAR(500)," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+            "created_by INT," +
+            "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
+            "FOREIGN KEY (purok_id) REFERENCES puroks(id)" +
+            ")",
+            // Beneficiary vulnerabilities
+            "CREATE TABLE IF NOT EXISTS beneficiary_vulnerabilities (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "beneficiary_id INT NOT NULL," +
+            "is_pwd BOOLEAN DEFAULT FALSE," +
+            "is_senior_citizen BOOLEAN DEFAULT FALSE," +
+            "is_pregnant_lactating BOOLEAN DEFAULT FALSE," +
+            "is_solo_parent BOOLEAN DEFAULT FALSE," +
+            "has_chronic_illness BOOLEAN DEFAULT FALSE," +
+            "is_orphan BOOLEAN DEFAULT FALSE," +
+            "is_indigenous BOOLEAN DEFAULT FALSE," +
+            "is_homeless BOOLEAN DEFAULT FALSE," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id) ON DELETE CASCADE" +
+            ")",
+            // Inventory categories
+            "CREATE TABLE IF NOT EXISTS inventory_categories (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "name VARCHAR(100) NOT NULL," +
+            "code VARCHAR(20) UNIQUE NOT NULL," +
+            "description TEXT," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            // Suppliers
+            "CREATE TABLE IF NOT EXISTS suppliers (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "name VARCHAR(150) NOT NULL," +
+            "contact_person VARCHAR(100)," +
+            "contact_number VARCHAR(20)," +
+            "email VARCHAR(100)," +
+            "address TEXT," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            // Inventory items
+            "CREATE TABLE IF NOT EXISTS inventory_items (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "item_code VARCHAR(50) UNIQUE NOT NULL," +
+            "item_name VARCHAR(200) NOT NULL," +
+            "category_id INT NOT NULL," +
+            "unit_of_measure VARCHAR(20) NOT NULL," +
+            "current_stock DECIMAL(10,2) DEFAULT 0," +
+            "minimum_stock_level DECIMAL(10,2) DEFAULT 0," +
+            "maximum_stock_level DECIMAL(10,2) DEFAULT 0," +
+            "unit_cost DECIMAL(10,2) DEFAULT 0," +
+            "supplier_id INT," +
+            "batch_number VARCHAR(50)," +
+            "manufacture_date DATE," +
+            "expiration_date DATE," +
+            "storage_location VARCHAR(100)," +
+            "storage_conditions TEXT," +
+            "photo_path VARCHAR(500)," +
+            "barcode VARCHAR(100)," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (category_id) REFERENCES inventory_categories(id)," +
+            "FOREIGN KEY (supplier_id) REFERENCES suppliers(id)" +
+            ")",
+            // Stock movements
+            "CREATE TABLE IF NOT EXISTS stock_movements (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "item_id INT NOT NULL," +
+            "movement_type VARCHAR(20) NOT NULL," +
+            "quantity DECIMAL(10,2) NOT NULL," +
+            "unit_cost DECIMAL(10,2)," +
+            "reference_number VARCHAR(50)," +
+            "reason VARCHAR(200)," +
+            "performed_by INT NOT NULL," +
+            "movement_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)," +
+            "FOREIGN KEY (performed_by) REFERENCES users(id)" +
+            ")",
+            // Distribution events
+            "CREATE TABLE IF NOT EXISTS distribution_events (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "event_name VARCHAR(200) NOT NULL," +
+            "event_type VARCHAR(20) NOT NULL," +
+            "description TEXT," +
+            "planned_date DATE NOT NULL," +
+            "status VARCHAR(20) DEFAULT 'PLANNED'," +
+            "created_by INT NOT NULL," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (created_by) REFERENCES users(id)" +
+            ")",
+            // Distributions
+            "CREATE TABLE IF NOT EXISTS distributions (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "distribution_event_id INT," +
+            "beneficiary_id INT NOT NULL," +
+            "distribution_date DATETIME DEFAULT CURRENT_TIMESTAMP," +
+            "distributed_by INT NOT NULL," +
+            "total_value DECIMAL(10,2) DEFAULT 0," +
+            "status VARCHAR(20) DEFAULT 'COMPLETED'," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (distribution_event_id) REFERENCES distribution_events(id)," +
+            "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id)," +
+            "FOREIGN KEY (distributed_by) REFERENCES users(id)" +
+            ")",
+            // Default admin user with simple password (temporary)
+            "INSERT IGNORE INTO users (username, password_hash, full_name, role) " +
+            "VALUES ('admin', 'password', 'System Administrator', 'SUPER_ADMIN')",
+            // Default categories
+            "INSERT IGNORE INTO inventory_categories (name, code, description) VALUES " +
+            "('Food & Nutrition', 'FOOD', 'Food items and nutritional supplements'), " +
+            "('Hygiene & Sanitation', 'HYGN', 'Personal hygiene and sanitation items'), " +
+            "('Medical & Health', 'MEDL', 'Medical supplies and health-related items'), " +
+            "('Clothing & Bedding', 'CLTH', 'Clothing blankets and bedding materials'), " +
+            "('Shelter Materials', 'SHLT', 'Construction and shelter materials')",
+            // Default barangays for Mati City
+            "INSERT IGNORE INTO barangays (name, code) VALUES " +
+            "('Badas', 'BRG001'), ('Bato', 'BRG002'), ('Bohewan', 'BRG003'), ('Cabuaya', 'BRG004'), " +
+            "('Central', 'BRG005'), ('Culian', 'BRG006'), ('Dahican', 'BRG007'), ('Dawan', 'BRG008'), " +
+            "('Don Enrique Lopez', 'BRG009'), ('Don Martin Marundan', 'BRG010'), ('Don Salvador Lopez Sr.', 'BRG011'), ('Langka', 'BRG012'), " +
+            "('Lawigan', 'BRG013'), ('Libudon', 'BRG014'), ('Luban', 'BRG015'), ('Macambol', 'BRG016'), " +
+            "('Mamali', 'BRG017'), ('Matiao', 'BRG018'), ('Mayo', 'BRG019'), ('Sainz', 'BRG020'), " +
+            "('Tagabakid', 'BRG021'), ('Tagbinonga', 'BRG022'), ('Taguibo', 'BRG023'), ('Tamisan', 'BRG024'), " +
+            "('Tarragona', 'BRG025'), ('Wasi', 'BRG026')"),
+            List.of(
+            // Users
+            "CREATE TABLE IF NOT EXISTS users (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "username VARCHAR(50) UNIQUE NOT NULL," +
+            "password_hash VARCHAR(255) NOT NULL," +
+            "email VARCHAR(100)," +
+            "full_name VARCHAR(100) NOT NULL," +
+            "role VARCHAR(50) NOT NULL," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "failed_login_attempts INTEGER DEFAULT 0," +
+            "last_login TIMESTAMP NULL," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            // Barangays
+            "CREATE TABLE IF NOT EXISTS barangays (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "name VARCHAR(100) NOT NULL," +
+            "code VARCHAR(20) UNIQUE NOT NULL," +
+            "population INTEGER DEFAULT 0," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            // Puroks
+            "CREATE TABLE IF NOT EXISTS puroks (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "barangay_id INTEGER NOT NULL," +
+            "name VARCHAR(100) NOT NULL," +
+            "code VARCHAR(20) NOT NULL," +
+            "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
+            "UNIQUE (barangay_id, code)" +
+            ")",
+            // Beneficiaries
+            "CREATE TABLE IF NOT EXISTS beneficiaries (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "beneficiary_id VARCHAR(10) UNIQUE NOT NULL," +
+            "full_name VARCHAR(150) NOT NULL," +
+            "birth_date DATE NOT NULL," +
+            "gender VARCHAR(20) NOT NULL," +
+            "civil_status VARCHAR(20) NOT NULL," +
+            "contact_number VARCHAR(20)," +
+            "email VARCHAR(100)," +
+            "barangay_id INTEGER NOT NULL," +
+            "purok_id INTEGER NOT NULL," +
+            "street_sitio VARCHAR(200)," +
+            "is_household_head INTEGER DEFAULT 0," +
+            "family_size INTEGER DEFAULT 1," +
+            "monthly_income_range VARCHAR(20)," +
+            "employment_status VARCHAR(20)," +
+            "priority_level INTEGER DEFAULT 3," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "photo_path VARCHAR(500)," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "created_by INTEGER," +
+            "FOREIGN KEY (barangay_id) REFERENCES barangays(id)," +
+            "FOREIGN KEY (purok_id) REFERENCES puroks(id)" +
+            ")",
+            // Beneficiary vulnerabilities
+            "CREATE TABLE IF NOT EXISTS beneficiary_vulnerabilities (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "beneficiary_id INTEGER NOT NULL," +
+            "is_pwd INTEGER DEFAULT 0," +
+            "is_senior_citizen INTEGER DEFAULT 0," +
+            "is_pregnant_lactating INTEGER DEFAULT 0," +
+            "is_solo_parent INTEGER DEFAULT 0," +
+            "has_chronic_illness INTEGER DEFAULT 0," +
+            "is_orphan INTEGER DEFAULT 0," +
+            "is_indigenous INTEGER DEFAULT 0," +
+            "is_homeless INTEGER DEFAULT 0," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id) ON DELETE CASCADE" +
+            ")",
+            // Inventory categories
+            "CREATE TABLE IF NOT EXISTS inventory_categories (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "name VARCHAR(100) NOT NULL," +
+            "code VARCHAR(20) UNIQUE NOT NULL," +
+            "description TEXT," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            // Suppliers
+            "CREATE TABLE IF NOT EXISTS suppliers (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "name VARCHAR(150) NOT NULL," +
+            "contact_person VARCHAR(100)," +
+            "contact_number VARCHAR(20)," +
+            "email VARCHAR(100)," +
+            "address TEXT," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            // Inventory items
+            "CREATE TABLE IF NOT EXISTS inventory_items (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "item_code VARCHAR(50) UNIQUE NOT NULL," +
+            "item_name VARCHAR(200) NOT NULL," +
+            "category_id INTEGER NOT NULL," +
+            "unit_of_measure VARCHAR(20) NOT NULL," +
+            "current_stock REAL DEFAULT 0," +
+            "minimum_stock_level REAL DEFAULT 0," +
+            "maximum_stock_level REAL DEFAULT 0," +
+            "unit_cost REAL DEFAULT 0," +
+            "supplier_id INTEGER," +
+            "batch_number VARCHAR(50)," +
+            "manufacture_date DATE," +
+            "expiration_date DATE," +
+            "storage_location VARCHAR(100)," +
+            "storage_conditions TEXT," +
+            "photo_path VARCHAR(500)," +
+            "barcode VARCHAR(100)," +
+            "status VARCHAR(20) DEFAULT 'ACTIVE'," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (category_id) REFERENCES inventory_categories(id)," +
+            "FOREIGN KEY (supplier_id) REFERENCES suppliers(id)" +
+            ")",
+            // Stock movements
+            "CREATE TABLE IF NOT EXISTS stock_movements (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "item_id INTEGER NOT NULL," +
+            "movement_type VARCHAR(20) NOT NULL," +
+            "quantity REAL NOT NULL," +
+            "unit_cost REAL," +
+            "reference_number VARCHAR(50)," +
+            "reason VARCHAR(200)," +
+            "performed_by INTEGER NOT NULL," +
+            "movement_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)," +
+            "FOREIGN KEY (performed_by) REFERENCES users(id)" +
+            ")",
+            // Distribution events
+            "CREATE TABLE IF NOT EXISTS distribution_events (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "event_name VARCHAR(200) NOT NULL," +
+            "event_type VARCHAR(20) NOT NULL," +
+            "description TEXT," +
+            "planned_date DATE NOT NULL," +
+            "status VARCHAR(20) DEFAULT 'PLANNED'," +
+            "created_by INTEGER NOT NULL," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (created_by) REFERENCES users(id)" +
+            ")",
+            // Distributions
+            "CREATE TABLE IF NOT EXISTS distributions (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "distribution_event_id INTEGER," +
+            "beneficiary_id INTEGER NOT NULL," +
+            "distribution_date DATETIME DEFAULT CURRENT_TIMESTAMP," +
+            "distributed_by INTEGER NOT NULL," +
+            "total_value REAL DEFAULT 0," +
+            "status VARCHAR(20) DEFAULT 'COMPLETED'," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (distribution_event_id) REFERENCES distribution_events(id)," +
+            "FOREIGN KEY (beneficiary_id) REFERENCES beneficiaries(id)," +
+            "FOREIGN KEY (distributed_by) REFERENCES users(id)" +
+            ")",
+            // Default admin user with simple password (temporary)
+            "INSERT OR IGNORE INTO users (username, password_hash, full_name, role) " +
+            "VALUES ('admin', 'password', 'System Administrator', 'SUPER_ADMIN')",
+            // Default categories
+            "INSERT OR IGNORE INTO inventory_categories (name, code, description) VALUES " +
+            "('Food & Nutrition', 'FOOD', 'Food items and nutritional supplements'), " +
+            "('Hygiene & Sanitation', 'HYGN', 'Personal hygiene and sanitation items'), " +
+            "('Medical & Health', 'MEDL', 'Medical supplies and health-related items'), " +
+            "('Clothing & Bedding', 'CLTH', 'Clothing blankets and bedding materials'), " +
+            "('Shelter Materials', 'SHLT', 'Construction and shelter materials')",
+            // Default barangays for Mati City
+            "INSERT OR IGNORE INTO barangays (name, code) VALUES " +
+            "('Badas', 'BRG001'), ('Bato', 'BRG002'), ('Bohewan', 'BRG003'), ('Cabuaya', 'BRG004'), " +
+            "('Central', 'BRG005'), ('Culian', 'BRG006'), ('Dahican', 'BRG007'), ('Dawan', 'BRG008'), " +
+            "('Don Enrique Lopez', 'BRG009'), ('Don Martin Marundan', 'BRG010'), ('Don Salvador Lopez Sr.', 'BRG011'), ('Langka', 'BRG012'), " +
+            "('Lawigan', 'BRG013'), ('Libudon', 'BRG014'), ('Luban', 'BRG015'), ('Macambol', 'BRG016'), " +
+            "('Mamali', 'BRG017'), ('Matiao', 'BRG018'), ('Mayo', 'BRG019'), ('Sainz', 'BRG020'), " +
+            "('Tagabakid', 'BRG021'), ('Tagbinonga', 'BRG022'), ('Taguibo', 'BRG023'), ('Tamisan', 'BRG024'), " +
+            "('Tarragona', 'BRG025'), ('Wasi', 'BRG026')"));
+    }
+
+    /**
+     * Indexes from database-schema.sql. SQLite index names are database-wide, so
+     * names that MySQL scopes per table get a table prefix there.
+     */
+    private static Migration searchAndReportingIndexes() {
+        return Migration.indexes(2, "Search and reporting indexes",
+            new Migration.Index("users", "idx_status", "idx_users_status", "status"),
+            new Migration.Index("barangays", "idx_name", "idx_barangays_name", "name"),
+            new Migration.Index("puroks", "idx_barangay", "idx_puroks_barangay", "barangay_id"),
+            new Migration.Index("beneficiaries", "idx_full_name", "idx_full_name", "full_name"),
+            new Migration.Index("beneficiaries", "idx_barangay", "idx_beneficiaries_barangay", "barangay_id"),
+            new Migration.Index("beneficiaries", "idx_status", "idx_beneficiaries_status", "status"),
+            new Migration.Index("beneficiaries", "idx_priority", "idx_beneficiaries_priority", "priority_level"),
+            new Migration.Index("beneficiaries", "idx_beneficiaries_search", "idx_beneficiaries_search", "full_name, beneficiary_id, contact_number"),
+            new Migration.Index("beneficiary_vulnerabilities", "idx_beneficiary", "idx_vulnerabilities_beneficiary", "beneficiary_id"),
+            new Migration.Index("inventory_items", "idx_category", "idx_inventory_category", "category_id"),
+            new Migration.Index("inventory_items", "idx_stock_level", "idx_inventory_stock_level", "current_stock"),
+            new Migration.Index("inventory_items", "idx_expiration", "idx_expiration", "expiration_date"),
+            new Migration.Index("inventory_items", "idx_inventory_alerts", "idx_inventory_alerts", "current_stock, minimum_stock_level, expiration_date"),
+            new Migration.Index("stock_movements", "idx_item", "idx_movements_item", "item_id"),
+            new Migration.Index("stock_movements", "idx_date", "idx_movements_date", "movement_date"),
+            new Migration.Index("stock_movements", "idx_type", "idx_movements_type", "movement_type"),
+            new Migration.Index("distribution_events", "idx_date", "idx_events_date", "planned_date"),
+            new Migration.Index("distribution_events", "idx_status", "idx_events_status", "status"),
+            new Migration.Index("distributions", "idx_event", "idx_distributions_event", "distribution_event_id"),
+            new Migration.Index("distributions", "idx_beneficiary", "idx_distributions_beneficiary", "beneficiary_id"),
+            new Migration.Index("distributions", "idx_date", "idx_distributions_date", "distribution_date"),
+            new Migration.Index("distributions", "idx_distributions_date_range", "idx_distributions_date_range", "distribution_date, status"));
+    }
+
+    /**
+     * Single-row table the replica router stamps on the primary to measure replica lag.
+     */
+    private static Migration replicationHeartbeat() {
+        return new Migration(3, "Replication heartbeat",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS replication_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)",
+            "INSERT IGNORE INTO replication_heartbeat (id, beat_at) VALUES (1, 0)"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS replication_heartbeat (id INTEGER PRIMARY KEY, beat_at INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO replication_heartbeat (id, beat_at) VALUES (1, 0)"));
+    }
+
+    /**
+     * Sort indexes for the paginated beneficiary and inventory lists. The row id rides along
+     * implicitly (InnoDB secondary indexes carry the primary key, SQLite ones the rowid).
+     */
+    private static Migration keysetPaginationIndexes() {
+        return Migration.indexes(4, "Keyset pagination indexes",
+            new Migration.Index("beneficiaries", "idx_created_at", "idx_beneficiaries_created_at", "created_at"),
+            new Migration.Index("inventory_items", "idx_item_name", "idx_inventory_item_name", "item_name"));
+    }
+
+    /**
+     * N-gram full-text index over the searchable beneficiary fields. On SQLite it is an
+     * external-content FTS5 table kept in sync by triggers, so it commits with the row change.
+     */
+    private static Migration beneficiaryFullTextSearch() {
+        return new Migration(5, "Beneficiary full-text search",
+            List.of(
+            "ALTER TABLE beneficiaries ADD FULLTEXT INDEX ft_beneficiaries_search " +
+            "(full_name, beneficiary_id, contact_number, street_sitio) WITH PARSER ngram"),
+            List.of(
+            "CREATE VIRTUAL TABLE IF NOT EXISTS beneficiaries_fts USING fts5(" +
+            "full_name, beneficiary_id, contact_number, street_sitio, " +
+            "content='beneficiaries', content_rowid='id', tokenize='trigram')",
+            "CREATE TRIGGER IF NOT EXISTS beneficiaries_fts_insert AFTER INSERT ON beneficiaries BEGIN " +
+            "INSERT INTO beneficiaries_fts (rowid, full_name, beneficiary_id, contact_number, street_sitio) " +
+            "VALUES (new.id, new.full_name, new.beneficiary_id, new.contact_number, new.street_sitio); " +
+            "END",
+            "CREATE TRIGGER IF NOT EXISTS beneficiaries_fts_delete AFTER DELETE ON beneficiaries BEGIN " +
+            "INSERT INTO beneficiaries_fts (beneficiaries_fts, rowid, full_name, beneficiary_id, contact_number, street_sitio) " +
+            "VALUES ('delete', old.id, old.full_name, old.beneficiary_id, old.contact_number, old.street_sitio); " +
+            "END",
+            "CREATE TRIGGER IF NOT EXISTS beneficiaries_fts_update AFTER UPDATE OF full_name, beneficiary_id, contact_number, street_sitio " +
+            "ON beneficiaries BEGIN " +
+            "INSERT INTO beneficiaries_fts (beneficiaries_fts, rowid, full_name, beneficiary_id, contact_number, street_sitio) " +
+            "VALUES ('delete', old.id, old.full_name, old.beneficiary_id, old.contact_number, old.street_sitio); " +
+            "INSERT INTO beneficiaries_fts (rowid, full_name, beneficiary_id, contact_number, street_sitio) " +
+            "VALUES (new.id, new.full_name, new.beneficiary_id, new.contact_number, new.street_sitio); " +
+            "END",
+            // Index rows that existed before this migration
+            "INSERT INTO beneficiaries_fts (beneficiaries_fts) VALUES ('rebuild')"));
+    }
+
+    /**
+     * Counters for {@link IdSequences}, seeded past the highest existing beneficiary ID and
+     * item code of each category so new IDs never collide with old ones.
+     */
+    private static Migration idSequences() {
+        return new Migration(6, "ID sequences",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS id_sequences (name VARCHAR(20) PRIMARY KEY, next_value BIGINT NOT NULL)",
+            "INSERT IGNORE INTO id_sequences (name, next_value) " +
+            "SELECT 'BEN', COALESCE(MAX(CAST(SUBSTRING(beneficiary_id, 4) AS UNSIGNED)), 0) + 1 " +
+            "FROM beneficiaries WHERE beneficiary_id LIKE 'BEN%'",
+            "INSERT IGNORE INTO id_sequences (name, next_value) " +
+            "SELECT SUBSTRING(item_code, 1, 4), MAX(CAST(SUBSTRING(item_code, 6) AS UNSIGNED)) + 1 " +
+            "FROM inventory_items WHERE item_code LIKE '____-%' GROUP BY SUBSTRING(item_code, 1, 4)"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS id_sequences (name VARCHAR(20) PRIMARY KEY, next_value INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO id_sequences (name, next_value) " +
+            "SELECT 'BEN', COALESCE(MAX(CAST(SUBSTR(beneficiary_id, 4) AS INTEGER)), 0) + 1 " +
+            "FROM beneficiaries WHERE beneficiary_id LIKE 'BEN%'",
+            "INSERT OR IGNORE INTO id_sequences (name, next_value) " +
+            "SELECT SUBSTR(item_code, 1, 4), MAX(CAST(SUBSTR(item_code, 6) AS INTEGER)) + 1 " +
+            "FROM inventory_items WHERE item_code LIKE '____-%' GROUP BY SUBSTR(item_code, 1, 4)"));
+    }
+
+    /**
+     * Single-row version counter that tells every instance's reference data cache to reload.
+     */
+    private static Migration referenceDataVersion() {
+        return new Migration(7, "Reference data version",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS reference_data_version (id INT PRIMARY KEY, version BIGINT NOT NULL)",
+            "INSERT IGNORE INTO reference_data_version (id, version) VALUES (1, 1)"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS reference_data_version (id INTEGER PRIMARY KEY, version INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO reference_data_version (id, version) VALUES (1, 1)"));
+    }
+
+    /**
+     * Dashboard counters (see StatCounters), seeded from the rows that already exist.
+     * Periods are local-time months and days; SQLite timestamps are stored in UTC.
+     */
+    private static Migration statCounters() {
+        return new Migration(8, "Dashboard stat counters",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS stat_counters (counter VARCHAR(40) NOT NULL, period VARCHAR(10) NOT NULL, " +
+            "value BIGINT NOT NULL DEFAULT 0, PRIMARY KEY (counter, period))",
+            "INSERT IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'beneficiaries.active', 'all', COUNT(*) FROM beneficiaries WHERE status = 'ACTIVE'",
+            "INSERT IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'beneficiaries.registered', DATE_FORMAT(created_at, '%Y-%m'), COUNT(*) FROM beneficiaries " +
+            "WHERE created_at IS NOT NULL GROUP BY DATE_FORMAT(created_at, '%Y-%m')",
+            "INSERT IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'distributions.recorded', DATE_FORMAT(created_at, '%Y-%m-%d'), COUNT(*) FROM distributions " +
+            "WHERE created_at IS NOT NULL GROUP BY DATE_FORMAT(created_at, '%Y-%m-%d')",
+            "INSERT IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'inventory.low_stock', 'all', COUNT(*) FROM inventory_items " +
+            "WHERE current_stock <= minimum_stock_level AND status = 'ACTIVE'"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS stat_counters (counter VARCHAR(40) NOT NULL, period VARCHAR(10) NOT NULL, " +
+            "value INTEGER NOT NULL DEFAULT 0, PRIMARY KEY (counter, period))",
+            "INSERT OR IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'beneficiaries.active', 'all', COUNT(*) FROM beneficiaries WHERE status = 'ACTIVE'",
+            "INSERT OR IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'beneficiaries.registered', strftime('%Y-%m', created_at, 'localtime'), COUNT(*) FROM beneficiaries " +
+            "WHERE created_at IS NOT NULL GROUP BY strftime('%Y-%m', created_at, 'localtime')",
+            "INSERT OR IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'distributions.recorded', strftime('%Y-%m-%d', created_at, 'localtime'), COUNT(*) FROM distributions " +
+            "WHERE created_at IS NOT NULL GROUP BY strftime('%Y-%m-%d', created_at, 'localtime')",
+            "INSERT OR IGNORE INTO stat_counters (counter, period, value) " +
+            "SELECT 'inventory.low_stock', 'all', COUNT(*) FROM inventory_items " +
+            "WHERE current_stock <= minimum_stock_level AND status = 'ACTIVE'"));
+    }
+
+    /**
+     * Audit trail written by AuditLog. MySQL databases built from database-schema.sql
+     * already have the table; SQLite never had it.
+     */
+    private static Migration auditLogs() {
+        return new Migration(9, "Audit log",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS audit_logs (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "user_id INT," +
+            "action VARCHAR(100) NOT NULL," +
+            "table_name VARCHAR(50)," +
+            "record_id INT," +
+            "old_values JSON," +
+            "new_values JSON," +
+            "ip_address VARCHAR(45)," +
+            "user_agent TEXT," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (user_id) REFERENCES users(id)," +
+            "INDEX idx_user (user_id)," +
+            "INDEX idx_action (action)," +
+            "INDEX idx_date (created_at)" +
+            ")"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS audit_logs (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "user_id INTEGER," +
+            "action VARCHAR(100) NOT NULL," +
+            "table_name VARCHAR(50)," +
+            "record_id INTEGER," +
+            "old_values TEXT," +
+            "new_values TEXT," +
+            "ip_address VARCHAR(45)," +
+            "user_agent TEXT," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (user_id) REFERENCES users(id)" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_audit_user_date ON audit_logs(user_id, created_at)",
+            "CREATE INDEX IF NOT EXISTS idx_audit_action ON audit_logs(action)"));
+    }
+
+    /**
+     * Line items of a distribution, as in database-schema.sql.
+     */
+    private static Migration distributionItems() {
+        return new Migration(10, "Distribution items",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS distribution_items (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "distribution_id INT NOT NULL," +
+            "item_id INT NOT NULL," +
+            "quantity DECIMAL(10,2) NOT NULL," +
+            "unit_cost DECIMAL(10,2)," +
+            "total_cost DECIMAL(10,2)," +
+            "FOREIGN KEY (distribution_id) REFERENCES distributions(id) ON DELETE CASCADE," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)," +
+            "INDEX idx_distribution (distribution_id)," +
+            "INDEX idx_item (item_id)" +
+            ")"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS distribution_items (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "distribution_id INTEGER NOT NULL," +
+            "item_id INTEGER NOT NULL," +
+            "quantity REAL NOT NULL," +
+            "unit_cost REAL," +
+            "total_cost REAL," +
+            "FOREIGN KEY (distribution_id) REFERENCES distributions(id) ON DELETE CASCADE," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_distribution_items_distribution ON distribution_items(distribution_id)",
+            "CREATE INDEX IF NOT EXISTS idx_distribution_items_item ON distribution_items(item_id)"));
+    }
+
+    /**
+     * Make every balance equal the sum of its movements, as StockLedger now guarantees, by
+     * recording the difference as an opening-balance adjustment. Older code double-counted
+     * initial stock and let TRANSFER overwrite the balance; the balance is taken as correct.
+     */
+    private static Migration stockLedgerOpeningBalances() {
+        return new Migration(11, "Stock ledger opening balances",
+            List.of(
+            "INSERT INTO stock_movements (item_id, movement_type, quantity, reason, performed_by) " +
+            "SELECT i.id, 'ADJUSTMENT', i.current_stock - COALESCE(m.net, 0), 'Opening balance', " +
+            "(SELECT MIN(id) FROM users) FROM inventory_items i LEFT JOIN (" +
+            "SELECT item_id, SUM(CASE WHEN movement_type IN ('IN', 'ADJUSTMENT') THEN quantity ELSE -quantity END) AS net " +
+            "FROM stock_movements GROUP BY item_id) m ON m.item_id = i.id " +
+            "WHERE ABS(i.current_stock - COALESCE(m.net, 0)) >= 0.005"),
+            List.of(
+            "INSERT INTO stock_movements (item_id, movement_type, quantity, reason, performed_by) " +
+            "SELECT i.id, 'ADJUSTMENT', i.current_stock - COALESCE(m.net, 0), 'Opening balance', " +
+            "(SELECT MIN(id) FROM users) FROM inventory_items i LEFT JOIN (" +
+            "SELECT item_id, SUM(CASE WHEN movement_type IN ('IN', 'ADJUSTMENT') THEN quantity ELSE -quantity END) AS net " +
+            "FROM stock_movements GROUP BY item_id) m ON m.item_id = i.id " +
+            "WHERE ABS(i.current_stock - COALESCE(m.net, 0)) >= 0.005"));
+    }
+
+    /**
+     * Cumulative stock in and out per item at the end of a local day, written by
+     * StockSnapshots. Dates are ISO strings, like stat_counters periods.
+     */
+    private static Migration stockSnapshots() {
+        return new Migration(12, "Stock snapshots",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS stock_snapshots (" +
+            "snapshot_date VARCHAR(10) NOT NULL," +
+            "item_id INT NOT NULL," +
+            "kind VARCHAR(5) NOT NULL," +
+            "quantity_in DECIMAL(14,2) NOT NULL," +
+            "quantity_out DECIMAL(14,2) NOT NULL," +
+            "PRIMARY KEY (snapshot_date, item_id)," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)," +
+            "INDEX idx_kind_date (kind, snapshot_date)" +
+            ")"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS stock_snapshots (" +
+            "snapshot_date VARCHAR(10) NOT NULL," +
+            "item_id INTEGER NOT NULL," +
+            "kind VARCHAR(5) NOT NULL," +
+            "quantity_in REAL NOT NULL," +
+            "quantity_out REAL NOT NULL," +
+            "PRIMARY KEY (snapshot_date, item_id)," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_stock_snapshots_kind_date ON stock_snapshots(kind, snapshot_date)"));
+    }
+
+    /**
+     * Lots of stock under an item, used first-expired-first-out by StockLedger. Stock already
+     * held becomes one lot per item, with the item's batch number and expiration date.
+     */
+    private static Migration stockLots() {
+        return new Migration(13, "Stock lots",
+            List.of(
+            "CREATE TABLE IF NOT EXISTS stock_lots (" +
+            "id INT PRIMARY KEY AUTO_INCREMENT," +
+            "item_id INT NOT NULL," +
+            "batch_number VARCHAR(50)," +
+            "expiration_date DATE," +
+            "quantity_received DECIMAL(10,2) NOT NULL," +
+            "quantity_remaining DECIMAL(10,2) NOT NULL," +
+            "unit_cost DECIMAL(10,2)," +
+            "received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)," +
+            "INDEX idx_item_remaining (item_id, quantity_remaining)" +
+            ")",
+            "ALTER TABLE stock_movements ADD COLUMN lot_id INT, ADD FOREIGN KEY (lot_id) REFERENCES stock_lots(id)",
+            "INSERT INTO stock_lots (item_id, batch_number, expiration_date, quantity_received, quantity_remaining, unit_cost) " +
+            "SELECT id, batch_number, expiration_date, current_stock, current_stock, unit_cost FROM inventory_items " +
+            "WHERE current_stock > 0"),
+            List.of(
+            "CREATE TABLE IF NOT EXISTS stock_lots (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "item_id INTEGER NOT NULL," +
+            "batch_number VARCHAR(50)," +
+            "expiration_date DATE," +
+            "quantity_received REAL NOT NULL," +
+            "quantity_remaining REAL NOT NULL," +
+            "unit_cost REAL," +
+            "received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (item_id) REFERENCES inventory_items(id)" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_stock_lots_item_remaining ON stock_lots(item_id, quantity_remaining)",
+            "ALTER TABLE stock_movements ADD COLUMN lot_id INTEGER REFERENCES stock_lots(id)",
+            "INSERT INTO stock_lots (item_id, batch_number, expiration_date, quantity_received, quantity_remaining, unit_cost) " +
+            "SELECT id, batch_number, expiration_date, current_stock, current_stock, unit_cost FROM inventory_items " +
+            "WHERE current_stock > 0"));
+    }
+
+    /**
+     * Tables for SyncEngine, and on SQLite the change capture of {@link #changeCapture}. A
+     * MySQL database only gets its triggers once a laptop syncs with it (see
+     * {@link #centralChangeCapture()}): until then nothing reads the log, so a site that only
+     * ever works on MySQL does not write one.
+     */
+    private static Migration syncChangeCapture() {
+        List<String> mysql = new ArrayList<>(List.of(
+            "CREATE TABLE IF NOT EXISTS sync_changes (" +
+            "seq BIGINT PRIMARY KEY AUTO_INCREMENT," +
+            "table_name VARCHAR(40) NOT NULL," +
+            "row_id INT NOT NULL," +
+            "changed_at BIGINT NOT NULL," +
+            "origin VARCHAR(40)," +
+            "logged_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)," +
+            "INDEX idx_row_version (table_name, row_id, changed_at)" +
+            ")",
+            "CREATE TABLE IF NOT EXISTS sync_row_map (" +
+            "peer VARCHAR(40) NOT NULL," +
+            "table_name VARCHAR(40) NOT NULL," +
+            "peer_row_id INT NOT NULL," +
+            "row_id INT NOT NULL," +
+            "PRIMARY KEY (peer, table_name, peer_row_id)," +
+            "INDEX idx_row (peer, table_name, row_id)" +
+            ")",
+            "CREATE TABLE IF NOT EXISTS sync_state (name VARCHAR(60) PRIMARY KEY, value VARCHAR(100) NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS sync_conflicts (" +
+            "direction VARCHAR(4) NOT NULL," +
+            "table_name VARCHAR(40) NOT NULL," +
+            "row_id INT NOT NULL," +
+            "reason VARCHAR(255) NOT NULL," +
+            "recorded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "PRIMARY KEY (direction, table_name, row_id)" +
+            ")"));
+        List<String> sqlite = new ArrayList<>(List.of(
+            "CREATE TABLE IF NOT EXISTS sync_changes (" +
+            "seq INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "table_name VARCHAR(40) NOT NULL," +
+            "row_id INTEGER NOT NULL," +
+            "changed_at INTEGER NOT NULL," +
+            "origin VARCHAR(40)," +
+            "logged_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_sync_changes_row_version ON sync_changes(table_name, row_id, changed_at)",
+            "CREATE TABLE IF NOT EXISTS sync_row_map (" +
+            "peer VARCHAR(40) NOT NULL," +
+            "table_name VARCHAR(40) NOT NULL," +
+            "peer_row_id INTEGER NOT NULL," +
+            "row_id INTEGER NOT NULL," +
+            "PRIMARY KEY (peer, table_name, peer_row_id)" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_sync_row_map_row ON sync_row_map(peer, table_name, row_id)",
+            "CREATE TABLE IF NOT EXISTS sync_state (name VARCHAR(60) PRIMARY KEY, value VARCHAR(100) NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS sync_conflicts (" +
+            "direction VARCHAR(4) NOT NULL," +
+            "table_name VARCHAR(40) NOT NULL," +
+            "row_id INTEGER NOT NULL," +
+            "reason VARCHAR(255) NOT NULL," +
+            "recorded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "PRIMARY KEY (direction, table_name, row_id)" +
+            ")",
+            "CREATE TABLE IF NOT EXISTS sync_applying (id INTEGER PRIMARY KEY)"));
+
+        sqlite.addAll(changeCapture(false));
+        return new Migration(14, "Sync change capture", mysql, sqlite);
+    }
+
+    /**
+     * The MySQL change capture, installed on a central database by the first laptop that
+     * syncs with it. Safe to run again over a partial or earlier install.
+     */
+    static Migration centralChangeCapture() {
+        return new Migration(14, "Sync change capture triggers", changeCapture(true), List.of());
+    }
+
+    /**
+     * Triggers that append a {@code sync_changes} row for every row inserted into a synced
+     * table and every edit to its synced columns, versioned in epoch milliseconds and always
+     * above the row's previous version. Rows that already exist are then logged at version 0,
+     * so they are copied where missing but never overwrite anything. Writes made by the sync
+     * itself are not captured: it sets {@code @aidsync_sync_apply} on MySQL and holds a row in
+     * {@code sync_applying} on SQLite while it applies changes.
+     */
+    private static List<String> changeCapture(boolean mysql) {
+        List<String> triggers = new ArrayList<>();
+        List<String> bootstrap = new ArrayList<>();
+        for (String[] table : SYNCED_TABLES) {
+            String name = table[0];
+            List<String> columns = List.of(table).subList(1, table.length);
+            // Rows already logged are skipped: MySQL commits each statement, so a failed run
+            // leaves part of this done, and rows written since the triggers went in are logged
+            bootstrap.add("INSERT INTO sync_changes (table_name, row_id, changed_at) SELECT '" + name + "', t.id, 0 " +
+                "FROM " + name + " t WHERE NOT EXISTS (SELECT 1 FROM sync_changes c " +
+                "WHERE c.table_name = '" + name + "' AND c.row_id = t.id)");
+
+            if (mysql) {
+                // Never below the row's latest version, whatever the clock says
+                String version = "GREATEST(ROUND(UNIX_TIMESTAMP(NOW(3)) * 1000), COALESCE((SELECT MAX(c.changed_at) " +
+                    "FROM sync_changes c WHERE c.table_name = '" + name + "' AND c.row_id = NEW.id), 0) + 1)";
+                String log = "FOR EACH ROW INSERT INTO sync_changes (table_name, row_id, changed_at) " +
+                    "SELECT '" + name + "', NEW.id, " + version + " FROM DUAL WHERE @aidsync_sync_apply IS NULL";
+                // MySQL has no CREATE TRIGGER IF NOT EXISTS
+                triggers.add("DROP TRIGGER IF EXISTS sync_" + name + "_insert");
+                triggers.add("CREATE TRIGGER sync_" + name + "_insert AFTER INSERT ON " + name + " " + log);
+                if (!columns.isEmpty()) {
+                    List<String> unchanged = new ArrayList<>();
+                    for (String column : columns) {
+                        unchanged.add("NEW." + column + " <=> OLD." + column);
+                    }
+                    triggers.add("DROP TRIGGER IF EXISTS sync_" + name + "_update");
+                    triggers.add("CREATE TRIGGER sync_" + name + "_update AFTER UPDATE ON " + name + " " + log +
+                        " AND NOT (" + String.join(" AND ", unchanged) + ")");
+                }
+            } else {
+                String version = "MAX(CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER), COALESCE((SELECT MAX(changed_at) " +
+                    "FROM sync_changes WHERE table_name = '" + name + "' AND row_id = new.id), 0) + 1)";
+                String log = "BEGIN INSERT INTO sync_changes (table_name, row_id, changed_at) " +
+                    "VALUES ('" + name + "', new.id, " + version + "); END";
+                triggers.add("CREATE TRIGGER IF NOT EXISTS sync_" + name + "_insert AFTER INSERT ON " + name + " " +
+                    "WHEN NOT EXISTS (SELECT 1 FROM sync_applying) " + log);
+                if (!columns.isEmpty()) {
+                    List<String> changed = new ArrayList<>();
+                    for (String column : columns) {
+                        changed.add("new." + column + " IS NOT old." + column);
+                    }
+                    triggers.add("CREATE TRIGGER IF NOT EXISTS sync_" + name + "_update AFTER UPDATE ON " + name + " " +
+                        "WHEN NOT EXISTS (SELECT 1 FROM sync_applying) AND (" + String.join(" OR ", changed) + ") " + log);
+                }
+            }
+        }
+        triggers.addAll(bootstrap);
+        return triggers;
+    }
+
+    /**
+     * The baseline seeds the admin user with the plain text {@code password}, which no
+     * login can match. Store a bcrypt hash of it instead (cost 12; logins rehash it at the
+     * configured cost), leaving an admin password that was already changed alone.
+     */
+    private static Migration seededAdminPasswordHash() {
+        String sql = "UPDATE users SET password_hash = " +
+            "'$2a$12$n9R/SSpe5CqxQDP1s74s0udF7GdyxBRhDFz0CzWkkPHV0oZK1.1eG' " +
+            "WHERE username = 'admin' AND password_hash = 'password'";
+        return new Migration(15, "Hash seeded admin password", List.of(sql), List.of(sql));
+    }
+
+    /**
+     * A counter on each item bumped with every change to its lots, in the same transaction,
+     * so StockLots can tell from the item row it already locks whether the lots it holds in
+     * memory are still current.
+     */
+    private static Migration stockLotsVersion() {
+        return new Migration(16, "Stock lots version",
+            List.of("ALTER TABLE inventory_items ADD COLUMN lots_version BIGINT NOT NULL DEFAULT 0"),
+            List.of("ALTER TABLE inventory_items ADD COLUMN lots_version INTEGER NOT NULL DEFAULT 0"));
+    }
+}
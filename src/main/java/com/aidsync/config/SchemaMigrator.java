@@ -0,0 +1,209 @@
+package com.aidsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the database schema up to date by applying {@link SchemaMigrations} in version order.
+ * <p>
+ * Applied versions are recorded in {@code schema_version} together with a checksum of their
+ * statements. When the schema is already current, startup costs a single query.
+ */
+final class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String CREATE_VERSION_TABLE =
+        "CREATE TABLE IF NOT EXISTS schema_version (" +
+        "version INT PRIMARY KEY," +
+        "description VARCHAR(200) NOT NULL," +
+        "checksum VARCHAR(64) NOT NULL," +
+        "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+        "execution_ms BIGINT NOT NULL" +
+        ")";
+
+    // MySQL: index already exists (e.g. database created from database-schema.sql)
+    private static final int MYSQL_DUPLICATE_KEY_NAME = 1061;
+    private static final String MYSQL_LOCK_NAME = "aidsync_schema_migration";
+    private static final int MYSQL_LOCK_TIMEOUT_SECONDS = 60;
+    // sync_state entry holding the checksum of the change capture installed on a central database
+    private static final String CHANGE_CAPTURE_STATE = "change_capture.checksum";
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Apply all pending migrations on the given connection.
+     * <p>
+     * On MySQL the connection must be in auto-commit mode, since DDL commits implicitly anyway.
+     * On SQLite it is expected to be the writer connection, so all pending migrations commit
+     * together with the surrounding write.
+     */
+    static void migrate(Connection conn, boolean mysql) throws SQLException {
+        List<Migration> migrations = SchemaMigrations.all();
+
+        Map<Integer, String> applied = readAppliedVersions(conn);
+        if (applied != null && isCurrent(migrations, applied, mysql)) {
+            logger.info("Database schema is up to date (version {})", latestVersion(migrations));
+            return;
+        }
+
+        if (mysql) {
+            acquireMySQLLock(conn);
+        }
+        try {
+            if (applied == null) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(CREATE_VERSION_TABLE);
+                }
+            }
+            // Re-read: another instance may have migrated while we waited for the lock
+            applied = readAppliedVersions(conn);
+            for (Migration migration : migrations) {
+                if (!applied.containsKey(migration.version())) {
+                    apply(conn, migration, mysql);
+                }
+            }
+        } finally {
+            if (mysql) {
+                releaseMySQLLock(conn);
+            }
+        }
+    }
+
+    /**
+     * Returns version to checksum, or {@code null} if the version table does not exist yet.
+     */
+    private static Map<Integer, String> readAppliedVersions(Connection conn) {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+            return applied;
+        } catch (SQLException e) {
+            logger.debug("schema_version not readable, treating database as unversioned: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isCurrent(List<Migration> migrations, Map<Integer, String> applied, boolean mysql) {
+        boolean current = true;
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version());
+            if (checksum == null) {
+                current = false;
+            } else if (!checksum.equals(migration.checksum(mysql))) {
+                throw new IllegalStateException("Schema migration V" + migration.version() + " (" + migration.description() +
+                    ") has changed since it was applied; add a new migration instead of editing an applied one");
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Install {@link SchemaMigrations#centralChangeCapture()} on a migrated central MySQL
+     * database, in auto-commit mode, unless the same statements are installed already. Costs
+     * a single query once they are.
+     */
+    static void installChangeCapture(Connection conn) throws SQLException {
+        Migration capture = SchemaMigrations.centralChangeCapture();
+        String checksum = capture.checksum(true);
+        if (checksum.equals(readChangeCaptureChecksum(conn))) {
+            return;
+        }
+        acquireMySQLLock(conn);
+        try {
+            // Another laptop may have installed it while we waited for the lock
+            if (checksum.equals(readChangeCaptureChecksum(conn))) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            execute(conn, capture, true);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO sync_state (name, value) VALUES (?, ?) ON DUPLICATE KEY UPDATE value = VALUES(value)")) {
+                stmt.setString(1, CHANGE_CAPTURE_STATE);
+                stmt.setString(2, checksum);
+                stmt.executeUpdate();
+            }
+            logger.info("Installed sync change capture on the central database in {}ms", System.currentTimeMillis() - start);
+        } finally {
+            releaseMySQLLock(conn);
+        }
+    }
+
+    private static String readChangeCaptureChecksum(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT value FROM sync_state WHERE name = ?")) {
+            stmt.setString(1, CHANGE_CAPTURE_STATE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static int latestVersion(List<Migration> migrations) {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version();
+    }
+
+    private static void apply(Connection conn, Migration migration, boolean mysql) throws SQLException {
+        long start = System.currentTimeMillis();
+        execute(conn, migration, mysql);
+        long elapsed = System.currentTimeMillis() - start;
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            stmt.setInt(1, migration.version());
+            stmt.setString(2, migration.description());
+            stmt.setString(3, migration.checksum(mysql));
+            stmt.setLong(4, elapsed);
+            stmt.executeUpdate();
+        }
+        logger.info("Applied schema migration V{} ({}) in {}ms", migration.version(), migration.description(), elapsed);
+    }
+
+    private static void execute(Connection conn, Migration migration, boolean mysql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.statements(mysql)) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (mysql && e.getErrorCode() == MYSQL_DUPLICATE_KEY_NAME) {
+                        logger.debug("Index already present, skipping: {}", sql);
+                    } else {
+                        throw new SQLException("Migration V" + migration.version() + " failed on: " + sql, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void acquireMySQLLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, MYSQL_LOCK_NAME);
+            stmt.setInt(2, MYSQL_LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another instance to finish schema migration");
+                }
+            }
+        }
+    }
+
+    private static void releaseMySQLLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, MYSQL_LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("Failed to release schema migration lock: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.aidsync.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A unit of database work executed against a connection supplied by {@link DatabaseConfig}.
+ * <p>
+ * Work passed to {@link DatabaseConfig#executeWrite(SqlWork)} runs inside a transaction
+ * managed by the caller of the work; it must not commit, roll back or change auto-commit.
+ */
+@FunctionalInterface
+public interface SqlWork<T> {
+    T execute(Connection conn) throws SQLException;
+}
@@ -0,0 +1,54 @@
+package com.aidsync.config;
+
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * High-throughput connection settings for the SQLite fallback database.
+ * <p>
+ * WAL journaling lets readers proceed while the single writer commits, and
+ * {@code synchronous=NORMAL} is durable across application crashes in WAL mode while
+ * avoiding an fsync per transaction. Reader connections are opened with
+ * {@code query_only} so any write that bypasses the writer queue fails fast instead of
+ * contending for the write lock.
+ */
+final class SqliteProfile {
+    
+    private static final int BUSY_TIMEOUT_MS = DatabaseConfig.intSetting("db.sqlite.busyTimeoutMs", "DB_SQLITE_BUSY_TIMEOUT_MS", 5000);
+    private static final int CACHE_SIZE_KB = DatabaseConfig.intSetting("db.sqlite.cacheSizeKb", "DB_SQLITE_CACHE_SIZE_KB", 16384);
+    private static final int MMAP_SIZE_MB = DatabaseConfig.intSetting("db.sqlite.mmapSizeMb", "DB_SQLITE_MMAP_SIZE_MB", 256);
+    
+    private SqliteProfile() {
+    }
+    
+    static Connection openWriter(String url) throws SQLException {
+        return DriverManager.getConnection(url, baseConfig().toProperties());
+    }
+    
+    static Connection openReader(String url) throws SQLException {
+        Connection conn = DriverManager.getConnection(url, baseConfig().toProperties());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA query_only = 1");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+    
+    private static SQLiteConfig baseConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        // A negative cache_size is interpreted by SQLite as KiB rather than pages
+        config.setCacheSize(-CACHE_SIZE_KB);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf((long) MMAP_SIZE_MB * 1024 * 1024));
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        return config;
+    }
+}
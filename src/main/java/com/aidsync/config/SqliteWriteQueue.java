@@ -0,0 +1,281 @@
+package com.aidsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serializes all SQLite writes onto one dedicated writer thread.
+ * <p>
+ * SQLite allows a single writer at a time, so instead of letting several connections
+ * race for the write lock (and fail with {@code SQLITE_BUSY}), callers enqueue their work
+ * and block until it is durable. The writer drains whatever is queued and runs it as one
+ * group commit, wrapping each job in a savepoint so a failing job is rolled back on its
+ * own without affecting the others in the batch. A job that has the batch to itself needs
+ * no savepoint and runs without one.
+ */
+final class SqliteWriteQueue implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SqliteWriteQueue.class);
+
+    private static final int MAX_BATCH = 64;
+
+    private final LinkedBlockingQueue<WriteJob<?>> queue = new LinkedBlockingQueue<>();
+    private final Connection connection;
+    private final Connection managedConnection;
+    private final Thread writerThread;
+
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong committedJobs = new AtomicLong();
+    private final LatencyHistogram waits = new LatencyHistogram();
+
+    private volatile boolean closed;
+
+    SqliteWriteQueue(Connection connection) throws SQLException {
+        this.connection = connection;
+        this.managedConnection = ManagedTransaction.wrap(connection);
+        connection.setAutoCommit(false);
+
+        writerThread = new Thread(this::runWriter, "AIDSYNC-SQLite-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    boolean isWriterThread() {
+        return Thread.currentThread() == writerThread;
+    }
+
+    /**
+     * Run the work in the writer's transaction and wait until it has been committed.
+     */
+    <T> T submit(SqlWork<T> work) throws SQLException {
+        if (isWriterThread()) {
+            // Nested write from inside a job joins the job's transaction
+            return work.execute(managedConnection);
+        }
+        if (closed) {
+            throw new SQLException("SQLite writer has been shut down");
+        }
+
+        WriteJob<T> job = new WriteJob<>(work);
+        queue.add(job);
+
+        try {
+            return job.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException("Database write failed", cause);
+        }
+    }
+
+    private void runWriter() {
+        List<WriteJob<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                WriteJob<?> first = queue.take();
+                if (first.isShutdownMarker()) {
+                    break;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                boolean stop = batch.removeIf(WriteJob::isShutdownMarker);
+                commitBatch(batch);
+                batch.clear();
+                if (stop) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        failPending(new SQLException("SQLite writer has been shut down"));
+    }
+
+    private void commitBatch(List<WriteJob<?>> batch) {
+        List<WriteJob<?>> succeeded = new ArrayList<>(batch.size());
+        boolean isolate = batch.size() > 1;
+        for (WriteJob<?> job : batch) {
+            switch (runJob(job, isolate)) {
+                case SUCCEEDED -> succeeded.add(job);
+                case FAILED -> { }
+                case BATCH_ABORTED -> {
+                    // The whole transaction was rolled back, taking the earlier jobs' writes with it
+                    SQLException aborted = new SQLException("SQLite write transaction was rolled back");
+                    succeeded.forEach(earlier -> earlier.result.completeExceptionally(aborted));
+                    succeeded.clear();
+                }
+            }
+        }
+
+        if (succeeded.isEmpty()) {
+            return;
+        }
+
+        try {
+            connection.commit();
+            committedBatches.incrementAndGet();
+            committedJobs.addAndGet(succeeded.size());
+            succeeded.forEach(WriteJob::complete);
+        } catch (SQLException e) {
+            logger.error("Group commit of {} SQLite write(s) failed", succeeded.size(), e);
+            rollbackQuietly();
+            succeeded.forEach(job -> job.result.completeExceptionally(e));
+        }
+    }
+
+    private enum Outcome { SUCCEEDED, FAILED, BATCH_ABORTED }
+
+    /**
+     * Run one job, in its own savepoint when it shares the transaction with other jobs. When
+     * the savepoint cannot be rolled back (SQLite has already aborted the transaction, e.g. on
+     * a full disk or I/O error) the whole transaction is rolled back and
+     * {@link Outcome#BATCH_ABORTED} is returned.
+     * <p>
+     * A job alone in its batch runs directly in the transaction and a failure rolls back the
+     * whole of it. Besides saving the savepoint, this keeps bulk writes fast: inside a
+     * savepoint FTS5 flushes its pending terms on every statement a trigger opens, so each
+     * beneficiary inserted during an import would add a segment to the full-text index.
+     */
+    private Outcome runJob(WriteJob<?> job, boolean isolate) {
+        Savepoint savepoint = null;
+        try {
+            waits.record(System.nanoTime() - job.queuedAt);
+            if (isolate) {
+                savepoint = connection.setSavepoint();
+            }
+            job.run(managedConnection);
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            return Outcome.SUCCEEDED;
+        } catch (Throwable t) {
+            Outcome outcome = Outcome.FAILED;
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                    connection.releaseSavepoint(savepoint);
+                } catch (SQLException rollbackError) {
+                    logger.error("Failed to roll back SQLite savepoint", rollbackError);
+                    rollbackQuietly();
+                    outcome = Outcome.BATCH_ABORTED;
+                }
+            } else {
+                rollbackQuietly();
+            }
+            job.result.completeExceptionally(t);
+            return outcome;
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.error("Failed to roll back SQLite write transaction", e);
+            reopenTransaction();
+        }
+    }
+
+    /**
+     * After SQLite has ended the transaction on its own the driver never begins the next one,
+     * so later jobs would commit one by one outside any batch. Begin it here instead; if a
+     * transaction is in fact still open this fails harmlessly.
+     */
+    private void reopenTransaction() {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("BEGIN");
+        } catch (SQLException e) {
+            logger.debug("SQLite write transaction still open: {}", e.getMessage());
+        }
+    }
+
+    private void failPending(SQLException error) {
+        WriteJob<?> job;
+        while ((job = queue.poll()) != null) {
+            job.result.completeExceptionally(error);
+        }
+    }
+
+    long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    long getCommittedJobs() {
+        return committedJobs.get();
+    }
+
+    /**
+     * Time from a write being queued to the writer starting on it.
+     */
+    LatencyHistogram.Snapshot getWaitStats() {
+        return waits.snapshot();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(WriteJob.shutdownMarker());
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.error("Error closing SQLite writer connection", e);
+        }
+        logger.info("SQLite writer stopped after {} job(s) in {} group commit(s)", committedJobs.get(), committedBatches.get());
+    }
+
+    private static final class WriteJob<T> {
+        private final SqlWork<T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+        private T value;
+
+        private WriteJob(SqlWork<T> work) {
+            this.work = work;
+        }
+
+        static WriteJob<Void> shutdownMarker() {
+            return new WriteJob<>(null);
+        }
+
+        boolean isShutdownMarker() {
+            return work == null;
+        }
+
+        void run(Connection conn) throws SQLException {
+            value = work.execute(conn);
+        }
+
+        void complete() {
+            result.complete(value);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.aidsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ * <p>
+ * {@link #wrap(Connection, int)} returns a connection whose {@code prepareStatement(sql)}
+ * hands back a previously prepared statement for the same SQL text when one is free, so
+ * repeated lookups and saves skip the driver's parse/plan step. Closing such a statement
+ * clears its parameters and returns it to the cache; the physical statement is closed
+ * when it is evicted or when the connection itself is closed.
+ */
+public final class StatementCache {
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Hit/miss counters across all cached connections.
+     */
+    public record Stats(long hits, long misses, long evictions) {
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : hits / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("StatementCache[hits=%d, misses=%d, evictions=%d, hitRatio=%.1f%%]",
+                hits, misses, evictions, hitRatio() * 100);
+        }
+    }
+
+    private final Connection physical;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    private StatementCache(Connection physical, int capacity) {
+        this.physical = physical;
+        this.statements = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                evictions.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Wrap a physical connection with a statement cache of the given capacity.
+     * A capacity of zero or less returns the connection unchanged.
+     */
+    static Connection wrap(Connection physical, int capacity) {
+        if (capacity <= 0) {
+            return physical;
+        }
+        StatementCache cache = new StatementCache(physical, capacity);
+        return (Connection) Proxy.newProxyInstance(
+            StatementCache.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            cache.new CachingConnection());
+    }
+
+    static Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get());
+    }
+
+    private synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : "N:" + sql;
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.incrementAndGet();
+            return cached.checkOut();
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement statement = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+            ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+            : physical.prepareStatement(sql);
+        if (cached != null) {
+            // Same SQL already open on this connection (nested use); don't cache the duplicate
+            return statement;
+        }
+
+        cached = new CachedStatement(statement);
+        statements.put(key, cached);
+        return cached.checkOut();
+    }
+
+    private synchronized void closeAll() {
+        List<CachedStatement> open = new ArrayList<>(statements.values());
+        statements.clear();
+        open.forEach(CachedStatement::closePhysical);
+    }
+
+    private final class CachingConnection implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("prepareStatement") && args.length == 1) {
+                return prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+            }
+            if (name.equals("prepareStatement") && args.length == 2 && method.getParameterTypes()[1] == int.class) {
+                return prepare((String) args[0], (Integer) args[1]);
+            }
+            if (name.equals("close")) {
+                closeAll();
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * A physical statement plus its cache state. Only one logical handle is checked out at a time.
+     */
+    private final class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private PreparedStatement checkOut() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandle(this));
+        }
+
+        private void checkIn() {
+            boolean reusable;
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                reusable = true;
+            } catch (SQLException e) {
+                logger.debug("Failed to reset cached statement, discarding it", e);
+                reusable = false;
+            }
+
+            synchronized (StatementCache.this) {
+                inUse = false;
+                if (!reusable) {
+                    statements.values().remove(this);
+                }
+                if (!reusable || evicted) {
+                    closePhysical();
+                }
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing cached statement", e);
+            }
+        }
+    }
+
+    /**
+     * Logical statement handed to callers; closing it returns the statement to the cache.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean logicallyClosed;
+
+        private StatementHandle(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        cached.checkIn();
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || cached.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (logicallyClosed) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
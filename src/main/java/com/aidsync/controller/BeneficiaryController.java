@@ -1,22 +1,31 @@
 package com.aidsync.controller;
 
 import com.aidsync.model.Beneficiary;
+import com.aidsync.service.BeneficiaryImportService;
 import com.aidsync.service.BeneficiaryService;
+import com.aidsync.service.ExportService;
 import com.aidsync.util.AlertUtil;
+import com.aidsync.util.ExportRunner;
+import com.aidsync.util.PagedTableLoader;
 import com.aidsync.util.SceneManager;
+import com.aidsync.util.SearchPipeline;
 import com.aidsync.util.SecurityUtil;
+import com.aidsync.util.TaskRunner;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.ResourceBundle;
 
 public class BeneficiaryController implements Initializable {
@@ -62,20 +71,40 @@ public class BeneficiaryController implements Initializable {
     @FXML private Button clearButton;
     @FXML private Button deleteButton;
     @FXML private Button backButton;
+    @FXML private Button importButton;
+    @FXML private Button exportButton;
+    @FXML private ProgressBar taskProgress;
+    @FXML private Label taskStatusLabel;
     
     private BeneficiaryService beneficiaryService;
+    private TaskRunner.Scope scope;
     private ObservableList<Beneficiary> beneficiaryList;
+    private PagedTableLoader<Beneficiary> pageLoader;
     private Beneficiary selectedBeneficiary;
+    private Task<BeneficiaryImportService.Result> importTask;
+    private ExportRunner exportRunner;
+    
+    private static final int PAGE_SIZE = 100;
+    
+    // Current list query; null filters until the user changes one (hides deceased by default)
+    private String querySearchText;
+    private String queryBarangay;
+    private String queryStatus;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         beneficiaryService = new BeneficiaryService();
+        scope = TaskRunner.Scope.forView(beneficiaryTable);
         beneficiaryList = FXCollections.observableArrayList();
         
         setupTable();
         setupForm();
         loadBeneficiaries();
         setupFilters();
+        
+        // Import and export share the header's progress bar, so only one runs at a time
+        exportRunner = new ExportRunner(exportButton, taskStatusLabel, taskProgress);
+        importButton.disableProperty().bind(exportRunner.runningProperty());
     }
     
     private void setupTable() {
@@ -88,6 +117,22 @@ public class BeneficiaryController implements Initializable {
         priorityColumn.setCellValueFactory(new PropertyValueFactory<>("priorityLevel"));
         
         beneficiaryTable.setItems(beneficiaryList);
+        pageLoader = new PagedTableLoader<>(beneficiaryTable, beneficiaryList, PAGE_SIZE, scope, e -> {
+            if (e instanceof SearchPipeline.UnsafeInputException) {
+                AlertUtil.showWarning("Invalid Input", e.getMessage());
+                return;
+            }
+            logger.error("Error loading beneficiaries", e);
+            AlertUtil.showError("Error", "Failed to load beneficiaries: " + e.getMessage());
+        });
+        
+        // Only columns backed by an indexed sort key can be sorted server-side
+        ageColumn.setSortable(false);
+        barangayColumn.setSortable(false);
+        statusColumn.setSortable(false);
+        priorityColumn.setSortable(false);
+        pageLoader.enableServerSort(this::loadBeneficiaries);
+        
         beneficiaryTable.getSelectionModel().selectedItemProperty().addListener(
             (obs, oldSelection, newSelection) -> {
                 if (newSelection != null) {
@@ -118,14 +163,13 @@ public class BeneficiaryController implements Initializable {
     }
     
     private void loadBarangays() {
-        try {
-            List<String> barangays = beneficiaryService.getAllBarangays();
-            barangayComboBox.setItems(FXCollections.observableArrayList(barangays));
-            barangayFilter.setItems(FXCollections.observableArrayList(barangays));
-        } catch (Exception e) {
-            logger.error("Error loading barangays", e);
-            AlertUtil.showError("Error", "Failed to load barangays: " + e.getMessage());
-        }
+        TaskRunner.task(TaskRunner.Category.DB_READ, "load barangays", beneficiaryService::getAllBarangays)
+            .onSuccess(barangays -> {
+                barangayComboBox.setItems(FXCollections.observableArrayList(barangays));
+                barangayFilter.setItems(FXCollections.observableArrayList(barangays));
+            })
+            .in(scope)
+            .start();
     }
     
     private void setupFilters() {
@@ -133,43 +177,39 @@ public class BeneficiaryController implements Initializable {
         statusFilter.setValue("All");
         barangayFilter.setValue("All Barangays");
         
-        // Add filter listeners
-        searchField.textProperty().addListener((obs, oldText, newText) -> filterBeneficiaries());
-        barangayFilter.valueProperty().addListener((obs, oldVal, newVal) -> filterBeneficiaries());
-        statusFilter.valueProperty().addListener((obs, oldVal, newVal) -> filterBeneficiaries());
+        // Typing searches once the user pauses; filter changes search right away
+        new SearchPipeline(pageLoader, this::filterBeneficiaries)
+            .debounce(searchField.textProperty())
+            .immediate(barangayFilter.valueProperty())
+            .immediate(statusFilter.valueProperty());
     }
     
     private void loadBeneficiaries() {
-        try {
-            List<Beneficiary> beneficiaries = beneficiaryService.getAllBeneficiaries();
-            beneficiaryList.setAll(beneficiaries);
-        } catch (Exception e) {
-            logger.error("Error loading beneficiaries", e);
-            AlertUtil.showError("Error", "Failed to load beneficiaries: " + e.getMessage());
+        String searchText = querySearchText;
+        String barangay = queryBarangay;
+        String status = queryStatus;
+        
+        BeneficiaryService.SortField sortField = BeneficiaryService.SortField.CREATED_AT;
+        boolean descending = true;
+        if (!beneficiaryTable.getSortOrder().isEmpty()) {
+            TableColumn<Beneficiary, ?> column = beneficiaryTable.getSortOrder().get(0);
+            sortField = column == idColumn ? BeneficiaryService.SortField.BENEFICIARY_ID : BeneficiaryService.SortField.FULL_NAME;
+            descending = column.getSortType() == TableColumn.SortType.DESCENDING;
         }
+        
+        BeneficiaryService.SortField sort = sortField;
+        boolean desc = descending;
+        pageLoader.reset((after, pageSize) -> {
+            SearchPipeline.requireSafeInput(searchText);
+            return beneficiaryService.getBeneficiaryPage(searchText, barangay, status, sort, desc, after, pageSize);
+        });
     }
     
     private void filterBeneficiaries() {
-        try {
-            String searchText = searchField.getText();
-            String selectedBarangay = this.barangayFilter.getValue();
-            String selectedStatus = this.statusFilter.getValue();
-            
-            // Validate search input
-            if (searchText != null && !SecurityUtil.isInputSafe(searchText)) {
-                logger.warn("Suspicious search input detected: {}", SecurityUtil.sanitizeForLogging(searchText));
-                AlertUtil.showWarning("Invalid Input", "Search contains invalid characters.");
-                return;
-            }
-            
-            List<Beneficiary> filtered = beneficiaryService.searchBeneficiaries(searchText, selectedBarangay, selectedStatus);
-            if (filtered != null) {
-                beneficiaryList.setAll(filtered);
-            }
-        } catch (Exception e) {
-            logger.error("Error filtering beneficiaries", e);
-            AlertUtil.showError("Search Error", "Failed to filter beneficiaries. Please try again.");
-        }
+        querySearchText = searchField.getText();
+        queryBarangay = this.barangayFilter.getValue();
+        queryStatus = this.statusFilter.getValue();
+        loadBeneficiaries();
     }
     
     private void populateForm(Beneficiary beneficiary) {
@@ -229,50 +269,52 @@ public class BeneficiaryController implements Initializable {
     
     @FXML
     private void handleSave() {
-        try {
-            if (!validateForm()) return;
-            
-            Beneficiary beneficiary = selectedBeneficiary != null ? selectedBeneficiary : new Beneficiary();
-            
-            // Set basic info
-            beneficiary.setFullName(fullNameField.getText().trim());
-            beneficiary.setBirthDate(birthDatePicker.getValue());
-            beneficiary.setGender(genderComboBox.getValue());
-            beneficiary.setCivilStatus(civilStatusComboBox.getValue());
-            beneficiary.setContactNumber(contactNumberField.getText().trim());
-            beneficiary.setBarangayName(barangayComboBox.getValue());
-            beneficiary.setStreetSitio(streetSitioField.getText().trim());
-            beneficiary.setHouseholdHead(householdHeadCheckBox.isSelected());
-            beneficiary.setFamilySize(familySizeSpinner.getValue());
-            beneficiary.setMonthlyIncomeRange(incomeRangeComboBox.getValue());
-            beneficiary.setEmploymentStatus(employmentStatusComboBox.getValue());
-            beneficiary.setPriorityLevel((int) prioritySlider.getValue());
-            
-            // Set vulnerability flags
-            beneficiary.setPWD(pwdCheckBox.isSelected());
-            beneficiary.setSeniorCitizen(seniorCitizenCheckBox.isSelected());
-            beneficiary.setPregnantLactating(pregnantLactatingCheckBox.isSelected());
-            beneficiary.setSoloParent(soloParentCheckBox.isSelected());
-            beneficiary.setHasChronicIllness(chronicIllnessCheckBox.isSelected());
-            beneficiary.setOrphan(orphanCheckBox.isSelected());
-            beneficiary.setIndigenous(indigenousCheckBox.isSelected());
-            beneficiary.setHomeless(homelessCheckBox.isSelected());
-            
-            if (selectedBeneficiary == null) {
-                beneficiaryService.createBeneficiary(beneficiary);
-                AlertUtil.showInfo("Success", "Beneficiary created successfully!");
-            } else {
-                beneficiaryService.updateBeneficiary(beneficiary);
-                AlertUtil.showInfo("Success", "Beneficiary updated successfully!");
-            }
-            
-            loadBeneficiaries();
-            clearForm();
-            
-        } catch (Exception e) {
-            logger.error("Error saving beneficiary", e);
-            AlertUtil.showError("Error", "Failed to save beneficiary: " + e.getMessage());
-        }
+        if (!validateForm()) return;
+        
+        Beneficiary beneficiary = selectedBeneficiary != null ? selectedBeneficiary : new Beneficiary();
+        
+        // Set basic info
+        beneficiary.setFullName(fullNameField.getText().trim());
+        beneficiary.setBirthDate(birthDatePicker.getValue());
+        beneficiary.setGender(genderComboBox.getValue());
+        beneficiary.setCivilStatus(civilStatusComboBox.getValue());
+        beneficiary.setContactNumber(contactNumberField.getText().trim());
+        beneficiary.setBarangayName(barangayComboBox.getValue());
+        beneficiary.setStreetSitio(streetSitioField.getText().trim());
+        beneficiary.setHouseholdHead(householdHeadCheckBox.isSelected());
+        beneficiary.setFamilySize(familySizeSpinner.getValue());
+        beneficiary.setMonthlyIncomeRange(incomeRangeComboBox.getValue());
+        beneficiary.setEmploymentStatus(employmentStatusComboBox.getValue());
+        beneficiary.setPriorityLevel((int) prioritySlider.getValue());
+        
+        // Set vulnerability flags
+        beneficiary.setPWD(pwdCheckBox.isSelected());
+        beneficiary.setSeniorCitizen(seniorCitizenCheckBox.isSelected());
+        beneficiary.setPregnantLactating(pregnantLactatingCheckBox.isSelected());
+        beneficiary.setSoloParent(soloParentCheckBox.isSelected());
+        beneficiary.setHasChronicIllness(chronicIllnessCheckBox.isSelected());
+        beneficiary.setOrphan(orphanCheckBox.isSelected());
+        beneficiary.setIndigenous(indigenousCheckBox.isSelected());
+        beneficiary.setHomeless(homelessCheckBox.isSelected());
+        
+        boolean creating = selectedBeneficiary == null;
+        saveButton.setDisable(true);
+        TaskRunner.task(TaskRunner.Category.DB_WRITE, "save beneficiary", () -> {
+                if (creating) {
+                    beneficiaryService.createBeneficiary(beneficiary);
+                } else {
+                    beneficiaryService.updateBeneficiary(beneficiary);
+                }
+                return null;
+            })
+            .onDone(() -> saveButton.setDisable(false))
+            .onSuccess(ignored -> {
+                AlertUtil.showInfo("Success", creating ? "Beneficiary created successfully!" : "Beneficiary updated successfully!");
+                loadBeneficiaries();
+                clearForm();
+            })
+            .in(scope)
+            .start();
     }
     
     @FXML
@@ -286,18 +328,107 @@ public class BeneficiaryController implements Initializable {
         
         if (AlertUtil.showConfirmation("Delete Beneficiary", 
             "Are you sure you want to delete " + selectedBeneficiary.getFullName() + "?")) {
-            try {
-                beneficiaryService.deleteBeneficiary(selectedBeneficiary.getId());
-                AlertUtil.showInfo("Success", "Beneficiary deleted successfully!");
-                loadBeneficiaries();
-                clearForm();
-            } catch (Exception e) {
-                logger.error("Error deleting beneficiary", e);
-                AlertUtil.showError("Error", "Failed to delete beneficiary: " + e.getMessage());
+            int id = selectedBeneficiary.getId();
+            deleteButton.setDisable(true);
+            TaskRunner.task(TaskRunner.Category.DB_WRITE, "delete beneficiary", () -> {
+                    beneficiaryService.deleteBeneficiary(id);
+                    return null;
+                })
+                .onDone(() -> deleteButton.setDisable(false))
+                .onSuccess(ignored -> {
+                    AlertUtil.showInfo("Success", "Beneficiary deleted successfully!");
+                    loadBeneficiaries();
+                    clearForm();
+                })
+                .in(scope)
+                .start();
+        }
+    }
+    
+    @FXML
+    private void handleImport() {
+        if (importTask != null) {
+            importTask.cancel(false); // The import checks isCancelled() between chunks
+            return;
+        }
+        
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Beneficiary List");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Beneficiary lists (*.csv, *.xlsx)", "*.csv", "*.xlsx"));
+        File file = chooser.showOpenDialog(importButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        Path source = file.toPath();
+        Path rejectReport = BeneficiaryImportService.rejectReportFor(source);
+        BeneficiaryImportService importService = new BeneficiaryImportService();
+        Task<BeneficiaryImportService.Result> task = new Task<>() {
+            @Override
+            protected BeneficiaryImportService.Result call() throws Exception {
+                return importService.importFile(source, rejectReport, (rowsRead, imported, rejected, fraction) -> {
+                    updateMessage(String.format("%,d imported, %,d rejected", imported, rejected));
+                    updateProgress(fraction >= 0 ? fraction : -1, 1);
+                }, this::isCancelled);
             }
+        };
+        
+        importTask = task;
+        importButton.setText("Cancel Import");
+        exportButton.setDisable(true);
+        taskProgress.progressProperty().bind(task.progressProperty());
+        taskStatusLabel.textProperty().bind(task.messageProperty());
+        showImportProgress(true);
+        
+        task.setOnSucceeded(event -> {
+            finishImport();
+            BeneficiaryImportService.Result result = task.getValue();
+            String message = String.format("Imported %,d of %,d row(s) in %.1f s.", 
+                result.imported(), result.rowsRead(), result.elapsedMillis() / 1000.0);
+            if (result.rejectReport() != null) {
+                message += String.format("%n%,d row(s) were rejected; see %s", result.rejected(), result.rejectReport());
+            }
+            AlertUtil.showInfo("Import Complete", message);
+        });
+        task.setOnFailed(event -> {
+            finishImport();
+            logger.error("Error importing beneficiaries", task.getException());
+            AlertUtil.showError("Import Failed", "Failed to import " + source.getFileName() + ": " + task.getException().getMessage());
+        });
+        task.setOnCancelled(event -> {
+            finishImport();
+            AlertUtil.showInfo("Import Cancelled", "Rows imported before cancelling have been kept.");
+        });
+        
+        TaskRunner.run(TaskRunner.Category.BULK, "import " + source.getFileName(), task);
+    }
+    
+    private void finishImport() {
+        importTask = null;
+        importButton.setText("Import List...");
+        exportButton.setDisable(false);
+        taskProgress.progressProperty().unbind();
+        taskStatusLabel.textProperty().unbind();
+        showImportProgress(false);
+        pageLoader.reload();
+    }
+    
+    @FXML
+    private void handleExport() {
+        if (exportRunner.runningProperty().get()) {
+            exportRunner.cancel();
+        } else {
+            exportRunner.start(ExportService.Dataset.BENEFICIARIES);
         }
     }
     
+    private void showImportProgress(boolean visible) {
+        taskProgress.setVisible(visible);
+        taskProgress.setManaged(visible);
+        taskStatusLabel.setVisible(visible);
+        taskStatusLabel.setManaged(visible);
+    }
+    
     @FXML
     private void handleBack() {
         SceneManager.switchToDashboard();
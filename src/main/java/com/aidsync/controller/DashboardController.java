@@ -1,21 +1,41 @@
 package com.aidsync.controller;
 
+import com.aidsync.event.BeneficiariesRegistered;
+import com.aidsync.event.BeneficiaryDeactivated;
+import com.aidsync.event.DistributionRecorded;
+import com.aidsync.event.EventBus;
+import com.aidsync.event.InventoryItemChanged;
+import com.aidsync.event.RemoteChangesApplied;
+import com.aidsync.event.StockMoved;
+import com.aidsync.model.AuditEntry;
+import com.aidsync.model.DashboardStats;
 import com.aidsync.model.User;
+import com.aidsync.service.AuditLog;
 import com.aidsync.service.DashboardService;
 import com.aidsync.util.AlertUtil;
 import com.aidsync.util.SceneManager;
 import com.aidsync.util.SessionManager;
+import com.aidsync.util.TaskRunner;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DashboardController implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
@@ -48,13 +68,42 @@ public class DashboardController implements Initializable {
     @FXML private Button gisMenuButton;
     @FXML private Button adminMenuButton;
     
+    // How often event deltas are applied to the stat cards
+    private static final Duration LIVE_UPDATE_INTERVAL = Duration.millis(250);
+    private static final int ACTIVITY_FEED_SIZE = 8;
+    
     private DashboardService dashboardService;
+    private TaskRunner.Scope scope;
+    
+    /**
+     * Changes to the stat cards reported by one event, with the counters version its write left.
+     */
+    private record Delta(long countersVersion, long active, long registered, long distributions, long lowStock) {
+    }
+    
+    // Last figures shown, and changes reported by events since; stats and loading belong to the UI thread
+    private DashboardStats stats;
+    private LocalDate statsDate;
+    private boolean loading;
+    private final Queue<Delta> pendingDeltas = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+    private Timeline liveUpdater;
+    private Timeline dateTimeUpdater;
+    
+    // AuditLog version the activity feed was last drawn from
+    private long activityFeedVersion = -1;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         dashboardService = new DashboardService();
+        // Navigating away replaces the scene; stop listening and updating once this view has left its window
+        scope = TaskRunner.Scope.forView(welcomeLabel);
+        scope.onClose(this::stop);
         
         setupUserInterface();
+        subscribeToEvents();
         loadDashboardData();
         startDateTimeUpdater();
         
@@ -130,42 +179,170 @@ public class DashboardController implements Initializable {
     }
     
     private void loadDashboardData() {
-        try {
-            // Load statistics
-            int totalBeneficiaries = dashboardService.getTotalBeneficiaries();
-            int distributionsToday = dashboardService.getDistributionsToday();
-            int lowStockItems = dashboardService.getLowStockItemsCount();
-            int pendingTasks = dashboardService.getPendingTasksCount();
-            
-            // Update UI
-            totalBeneficiariesLabel.setText(String.valueOf(totalBeneficiaries));
-            distributionsTodayLabel.setText(String.valueOf(distributionsToday));
-            lowStockItemsLabel.setText(String.valueOf(lowStockItems));
-            pendingTasksLabel.setText(String.valueOf(pendingTasks));
-            
-            // Set alert styles for critical items
-            if (lowStockItems > 0) {
-                lowStockItemsLabel.setStyle("-fx-text-fill: #d32f2f; -fx-font-weight: bold;");
+        // Load activity feed
+        loadActivityFeed();
+        
+        loadStats();
+    }
+    
+    private void loadStats() {
+        // Statistics come from one query, run off the UI thread. Deltas wait in the queue
+        // until it returns, then only those newer than the figures it read are applied.
+        loading = true;
+        TaskRunner.task(TaskRunner.Category.DB_READ, "load dashboard data", dashboardService::getStats)
+            .onDone(() -> loading = false)
+            .onSuccess(loaded -> {
+                stats = loaded;
+                statsDate = LocalDate.now();
+                showStats(loaded);
+            })
+            .in(scope)
+            .start();
+    }
+    
+    private void showStats(DashboardStats stats) {
+        totalBeneficiariesLabel.setText(String.valueOf(stats.activeBeneficiaries()));
+        distributionsTodayLabel.setText(String.valueOf(stats.distributionsToday()));
+        lowStockItemsLabel.setText(String.valueOf(stats.lowStockItems()));
+        pendingTasksLabel.setText(String.valueOf(stats.pendingTasks()));
+        totalBeneficiariesChangeLabel.setText(String.format("%+.0f%%", stats.beneficiaryGrowthPercentage()));
+        distributionsTodayChangeLabel.setText(String.format("%+.0f%%", stats.distributionGrowthPercentage()));
+        
+        // Set alert styles for critical items
+        if (stats.lowStockItems() > 0) {
+            lowStockItemsLabel.setStyle("-fx-text-fill: #d32f2f; -fx-font-weight: bold;");
+        } else {
+            lowStockItemsLabel.setStyle("");
+        }
+    }
+    
+    /**
+     * Queue changes published by the services; they are applied to the cards together by
+     * {@link #applyPendingDeltas()}, so a burst of writes such as an import redraws them only a
+     * few times per second.
+     */
+    private void subscribeToEvents() {
+        EventBus bus = EventBus.getInstance();
+        subscriptions.add(bus.subscribe(BeneficiariesRegistered.class,
+            e -> queueDelta(new Delta(e.countersVersion(), e.count(), e.count(), 0, 0))));
+        subscriptions.add(bus.subscribe(BeneficiaryDeactivated.class, e -> {
+            if (e.wasActive()) {
+                queueDelta(new Delta(e.countersVersion(), -1, 0, 0, 0));
             }
-            
-            // Load activity feed
+        }));
+        subscriptions.add(bus.subscribe(DistributionRecorded.class,
+            e -> queueDelta(new Delta(e.countersVersion(), 0, 0, 1, 0))));
+        subscriptions.add(bus.subscribe(InventoryItemChanged.class,
+            e -> queueDelta(new Delta(e.countersVersion(), 0, 0, 0, e.lowStockDelta()))));
+        subscriptions.add(bus.subscribe(StockMoved.class,
+            e -> queueDelta(new Delta(e.countersVersion(), 0, 0, 0, e.lowStockDelta()))));
+        subscriptions.add(bus.subscribe(RemoteChangesApplied.class, e -> reloadPending.set(true)));
+        
+        liveUpdater = new Timeline(new KeyFrame(LIVE_UPDATE_INTERVAL, e -> applyPendingDeltas()));
+        liveUpdater.setCycleCount(Timeline.INDEFINITE);
+        liveUpdater.play();
+    }
+    
+    private void queueDelta(Delta delta) {
+        if (delta.active() != 0 || delta.registered() != 0 || delta.distributions() != 0 || delta.lowStock() != 0) {
+            pendingDeltas.add(delta);
+        }
+    }
+    
+    private void applyPendingDeltas() {
+        if (AuditLog.getInstance().version() != activityFeedVersion) {
             loadActivityFeed();
-            
-        } catch (Exception e) {
-            logger.error("Error loading dashboard data", e);
-            AlertUtil.showError("Error", "Failed to load dashboard data: " + e.getMessage());
         }
+        if (loading) {
+            return;
+        }
+        if (stats == null) {
+            // The load failed; whatever loads the figures next reads every change published so far
+            pendingDeltas.clear();
+            return;
+        }
+        // Month and day figures belong to the date they were read on, and rows copied in by
+        // a sync come without deltas
+        boolean synced = reloadPending.getAndSet(false);
+        if (synced || !LocalDate.now().equals(statsDate)) {
+            statsDate = LocalDate.now();
+            loadStats();
+            return;
+        }
+        long active = 0;
+        long registered = 0;
+        long distributions = 0;
+        long lowStock = 0;
+        Delta delta;
+        while ((delta = pendingDeltas.poll()) != null) {
+            // Writes committed before the figures were read are in them already
+            if (delta.countersVersion() > stats.countersVersion()) {
+                active += delta.active();
+                registered += delta.registered();
+                distributions += delta.distributions();
+                lowStock += delta.lowStock();
+            }
+        }
+        if (active == 0 && registered == 0 && distributions == 0 && lowStock == 0) {
+            return;
+        }
+        stats = new DashboardStats(
+            stats.activeBeneficiaries() + active,
+            stats.beneficiariesThisMonth() + registered,
+            stats.beneficiariesLastMonth(),
+            stats.distributionsToday() + distributions,
+            stats.distributionsYesterday(),
+            stats.lowStockItems() + lowStock,
+            stats.pendingTasks(),
+            stats.countersVersion());
+        showStats(stats);
+    }
+    
+    private void stop() {
+        subscriptions.forEach(EventBus.Subscription::close);
+        subscriptions.clear();
+        liveUpdater.stop();
+        dateTimeUpdater.stop();
     }
     
+    /**
+     * Latest audit entries, read from memory so this is cheap enough to redraw on every change.
+     */
     private void loadActivityFeed() {
+        AuditLog auditLog = AuditLog.getInstance();
+        activityFeedVersion = auditLog.version();
+        
         // Clear existing items
         activityFeedVBox.getChildren().clear();
         
-        // Add recent activities
-        addActivityItem("New beneficiary registered: Maria Santos", "2 minutes ago");
-        addActivityItem("Distribution completed at Badas Barangay", "15 minutes ago");
-        addActivityItem("Inventory updated: Rice stock replenished", "1 hour ago");
-        addActivityItem("Report generated: Monthly Distribution Summary", "2 hours ago");
+        List<AuditEntry> entries = auditLog.recent(ACTIVITY_FEED_SIZE);
+        if (entries.isEmpty()) {
+            addActivityItem("No recent activity", "");
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (AuditEntry entry : entries) {
+            addActivityItem(entry.description(), timeAgo(entry.createdAt(), now));
+        }
+    }
+    
+    private static String timeAgo(LocalDateTime time, LocalDateTime now) {
+        if (time == null) {
+            return "";
+        }
+        long minutes = java.time.Duration.between(time, now).toMinutes();
+        if (minutes < 1) {
+            return "Just now";
+        }
+        if (minutes < 60) {
+            return minutes == 1 ? "1 minute ago" : minutes + " minutes ago";
+        }
+        long hours = minutes / 60;
+        if (hours < 24) {
+            return hours == 1 ? "1 hour ago" : hours + " hours ago";
+        }
+        long days = hours / 24;
+        return days == 1 ? "Yesterday" : days + " days ago";
     }
     
     private void addActivityItem(String activity, String time) {
@@ -183,11 +360,15 @@ public class DashboardController implements Initializable {
     
     private void startDateTimeUpdater() {
         // Update date/time every minute
-        javafx.animation.Timeline timeline = new javafx.animation.Timeline(
-            new javafx.animation.KeyFrame(javafx.util.Duration.minutes(1), e -> updateDateTime())
+        dateTimeUpdater = new Timeline(
+            new KeyFrame(Duration.minutes(1), e -> {
+                updateDateTime();
+                // Keep the "minutes ago" times current
+                loadActivityFeed();
+            })
         );
-        timeline.setCycleCount(javafx.animation.Timeline.INDEFINITE);
-        timeline.play();
+        dateTimeUpdater.setCycleCount(Timeline.INDEFINITE);
+        dateTimeUpdater.play();
     }
     
     private void updateDateTime() {
@@ -266,6 +447,6 @@ public class DashboardController implements Initializable {
     
     @FXML
     private void handleAdminMenu() {
-        AlertUtil.showInfo("Administration", "Administration module coming soon!");
+        SceneManager.switchToPerformanceMonitor();
     }
 }
\ No newline at end of file
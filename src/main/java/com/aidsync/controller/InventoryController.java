@@ -2,17 +2,21 @@ package com.aidsync.controller;
 
 import java.math.BigDecimal;
 import java.net.URL;
-import java.util.List;
 import java.util.ResourceBundle;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.aidsync.model.InventoryItem;
+import com.aidsync.service.ExportService;
 import com.aidsync.service.InventoryService;
 import com.aidsync.util.AlertUtil;
+import com.aidsync.util.ExportRunner;
+import com.aidsync.util.PagedTableLoader;
 import com.aidsync.util.SceneManager;
+import com.aidsync.util.SearchPipeline;
 import com.aidsync.util.SecurityUtil;
+import com.aidsync.util.TaskRunner;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -20,10 +24,12 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -65,22 +71,38 @@ public class InventoryController implements Initializable {
     @FXML private ComboBox<InventoryItem.ItemStatus> itemStatusComboBox;
     @FXML private ComboBox<String> movementTypeComboBox;
     
+    @FXML private Button saveButton;
     @FXML private Button deleteButton;
     @FXML private Button adjustStockButton;
+    @FXML private Button exportButton;
+    @FXML private ProgressBar taskProgress;
+    @FXML private Label taskStatusLabel;
     
     private InventoryService inventoryService;
+    private TaskRunner.Scope scope;
     private ObservableList<InventoryItem> inventoryList;
+    private PagedTableLoader<InventoryItem> pageLoader;
     private InventoryItem selectedItem;
+    private ExportRunner exportRunner;
+    
+    private static final int PAGE_SIZE = 100;
+    
+    // Current list query, updated by the filters
+    private String querySearchText;
+    private String queryCategory;
+    private String queryStatus;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         inventoryService = new InventoryService();
+        scope = TaskRunner.Scope.forView(inventoryTable);
         inventoryList = FXCollections.observableArrayList();
         
         setupTable();
         setupForm();
         loadInventoryItems();
         setupFilters();
+        exportRunner = new ExportRunner(exportButton, taskStatusLabel, taskProgress);
     }
     
     private void setupTable() {
@@ -122,6 +144,23 @@ public class InventoryController implements Initializable {
         });
         
         inventoryTable.setItems(inventoryList);
+        pageLoader = new PagedTableLoader<>(inventoryTable, inventoryList, PAGE_SIZE, scope, e -> {
+            if (e instanceof SearchPipeline.UnsafeInputException) {
+                AlertUtil.showWarning("Invalid Input", e.getMessage());
+                return;
+            }
+            logger.error("Error loading inventory items", e);
+            AlertUtil.showError("Error", "Failed to load inventory items: " + e.getMessage());
+        });
+        
+        // Only columns backed by an indexed sort key can be sorted server-side
+        categoryColumn.setSortable(false);
+        stockColumn.setSortable(false);
+        unitColumn.setSortable(false);
+        statusColumn.setSortable(false);
+        valueColumn.setSortable(false);
+        pageLoader.enableServerSort(this::loadInventoryItems);
+        
         inventoryTable.getSelectionModel().selectedItemProperty().addListener(
             (obs, oldSelection, newSelection) -> {
                 if (newSelection != null) {
@@ -146,24 +185,20 @@ public class InventoryController implements Initializable {
     }
     
     private void loadCategories() {
-        try {
-            List<String> categories = inventoryService.getAllCategories();
-            categoryComboBox.setItems(FXCollections.observableArrayList(categories));
-            categoryFilter.setItems(FXCollections.observableArrayList(categories));
-        } catch (Exception e) {
-            logger.error("Error loading categories", e);
-            AlertUtil.showError("Error", "Failed to load categories: " + e.getMessage());
-        }
+        TaskRunner.task(TaskRunner.Category.DB_READ, "load categories", inventoryService::getAllCategories)
+            .onSuccess(categories -> {
+                categoryComboBox.setItems(FXCollections.observableArrayList(categories));
+                categoryFilter.setItems(FXCollections.observableArrayList(categories));
+            })
+            .in(scope)
+            .start();
     }
     
     private void loadSuppliers() {
-        try {
-            List<String> suppliers = inventoryService.getAllSuppliers();
-            supplierComboBox.setItems(FXCollections.observableArrayList(suppliers));
-        } catch (Exception e) {
-            logger.error("Error loading suppliers", e);
-            AlertUtil.showError("Error", "Failed to load suppliers: " + e.getMessage());
-        }
+        TaskRunner.task(TaskRunner.Category.DB_READ, "load suppliers", inventoryService::getAllSuppliers)
+            .onSuccess(suppliers -> supplierComboBox.setItems(FXCollections.observableArrayList(suppliers)))
+            .in(scope)
+            .start();
     }
     
     private void setupFilters() {
@@ -171,41 +206,38 @@ public class InventoryController implements Initializable {
         statusFilter.setValue("All");
         categoryFilter.setValue("All Categories");
         
-        searchField.textProperty().addListener((obs, oldText, newText) -> filterInventory());
-        categoryFilter.valueProperty().addListener((obs, oldVal, newVal) -> filterInventory());
-        statusFilter.valueProperty().addListener((obs, oldVal, newVal) -> filterInventory());
+        new SearchPipeline(pageLoader, this::filterInventory)
+            .debounce(searchField.textProperty())
+            .immediate(categoryFilter.valueProperty())
+            .immediate(statusFilter.valueProperty());
     }
     
     private void loadInventoryItems() {
-        try {
-            List<InventoryItem> items = inventoryService.getAllInventoryItems();
-            inventoryList.setAll(items);
-        } catch (Exception e) {
-            logger.error("Error loading inventory items", e);
-            AlertUtil.showError("Error", "Failed to load inventory items: " + e.getMessage());
+        String searchText = querySearchText;
+        String category = queryCategory;
+        String status = queryStatus;
+        
+        InventoryService.SortField sortField = InventoryService.SortField.ITEM_NAME;
+        boolean descending = false;
+        if (!inventoryTable.getSortOrder().isEmpty()) {
+            TableColumn<InventoryItem, ?> column = inventoryTable.getSortOrder().get(0);
+            sortField = column == codeColumn ? InventoryService.SortField.ITEM_CODE : InventoryService.SortField.ITEM_NAME;
+            descending = column.getSortType() == TableColumn.SortType.DESCENDING;
         }
+        
+        InventoryService.SortField sort = sortField;
+        boolean desc = descending;
+        pageLoader.reset((after, pageSize) -> {
+            SearchPipeline.requireSafeInput(searchText);
+            return inventoryService.getInventoryPage(searchText, category, status, sort, desc, after, pageSize);
+        });
     }
     
     private void filterInventory() {
-        try {
-            String searchText = searchField.getText();
-            String selectedCategory = this.categoryFilter.getValue();
-            String selectedStatus = this.statusFilter.getValue();
-            
-            if (searchText != null && !SecurityUtil.isInputSafe(searchText)) {
-                logger.warn("Suspicious search input detected: {}", SecurityUtil.sanitizeForLogging(searchText));
-                AlertUtil.showWarning("Invalid Input", "Search contains invalid characters.");
-                return;
-            }
-            
-            List<InventoryItem> filtered = inventoryService.searchInventoryItems(searchText, selectedCategory, selectedStatus);
-            if (filtered != null) {
-                inventoryList.setAll(filtered);
-            }
-        } catch (Exception e) {
-            logger.error("Error filtering inventory", e);
-            AlertUtil.showError("Search Error", "Failed to filter inventory. Please try again.");
-        }
+        querySearchText = searchField.getText();
+        queryCategory = this.categoryFilter.getValue();
+        queryStatus = this.statusFilter.getValue();
+        loadInventoryItems();
     }
     
     private void populateForm(InventoryItem item) {
@@ -253,42 +285,44 @@ public class InventoryController implements Initializable {
     
     @FXML
     private void handleSave() {
-        try {
-            if (!validateForm()) return;
-            
-            InventoryItem item = selectedItem != null ? selectedItem : new InventoryItem();
-            
-            item.setItemCode(itemCodeField.getText().trim());
-            item.setItemName(itemNameField.getText().trim());
-            item.setCategoryName(categoryComboBox.getValue());
-            item.setUnitOfMeasure(unitOfMeasureField.getText().trim());
-            item.setCurrentStock(new BigDecimal(currentStockField.getText()));
-            item.setMinimumStockLevel(new BigDecimal(minimumStockField.getText()));
-            item.setMaximumStockLevel(new BigDecimal(maximumStockField.getText()));
-            item.setUnitCost(new BigDecimal(unitCostField.getText()));
-            item.setSupplierName(supplierComboBox.getValue());
-            item.setBatchNumber(batchNumberField.getText().trim());
-            item.setManufactureDate(manufactureDatePicker.getValue());
-            item.setExpirationDate(expirationDatePicker.getValue());
-            item.setStorageLocation(storageLocationField.getText().trim());
-            item.setStorageConditions(storageConditionsArea.getText().trim());
-            item.setStatus(itemStatusComboBox.getValue());
-            
-            if (selectedItem == null) {
-                inventoryService.createInventoryItem(item);
-                AlertUtil.showInfo("Success", "Inventory item created successfully!");
-            } else {
-                inventoryService.updateInventoryItem(item);
-                AlertUtil.showInfo("Success", "Inventory item updated successfully!");
-            }
-            
-            loadInventoryItems();
-            clearForm();
-            
-        } catch (Exception e) {
-            logger.error("Error saving inventory item", e);
-            AlertUtil.showError("Error", "Failed to save inventory item: " + e.getMessage());
-        }
+        if (!validateForm()) return;
+        
+        InventoryItem item = selectedItem != null ? selectedItem : new InventoryItem();
+        
+        item.setItemCode(itemCodeField.getText().trim());
+        item.setItemName(itemNameField.getText().trim());
+        item.setCategoryName(categoryComboBox.getValue());
+        item.setUnitOfMeasure(unitOfMeasureField.getText().trim());
+        item.setCurrentStock(new BigDecimal(currentStockField.getText()));
+        item.setMinimumStockLevel(new BigDecimal(minimumStockField.getText()));
+        item.setMaximumStockLevel(new BigDecimal(maximumStockField.getText()));
+        item.setUnitCost(new BigDecimal(unitCostField.getText()));
+        item.setSupplierName(supplierComboBox.getValue());
+        item.setBatchNumber(batchNumberField.getText().trim());
+        item.setManufactureDate(manufactureDatePicker.getValue());
+        item.setExpirationDate(expirationDatePicker.getValue());
+        item.setStorageLocation(storageLocationField.getText().trim());
+        item.setStorageConditions(storageConditionsArea.getText().trim());
+        item.setStatus(itemStatusComboBox.getValue());
+        
+        boolean creating = selectedItem == null;
+        saveButton.setDisable(true);
+        TaskRunner.task(TaskRunner.Category.DB_WRITE, "save inventory item", () -> {
+                if (creating) {
+                    inventoryService.createInventoryItem(item);
+                } else {
+                    inventoryService.updateInventoryItem(item);
+                }
+                return null;
+            })
+            .onDone(() -> saveButton.setDisable(false))
+            .onSuccess(ignored -> {
+                AlertUtil.showInfo("Success", creating ? "Inventory item created successfully!" : "Inventory item updated successfully!");
+                loadInventoryItems();
+                clearForm();
+            })
+            .in(scope)
+            .start();
     }
     
     @FXML
@@ -302,15 +336,20 @@ public class InventoryController implements Initializable {
         
         if (AlertUtil.showConfirmation("Delete Item", 
             "Are you sure you want to delete " + selectedItem.getItemName() + "?")) {
-            try {
-                inventoryService.deleteInventoryItem(selectedItem.getId());
-                AlertUtil.showInfo("Success", "Inventory item deleted successfully!");
-                loadInventoryItems();
-                clearForm();
-            } catch (Exception e) {
-                logger.error("Error deleting inventory item", e);
-                AlertUtil.showError("Error", "Failed to delete inventory item: " + e.getMessage());
-            }
+            int id = selectedItem.getId();
+            deleteButton.setDisable(true);
+            TaskRunner.task(TaskRunner.Category.DB_WRITE, "delete inventory item", () -> {
+                    inventoryService.deleteInventoryItem(id);
+                    return null;
+                })
+                .onDone(() -> deleteButton.setDisable(false))
+                .onSuccess(ignored -> {
+                    AlertUtil.showInfo("Success", "Inventory item deleted successfully!");
+                    loadInventoryItems();
+                    clearForm();
+                })
+                .in(scope)
+                .start();
         }
     }
     
@@ -348,23 +387,44 @@ public class InventoryController implements Initializable {
         
         dialog.showAndWait().ifPresent(result -> {
             if (result == ButtonType.OK) {
-                try {
-                    String movementType = typeCombo.getValue();
-                    BigDecimal adjustQuantity = new BigDecimal(adjustQuantityField.getText());
-                    String adjustReason = adjustReasonField.getText();
-                    
-                    inventoryService.recordStockMovement(selectedItem.getId(), movementType, adjustQuantity, adjustReason);
-                    AlertUtil.showInfo("Success", "Stock adjustment recorded successfully!");
-                    loadInventoryItems();
-                    
-                } catch (Exception e) {
-                    logger.error("Error adjusting stock", e);
-                    AlertUtil.showError("Error", "Failed to adjust stock: " + e.getMessage());
-                }
+                int id = selectedItem.getId();
+                String movementType = typeCombo.getValue();
+                String adjustQuantity = adjustQuantityField.getText();
+                String adjustReason = adjustReasonField.getText();
+                
+                adjustStockButton.setDisable(true);
+                TaskRunner.task(TaskRunner.Category.DB_WRITE, "adjust stock", () -> {
+                        inventoryService.recordStockMovement(id, movementType, new BigDecimal(adjustQuantity), adjustReason);
+                        return null;
+                    })
+                    .onDone(() -> adjustStockButton.setDisable(selectedItem == null))
+                    .onSuccess(ignored -> {
+                        AlertUtil.showInfo("Success", "Stock adjustment recorded successfully!");
+                        loadInventoryItems();
+                    })
+                    .in(scope)
+                    .start();
             }
         });
     }
     
+    @FXML
+    private void handleExport() {
+        if (exportRunner.runningProperty().get()) {
+            exportRunner.cancel();
+            return;
+        }
+        
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(ExportService.Dataset.INVENTORY_ITEMS.getTitle(),
+            ExportService.Dataset.INVENTORY_ITEMS.getTitle(), ExportService.Dataset.STOCK_MOVEMENTS.getTitle());
+        dialog.setTitle("Export");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Export:");
+        dialog.showAndWait().ifPresent(choice -> exportRunner.start(
+            choice.equals(ExportService.Dataset.STOCK_MOVEMENTS.getTitle())
+                ? ExportService.Dataset.STOCK_MOVEMENTS : ExportService.Dataset.INVENTORY_ITEMS));
+    }
+    
     @FXML
     private void handleBack() {
         SceneManager.switchToDashboard();
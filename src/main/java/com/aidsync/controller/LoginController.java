@@ -2,10 +2,13 @@ package com.aidsync.controller;
 
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.aidsync.config.DatabaseConfig;
 import com.aidsync.model.User;
 import com.aidsync.service.AuthenticationService;
 import com.aidsync.util.AlertUtil;
@@ -13,6 +16,7 @@ import com.aidsync.util.SceneManager;
 import com.aidsync.util.SecurityUtil;
 import com.aidsync.util.SessionManager;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
@@ -48,6 +52,16 @@ public class LoginController implements Initializable {
         
         // Load remembered username if exists
         loadRememberedCredentials();
+        
+        // The database may still be connecting in the background
+        if (!DatabaseConfig.whenReady().isDone()) {
+            loginButton.setDisable(true);
+            showStatus("Connecting to database...", false);
+            DatabaseConfig.whenReady().whenComplete((ignored, error) -> Platform.runLater(() -> {
+                loginButton.setDisable(error != null);
+                showStatus(error != null ? "Database unavailable" : "", error != null);
+            }));
+        }
     }
     
     @FXML
@@ -57,6 +71,10 @@ public class LoginController implements Initializable {
     
     @FXML
     private void handleLogin() {
+        if (loginButton.isDisabled()) {
+            return; // Still connecting or already authenticating
+        }
+        
         String username = usernameField.getText().trim();
         String password = passwordField.getText();
         
@@ -77,11 +95,22 @@ public class LoginController implements Initializable {
             return;
         }
         
-        try {
-            loginButton.setDisable(true);
-            showStatus("Authenticating...", false);
-            
-            User user = authService.authenticate(username, password);
+        loginButton.setDisable(true);
+        showStatus("Authenticating...", false);
+        
+        // bcrypt takes a while; verify off the FX thread and come back with the result
+        authService.authenticateAsync(username, password).whenComplete((user, error) -> Platform.runLater(() -> {
+            loginButton.setDisable(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    showStatus("Too many sign-ins in progress, please try again", true);
+                } else {
+                    logger.error("Login error", cause);
+                    showStatus("Login failed: " + cause.getMessage(), true);
+                }
+                return;
+            }
             
             if (user != null) {
                 if (user.isLocked()) {
@@ -106,13 +135,7 @@ public class LoginController implements Initializable {
                 passwordField.clear();
                 passwordField.requestFocus();
             }
-            
-        } catch (Exception e) {
-            logger.error("Login error", e);
-            showStatus("Login failed: " + e.getMessage(), true);
-        } finally {
-            loginButton.setDisable(false);
-        }
+        }));
     }
     
     @FXML
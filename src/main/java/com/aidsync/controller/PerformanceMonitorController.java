@@ -0,0 +1,169 @@
+package com.aidsync.controller;
+
+import java.net.URL;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+
+import com.aidsync.config.ConnectionPool;
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.config.LatencyHistogram;
+import com.aidsync.config.QueryMetrics;
+import com.aidsync.config.StatementCache;
+import com.aidsync.util.SceneManager;
+import com.aidsync.util.TaskRunner;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+
+/**
+ * Live view of query latencies, connection pool waits and background task load, for
+ * administrators looking into a slow screen. Everything shown is already held in memory,
+ * so the refresh reads it on the FX thread without touching the database.
+ */
+public class PerformanceMonitorController implements Initializable {
+
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(1);
+
+    @FXML private Label thresholdLabel;
+    @FXML private Label poolLabel;
+    @FXML private Label replicaLabel;
+    @FXML private Label writerLabel;
+    @FXML private Label cacheLabel;
+
+    @FXML private TableView<QueryMetrics.QueryStats> queryTable;
+    @FXML private TableColumn<QueryMetrics.QueryStats, String> sqlColumn;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Long> callsColumn;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Long> errorsColumn;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Long> rowsColumn;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Double> meanColumn;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Double> p50Column;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Double> p95Column;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Double> p99Column;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Double> maxColumn;
+    @FXML private TableColumn<QueryMetrics.QueryStats, Long> totalColumn;
+
+    @FXML private TableView<TaskRunner.Stats> taskTable;
+    @FXML private TableColumn<TaskRunner.Stats, String> categoryColumn;
+    @FXML private TableColumn<TaskRunner.Stats, String> runningColumn;
+    @FXML private TableColumn<TaskRunner.Stats, Integer> waitingColumn;
+    @FXML private TableColumn<TaskRunner.Stats, Long> completedColumn;
+    @FXML private TableColumn<TaskRunner.Stats, Long> failedColumn;
+    @FXML private TableColumn<TaskRunner.Stats, Long> rejectedColumn;
+    @FXML private TableColumn<TaskRunner.Stats, String> avgRunColumn;
+    @FXML private TableColumn<TaskRunner.Stats, String> avgWaitColumn;
+
+    private final ObservableList<QueryMetrics.QueryStats> queries = FXCollections.observableArrayList();
+    private final ObservableList<TaskRunner.Stats> tasks = FXCollections.observableArrayList();
+    private Timeline refresher;
+
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        setupQueryTable();
+        setupTaskTable();
+        thresholdLabel.setText("Slow query log: over " + QueryMetrics.getSlowQueryMillis() + " ms");
+
+        refresh();
+        refresher = new Timeline(new KeyFrame(REFRESH_INTERVAL, e -> refresh()));
+        refresher.setCycleCount(Timeline.INDEFINITE);
+        refresher.play();
+        TaskRunner.Scope.forView(queryTable).onClose(refresher::stop);
+    }
+
+    private void setupQueryTable() {
+        sqlColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().sql()));
+        callsColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().calls()));
+        errorsColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().errors()));
+        rowsColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().rows()));
+        latencyColumn(meanColumn, LatencyHistogram.Snapshot::meanMillis);
+        latencyColumn(p50Column, LatencyHistogram.Snapshot::p50Millis);
+        latencyColumn(p95Column, LatencyHistogram.Snapshot::p95Millis);
+        latencyColumn(p99Column, LatencyHistogram.Snapshot::p99Millis);
+        latencyColumn(maxColumn, LatencyHistogram.Snapshot::maxMillis);
+        totalColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().totalMillis()));
+        queryTable.setItems(queries);
+    }
+
+    private void setupTaskTable() {
+        categoryColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().category().name()));
+        runningColumn.setCellValueFactory(cell ->
+            new ReadOnlyObjectWrapper<>(cell.getValue().running() + " / " + cell.getValue().limit()));
+        waitingColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().waiting()));
+        completedColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().completed()));
+        failedColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().failed()));
+        rejectedColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().rejected()));
+        avgRunColumn.setCellValueFactory(cell ->
+            new ReadOnlyObjectWrapper<>(String.format("%.1f", cell.getValue().averageRunMillis())));
+        avgWaitColumn.setCellValueFactory(cell ->
+            new ReadOnlyObjectWrapper<>(String.format("%.1f", cell.getValue().averageWaitMillis())));
+        taskTable.setItems(tasks);
+    }
+
+    private static void latencyColumn(TableColumn<QueryMetrics.QueryStats, Double> column,
+                                      Function<LatencyHistogram.Snapshot, Double> value) {
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue().latency())));
+        column.setCellFactory(c -> new TableCell<QueryMetrics.QueryStats, Double>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format("%.2f", item));
+            }
+        });
+    }
+
+    private void refresh() {
+        queries.setAll(QueryMetrics.snapshot());
+        tasks.setAll(TaskRunner.stats());
+        // Keep whatever order the user picked
+        queryTable.sort();
+        taskTable.sort();
+
+        poolLabel.setText(poolText("Primary pool", DatabaseConfig.getPoolStats()));
+        ConnectionPool.Stats replica = DatabaseConfig.getReplicaPoolStats();
+        replicaLabel.setVisible(replica != null);
+        replicaLabel.setManaged(replica != null);
+        replicaLabel.setText(poolText("Replica pool", replica));
+
+        LatencyHistogram.Snapshot writerWait = DatabaseConfig.getWriteQueueWait();
+        writerLabel.setVisible(writerWait != null);
+        writerLabel.setManaged(writerWait != null);
+        writerLabel.setText(writerWait != null ? "Writer queue wait: " + describe(writerWait) : "");
+
+        StatementCache.Stats cache = DatabaseConfig.getStatementCacheStats();
+        cacheLabel.setText(String.format("Statement cache: %.1f%% hits (%d hits, %d misses, %d evictions)",
+            cache.hitRatio() * 100, cache.hits(), cache.misses(), cache.evictions()));
+    }
+
+    private static String poolText(String name, ConnectionPool.Stats stats) {
+        if (stats == null) {
+            return name + ": not started";
+        }
+        return String.format("%s: %d active, %d idle of %d, %d timeouts; borrow wait %s",
+            name, stats.active(), stats.idle(), stats.maxSize(), stats.totalTimeouts(), describe(stats.borrowWait()));
+    }
+
+    private static String describe(LatencyHistogram.Snapshot wait) {
+        return String.format("p50 %.2f ms, p99 %.2f ms, max %.2f ms over %d", wait.p50Millis(), wait.p99Millis(),
+            wait.maxMillis(), wait.count());
+    }
+
+    @FXML
+    private void handleReset() {
+        QueryMetrics.reset();
+        refresh();
+    }
+
+    @FXML
+    private void handleBack() {
+        SceneManager.switchToDashboard();
+    }
+}
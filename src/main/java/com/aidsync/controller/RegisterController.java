@@ -5,11 +5,14 @@ import com.aidsync.service.UserService;
 import com.aidsync.util.AlertUtil;
 import com.aidsync.util.SceneManager;
 import com.aidsync.util.SecurityUtil;
+import com.aidsync.util.TaskRunner;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.RejectedExecutionException;
+
 public class RegisterController {
     private static final Logger logger = LoggerFactory.getLogger(RegisterController.class);
     
@@ -38,22 +41,31 @@ public class RegisterController {
     private void handleRegister() {
         if (!validateForm()) return;
         
-        try {
-            User newUser = new User();
-            newUser.setUsername(usernameField.getText().trim());
-            newUser.setEmail(emailField.getText().trim());
-            newUser.setFullName(fullNameField.getText().trim());
-            newUser.setRole(roleComboBox.getValue());
-            
-            userService.createUser(newUser, passwordField.getText());
-            
-            AlertUtil.showInfo("Success", "Account created successfully! You can now log in.");
-            SceneManager.switchToLogin();
-            
-        } catch (Exception e) {
-            logger.error("Registration failed", e);
-            AlertUtil.showError("Registration Failed", e.getMessage());
-        }
+        User newUser = new User();
+        newUser.setUsername(usernameField.getText().trim());
+        newUser.setEmail(emailField.getText().trim());
+        newUser.setFullName(fullNameField.getText().trim());
+        newUser.setRole(roleComboBox.getValue());
+        String password = passwordField.getText();
+        
+        // Hashing the password is the slow part, so this queues with the logins
+        registerButton.setDisable(true);
+        TaskRunner.task(TaskRunner.Category.BCRYPT, "create account", () -> {
+                userService.createUser(newUser, password);
+                return null;
+            })
+            .onDone(() -> registerButton.setDisable(false))
+            .onSuccess(ignored -> {
+                AlertUtil.showInfo("Success", "Account created successfully! You can now log in.");
+                SceneManager.switchToLogin();
+            })
+            .onFailure(RejectedExecutionException.class, e ->
+                AlertUtil.showWarning("Registration Failed", "Too many sign-ins in progress, please try again."))
+            .onFailure(e -> {
+                logger.error("Registration failed", e);
+                AlertUtil.showError("Registration Failed", e.getMessage());
+            })
+            .start();
     }
     
     @FXML
@@ -0,0 +1,9 @@
+package com.aidsync.event;
+
+/**
+ * New beneficiaries were registered as ACTIVE: one from the form, or a chunk of an import.
+ * {@code countersVersion} is the version the write left the dashboard counters at (see
+ * DashboardStats).
+ */
+public record BeneficiariesRegistered(int count, long countersVersion) implements DomainEvent {
+}
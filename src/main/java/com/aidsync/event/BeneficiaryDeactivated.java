@@ -0,0 +1,8 @@
+package com.aidsync.event;
+
+/**
+ * A beneficiary was set to INACTIVE; {@code wasActive} tells whether it was ACTIVE before.
+ * {@code countersVersion} is as in {@link BeneficiariesRegistered}.
+ */
+public record BeneficiaryDeactivated(int beneficiaryId, boolean wasActive, long countersVersion) implements DomainEvent {
+}
@@ -0,0 +1,4 @@
+package com.aidsync.event;
+
+public record BeneficiaryUpdated(int beneficiaryId) implements DomainEvent {
+}
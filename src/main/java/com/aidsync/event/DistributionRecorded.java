@@ -0,0 +1,8 @@
+package com.aidsync.event;
+
+/**
+ * A distribution to a beneficiary was recorded. {@code countersVersion} is as in
+ * {@link BeneficiariesRegistered}.
+ */
+public record DistributionRecorded(int distributionId, int beneficiaryId, long countersVersion) implements DomainEvent {
+}
@@ -0,0 +1,7 @@
+package com.aidsync.event;
+
+/**
+ * Something that happened to the data, published on the {@link EventBus} after it was committed.
+ */
+public interface DomainEvent {
+}
@@ -0,0 +1,86 @@
+package com.aidsync.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus that delivers {@link DomainEvent}s to subscribers asynchronously.
+ * <p>
+ * {@link #publish(DomainEvent)} only enqueues the event, so it adds next to nothing to the
+ * write path that calls it. A single daemon thread delivers events in publish order to every
+ * subscriber whose event type matches; handlers that touch the UI must hand over to the
+ * JavaFX thread themselves. A failing handler is logged and does not affect the others.
+ * Publish only after the change has been committed.
+ */
+public final class EventBus {
+    private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
+
+    private static final EventBus instance = new EventBus();
+
+    private final BlockingQueue<DomainEvent> queue = new LinkedBlockingQueue<>();
+    private final List<Handler<?>> handlers = new CopyOnWriteArrayList<>();
+    private final Thread dispatcher;
+
+    /**
+     * Returned by {@link #subscribe}; closing it stops delivery to the handler.
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record Handler<E extends DomainEvent>(Class<E> type, Consumer<? super E> consumer) {
+        void deliver(DomainEvent event) {
+            if (type.isInstance(event)) {
+                consumer.accept(type.cast(event));
+            }
+        }
+    }
+
+    private EventBus() {
+        dispatcher = new Thread(this::dispatch, "AIDSYNC-Events");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public static EventBus getInstance() {
+        return instance;
+    }
+
+    public void publish(DomainEvent event) {
+        queue.add(event);
+    }
+
+    /**
+     * Receive every published event of the given type (including subtypes) on the bus thread.
+     */
+    public <E extends DomainEvent> Subscription subscribe(Class<E> type, Consumer<? super E> consumer) {
+        Handler<E> handler = new Handler<>(type, consumer);
+        handlers.add(handler);
+        return () -> handlers.remove(handler);
+    }
+
+    private void dispatch() {
+        while (true) {
+            DomainEvent event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (Handler<?> handler : handlers) {
+                try {
+                    handler.deliver(event);
+                } catch (RuntimeException e) {
+                    logger.error("Event handler failed for {}", event, e);
+                }
+            }
+        }
+    }
+}
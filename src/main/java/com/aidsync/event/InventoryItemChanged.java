@@ -0,0 +1,9 @@
+package com.aidsync.event;
+
+/**
+ * An inventory item was created, edited or deactivated. {@code lowStockDelta} is +1 when the
+ * item became low on stock, -1 when it stopped being low, otherwise 0. {@code countersVersion}
+ * is as in {@link BeneficiariesRegistered}.
+ */
+public record InventoryItemChanged(int itemId, int lowStockDelta, long countersVersion) implements DomainEvent {
+}
@@ -0,0 +1,8 @@
+package com.aidsync.event;
+
+/**
+ * Rows changed at another site were copied into this database by a sync. Figures read
+ * before may be out of date in ways the other events do not describe.
+ */
+public record RemoteChangesApplied(int rowCount) implements DomainEvent {
+}
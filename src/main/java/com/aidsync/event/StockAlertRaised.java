@@ -0,0 +1,9 @@
+package com.aidsync.event;
+
+import com.aidsync.model.StockAlert;
+
+/**
+ * An inventory item crossed a stock or expiry threshold (see StockAlertEngine).
+ */
+public record StockAlertRaised(StockAlert alert) implements DomainEvent {
+}
@@ -0,0 +1,11 @@
+package com.aidsync.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Stock of an item moved. {@code lowStockDelta} and {@code countersVersion} are as in
+ * {@link InventoryItemChanged}.
+ */
+public record StockMoved(int itemId, String movementType, BigDecimal quantity, int lowStockDelta,
+                         long countersVersion) implements DomainEvent {
+}
@@ -0,0 +1,11 @@
+package com.aidsync.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of {@code audit_logs}: who did what to which record, with the record's values
+ * before and after as JSON, and a readable description for the activity feed.
+ */
+public record AuditEntry(Integer userId, String action, String tableName, Integer recordId,
+                         String oldValues, String newValues, LocalDateTime createdAt, String description) {
+}
@@ -0,0 +1,32 @@
+package com.aidsync.model;
+
+/**
+ * Figures shown on the dashboard cards, read together in one query. {@code countersVersion}
+ * is the version the counters behind them were at: they include every change published with
+ * that {@code countersVersion} or an earlier one, and none published with a later one.
+ */
+public record DashboardStats(long activeBeneficiaries, long beneficiariesThisMonth, long beneficiariesLastMonth,
+                             long distributionsToday, long distributionsYesterday,
+                             long lowStockItems, long pendingTasks, long countersVersion) {
+
+    /**
+     * Registrations this month compared with last month, in percent; 0 when last month had none.
+     */
+    public double beneficiaryGrowthPercentage() {
+        return growth(beneficiariesThisMonth, beneficiariesLastMonth);
+    }
+
+    /**
+     * Distributions today compared with yesterday, in percent; 0 when yesterday had none.
+     */
+    public double distributionGrowthPercentage() {
+        return growth(distributionsToday, distributionsYesterday);
+    }
+
+    private static double growth(long current, long previous) {
+        if (previous == 0) {
+            return 0;
+        }
+        return ((double) (current - previous) / previous) * 100;
+    }
+}
@@ -0,0 +1,81 @@
+package com.aidsync.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Distribution {
+    private int id;
+    private Integer distributionEventId;
+    private int beneficiaryId;
+    private String beneficiaryName;
+    private LocalDateTime distributionDate;
+    private int distributedBy;
+    private BigDecimal totalValue;
+    private DistributionStatus status;
+    private List<DistributionItem> items;
+    private LocalDateTime createdAt;
+    
+    public enum DistributionStatus {
+        COMPLETED("Completed"),
+        PENDING("Pending"),
+        CANCELLED("Cancelled");
+        
+        private final String displayName;
+        DistributionStatus(String displayName) { this.displayName = displayName; }
+        public String getDisplayName() { return displayName; }
+    }
+    
+    // Constructors
+    public Distribution() {
+        this.totalValue = BigDecimal.ZERO;
+        this.status = DistributionStatus.COMPLETED;
+        this.items = new ArrayList<>();
+    }
+    
+    public Distribution(int beneficiaryId) {
+        this();
+        this.beneficiaryId = beneficiaryId;
+    }
+    
+    public void addItem(int itemId, BigDecimal quantity) {
+        items.add(new DistributionItem(itemId, quantity));
+    }
+    
+    // Getters and Setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    
+    public Integer getDistributionEventId() { return distributionEventId; }
+    public void setDistributionEventId(Integer distributionEventId) { this.distributionEventId = distributionEventId; }
+    
+    public int getBeneficiaryId() { return beneficiaryId; }
+    public void setBeneficiaryId(int beneficiaryId) { this.beneficiaryId = beneficiaryId; }
+    
+    public String getBeneficiaryName() { return beneficiaryName; }
+    public void setBeneficiaryName(String beneficiaryName) { this.beneficiaryName = beneficiaryName; }
+    
+    public LocalDateTime getDistributionDate() { return distributionDate; }
+    public void setDistributionDate(LocalDateTime distributionDate) { this.distributionDate = distributionDate; }
+    
+    public int getDistributedBy() { return distributedBy; }
+    public void setDistributedBy(int distributedBy) { this.distributedBy = distributedBy; }
+    
+    public BigDecimal getTotalValue() { return totalValue; }
+    public void setTotalValue(BigDecimal totalValue) { this.totalValue = totalValue; }
+    
+    public DistributionStatus getStatus() { return status; }
+    public void setStatus(DistributionStatus status) { this.status = status; }
+    
+    public List<DistributionItem> getItems() { return items; }
+    public void setItems(List<DistributionItem> items) { this.items = items; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    @Override
+    public String toString() {
+        return "Distribution " + id + " to beneficiary " + beneficiaryId + " (" + items.size() + " items)";
+    }
+}
@@ -0,0 +1,48 @@
+package com.aidsync.model;
+
+import java.math.BigDecimal;
+
+public class DistributionItem {
+    private int id;
+    private int distributionId;
+    private int itemId;
+    private String itemName;
+    private BigDecimal quantity;
+    private BigDecimal unitCost;
+    private BigDecimal totalCost;
+    
+    // Constructors
+    public DistributionItem() {}
+    
+    public DistributionItem(int itemId, BigDecimal quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+    
+    // Getters and Setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    
+    public int getDistributionId() { return distributionId; }
+    public void setDistributionId(int distributionId) { this.distributionId = distributionId; }
+    
+    public int getItemId() { return itemId; }
+    public void setItemId(int itemId) { this.itemId = itemId; }
+    
+    public String getItemName() { return itemName; }
+    public void setItemName(String itemName) { this.itemName = itemName; }
+    
+    public BigDecimal getQuantity() { return quantity; }
+    public void setQuantity(BigDecimal quantity) { this.quantity = quantity; }
+    
+    public BigDecimal getUnitCost() { return unitCost; }
+    public void setUnitCost(BigDecimal unitCost) { this.unitCost = unitCost; }
+    
+    public BigDecimal getTotalCost() { return totalCost; }
+    public void setTotalCost(BigDecimal totalCost) { this.totalCost = totalCost; }
+    
+    @Override
+    public String toString() {
+        return (itemName != null ? itemName : "Item " + itemId) + " x " + quantity;
+    }
+}
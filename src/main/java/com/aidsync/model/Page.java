@@ -0,0 +1,17 @@
+package com.aidsync.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} is {@code null} on the last page.
+ */
+public record Page<T>(List<T> items, PageCursor next) {
+
+    public Page {
+        items = List.copyOf(items);
+    }
+
+    public boolean hasMore() {
+        return next != null;
+    }
+}
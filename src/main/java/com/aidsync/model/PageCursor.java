@@ -0,0 +1,8 @@
+package com.aidsync.model;
+
+/**
+ * Position after the last row of a page: the value of the sort column and the row id,
+ * which breaks ties so rows with equal sort values are neither skipped nor repeated.
+ */
+public record PageCursor(Object sortValue, int id) {
+}
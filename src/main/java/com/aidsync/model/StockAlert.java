@@ -0,0 +1,38 @@
+package com.aidsync.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * An inventory item that crossed a stock or expiry threshold.
+ */
+public record StockAlert(Type type, int itemId, String itemCode, String itemName,
+                         BigDecimal currentStock, BigDecimal minimumStockLevel, LocalDate expirationDate,
+                         LocalDateTime raisedAt) {
+
+    public enum Type {
+        LOW_STOCK("Low Stock"),
+        OUT_OF_STOCK("Out of Stock"),
+        EXPIRING("Expiring Soon"),
+        EXPIRED("Expired");
+
+        private final String displayName;
+        Type(String displayName) { this.displayName = displayName; }
+        public String getDisplayName() { return displayName; }
+    }
+
+    /**
+     * One line for logs and notifications, e.g. {@code Low Stock: Rice (FOOD-0001), 8 of minimum 10}.
+     */
+    public String describe() {
+        String item = itemName + " (" + itemCode + ")";
+        return switch (type) {
+            case LOW_STOCK -> String.format("%s: %s, %s of minimum %s", type.getDisplayName(), item,
+                currentStock.stripTrailingZeros().toPlainString(), minimumStockLevel.stripTrailingZeros().toPlainString());
+            case OUT_OF_STOCK -> type.getDisplayName() + ": " + item;
+            case EXPIRING -> String.format("%s: %s expires on %s", type.getDisplayName(), item, expirationDate);
+            case EXPIRED -> String.format("%s: %s expired on %s", type.getDisplayName(), item, expirationDate);
+        };
+    }
+}
@@ -0,0 +1,328 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.model.AuditEntry;
+import com.aidsync.model.User;
+import com.aidsync.util.RingBuffer;
+import com.aidsync.util.SessionManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Audit trail in {@code audit_logs}, and the source of the dashboard activity feed.
+ * <p>
+ * Services call {@link #record} after their change has committed. Recording never touches
+ * the database: the entry goes into a bounded queue, which a background thread writes in
+ * batches of up to {@link #MAX_BATCH}, and into a {@link RingBuffer} of the latest entries
+ * that {@link #recent(int)} reads without a query. Entries written before this session are
+ * loaded once at startup so the feed is not empty after a restart. If the queue is full
+ * (the database is unreachable for a long time) entries are dropped and counted rather than
+ * slowing down the caller.
+ */
+public final class AuditLog {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    public static final String INSERT = "INSERT";
+    public static final String UPDATE = "UPDATE";
+    public static final String DELETE = "DELETE";
+    public static final String IMPORT = "IMPORT";
+    public static final String STOCK_MOVEMENT = "STOCK_MOVEMENT";
+
+    private static final int RECENT_CAPACITY = 128;
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_BATCH = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO audit_logs " +
+        "(user_id, action, table_name, record_id, old_values, new_values, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> VALUES = new TypeReference<>() { };
+
+    private static final AuditLog instance = new AuditLog();
+
+    /**
+     * A record's values before and after a change, captured inside its write transaction.
+     */
+    record Change(Map<String, Object> oldValues, Map<String, Object> newValues) {
+    }
+
+    private final BlockingQueue<AuditEntry> pending = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final RingBuffer<AuditEntry> recent = new RingBuffer<>(RECENT_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+
+    // Entries from earlier sessions, newest first
+    private volatile List<AuditEntry> history = List.of();
+    private volatile boolean closed;
+
+    private AuditLog() {
+        writer = new Thread(this::runWriter, "AIDSYNC-Audit-Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static AuditLog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record a change made by the current user. Values are column/value maps (see
+     * {@link #readValues}); either may be null.
+     */
+    public void record(String action, String tableName, Integer recordId,
+                       Map<String, ?> oldValues, Map<String, ?> newValues) {
+        User user = SessionManager.getInstance().getCurrentUser();
+        AuditEntry entry = new AuditEntry(user != null ? user.getId() : null, action, tableName, recordId,
+            toJson(oldValues), toJson(newValues), LocalDateTime.now(),
+            describe(action, tableName, oldValues, newValues));
+
+        recent.add(entry);
+        if (!pending.offer(entry)) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                logger.warn("Audit queue full, {} entries dropped so far", count);
+            }
+        }
+    }
+
+    void record(String action, String tableName, Integer recordId, Change change) {
+        record(action, tableName, recordId, change.oldValues(), change.newValues());
+    }
+
+    /**
+     * Up to {@code limit} of the latest entries, newest first, from memory.
+     */
+    public List<AuditEntry> recent(int limit) {
+        List<AuditEntry> entries = recent.latest(limit);
+        List<AuditEntry> older = history;
+        if (entries.size() < limit && !older.isEmpty()) {
+            entries.addAll(older.subList(0, Math.min(older.size(), limit - entries.size())));
+        }
+        return entries;
+    }
+
+    /**
+     * Changes whenever {@link #recent(int)} would return something new.
+     */
+    public long version() {
+        return recent.added() + (history.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Write whatever is still queued and stop the writer. Call before the database is shut down.
+     */
+    public void shutdown() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<AuditEntry> remaining = new ArrayList<>();
+        pending.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    /**
+     * The row selected by {@code sql} (one {@code ?} for the id) as a column/value map in
+     * column order, or null when there is no such row. Dates and timestamps become ISO
+     * strings. Use inside the write transaction to capture values before and after a change.
+     */
+    static Map<String, Object> readValues(Connection conn, String sql, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                ResultSetMetaData meta = rs.getMetaData();
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    String column = meta.getColumnLabel(i).toLowerCase(Locale.ROOT);
+                    switch (meta.getColumnType(i)) {
+                        case Types.DATE -> {
+                            Date date = rs.getDate(i);
+                            values.put(column, date != null ? date.toLocalDate().toString() : null);
+                        }
+                        case Types.TIMESTAMP -> {
+                            Timestamp timestamp = rs.getTimestamp(i);
+                            values.put(column, timestamp != null ? timestamp.toLocalDateTime().toString() : null);
+                        }
+                        default -> values.put(column, rs.getObject(i));
+                    }
+                }
+                return values;
+            }
+        }
+    }
+
+    private void runWriter() {
+        try {
+            DatabaseConfig.whenReady().join();
+        } catch (CompletionException e) {
+            return; // No database to write to
+        }
+        loadHistory();
+
+        List<AuditEntry> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed) {
+            try {
+                AuditEntry first = pending.poll(250, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditEntry> batch) {
+        try {
+            DatabaseConfig.executeWrite(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                    for (AuditEntry entry : batch) {
+                        stmt.setObject(1, entry.userId());
+                        stmt.setString(2, entry.action());
+                        stmt.setString(3, entry.tableName());
+                        stmt.setObject(4, entry.recordId());
+                        stmt.setString(5, entry.oldValues());
+                        stmt.setString(6, entry.newValues());
+                        stmt.setTimestamp(7, Timestamp.valueOf(entry.createdAt()));
+                        stmt.addBatch();
+                    }
+                    return stmt.executeBatch();
+                }
+            });
+            logger.debug("Wrote {} audit entries", batch.size());
+        } catch (SQLException e) {
+            logger.error("Failed to write {} audit entries", batch.size(), e);
+        }
+    }
+
+    private void loadHistory() {
+        String sql = "SELECT user_id, action, table_name, record_id, old_values, new_values, created_at " +
+            "FROM audit_logs ORDER BY id DESC LIMIT " + RECENT_CAPACITY;
+        List<AuditEntry> entries = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String action = rs.getString("action");
+                String tableName = rs.getString("table_name");
+                String oldValues = rs.getString("old_values");
+                String newValues = rs.getString("new_values");
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                entries.add(new AuditEntry(nullableInt(rs, "user_id"), action, tableName,
+                    nullableInt(rs, "record_id"), oldValues, newValues,
+                    createdAt != null ? createdAt.toLocalDateTime() : null,
+                    describe(action, tableName, fromJson(oldValues), fromJson(newValues))));
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to load recent audit entries", e);
+            return;
+        }
+        history = Collections.unmodifiableList(entries);
+    }
+
+    private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * One line for the activity feed, e.g. {@code New beneficiary registered: Maria Santos}.
+     */
+    static String describe(String action, String tableName, Map<String, ?> oldValues, Map<String, ?> newValues) {
+        Object name = firstValue(newValues, oldValues, "full_name", "item_name", "username");
+        String subject = name != null ? ": " + name : "";
+        String key = action + " " + tableName;
+        return switch (key) {
+            case "INSERT beneficiaries" -> "New beneficiary registered" + subject;
+            case "UPDATE beneficiaries" -> "Beneficiary updated" + subject;
+            case "DELETE beneficiaries" -> "Beneficiary deactivated" + subject;
+            case "IMPORT beneficiaries" -> String.format("Beneficiaries imported: %s from %s",
+                firstValue(newValues, "imported"), firstValue(newValues, "file"));
+            case "INSERT inventory_items" -> "Inventory item added" + subject;
+            case "UPDATE inventory_items" -> "Inventory updated" + subject;
+            case "DELETE inventory_items" -> "Inventory item removed" + subject;
+            case "STOCK_MOVEMENT inventory_items" -> String.format("Stock %s: %s of %s",
+                firstValue(newValues, "movement_type"), firstValue(newValues, "quantity"), name);
+            case "INSERT distributions" -> "Distribution recorded" + subject;
+            case "INSERT users" -> "User account created" + subject;
+            default -> action + " " + tableName + subject;
+        };
+    }
+
+    private static Object firstValue(Map<String, ?> first, Map<String, ?> second, String... keys) {
+        Object value = firstValue(first, keys);
+        return value != null ? value : firstValue(second, keys);
+    }
+
+    private static Object firstValue(Map<String, ?> values, String... keys) {
+        if (values == null) {
+            return null;
+        }
+        for (String key : keys) {
+            Object value = values.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static String toJson(Map<String, ?> values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return json.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize audit values", e);
+            return null;
+        }
+    }
+
+    private static Map<String, Object> fromJson(String values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return json.readValue(values, VALUES);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -2,91 +2,138 @@ package com.aidsync.service;
 
 import com.aidsync.config.DatabaseConfig;
 import com.aidsync.model.User;
-import at.favre.lib.crypto.bcrypt.BCrypt;
+import com.aidsync.util.TaskRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Checks usernames and passwords. Verifying a bcrypt hash takes a good fraction of a
+ * second by design, so {@link #authenticateAsync} runs it as a {@link TaskRunner.Category#BCRYPT}
+ * task: {@code auth.threads} (2 by default) at a time, with room for {@code auth.queueSize}
+ * (16) logins waiting; beyond that, logins are turned away until the others catch up rather
+ * than piling up behind each other.
+ */
 public class AuthenticationService {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
-    
+
+    // One statement for everything a successful login changes
+    private static final String RECORD_LOGIN = "UPDATE users SET failed_login_attempts = 0, status = 'ACTIVE', " +
+        "last_login = CURRENT_TIMESTAMP, password_hash = COALESCE(?, password_hash) WHERE id = ?";
+
+    /**
+     * {@link #authenticate} in the background. Completes exceptionally with a
+     * {@link RejectedExecutionException} when too many logins are already waiting.
+     */
+    public CompletableFuture<User> authenticateAsync(String username, String password) {
+        return TaskRunner.submit(TaskRunner.Category.BCRYPT, "authenticate", () -> authenticate(username, password));
+    }
+
+    /**
+     * The user, if the password is theirs and the account is active; otherwise null. A hash
+     * made at a lower bcrypt cost than the current one is replaced as the user logs in.
+     */
     public User authenticate(String username, String password) {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            // Get user from database
-            String sql = "SELECT * FROM users WHERE username = ? AND status = 'ACTIVE'";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, username);
-                
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        User user = mapResultSetToUser(rs);
-                        
-                        // Check if account is locked
-                        if (user.isLocked()) {
-                            logger.warn("Login attempt for locked account: {}", username);
-                            return null;
-                        }
-                        
-                        // Verify password
-                        if (BCrypt.verifyer().verify(password.toCharArray(), user.getPasswordHash()).verified) {
-                            // Password correct - reset failed attempts and update last login
-                            resetFailedAttempts(conn, user.getId());
-                            updateLastLogin(conn, user.getId());
-                            user.setFailedLoginAttempts(0);
-                            user.setLastLogin(LocalDateTime.now());
-                            
-                            logger.info("Successful login for user: {}", username);
-                            return user;
-                        } else {
-                            // Password incorrect - increment failed attempts
-                            incrementFailedAttempts(conn, user.getId());
-                            logger.warn("Failed login attempt for user: {}", username);
-                            return null;
-                        }
+        try {
+            User user = findActiveUser(username);
+            if (user == null) {
+                logger.warn("Login attempt for non-existent user: {}", username);
+                return null;
+            }
+            
+            // Check if account is locked
+            if (user.isLocked()) {
+                logger.warn("Login attempt for locked account: {}", username);
+                return null;
+            }
+            
+            // Verify password
+            Passwords.Check check = Passwords.check(password, user.getPasswordHash());
+            if (check.verified()) {
+                String newHash = check.rehash() ? Passwords.hash(password) : null;
+                DatabaseConfig.executeWrite(conn -> {
+                    try (PreparedStatement stmt = conn.prepareStatement(RECORD_LOGIN)) {
+                        stmt.setString(1, newHash);
+                        stmt.setInt(2, user.getId());
+                        return stmt.executeUpdate();
                     }
+                });
+                user.setFailedLoginAttempts(0);
+                user.setLastLogin(LocalDateTime.now());
+                if (newHash != null) {
+                    user.setPasswordHash(newHash);
+                    logger.info("Rehashed password of user {} at bcrypt cost {}", username, Passwords.COST);
                 }
+                
+                logger.info("Successful login for user: {}", username);
+                return user;
+            } else {
+                // Password incorrect - increment failed attempts
+                DatabaseConfig.executeWrite(conn -> {
+                    incrementFailedAttempts(conn, user.getId());
+                    return null;
+                });
+                logger.warn("Failed login attempt for user: {}", username);
+                return null;
             }
         } catch (SQLException e) {
             logger.error("Database error during authentication", e);
             throw new RuntimeException("Authentication failed", e);
         }
+    }
+    
+    private User findActiveUser(String username) throws SQLException {
+        String sql = "SELECT * FROM users WHERE username = ? AND status = 'ACTIVE'";
         
-        logger.warn("Login attempt for non-existent user: {}", username);
-        return null;
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapResultSetToUser(rs) : null;
+            }
+        }
     }
     
     public boolean changePassword(int userId, String currentPassword, String newPassword) {
-        try (Connection conn = DatabaseConfig.getConnection()) {
+        try {
             // First verify current password
+            String currentHash = null;
             String selectSql = "SELECT password_hash FROM users WHERE id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(selectSql)) {
                 stmt.setInt(1, userId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
-                        String currentHash = rs.getString("password_hash");
-                        
-                        if (!BCrypt.verifyer().verify(currentPassword.toCharArray(), currentHash).verified) {
-                            return false; // Current password is incorrect
-                        }
-                        
-                        // Update password
-                        String updateSql = "UPDATE users SET password_hash = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                            updateStmt.setString(1, BCrypt.withDefaults().hashToString(12, newPassword.toCharArray()));
-                            updateStmt.setInt(2, userId);
-                            
-                            int rowsUpdated = updateStmt.executeUpdate();
-                            if (rowsUpdated > 0) {
-                                logger.info("Password changed for user ID: {}", userId);
-                                return true;
-                            }
-                        }
+                        currentHash = rs.getString("password_hash");
                     }
                 }
             }
+            
+            if (currentHash == null || !Passwords.check(currentPassword, currentHash).verified()) {
+                return false; // Unknown user or current password is incorrect
+            }
+            
+            // Update password
+            String newHash = Passwords.hash(newPassword);
+            String updateSql = "UPDATE users SET password_hash = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+            int rowsUpdated = DatabaseConfig.executeWrite(conn -> {
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                    updateStmt.setString(1, newHash);
+                    updateStmt.setInt(2, userId);
+                    return updateStmt.executeUpdate();
+                }
+            });
+            
+            if (rowsUpdated > 0) {
+                logger.info("Password changed for user ID: {}", userId);
+                return true;
+            }
         } catch (SQLException e) {
             logger.error("Error changing password", e);
             throw new RuntimeException("Password change failed", e);
@@ -126,20 +173,4 @@ public class AuthenticationService {
             stmt.executeUpdate();
         }
     }
-    
-    private void resetFailedAttempts(Connection conn, int userId) throws SQLException {
-        String sql = "UPDATE users SET failed_login_attempts = 0, status = 'ACTIVE' WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
-            stmt.executeUpdate();
-        }
-    }
-    
-    private void updateLastLogin(Connection conn, int userId) throws SQLException {
-        String sql = "UPDATE users SET last_login = CURRENT_TIMESTAMP WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
-            stmt.executeUpdate();
-        }
-    }
 }
\ No newline at end of file
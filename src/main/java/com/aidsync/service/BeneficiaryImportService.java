@@ -0,0 +1,503 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.config.IdSequences;
+import com.aidsync.event.BeneficiariesRegistered;
+import com.aidsync.event.EventBus;
+import com.aidsync.model.Beneficiary;
+import com.aidsync.model.User;
+import com.aidsync.util.CsvWriter;
+import com.aidsync.util.SecurityUtil;
+import com.aidsync.util.SessionManager;
+import com.aidsync.util.SpreadsheetReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bulk import of beneficiary master lists (CSV or XLSX).
+ * <p>
+ * The file is streamed, never loaded whole. Rows are collected into chunks; each chunk is
+ * validated on the common fork/join pool while the previous chunk is being written, and
+ * written with batched inserts in a single transaction. A chunk the database refuses is
+ * retried row by row so one bad row does not cost its neighbours. Rows that fail
+ * validation or insertion are written, with the reason, to a reject report next to the
+ * source file.
+ */
+public class BeneficiaryImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BeneficiaryImportService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_VULNERABILITIES = "INSERT INTO beneficiary_vulnerabilities (beneficiary_id, is_pwd, " +
+        "is_senior_citizen, is_pregnant_lactating, is_solo_parent, has_chronic_illness, is_orphan, is_indigenous, is_homeless) " +
+        "SELECT id, ?, ?, ?, ?, ?, ?, ?, ? FROM beneficiaries WHERE beneficiary_id = ?";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("full_name", "birth_date", "gender", "civil_status", "barangay");
+
+    // Header spellings seen on barangay and DSWD lists, mapped to our column names
+    private static final Map<String, String> COLUMN_ALIASES = Map.ofEntries(
+        Map.entry("name", "full_name"),
+        Map.entry("fullname", "full_name"),
+        Map.entry("birthdate", "birth_date"),
+        Map.entry("date_of_birth", "birth_date"),
+        Map.entry("dob", "birth_date"),
+        Map.entry("sex", "gender"),
+        Map.entry("barangay_name", "barangay"),
+        Map.entry("contact", "contact_number"),
+        Map.entry("mobile", "contact_number"),
+        Map.entry("mobile_number", "contact_number"),
+        Map.entry("street", "street_sitio"),
+        Map.entry("sitio", "street_sitio"),
+        Map.entry("household_head", "is_household_head"),
+        Map.entry("income_range", "monthly_income_range"),
+        Map.entry("priority", "priority_level"),
+        Map.entry("pwd", "is_pwd"),
+        Map.entry("senior_citizen", "is_senior_citizen"),
+        Map.entry("pregnant_lactating", "is_pregnant_lactating"),
+        Map.entry("solo_parent", "is_solo_parent"),
+        Map.entry("chronic_illness", "has_chronic_illness"),
+        Map.entry("orphan", "is_orphan"),
+        Map.entry("indigenous", "is_indigenous"),
+        Map.entry("homeless", "is_homeless"));
+
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+        DateTimeFormatter.ISO_LOCAL_DATE,
+        DateTimeFormatter.ofPattern("M/d/yyyy"),
+        DateTimeFormatter.ofPattern("yyyy/M/d"));
+
+    /**
+     * Receives progress after each chunk. {@code fraction} is the share of the file read,
+     * or -1 when it cannot be measured (XLSX).
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void progress(int rowsRead, int imported, int rejected, double fraction);
+    }
+
+    public record Result(int rowsRead, int imported, int rejected, Path rejectReport, long elapsedMillis) {
+        public long rowsPerSecond() {
+            return elapsedMillis > 0 ? rowsRead * 1000L / elapsedMillis : rowsRead;
+        }
+    }
+
+    /**
+     * Default reject report location: {@code <source name>-rejects.csv} beside the source.
+     */
+    public static Path rejectReportFor(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return source.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + "-rejects.csv");
+    }
+
+    /**
+     * Import every row of the file. Once {@code cancelled} returns true the import stops before
+     * the next chunk; chunks already written stay imported. (Cancel by flag rather than by
+     * interrupting: an interrupt can abandon a chunk's wait for a write that still commits.)
+     *
+     * @param rejectReport where to write rejected rows; only created if a row is rejected
+     */
+    public Result importFile(Path source, Path rejectReport, ProgressListener listener, BooleanSupplier cancelled) throws Exception {
+        long start = System.currentTimeMillis();
+        User user = SessionManager.getInstance().getCurrentUser();
+
+        try (ImportRun run = new ImportRun(ReferenceDataCache.getInstance().barangayIds(), user != null ? user.getId() : null, rejectReport, listener, cancelled)) {
+            SpreadsheetReader.read(source, run::accept, fraction -> run.fraction = fraction);
+            run.finish();
+
+            Result result = new Result(run.rowsRead, run.imported, run.rejected,
+                run.rejectWriter != null ? rejectReport : null, System.currentTimeMillis() - start);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("file", source.getFileName().toString());
+            summary.put("rows_read", result.rowsRead());
+            summary.put("imported", result.imported());
+            summary.put("rejected", result.rejected());
+            AuditLog.getInstance().record(AuditLog.IMPORT, "beneficiaries", null, null, summary);
+            logger.info("Imported {} of {} row(s) from {} in {}ms ({} rows/s), {} rejected",
+                result.imported(), result.rowsRead(), source.getFileName(), result.elapsedMillis(),
+                result.rowsPerSecond(), result.rejected());
+            return result;
+        }
+    }
+
+    private record SourceRow(int rowNumber, List<String> cells) {
+    }
+
+    /**
+     * A validated row: either a beneficiary ready to insert or the reason it was rejected.
+     */
+    private record CheckedRow(SourceRow source, Beneficiary beneficiary, int barangayId, String error) {
+    }
+
+    /**
+     * State of one import: the header mapping, the chunk being filled, the chunk being
+     * validated and the running totals.
+     */
+    private final class ImportRun implements AutoCloseable {
+        private final Map<String, Integer> barangayIds;
+        private final Integer createdBy;
+        private final Path rejectReport;
+        private final ProgressListener listener;
+        private final BooleanSupplier cancelled;
+
+        private List<String> header;
+        private Map<String, Integer> columns;
+        private List<SourceRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        private CompletableFuture<List<CheckedRow>> validating;
+        private CsvWriter rejectWriter;
+
+        private volatile double fraction;
+        private int rowsRead;
+        private int imported;
+        private int rejected;
+
+        private ImportRun(Map<String, Integer> barangayIds, Integer createdBy, Path rejectReport,
+                          ProgressListener listener, BooleanSupplier cancelled) {
+            this.barangayIds = barangayIds;
+            this.createdBy = createdBy;
+            this.rejectReport = rejectReport;
+            this.listener = listener;
+            this.cancelled = cancelled;
+        }
+
+        void accept(int rowNumber, List<String> cells) throws Exception {
+            if (header == null) {
+                readHeader(cells);
+                return;
+            }
+            if (cells.stream().allMatch(cell -> cell == null || cell.isBlank())) {
+                return;
+            }
+            rowsRead++;
+            chunk.add(new SourceRow(rowNumber, cells));
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void finish() throws Exception {
+            if (header == null) {
+                throw new IllegalArgumentException("The file is empty.");
+            }
+            flush();
+            writePending();
+        }
+
+        private void readHeader(List<String> cells) {
+            header = cells;
+            columns = new LinkedHashMap<>();
+            for (int i = 0; i < cells.size(); i++) {
+                String name = cells.get(i).trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+                columns.putIfAbsent(COLUMN_ALIASES.getOrDefault(name, name), i);
+            }
+            List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Missing required column(s): " + String.join(", ", missing));
+            }
+        }
+
+        /**
+         * Start validating the filled chunk and, meanwhile, write the one validated before it.
+         */
+        private void flush() throws Exception {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Import cancelled after " + imported + " row(s)");
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<SourceRow> rows = chunk;
+            chunk = new ArrayList<>(CHUNK_SIZE);
+            CompletableFuture<List<CheckedRow>> next = CompletableFuture.supplyAsync(
+                () -> rows.parallelStream().map(this::check).toList());
+            writePending();
+            validating = next;
+        }
+
+        private void writePending() throws SQLException, IOException {
+            if (validating == null) {
+                return;
+            }
+            List<CheckedRow> rows;
+            try {
+                rows = validating.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Row validation failed", e.getCause());
+            }
+            validating = null;
+
+            List<CheckedRow> valid = new ArrayList<>(rows.size());
+            for (CheckedRow row : rows) {
+                if (row.error() != null) {
+                    reject(row.source(), row.error());
+                } else {
+                    valid.add(row);
+                }
+            }
+
+            // Reserved before the write: reserving inside it would be undone if the chunk rolled back
+            if (!valid.isEmpty()) {
+                long nextNumber = IdSequences.reserve(BeneficiaryService.ID_SEQUENCE, valid.size());
+                for (CheckedRow row : valid) {
+                    row.beneficiary().setBeneficiaryId(BeneficiaryService.formatBeneficiaryId(nextNumber++));
+                }
+            }
+
+            try {
+                long writeStart = System.nanoTime();
+                long countersVersion = DatabaseConfig.executeWrite(conn -> insert(conn, valid));
+                imported += valid.size();
+                publishRegistered(valid.size(), countersVersion);
+                logger.debug("Wrote {} row(s) in {}ms", valid.size(), (System.nanoTime() - writeStart) / 1_000_000);
+            } catch (SQLException e) {
+                logger.warn("Batch insert of {} row(s) failed, retrying row by row: {}", valid.size(), e.getMessage());
+                for (CheckedRow row : valid) {
+                    try {
+                        long countersVersion = DatabaseConfig.executeWrite(conn -> insert(conn, List.of(row)));
+                        imported++;
+                        publishRegistered(1, countersVersion);
+                    } catch (SQLException rowError) {
+                        reject(row.source(), "Database error: " + rowError.getMessage());
+                    }
+                }
+            }
+
+            listener.progress(rowsRead, imported, rejected, fraction);
+        }
+
+        private void publishRegistered(int count, long countersVersion) {
+            if (count > 0) {
+                EventBus.getInstance().publish(new BeneficiariesRegistered(count, countersVersion));
+            }
+        }
+
+        /**
+         * Insert the rows and count them, returning the version this left the dashboard
+         * counters at (0 when there were no rows).
+         */
+        private long insert(Connection conn, List<CheckedRow> rows) throws SQLException {
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            try (PreparedStatement beneficiaries = conn.prepareStatement(BeneficiaryService.INSERT_BENEFICIARY);
+                 PreparedStatement vulnerabilities = conn.prepareStatement(INSERT_VULNERABILITIES)) {
+
+                for (CheckedRow row : rows) {
+                    Beneficiary beneficiary = row.beneficiary();
+                    BeneficiaryService.bindBeneficiary(beneficiaries, beneficiary, row.barangayId(), createdBy);
+                    beneficiaries.addBatch();
+
+                    vulnerabilities.setBoolean(1, beneficiary.isPWD());
+                    vulnerabilities.setBoolean(2, beneficiary.isSeniorCitizen());
+                    vulnerabilities.setBoolean(3, beneficiary.isPregnantLactating());
+                    vulnerabilities.setBoolean(4, beneficiary.isSoloParent());
+                    vulnerabilities.setBoolean(5, beneficiary.isHasChronicIllness());
+                    vulnerabilities.setBoolean(6, beneficiary.isOrphan());
+                    vulnerabilities.setBoolean(7, beneficiary.isIndigenous());
+                    vulnerabilities.setBoolean(8, beneficiary.isHomeless());
+                    vulnerabilities.setString(9, beneficiary.getBeneficiaryId());
+                    vulnerabilities.addBatch();
+                }
+
+                beneficiaries.executeBatch();
+                vulnerabilities.executeBatch();
+            }
+            StatCounters.beneficiariesRegistered(conn, rows.size());
+            return StatCounters.version(conn);
+        }
+
+        private void reject(SourceRow row, String reason) throws IOException {
+            rejected++;
+            if (rejectWriter == null) {
+                rejectWriter = new CsvWriter(rejectReport);
+                List<String> reportHeader = new ArrayList<>(List.of("row", "error"));
+                reportHeader.addAll(header);
+                rejectWriter.writeRow(reportHeader);
+            }
+            List<String> line = new ArrayList<>(List.of(String.valueOf(row.rowNumber()), reason));
+            line.addAll(row.cells());
+            rejectWriter.writeRow(line);
+        }
+
+        // Runs on fork/join worker threads; reads only immutable state
+        private CheckedRow check(SourceRow row) {
+            try {
+                String barangay = required(row, "barangay");
+                Integer barangayId = barangayIds.get(barangay.toLowerCase(Locale.ROOT));
+                if (barangayId == null) {
+                    throw new IllegalArgumentException("Barangay not found: " + barangay);
+                }
+                return new CheckedRow(row, toBeneficiary(row, barangay), barangayId, null);
+            } catch (IllegalArgumentException e) {
+                return new CheckedRow(row, null, 0, e.getMessage());
+            }
+        }
+
+        private Beneficiary toBeneficiary(SourceRow row, String barangay) {
+            String fullName = safeText(row, "full_name", 150);
+            if (fullName == null) {
+                throw new IllegalArgumentException("Full name is required.");
+            }
+
+            LocalDate birthDate = date(required(row, "birth_date"));
+            if (birthDate.isAfter(LocalDate.now())) {
+                throw new IllegalArgumentException("Birth date cannot be in the future.");
+            }
+
+            Beneficiary beneficiary = new Beneficiary(fullName, birthDate, gender(required(row, "gender")));
+            beneficiary.setCivilStatus(choice(Beneficiary.CivilStatus.class, required(row, "civil_status"), "civil status"));
+            beneficiary.setBarangayName(barangay);
+            beneficiary.setContactNumber(safeText(row, "contact_number", 20));
+            beneficiary.setEmail(safeText(row, "email", 100));
+            beneficiary.setStreetSitio(safeText(row, "street_sitio", 200));
+            beneficiary.setHouseholdHead(flag(row, "is_household_head"));
+            beneficiary.setFamilySize(number(row, "family_size", 1, 50, 1));
+            beneficiary.setPriorityLevel(number(row, "priority_level", 1, 5, 3));
+
+            String income = value(row, "monthly_income_range");
+            if (income != null) {
+                beneficiary.setMonthlyIncomeRange(choice(Beneficiary.IncomeRange.class, income, "income range"));
+            }
+            String employment = value(row, "employment_status");
+            if (employment != null) {
+                beneficiary.setEmploymentStatus(choice(Beneficiary.EmploymentStatus.class, employment, "employment status"));
+            }
+
+            beneficiary.setPWD(flag(row, "is_pwd"));
+            beneficiary.setSeniorCitizen(flag(row, "is_senior_citizen"));
+            beneficiary.setPregnantLactating(flag(row, "is_pregnant_lactating"));
+            beneficiary.setSoloParent(flag(row, "is_solo_parent"));
+            beneficiary.setHasChronicIllness(flag(row, "has_chronic_illness"));
+            beneficiary.setOrphan(flag(row, "is_orphan"));
+            beneficiary.setIndigenous(flag(row, "is_indigenous"));
+            beneficiary.setHomeless(flag(row, "is_homeless"));
+            return beneficiary;
+        }
+
+        private String value(SourceRow row, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= row.cells().size()) {
+                return null;
+            }
+            String value = row.cells().get(index);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+
+        private String required(SourceRow row, String column) {
+            String value = value(row, column);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing " + column.replace('_', ' ') + ".");
+            }
+            return value;
+        }
+
+        private String safeText(SourceRow row, String column, int maxLength) {
+            String value = value(row, column);
+            if (value == null) {
+                return null;
+            }
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException(column.replace('_', ' ') + " is longer than " + maxLength + " characters.");
+            }
+            if (!SecurityUtil.isInputSafe(value)) {
+                throw new IllegalArgumentException(column.replace('_', ' ') + " contains invalid characters.");
+            }
+            return value;
+        }
+
+        private boolean flag(SourceRow row, String column) {
+            String value = value(row, column);
+            if (value == null) {
+                return false;
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "1", "true", "yes", "y", "x", "oo" -> true;
+                case "0", "false", "no", "n", "hindi" -> false;
+                default -> throw new IllegalArgumentException("Not a yes/no value for " + column.replace('_', ' ') + ": " + value);
+            };
+        }
+
+        private int number(SourceRow row, String column, int min, int max, int defaultValue) {
+            String value = value(row, column);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                int number = (int) Double.parseDouble(value);
+                if (number < min || number > max) {
+                    throw new IllegalArgumentException(column.replace('_', ' ') + " must be between " + min + " and " + max + ".");
+                }
+                return number;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number for " + column.replace('_', ' ') + ": " + value);
+            }
+        }
+
+        private LocalDate date(String value) {
+            for (DateTimeFormatter format : DATE_FORMATS) {
+                try {
+                    return LocalDate.parse(value, format);
+                } catch (DateTimeParseException e) {
+                    // Try the next format
+                }
+            }
+            throw new IllegalArgumentException("Unrecognised birth date (use YYYY-MM-DD): " + value);
+        }
+
+        private Beneficiary.Gender gender(String value) {
+            return switch (value.toUpperCase(Locale.ROOT)) {
+                case "M" -> Beneficiary.Gender.MALE;
+                case "F" -> Beneficiary.Gender.FEMALE;
+                default -> choice(Beneficiary.Gender.class, value, "gender");
+            };
+        }
+
+        /**
+         * Match an enum constant by name or display name, ignoring case, spaces and dashes.
+         */
+        private <E extends Enum<E>> E choice(Class<E> type, String value, String label) {
+            String wanted = value.trim().toUpperCase(Locale.ROOT).replaceAll("[\\s-]+", "_");
+            for (E constant : type.getEnumConstants()) {
+                if (constant.name().equals(wanted) || displayName(constant).equalsIgnoreCase(value.trim())) {
+                    return constant;
+                }
+            }
+            throw new IllegalArgumentException("Unknown " + label + ": " + value);
+        }
+
+        private String displayName(Enum<?> constant) {
+            if (constant instanceof Beneficiary.Gender g) return g.getDisplayName();
+            if (constant instanceof Beneficiary.CivilStatus c) return c.getDisplayName();
+            if (constant instanceof Beneficiary.IncomeRange i) return i.getDisplayName();
+            if (constant instanceof Beneficiary.EmploymentStatus e) return e.getDisplayName();
+            return constant.name();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (validating != null) {
+                validating.cancel(false);
+            }
+            if (rejectWriter != null) {
+                rejectWriter.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.aidsync.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Query building and re-ranking for the beneficiary full-text index.
+ * <p>
+ * Both backends index name, beneficiary ID, contact number and street/sitio as n-grams
+ * (SQLite FTS5 trigrams, MySQL FULLTEXT with the ngram parser). A search first asks the index
+ * for rows containing the query as a substring, which is selective and stays fast as the
+ * registry grows. Only when that finds nothing (usually a typo) does it fall back to rows
+ * sharing any of the query's n-grams. Either way the index returns a bounded set of candidates
+ * in its own relevance order; they are then re-ranked by the share of the query's trigrams
+ * each row contains, and rows sharing too few are dropped.
+ */
+final class BeneficiarySearch {
+
+    /** Queries shorter than one trigram cannot use the index. */
+    static final int MIN_QUERY_LENGTH = 3;
+    /** Candidates taken from the index before filtering and re-ranking. */
+    static final int CANDIDATE_LIMIT = 500;
+    /** Rows returned to the caller. */
+    static final int RESULT_LIMIT = 200;
+
+    // A row must contain at least this share of the query's trigrams (one typo in a short name still matches)
+    private static final double MIN_TRIGRAM_SHARE = 1.0 / 3;
+
+    private static final String MYSQL_COLUMNS = "MATCH(b.full_name, b.beneficiary_id, b.contact_number, b.street_sitio)";
+
+    private BeneficiarySearch() {
+    }
+
+    static boolean usesIndex(String searchText) {
+        return searchText != null && normalize(searchText).length() >= MIN_QUERY_LENGTH;
+    }
+
+    /**
+     * MySQL relevance expression: a phrase search in boolean mode for the exact pass, natural
+     * language mode (any n-gram, ranked) for the fuzzy pass. Binds one parameter.
+     */
+    static String mysqlMatch(boolean exact) {
+        return MYSQL_COLUMNS + (exact ? " AGAINST (? IN BOOLEAN MODE)" : " AGAINST (? IN NATURAL LANGUAGE MODE)");
+    }
+
+    static String mysqlQuery(String searchText, boolean exact) {
+        String normalized = normalize(searchText);
+        return exact ? '"' + normalized.replace("\"", " ") + '"' : normalized;
+    }
+
+    /**
+     * FTS5 expression. The exact pass is a trigram phrase, i.e. a substring match; the fuzzy
+     * pass matches any of the query's trigrams and lets bm25 rank rows containing more (and
+     * rarer) trigrams first.
+     */
+    static String sqliteMatchExpression(String searchText, boolean exact) {
+        if (exact) {
+            return '"' + normalize(searchText).replace("\"", "\"\"") + '"';
+        }
+        StringBuilder expression = new StringBuilder();
+        for (String trigram : trigrams(searchText)) {
+            if (expression.length() > 0) {
+                expression.append(" OR ");
+            }
+            expression.append('"').append(trigram.replace("\"", "\"\"")).append('"');
+        }
+        return expression.toString();
+    }
+
+    /**
+     * Order candidates by trigram overlap with the query, keeping the index's order for ties,
+     * and drop those below the minimum overlap.
+     */
+    static <T> List<T> rerank(List<T> candidates, Function<T, String> searchableText, String searchText) {
+        Set<String> queryTrigrams = trigrams(searchText);
+        List<Scored<T>> scored = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            T candidate = candidates.get(i);
+            String text = normalize(searchableText.apply(candidate));
+            int matched = 0;
+            for (String trigram : queryTrigrams) {
+                if (text.contains(trigram)) {
+                    matched++;
+                }
+            }
+            double share = (double) matched / queryTrigrams.size();
+            if (share >= MIN_TRIGRAM_SHARE) {
+                scored.add(new Scored<>(candidate, share, i));
+            }
+        }
+
+        scored.sort(Comparator.comparingDouble((Scored<T> s) -> -s.share).thenComparingInt(s -> s.indexOrder));
+        List<T> result = new ArrayList<>(Math.min(scored.size(), RESULT_LIMIT));
+        for (int i = 0; i < scored.size() && i < RESULT_LIMIT; i++) {
+            result.add(scored.get(i).row);
+        }
+        return result;
+    }
+
+    private static Set<String> trigrams(String text) {
+        String normalized = normalize(text);
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + MIN_QUERY_LENGTH <= normalized.length(); i++) {
+            trigrams.add(normalized.substring(i, i + MIN_QUERY_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Scored<T>(T row, double share, int indexOrder) {
+    }
+}
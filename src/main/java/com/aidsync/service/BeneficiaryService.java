@@ -1,7 +1,15 @@
 package com.aidsync.service;
 
 import com.aidsync.config.DatabaseConfig;
+import com.aidsync.config.IdSequences;
+import com.aidsync.event.BeneficiariesRegistered;
+import com.aidsync.event.BeneficiaryDeactivated;
+import com.aidsync.event.BeneficiaryUpdated;
+import com.aidsync.event.EventBus;
 import com.aidsync.model.Beneficiary;
+import com.aidsync.model.Page;
+import com.aidsync.model.PageCursor;
+import com.aidsync.util.QueryCancellation;
 import com.aidsync.util.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,24 +18,67 @@ import java.sql.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class BeneficiaryService {
     private static final Logger logger = LoggerFactory.getLogger(BeneficiaryService.class);
     
+    private static final String BENEFICIARY_COLUMNS = "SELECT b.*, br.name as barangay_name, p.name as purok_name, " +
+        "bv.is_pwd, bv.is_senior_citizen, bv.is_pregnant_lactating, bv.is_solo_parent, " +
+        "bv.has_chronic_illness, bv.is_orphan, bv.is_indigenous, bv.is_homeless";
+    private static final String BENEFICIARY_JOINS = " LEFT JOIN barangays br ON b.barangay_id = br.id" +
+        " LEFT JOIN puroks p ON b.purok_id = p.id" +
+        " LEFT JOIN beneficiary_vulnerabilities bv ON b.id = bv.beneficiary_id";
+    private static final String SELECT_BENEFICIARIES = BENEFICIARY_COLUMNS + " FROM beneficiaries b" + BENEFICIARY_JOINS;
+    
+    /** {@link IdSequences} counter behind the {@code BEN} IDs. */
+    static final String ID_SEQUENCE = "BEN";
+    
+    static final String INSERT_BENEFICIARY = "INSERT INTO beneficiaries (beneficiary_id, full_name, birth_date, gender, civil_status, " +
+        "contact_number, email, barangay_id, purok_id, street_sitio, is_household_head, " +
+        "family_size, monthly_income_range, employment_status, priority_level, created_by) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // Values kept in the audit log before and after a change
+    private static final String AUDIT_VALUES = "SELECT beneficiary_id, full_name, birth_date, gender, civil_status, " +
+        "contact_number, email, barangay_id, street_sitio, is_household_head, family_size, " +
+        "monthly_income_range, employment_status, priority_level, status FROM beneficiaries WHERE id = ?";
+    
+    /**
+     * What a registration wrote, for the audit entry and the event published after it commits.
+     */
+    private record Registered(Map<String, Object> values, long countersVersion) {
+    }
+    
+    /**
+     * What a deactivation changed, for the audit entry and the event published after it commits.
+     */
+    private record Deactivated(AuditLog.Change change, long countersVersion) {
+    }
+    
+    /**
+     * Columns the beneficiary list can be sorted on server-side. Each is NOT NULL and indexed.
+     */
+    public enum SortField {
+        CREATED_AT("b.created_at", "created_at"),
+        FULL_NAME("b.full_name", "full_name"),
+        BENEFICIARY_ID("b.beneficiary_id", "beneficiary_id");
+        
+        private final String column;
+        private final String alias;
+        
+        SortField(String column, String alias) {
+            this.column = column;
+            this.alias = alias;
+        }
+    }
+    
     public List<Beneficiary> getAllBeneficiaries() throws SQLException {
         List<Beneficiary> beneficiaries = new ArrayList<>();
         
-        String sql = "SELECT b.*, br.name as barangay_name, p.name as purok_name, " +
-            "bv.is_pwd, bv.is_senior_citizen, bv.is_pregnant_lactating, bv.is_solo_parent, " +
-            "bv.has_chronic_illness, bv.is_orphan, bv.is_indigenous, bv.is_homeless " +
-            "FROM beneficiaries b " +
-            "LEFT JOIN barangays br ON b.barangay_id = br.id " +
-            "LEFT JOIN puroks p ON b.purok_id = p.id " +
-            "LEFT JOIN beneficiary_vulnerabilities bv ON b.id = bv.beneficiary_id " +
-            "WHERE b.status != 'DECEASED' " +
-            "ORDER BY b.created_at DESC";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
+        String sql = SELECT_BENEFICIARIES + " WHERE b.status != 'DECEASED' ORDER BY b.created_at DESC";
+        
+        try (Connection conn = DatabaseConfig.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             
@@ -40,89 +91,167 @@ public class BeneficiaryService {
     }
     
     public List<Beneficiary> searchBeneficiaries(String searchText, String barangayFilter, String statusFilter) throws SQLException {
-        List<Beneficiary> beneficiaries = new ArrayList<>();
+        if (BeneficiarySearch.usesIndex(searchText)) {
+            return searchRanked(searchText, barangayFilter, statusFilter != null ? statusFilter : "All");
+        }
         
-        StringBuilder sql = new StringBuilder("SELECT b.*, br.name as barangay_name, p.name as purok_name, " +
-            "bv.is_pwd, bv.is_senior_citizen, bv.is_pregnant_lactating, bv.is_solo_parent, " +
-            "bv.has_chronic_illness, bv.is_orphan, bv.is_indigenous, bv.is_homeless " +
-            "FROM beneficiaries b " +
-            "LEFT JOIN barangays br ON b.barangay_id = br.id " +
-            "LEFT JOIN puroks p ON b.purok_id = p.id " +
-            "LEFT JOIN beneficiary_vulnerabilities bv ON b.id = bv.beneficiary_id " +
-            "WHERE 1=1");
+        List<Beneficiary> beneficiaries = new ArrayList<>();
         
+        StringBuilder sql = new StringBuilder(SELECT_BENEFICIARIES + " WHERE 1=1");
         List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, searchText, barangayFilter, statusFilter != null ? statusFilter : "All");
         
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            sql.append(" AND (b.full_name LIKE ? OR b.beneficiary_id LIKE ? OR b.contact_number LIKE ?)");
-            String searchPattern = "%" + searchText.trim() + "%";
-            params.add(searchPattern);
-            params.add(searchPattern);
-            params.add(searchPattern);
+        sql.append(" ORDER BY b.created_at DESC");
+        
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            
+            QueryCancellation.Registration cancellation = QueryCancellation.track(stmt);
+            try (cancellation;
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    beneficiaries.add(mapResultSetToBeneficiary(rs));
+                }
+            }
         }
         
-        if (barangayFilter != null && !barangayFilter.equals("All Barangays")) {
-            sql.append(" AND br.name = ?");
-            params.add(barangayFilter);
+        return beneficiaries;
+    }
+    
+    /**
+     * Fetch one page of beneficiaries matching the filters, sorted on the server.
+     * A {@code null} status filter hides deceased beneficiaries, like {@link #getAllBeneficiaries()}.
+     * Pass the previous page's {@link Page#next()} as {@code after} to continue.
+     * <p>
+     * Search text long enough for the full-text index returns a single page of the best
+     * matches in relevance order instead; the sort field does not apply to it.
+     */
+    public Page<Beneficiary> getBeneficiaryPage(String searchText, String barangayFilter, String statusFilter,
+                                                SortField sortField, boolean descending,
+                                                PageCursor after, int pageSize) throws SQLException {
+        if (BeneficiarySearch.usesIndex(searchText)) {
+            return new Page<>(after == null ? searchRanked(searchText, barangayFilter, statusFilter) : List.of(), null);
         }
         
-        if (statusFilter != null && !statusFilter.equals("All")) {
-            sql.append(" AND b.status = ?");
-            params.add(statusFilter);
+        StringBuilder sql = new StringBuilder(SELECT_BENEFICIARIES + " WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, searchText, barangayFilter, statusFilter);
+        KeysetPage.appendSeek(sql, params, sortField.column, "b.id", descending, after);
+        KeysetPage.appendOrderAndLimit(sql, params, sortField.column, "b.id", descending, pageSize);
+        
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            
+            QueryCancellation.Registration cancellation = QueryCancellation.track(stmt);
+            try (cancellation;
+                 ResultSet rs = stmt.executeQuery()) {
+                return KeysetPage.read(rs, pageSize, sortField.alias, this::mapResultSetToBeneficiary);
+            }
+        }
+    }
+    
+    /**
+     * Relevance-ranked search through the full-text index (FULLTEXT ngram on MySQL, FTS5
+     * trigram on SQLite), limited to the best {@link BeneficiarySearch#RESULT_LIMIT} matches.
+     * Falls back to a typo-tolerant pass when no row contains the query as typed.
+     */
+    private List<Beneficiary> searchRanked(String searchText, String barangayFilter, String statusFilter) throws SQLException {
+        List<Beneficiary> candidates = searchIndex(searchText, barangayFilter, statusFilter, true);
+        if (candidates.isEmpty()) {
+            candidates = searchIndex(searchText, barangayFilter, statusFilter, false);
         }
         
-        sql.append(" ORDER BY b.created_at DESC");
+        return BeneficiarySearch.rerank(candidates, b -> String.join(" ",
+            String.valueOf(b.getFullName()), String.valueOf(b.getBeneficiaryId()),
+            String.valueOf(b.getContactNumber()), String.valueOf(b.getStreetSitio())), searchText);
+    }
+    
+    private List<Beneficiary> searchIndex(String searchText, String barangayFilter, String statusFilter, boolean exact) throws SQLException {
+        boolean mysql = DatabaseConfig.isUsingMySQL();
+        StringBuilder sql = new StringBuilder(BENEFICIARY_COLUMNS);
+        List<Object> params = new ArrayList<>();
+        
+        if (mysql) {
+            String match = BeneficiarySearch.mysqlMatch(exact);
+            String query = BeneficiarySearch.mysqlQuery(searchText, exact);
+            sql.append(", ").append(match).append(" AS search_score")
+                .append(" FROM beneficiaries b").append(BENEFICIARY_JOINS)
+                .append(" WHERE ").append(match);
+            params.add(query);
+            params.add(query);
+        } else {
+            // Filters go in the same query as the match so the limit counts only rows that pass them
+            sql.append(" FROM beneficiaries_fts f")
+                .append(" JOIN beneficiaries b ON b.id = f.rowid").append(BENEFICIARY_JOINS)
+                .append(" WHERE f.beneficiaries_fts MATCH ?");
+            params.add(BeneficiarySearch.sqliteMatchExpression(searchText, exact));
+        }
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        appendFilters(sql, params, null, barangayFilter, statusFilter);
+        
+        sql.append(mysql ? " ORDER BY search_score DESC LIMIT ?" : " ORDER BY f.rank LIMIT ?");
+        params.add(BeneficiarySearch.CANDIDATE_LIMIT);
+        
+        List<Beneficiary> candidates = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
             
             for (int i = 0; i < params.size(); i++) {
                 stmt.setObject(i + 1, params.get(i));
             }
             
-            try (ResultSet rs = stmt.executeQuery()) {
+            QueryCancellation.Registration cancellation = QueryCancellation.track(stmt);
+            try (cancellation;
+                 ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    beneficiaries.add(mapResultSetToBeneficiary(rs));
+                    candidates.add(mapResultSetToBeneficiary(rs));
                 }
             }
         }
+        return candidates;
+    }
+    
+    private void appendFilters(StringBuilder sql, List<Object> params, String searchText, String barangayFilter, String statusFilter) {
+        if (searchText != null && !searchText.trim().isEmpty()) {
+            // Only queries too short for the full-text index get here; prefix matches can use the indexes
+            sql.append(" AND (b.full_name LIKE ? OR b.beneficiary_id LIKE ? OR b.contact_number LIKE ?)");
+            String searchPattern = searchText.trim() + "%";
+            params.add(searchPattern);
+            params.add(searchPattern);
+            params.add(searchPattern);
+        }
         
-        return beneficiaries;
+        if (barangayFilter != null && !barangayFilter.equals("All Barangays")) {
+            sql.append(" AND br.name = ?");
+            params.add(barangayFilter);
+        }
+        
+        if (statusFilter == null) {
+            sql.append(" AND b.status != 'DECEASED'");
+        } else if (!statusFilter.equals("All")) {
+            sql.append(" AND b.status = ?");
+            params.add(statusFilter);
+        }
     }
     
     public void createBeneficiary(Beneficiary beneficiary) throws SQLException {
         String beneficiaryId = generateBeneficiaryId();
         beneficiary.setBeneficiaryId(beneficiaryId);
+        int barangayId = ReferenceDataCache.getInstance().barangayId(beneficiary.getBarangayName());
         
-        Connection conn = DatabaseConfig.getConnection();
-        conn.setAutoCommit(false);
-        
-        try {
+        Registered registered = DatabaseConfig.executeWrite(conn -> {
             // Insert beneficiary
-            String sql = "INSERT INTO beneficiaries (beneficiary_id, full_name, birth_date, gender, civil_status, " +
-                "contact_number, email, barangay_id, purok_id, street_sitio, is_household_head, " +
-                "family_size, monthly_income_range, employment_status, priority_level, created_by) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            
             int beneficiaryDbId;
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, beneficiary.getBeneficiaryId());
-                stmt.setString(2, beneficiary.getFullName());
-                stmt.setDate(3, Date.valueOf(beneficiary.getBirthDate()));
-                stmt.setString(4, beneficiary.getGender().name());
-                stmt.setString(5, beneficiary.getCivilStatus().name());
-                stmt.setString(6, beneficiary.getContactNumber());
-                stmt.setString(7, beneficiary.getEmail());
-                stmt.setInt(8, getBarangayId(conn, beneficiary.getBarangayName()));
-                stmt.setInt(9, 1); // Default purok
-                stmt.setString(10, beneficiary.getStreetSitio());
-                stmt.setBoolean(11, beneficiary.isHouseholdHead());
-                stmt.setInt(12, beneficiary.getFamilySize());
-                stmt.setString(13, beneficiary.getMonthlyIncomeRange() != null ? beneficiary.getMonthlyIncomeRange().name() : null);
-                stmt.setString(14, beneficiary.getEmploymentStatus() != null ? beneficiary.getEmploymentStatus().name() : null);
-                stmt.setInt(15, beneficiary.getPriorityLevel());
-                stmt.setInt(16, SessionManager.getInstance().getCurrentUser().getId());
-                
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_BENEFICIARY)) {
+                bindBeneficiary(stmt, beneficiary, barangayId, SessionManager.getInstance().getCurrentUser().getId());
                 stmt.executeUpdate();
             }
             
@@ -143,24 +272,21 @@ public class BeneficiaryService {
             
             // Insert vulnerability assessment
             insertVulnerabilityAssessment(conn, beneficiaryDbId, beneficiary);
-            
-            conn.commit();
-            logger.info("Created beneficiary: {}", beneficiary.getBeneficiaryId());
-            
-        } catch (SQLException e) {
-            conn.rollback();
-            throw e;
-        } finally {
-            conn.setAutoCommit(true);
-            conn.close();
-        }
+            StatCounters.beneficiariesRegistered(conn, 1);
+            return new Registered(AuditLog.readValues(conn, AUDIT_VALUES, beneficiaryDbId), StatCounters.version(conn));
+        });
+        
+        AuditLog.getInstance().record(AuditLog.INSERT, "beneficiaries", beneficiary.getId(), null, registered.values());
+        EventBus.getInstance().publish(new BeneficiariesRegistered(1, registered.countersVersion()));
+        logger.info("Created beneficiary: {}", beneficiary.getBeneficiaryId());
     }
     
     public void updateBeneficiary(Beneficiary beneficiary) throws SQLException {
-        Connection conn = DatabaseConfig.getConnection();
-        conn.setAutoCommit(false);
+        int barangayId = ReferenceDataCache.getInstance().barangayId(beneficiary.getBarangayName());
         
-        try {
+        AuditLog.Change change = DatabaseConfig.executeWrite(conn -> {
+            Map<String, Object> oldValues = AuditLog.readValues(conn, AUDIT_VALUES, beneficiary.getId());
+            
             // Update beneficiary
             String sql = "UPDATE beneficiaries SET full_name = ?, birth_date = ?, gender = ?, civil_status = ?, " +
                 "contact_number = ?, email = ?, barangay_id = ?, street_sitio = ?, is_household_head = ?, " +
@@ -174,7 +300,7 @@ public class BeneficiaryService {
                 stmt.setString(4, beneficiary.getCivilStatus().name());
                 stmt.setString(5, beneficiary.getContactNumber());
                 stmt.setString(6, beneficiary.getEmail());
-                stmt.setInt(7, getBarangayId(conn, beneficiary.getBarangayName()));
+                stmt.setInt(7, barangayId);
                 stmt.setString(8, beneficiary.getStreetSitio());
                 stmt.setBoolean(9, beneficiary.isHouseholdHead());
                 stmt.setInt(10, beneficiary.getFamilySize());
@@ -188,81 +314,70 @@ public class BeneficiaryService {
             
             // Update vulnerability assessment
             updateVulnerabilityAssessment(conn, beneficiary.getId(), beneficiary);
-            
-            conn.commit();
-            logger.info("Updated beneficiary: {}", beneficiary.getBeneficiaryId());
-            
-        } catch (SQLException e) {
-            conn.rollback();
-            throw e;
-        } finally {
-            conn.setAutoCommit(true);
-            conn.close();
-        }
+            return new AuditLog.Change(oldValues, AuditLog.readValues(conn, AUDIT_VALUES, beneficiary.getId()));
+        });
+        
+        AuditLog.getInstance().record(AuditLog.UPDATE, "beneficiaries", beneficiary.getId(), change);
+        EventBus.getInstance().publish(new BeneficiaryUpdated(beneficiary.getId()));
+        logger.info("Updated beneficiary: {}", beneficiary.getBeneficiaryId());
     }
     
     public void deleteBeneficiary(int id) throws SQLException {
         String sql = "UPDATE beneficiaries SET status = 'INACTIVE', updated_at = CURRENT_TIMESTAMP WHERE id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        Deactivated deactivated = DatabaseConfig.executeWrite(conn -> {
+            Map<String, Object> oldValues = AuditLog.readValues(conn, AUDIT_VALUES, id);
             
-            logger.info("Deleted beneficiary with ID: {}", id);
-        }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                stmt.executeUpdate();
+            }
+            if (oldValues != null && "ACTIVE".equals(oldValues.get("status"))) {
+                StatCounters.add(conn, StatCounters.ACTIVE_BENEFICIARIES, StatCounters.ALL_TIME, -1);
+            }
+            return new Deactivated(new AuditLog.Change(oldValues, AuditLog.readValues(conn, AUDIT_VALUES, id)),
+                StatCounters.version(conn));
+        });
+        
+        AuditLog.Change change = deactivated.change();
+        boolean wasActive = change.oldValues() != null && "ACTIVE".equals(change.oldValues().get("status"));
+        AuditLog.getInstance().record(AuditLog.DELETE, "beneficiaries", id, change);
+        EventBus.getInstance().publish(new BeneficiaryDeactivated(id, wasActive, deactivated.countersVersion()));
+        logger.info("Deleted beneficiary with ID: {}", id);
     }
     
     public List<String> getAllBarangays() throws SQLException {
-        List<String> barangays = new ArrayList<>();
-        
-        String sql = "SELECT name FROM barangays ORDER BY name";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                barangays.add(rs.getString("name"));
-            }
-        }
-        
-        return barangays;
+        return ReferenceDataCache.getInstance().barangayNames();
     }
     
     private String generateBeneficiaryId() throws SQLException {
-        String sql = DatabaseConfig.isUsingMySQL() ? 
-            "SELECT MAX(CAST(SUBSTRING(beneficiary_id, 4) AS UNSIGNED)) as max_id FROM beneficiaries WHERE beneficiary_id LIKE 'BEN%'" :
-            "SELECT MAX(CAST(SUBSTR(beneficiary_id, 4) AS INTEGER)) as max_id FROM beneficiaries WHERE beneficiary_id LIKE 'BEN%'";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            int nextId = 1;
-            if (rs.next()) {
-                nextId = rs.getInt("max_id") + 1;
-            }
-            
-            return String.format("BEN%05d", nextId);
-        }
+        return formatBeneficiaryId(IdSequences.next(ID_SEQUENCE));
     }
     
-    private int getBarangayId(Connection conn, String barangayName) throws SQLException {
-        String sql = "SELECT id FROM barangays WHERE name = ?";
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, barangayName);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
-                } else {
-                    throw new SQLException("Barangay not found: " + barangayName);
-                }
-            }
-        }
+    static String formatBeneficiaryId(long number) {
+        return String.format("BEN%05d", number);
+    }
+    
+    /**
+     * Bind every {@link #INSERT_BENEFICIARY} parameter from the beneficiary.
+     */
+    static void bindBeneficiary(PreparedStatement stmt, Beneficiary beneficiary, int barangayId, Integer createdBy) throws SQLException {
+        stmt.setString(1, beneficiary.getBeneficiaryId());
+        stmt.setString(2, beneficiary.getFullName());
+        stmt.setDate(3, Date.valueOf(beneficiary.getBirthDate()));
+        stmt.setString(4, beneficiary.getGender().name());
+        stmt.setString(5, beneficiary.getCivilStatus().name());
+        stmt.setString(6, beneficiary.getContactNumber());
+        stmt.setString(7, beneficiary.getEmail());
+        stmt.setInt(8, barangayId);
+        stmt.setInt(9, 1); // Default purok
+        stmt.setString(10, beneficiary.getStreetSitio());
+        stmt.setBoolean(11, beneficiary.isHouseholdHead());
+        stmt.setInt(12, beneficiary.getFamilySize());
+        stmt.setString(13, beneficiary.getMonthlyIncomeRange() != null ? beneficiary.getMonthlyIncomeRange().name() : null);
+        stmt.setString(14, beneficiary.getEmploymentStatus() != null ? beneficiary.getEmploymentStatus().name() : null);
+        stmt.setInt(15, beneficiary.getPriorityLevel());
+        stmt.setObject(16, createdBy, Types.INTEGER);
     }
     
     private void insertVulnerabilityAssessment(Connection conn, int beneficiaryId, Beneficiary beneficiary) throws SQLException {
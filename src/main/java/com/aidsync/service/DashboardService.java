@@ -1,152 +1,70 @@
 package com.aidsync.service;
 
 import com.aidsync.config.DatabaseConfig;
+import com.aidsync.model.DashboardStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 
 public class DashboardService {
     private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
-    
-    public int getTotalBeneficiaries() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            String sql = "SELECT COUNT(*) FROM beneficiaries WHERE status = 'ACTIVE'";
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error getting total beneficiaries count", e);
-        }
-        return 0;
-    }
-    
-    public int getDistributionsToday() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            String sql = DatabaseConfig.isUsingMySQL() ?
-            "SELECT COUNT(*) FROM distributions WHERE DATE(created_at) = CURDATE()" :
-            "SELECT COUNT(*) FROM distributions WHERE DATE(created_at) = DATE('now')";
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error getting today's distributions count", e);
-        }
-        return 0;
-    }
-    
-    public int getLowStockItemsCount() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            String sql = "SELECT COUNT(*) FROM inventory_items WHERE current_stock <= minimum_stock_level AND status = 'ACTIVE'";
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error getting low stock items count", e);
-        }
-        return 0;
-    }
-    
-    public int getPendingTasksCount() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            String sql = DatabaseConfig.isUsingMySQL() ?
-            "SELECT COUNT(*) FROM distribution_events WHERE status = 'PLANNED' AND planned_date >= CURDATE()" :
-            "SELECT COUNT(*) FROM distribution_events WHERE status = 'PLANNED' AND planned_date >= DATE('now')";
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error getting pending tasks count", e);
-        }
-        return 0;
-    }
-    
-    public double getBeneficiaryGrowthPercentage() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            // Get current month count
-            String currentSql = DatabaseConfig.isUsingMySQL() ?
-                "SELECT COUNT(*) FROM beneficiaries WHERE MONTH(created_at) = MONTH(CURDATE()) AND YEAR(created_at) = YEAR(CURDATE())" :
-                "SELECT COUNT(*) FROM beneficiaries WHERE strftime('%m', created_at) = strftime('%m', 'now') AND strftime('%Y', created_at) = strftime('%Y', 'now')";
-            int currentMonth = 0;
-            try (PreparedStatement stmt = conn.prepareStatement(currentSql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    currentMonth = rs.getInt(1);
-                }
-            }
-            
-            // Get previous month count
-            String previousSql = DatabaseConfig.isUsingMySQL() ?
-                "SELECT COUNT(*) FROM beneficiaries WHERE MONTH(created_at) = MONTH(DATE_SUB(CURDATE(), INTERVAL 1 MONTH)) AND YEAR(created_at) = YEAR(DATE_SUB(CURDATE(), INTERVAL 1 MONTH))" :
-                "SELECT COUNT(*) FROM beneficiaries WHERE strftime('%m', created_at) = strftime('%m', 'now', '-1 month') AND strftime('%Y', created_at) = strftime('%Y', 'now', '-1 month')";
-            int previousMonth = 0;
-            try (PreparedStatement stmt = conn.prepareStatement(previousSql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    previousMonth = rs.getInt(1);
-                }
+
+    private static final String COUNTER = "COALESCE((SELECT value FROM stat_counters WHERE counter = ? AND period = ?), 0)";
+
+    // Every card in one round-trip: counter rows by primary key, plus upcoming planned events
+    // through a plain range on planned_date so its index applies
+    private static final String STATS_SQL = "SELECT " +
+        COUNTER + " AS active_beneficiaries, " +
+        COUNTER + " AS beneficiaries_this_month, " +
+        COUNTER + " AS beneficiaries_last_month, " +
+        COUNTER + " AS distributions_today, " +
+        COUNTER + " AS distributions_yesterday, " +
+        COUNTER + " AS low_stock_items, " +
+        COUNTER + " AS counters_version, " +
+        "(SELECT COUNT(*) FROM distribution_events WHERE status = 'PLANNED' AND planned_date >= ?) AS pending_tasks";
+
+    public DashboardStats getStats() throws SQLException {
+        LocalDate today = LocalDate.now();
+
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(STATS_SQL)) {
+
+            int index = 1;
+            index = bindCounter(stmt, index, StatCounters.ACTIVE_BENEFICIARIES, StatCounters.ALL_TIME);
+            index = bindCounter(stmt, index, StatCounters.BENEFICIARIES_REGISTERED, StatCounters.month(today));
+            index = bindCounter(stmt, index, StatCounters.BENEFICIARIES_REGISTERED, StatCounters.month(today.minusMonths(1)));
+            index = bindCounter(stmt, index, StatCounters.DISTRIBUTIONS_RECORDED, StatCounters.day(today));
+            index = bindCounter(stmt, index, StatCounters.DISTRIBUTIONS_RECORDED, StatCounters.day(today.minusDays(1)));
+            index = bindCounter(stmt, index, StatCounters.LOW_STOCK_ITEMS, StatCounters.ALL_TIME);
+            index = bindCounter(stmt, index, StatCounters.VERSION, StatCounters.ALL_TIME);
+            stmt.setDate(index, Date.valueOf(today));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                DashboardStats stats = new DashboardStats(
+                    rs.getLong("active_beneficiaries"),
+                    rs.getLong("beneficiaries_this_month"),
+                    rs.getLong("beneficiaries_last_month"),
+                    rs.getLong("distributions_today"),
+                    rs.getLong("distributions_yesterday"),
+                    rs.getLong("low_stock_items"),
+                    rs.getLong("pending_tasks"),
+                    rs.getLong("counters_version"));
+                logger.debug("Loaded dashboard stats: {}", stats);
+                return stats;
             }
-            
-            if (previousMonth == 0) return 0;
-            return ((double)(currentMonth - previousMonth) / previousMonth) * 100;
-            
-        } catch (SQLException e) {
-            logger.error("Error calculating beneficiary growth percentage", e);
         }
-        return 0;
     }
-    
-    public double getDistributionGrowthPercentage() {
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            // Get today's count
-            String todaySql = DatabaseConfig.isUsingMySQL() ?
-                "SELECT COUNT(*) FROM distributions WHERE DATE(created_at) = CURDATE()" :
-                "SELECT COUNT(*) FROM distributions WHERE DATE(created_at) = DATE('now')";
-            int today = 0;
-            try (PreparedStatement stmt = conn.prepareStatement(todaySql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    today = rs.getInt(1);
-                }
-            }
-            
-            // Get yesterday's count
-            String yesterdaySql = DatabaseConfig.isUsingMySQL() ?
-                "SELECT COUNT(*) FROM distributions WHERE DATE(created_at) = DATE_SUB(CURDATE(), INTERVAL 1 DAY)" :
-                "SELECT COUNT(*) FROM distributions WHERE DATE(created_at) = DATE('now', '-1 day')";
-            int yesterday = 0;
-            try (PreparedStatement stmt = conn.prepareStatement(yesterdaySql);
-                 ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    yesterday = rs.getInt(1);
-                }
-            }
-            
-            if (yesterday == 0) return 0;
-            return ((double)(today - yesterday) / yesterday) * 100;
-            
-        } catch (SQLException e) {
-            logger.error("Error calculating distribution growth percentage", e);
-        }
-        return 0;
+
+    private static int bindCounter(PreparedStatement stmt, int index, String counter, String period) throws SQLException {
+        stmt.setString(index, counter);
+        stmt.setString(index + 1, period);
+        return index + 2;
     }
-}
\ No newline at end of file
+}
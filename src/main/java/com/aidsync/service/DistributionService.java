@@ -0,0 +1,234 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.event.DistributionRecorded;
+import com.aidsync.event.EventBus;
+import com.aidsync.event.StockMoved;
+import com.aidsync.model.Distribution;
+import com.aidsync.model.DistributionItem;
+import com.aidsync.util.SessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DistributionService {
+    private static final Logger logger = LoggerFactory.getLogger(DistributionService.class);
+
+    private static final String INSERT_DISTRIBUTION = "INSERT INTO distributions " +
+        "(distribution_event_id, beneficiary_id, distributed_by, total_value, status) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM = "INSERT INTO distribution_items " +
+        "(distribution_id, item_id, quantity, unit_cost, total_cost) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Name, price and status of a requested item.
+     */
+    private record Item(String itemName, BigDecimal unitCost, boolean active) {
+    }
+
+    /**
+     * What the transaction wrote, applied to the distribution once it has committed.
+     */
+    private record Recorded(int distributionId, String beneficiaryName, BigDecimal totalValue,
+                            List<DistributionItem> lines, Map<Integer, Integer> lowStockDeltas, long countersVersion) {
+    }
+
+    /**
+     * Record a release of goods to a beneficiary: the distribution, its items and the OUT
+     * movements on the {@link StockLedger} are written in one transaction, or not at all.
+     * <p>
+     * The items are read with a single query and every insert and update is sent as one
+     * batch, so the cost barely grows with the number of lines. Lines for the same item are
+     * merged. Fails without writing anything if the beneficiary is not active, an item is
+     * not active, or any item has less stock than requested.
+     * <p>
+     * On return the distribution carries its id, total value and the cost of each line.
+     */
+    public Distribution recordDistribution(Distribution distribution) throws SQLException {
+        Map<Integer, BigDecimal> quantities = mergeItems(distribution.getItems());
+        int distributedBy = distribution.getDistributedBy() != 0
+            ? distribution.getDistributedBy()
+            : SessionManager.getInstance().getCurrentUser().getId();
+
+        Recorded recorded = StockLedger.write(quantities.keySet(), conn -> {
+            String beneficiaryName = findActiveBeneficiary(conn, distribution.getBeneficiaryId());
+            Map<Integer, Item> stock = readItems(conn, quantities.keySet());
+
+            List<DistributionItem> lines = new ArrayList<>(quantities.size());
+            BigDecimal totalValue = BigDecimal.ZERO;
+            for (Map.Entry<Integer, BigDecimal> entry : quantities.entrySet()) {
+                Item item = stock.get(entry.getKey());
+                DistributionItem line = new DistributionItem(entry.getKey(), entry.getValue());
+                line.setItemName(item.itemName());
+                line.setUnitCost(item.unitCost());
+                line.setTotalCost(entry.getValue().multiply(item.unitCost()).setScale(2, RoundingMode.HALF_UP));
+                totalValue = totalValue.add(line.getTotalCost());
+                lines.add(line);
+            }
+
+            int distributionId = insertDistribution(conn, distribution, distributedBy, totalValue);
+            insertItems(conn, distributionId, lines);
+
+            String reference = "DIST-" + distributionId;
+            List<StockLedger.Movement> movements = new ArrayList<>(lines.size());
+            for (DistributionItem line : lines) {
+                movements.add(new StockLedger.Movement(line.getItemId(), StockLedger.MovementType.OUT,
+                    line.getQuantity(), line.getUnitCost(), reference, "Distribution"));
+            }
+            Map<Integer, Integer> deltas = new HashMap<>();
+            for (StockLedger.Balance balance : StockLedger.apply(conn, movements, distributedBy)) {
+                deltas.put(balance.itemId(), balance.lowStockDelta());
+            }
+            StatCounters.add(conn, StatCounters.DISTRIBUTIONS_RECORDED, StatCounters.day(LocalDate.now()), 1);
+            return new Recorded(distributionId, beneficiaryName, totalValue, lines, deltas, StatCounters.version(conn));
+        });
+
+        distribution.setId(recorded.distributionId());
+        distribution.setBeneficiaryName(recorded.beneficiaryName());
+        distribution.setDistributedBy(distributedBy);
+        distribution.setTotalValue(recorded.totalValue());
+        distribution.setItems(recorded.lines());
+        publish(distribution, recorded.lowStockDeltas(), recorded.countersVersion());
+        logger.info("Recorded distribution {} of {} item(s) to beneficiary ID {}",
+            distribution.getId(), distribution.getItems().size(), distribution.getBeneficiaryId());
+        return distribution;
+    }
+
+    private static Map<Integer, BigDecimal> mergeItems(List<DistributionItem> items) throws SQLException {
+        if (items == null || items.isEmpty()) {
+            throw new SQLException("A distribution needs at least one item");
+        }
+        Map<Integer, BigDecimal> quantities = new LinkedHashMap<>();
+        for (DistributionItem item : items) {
+            if (item.getQuantity() == null || item.getQuantity().signum() <= 0) {
+                throw new SQLException("Quantity must be greater than zero for item ID " + item.getItemId());
+            }
+            quantities.merge(item.getItemId(), item.getQuantity(), BigDecimal::add);
+        }
+        return quantities;
+    }
+
+    private static String findActiveBeneficiary(Connection conn, int beneficiaryId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT full_name, status FROM beneficiaries WHERE id = ?")) {
+            stmt.setInt(1, beneficiaryId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Beneficiary not found: " + beneficiaryId);
+                }
+                if (!"ACTIVE".equals(rs.getString("status"))) {
+                    throw new SQLException("Beneficiary is not active: " + rs.getString("full_name"));
+                }
+                return rs.getString("full_name");
+            }
+        }
+    }
+
+    /**
+     * Read every requested item in one query and check that each is active; the ledger
+     * checks the stock.
+     */
+    private static Map<Integer, Item> readItems(Connection conn, Collection<Integer> itemIds) throws SQLException {
+        String sql = "SELECT id, item_name, unit_cost, status FROM inventory_items WHERE id IN (" +
+            String.join(", ", Collections.nCopies(itemIds.size(), "?")) + ")";
+
+        Map<Integer, Item> items = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int itemId : itemIds) {
+                stmt.setInt(index++, itemId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    BigDecimal unitCost = rs.getBigDecimal("unit_cost");
+                    items.put(rs.getInt("id"), new Item(rs.getString("item_name"),
+                        unitCost != null ? unitCost : BigDecimal.ZERO,
+                        "ACTIVE".equals(rs.getString("status"))));
+                }
+            }
+        }
+
+        for (int itemId : itemIds) {
+            Item item = items.get(itemId);
+            if (item == null) {
+                throw new SQLException("Inventory item not found: " + itemId);
+            }
+            if (!item.active()) {
+                throw new SQLException("Inventory item is not active: " + item.itemName());
+            }
+        }
+        return items;
+    }
+
+    private static int insertDistribution(Connection conn, Distribution distribution, int distributedBy,
+                                          BigDecimal totalValue) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_DISTRIBUTION)) {
+            stmt.setObject(1, distribution.getDistributionEventId());
+            stmt.setInt(2, distribution.getBeneficiaryId());
+            stmt.setInt(3, distributedBy);
+            stmt.setBigDecimal(4, totalValue);
+            stmt.setString(5, distribution.getStatus().name());
+            stmt.executeUpdate();
+        }
+
+        String getIdSql = DatabaseConfig.isUsingMySQL() ?
+            "SELECT LAST_INSERT_ID() as id" :
+            "SELECT last_insert_rowid() as id";
+        try (PreparedStatement stmt = conn.prepareStatement(getIdSql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt("id");
+            }
+            throw new SQLException("Failed to get generated distribution ID");
+        }
+    }
+
+    private static void insertItems(Connection conn, int distributionId, List<DistributionItem> lines) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_ITEM)) {
+            for (DistributionItem line : lines) {
+                line.setDistributionId(distributionId);
+                stmt.setInt(1, distributionId);
+                stmt.setInt(2, line.getItemId());
+                stmt.setBigDecimal(3, line.getQuantity());
+                stmt.setBigDecimal(4, line.getUnitCost());
+                stmt.setBigDecimal(5, line.getTotalCost());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static void publish(Distribution distribution, Map<Integer, Integer> lowStockDeltas, long countersVersion) {
+        EventBus bus = EventBus.getInstance();
+        bus.publish(new DistributionRecorded(distribution.getId(), distribution.getBeneficiaryId(), countersVersion));
+        for (DistributionItem line : distribution.getItems()) {
+            bus.publish(new StockMoved(line.getItemId(), "OUT", line.getQuantity(), lowStockDeltas.get(line.getItemId()),
+                countersVersion));
+        }
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("beneficiary_id", distribution.getBeneficiaryId());
+        values.put("full_name", distribution.getBeneficiaryName());
+        values.put("distribution_event_id", distribution.getDistributionEventId());
+        values.put("total_value", distribution.getTotalValue());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (DistributionItem line : distribution.getItems()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("item_id", line.getItemId());
+            item.put("quantity", line.getQuantity());
+            item.put("total_cost", line.getTotalCost());
+            items.add(item);
+        }
+        values.put("items", items);
+        AuditLog.getInstance().record(AuditLog.INSERT, "distributions", distribution.getId(), null, values);
+    }
+}
@@ -0,0 +1,313 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.util.CsvWriter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Exports whole tables to CSV or XLSX with constant memory use.
+ * <p>
+ * Rows are read from a forward-only, read-only result set (streamed by the driver in
+ * {@link #FETCH_SIZE}-row batches) and written as they arrive: CSV straight to the file,
+ * XLSX through POI's SXSSF writer, which keeps only a small window of rows in memory and
+ * spills the rest to a compressed temporary file.
+ */
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int ROW_WINDOW = 200;
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    // Excel's row limit per sheet, including the header row
+    private static final int MAX_XLSX_ROWS = 1_048_576;
+
+    /**
+     * What can be exported. Beneficiary columns use the names the import understands, so an
+     * export can be edited and imported again.
+     */
+    public enum Dataset {
+        BENEFICIARIES("Beneficiaries",
+            "SELECT b.beneficiary_id, b.full_name, b.birth_date, b.gender, b.civil_status, b.contact_number, b.email, " +
+            "br.name AS barangay, b.street_sitio, b.is_household_head, b.family_size, b.monthly_income_range, " +
+            "b.employment_status, b.priority_level, b.status, v.is_pwd, v.is_senior_citizen, v.is_pregnant_lactating, " +
+            "v.is_solo_parent, v.has_chronic_illness, v.is_orphan, v.is_indigenous, v.is_homeless, b.created_at " +
+            "FROM beneficiaries b " +
+            "LEFT JOIN barangays br ON b.barangay_id = br.id " +
+            "LEFT JOIN beneficiary_vulnerabilities v ON v.beneficiary_id = b.id " +
+            "ORDER BY b.id",
+            "SELECT COUNT(*) FROM beneficiaries"),
+        INVENTORY_ITEMS("Inventory Items",
+            "SELECT i.item_code, i.item_name, c.name AS category, i.unit_of_measure, i.current_stock, " +
+            "i.minimum_stock_level, i.maximum_stock_level, i.unit_cost, i.current_stock * i.unit_cost AS total_value, " +
+            "s.name AS supplier, i.batch_number, i.manufacture_date, i.expiration_date, i.storage_location, " +
+            "i.barcode, i.status, i.updated_at " +
+            "FROM inventory_items i " +
+            "LEFT JOIN inventory_categories c ON i.category_id = c.id " +
+            "LEFT JOIN suppliers s ON i.supplier_id = s.id " +
+            "ORDER BY i.id",
+            "SELECT COUNT(*) FROM inventory_items"),
+        STOCK_MOVEMENTS("Stock Movements",
+            "SELECT m.movement_date, i.item_code, i.item_name, m.movement_type, m.quantity, i.unit_of_measure, " +
+            "m.unit_cost, m.reference_number, m.reason, u.username AS performed_by " +
+            "FROM stock_movements m " +
+            "JOIN inventory_items i ON m.item_id = i.id " +
+            "LEFT JOIN users u ON m.performed_by = u.id " +
+            "ORDER BY m.id",
+            "SELECT COUNT(*) FROM stock_movements");
+
+        private final String title;
+        private final String query;
+        private final String countQuery;
+
+        Dataset(String title, String query, String countQuery) {
+            this.title = title;
+            this.query = query;
+            this.countQuery = countQuery;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         * Suggested file name, e.g. {@code stock-movements.xlsx}.
+         */
+        public String defaultFileName(String extension) {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-') + "." + extension;
+        }
+    }
+
+    /**
+     * Receives progress every {@link #PROGRESS_INTERVAL} rows and once at the end.
+     * {@code totalRows} is counted before the export starts, so rows added meanwhile may
+     * take {@code rowsWritten} past it.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void progress(long rowsWritten, long totalRows);
+    }
+
+    public record Result(Path file, long rows, long elapsedMillis) {
+    }
+
+    public static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".csv") || name.endsWith(".xlsx");
+    }
+
+    /**
+     * Export every row of the dataset to {@code target}; the format follows its extension.
+     * Once {@code cancelled} returns true the export stops, the partial file is deleted and a
+     * {@link CancellationException} is thrown. A failed export also leaves no file behind.
+     */
+    public Result export(Dataset dataset, Path target, ProgressListener listener, BooleanSupplier cancelled)
+            throws SQLException, IOException {
+        if (!isSupported(target)) {
+            throw new IllegalArgumentException("Unsupported file type (expected .csv or .xlsx): " + target.getFileName());
+        }
+
+        long start = System.currentTimeMillis();
+        boolean complete = false;
+        try (Connection conn = DatabaseConfig.getReadConnection()) {
+            long total = countRows(conn, dataset);
+
+            try (PreparedStatement stmt = conn.prepareStatement(dataset.query,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(FETCH_SIZE);
+
+                try (ResultSet rs = stmt.executeQuery();
+                     RowSink sink = openSink(target, dataset)) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    List<String> header = new ArrayList<>(meta.getColumnCount());
+                    boolean[] dates = new boolean[meta.getColumnCount()];
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        header.add(meta.getColumnLabel(i));
+                        dates[i - 1] = meta.getColumnType(i) == Types.DATE;
+                    }
+                    sink.header(header);
+
+                    Object[] values = new Object[header.size()];
+                    long rows = 0;
+                    while (rs.next()) {
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = dates[i] ? toLocalDate(rs.getDate(i + 1)) : rs.getObject(i + 1);
+                        }
+                        sink.row(values);
+                        rows++;
+
+                        if (rows % PROGRESS_INTERVAL == 0) {
+                            if (cancelled.getAsBoolean()) {
+                                throw new CancellationException("Export cancelled");
+                            }
+                            listener.progress(rows, total);
+                        }
+                    }
+                    sink.finish();
+                    listener.progress(rows, Math.max(rows, total));
+                    complete = true;
+
+                    long elapsed = System.currentTimeMillis() - start;
+                    logger.info("Exported {} {} row(s) to {} in {}ms", rows, dataset, target.getFileName(), elapsed);
+                    return new Result(target, rows, elapsed);
+                }
+            }
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+
+    // SQLite stores dates bound with setDate as epoch milliseconds; read them back as dates
+    private static LocalDate toLocalDate(java.sql.Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private static long countRows(Connection conn, Dataset dataset) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(dataset.countQuery);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static RowSink openSink(Path target, Dataset dataset) throws IOException {
+        if (target.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return new CsvSink(new CsvWriter(target));
+        }
+        return new XlsxSink(target, dataset.getTitle());
+    }
+
+    private interface RowSink extends AutoCloseable {
+        void header(List<String> columns) throws IOException;
+
+        void row(Object[] values) throws IOException;
+
+        /** Called once all rows are written; {@link #close()} alone discards the output. */
+        void finish() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final CsvWriter writer;
+
+        private CsvSink(CsvWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void header(List<String> columns) throws IOException {
+            writer.writeRow(columns);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            writer.writeRow(Arrays.asList(values));
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes one sheet through SXSSF. Only {@link #ROW_WINDOW} rows are held in memory; older
+     * rows are flushed to a compressed temporary file that is removed on close.
+     */
+    private static final class XlsxSink implements RowSink {
+        private final Path target;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        private final SXSSFSheet sheet;
+        private final CellStyle dateStyle;
+        private int rowIndex;
+
+        private XlsxSink(Path target, String sheetName) {
+            this.target = target;
+            workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet(sheetName);
+            this.dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+        }
+
+        @Override
+        public void header(List<String> columns) {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            CellStyle style = workbook.createCellStyle();
+            style.setFont(bold);
+
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < columns.size(); i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(columns.get(i));
+                cell.setCellStyle(style);
+            }
+            sheet.createFreezePane(0, 1);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            if (rowIndex >= MAX_XLSX_ROWS) {
+                throw new IOException("Too many rows for one XLSX sheet; export to CSV instead");
+            }
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value instanceof Number number) {
+                    row.createCell(i).setCellValue(number.doubleValue());
+                } else if (value instanceof LocalDate date) {
+                    Cell cell = row.createCell(i);
+                    cell.setCellValue(date);
+                    cell.setCellStyle(dateStyle);
+                } else if (value != null) {
+                    row.createCell(i).setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            try (OutputStream out = Files.newOutputStream(target)) {
+                workbook.write(out);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -1,30 +1,67 @@
 package com.aidsync.service;
 
 import com.aidsync.config.DatabaseConfig;
+import com.aidsync.config.IdSequences;
+import com.aidsync.event.EventBus;
+import com.aidsync.event.InventoryItemChanged;
+import com.aidsync.event.StockMoved;
 import com.aidsync.model.InventoryItem;
+import com.aidsync.model.Page;
+import com.aidsync.model.PageCursor;
+import com.aidsync.util.QueryCancellation;
 import com.aidsync.util.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class InventoryService {
     private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
     
+    private static final String SELECT_ITEMS = "SELECT i.*, c.name as category_name, s.name as supplier_name " +
+        "FROM inventory_items i " +
+        "LEFT JOIN inventory_categories c ON i.category_id = c.id " +
+        "LEFT JOIN suppliers s ON i.supplier_id = s.id";
+    
+    // Values kept in the audit log before and after a change
+    private static final String AUDIT_VALUES = "SELECT item_code, item_name, category_id, unit_of_measure, " +
+        "current_stock, minimum_stock_level, maximum_stock_level, unit_cost, supplier_id, batch_number, " +
+        "manufacture_date, expiration_date, storage_location, storage_conditions, status FROM inventory_items WHERE id = ?";
+    
+    /**
+     * What a write did, for the event and the audit entry published after it commits.
+     */
+    private record ItemChange(int lowStockDelta, long countersVersion, AuditLog.Change audit) {
+    }
+    
+    /**
+     * Columns the inventory list can be sorted on server-side. Each is NOT NULL and indexed.
+     */
+    public enum SortField {
+        ITEM_NAME("i.item_name", "item_name"),
+        ITEM_CODE("i.item_code", "item_code");
+        
+        private final String column;
+        private final String alias;
+        
+        SortField(String column, String alias) {
+            this.column = column;
+            this.alias = alias;
+        }
+    }
+    
     public List<InventoryItem> getAllInventoryItems() throws SQLException {
         List<InventoryItem> items = new ArrayList<>();
         
-        String sql = "SELECT i.*, c.name as category_name, s.name as supplier_name " +
-            "FROM inventory_items i " +
-            "LEFT JOIN inventory_categories c ON i.category_id = c.id " +
-            "LEFT JOIN suppliers s ON i.supplier_id = s.id " +
-            "WHERE i.status = 'ACTIVE' " +
-            "ORDER BY i.item_name";
+        String sql = SELECT_ITEMS + " WHERE i.status = 'ACTIVE' ORDER BY i.item_name";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             
@@ -39,14 +76,60 @@ public class InventoryService {
     public List<InventoryItem> searchInventoryItems(String searchText, String categoryFilter, String statusFilter) throws SQLException {
         List<InventoryItem> items = new ArrayList<>();
         
-        StringBuilder sql = new StringBuilder("SELECT i.*, c.name as category_name, s.name as supplier_name " +
-            "FROM inventory_items i " +
-            "LEFT JOIN inventory_categories c ON i.category_id = c.id " +
-            "LEFT JOIN suppliers s ON i.supplier_id = s.id " +
-            "WHERE i.status = 'ACTIVE'");
+        StringBuilder sql = new StringBuilder(SELECT_ITEMS + " WHERE i.status = 'ACTIVE'");
+        List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, searchText, categoryFilter, statusFilter);
+        
+        sql.append(" ORDER BY i.item_name");
         
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            
+            QueryCancellation.Registration cancellation = QueryCancellation.track(stmt);
+            try (cancellation;
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapResultSetToInventoryItem(rs));
+                }
+            }
+        }
+        
+        return items;
+    }
+    
+    /**
+     * Fetch one page of active items matching the filters, sorted on the server.
+     * Pass the previous page's {@link Page#next()} as {@code after} to continue.
+     */
+    public Page<InventoryItem> getInventoryPage(String searchText, String categoryFilter, String statusFilter,
+                                                SortField sortField, boolean descending,
+                                                PageCursor after, int pageSize) throws SQLException {
+        StringBuilder sql = new StringBuilder(SELECT_ITEMS + " WHERE i.status = 'ACTIVE'");
         List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, searchText, categoryFilter, statusFilter);
+        KeysetPage.appendSeek(sql, params, sortField.column, "i.id", descending, after);
+        KeysetPage.appendOrderAndLimit(sql, params, sortField.column, "i.id", descending, pageSize);
         
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            
+            QueryCancellation.Registration cancellation = QueryCancellation.track(stmt);
+            try (cancellation;
+                 ResultSet rs = stmt.executeQuery()) {
+                return KeysetPage.read(rs, pageSize, sortField.alias, this::mapResultSetToInventoryItem);
+            }
+        }
+    }
+    
+    private void appendFilters(StringBuilder sql, List<Object> params, String searchText, String categoryFilter, String statusFilter) {
         if (searchText != null && !searchText.trim().isEmpty()) {
             sql.append(" AND (i.item_name LIKE ? OR i.item_code LIKE ?)");
             String searchPattern = "%" + searchText.trim() + "%";
@@ -75,69 +158,79 @@ public class InventoryService {
                     break;
             }
         }
-        
-        sql.append(" ORDER BY i.item_name");
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
-            
-            for (int i = 0; i < params.size(); i++) {
-                stmt.setObject(i + 1, params.get(i));
-            }
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    items.add(mapResultSetToInventoryItem(rs));
-                }
-            }
-        }
-        
-        return items;
     }
     
     public void createInventoryItem(InventoryItem item) throws SQLException {
+        ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+        int categoryId = referenceData.categoryId(item.getCategoryName());
+        Integer supplierId = referenceData.supplierId(item.getSupplierName());
         String itemCode = generateItemCode(item.getCategoryName());
         item.setItemCode(itemCode);
+        int performedBy = SessionManager.getInstance().getCurrentUser().getId();
+        BigDecimal initialStock = item.getCurrentStock() != null ? item.getCurrentStock() : BigDecimal.ZERO;
         
         String sql = "INSERT INTO inventory_items (item_code, item_name, category_id, unit_of_measure, " +
             "current_stock, minimum_stock_level, maximum_stock_level, unit_cost, supplier_id, " +
             "batch_number, manufacture_date, expiration_date, storage_location, storage_conditions, status) " +
             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setString(1, item.getItemCode());
-            stmt.setString(2, item.getItemName());
-            stmt.setInt(3, getCategoryId(conn, item.getCategoryName()));
-            stmt.setString(4, item.getUnitOfMeasure());
-            stmt.setBigDecimal(5, item.getCurrentStock());
-            stmt.setBigDecimal(6, item.getMinimumStockLevel());
-            stmt.setBigDecimal(7, item.getMaximumStockLevel());
-            stmt.setBigDecimal(8, item.getUnitCost());
-            stmt.setObject(9, getSupplierId(conn, item.getSupplierName()));
-            stmt.setString(10, item.getBatchNumber());
-            stmt.setDate(11, item.getManufactureDate() != null ? Date.valueOf(item.getManufactureDate()) : null);
-            stmt.setDate(12, item.getExpirationDate() != null ? Date.valueOf(item.getExpirationDate()) : null);
-            stmt.setString(13, item.getStorageLocation());
-            stmt.setString(14, item.getStorageConditions());
-            stmt.setString(15, item.getStatus().name());
+        // No lock needed on a new item; the ledger still has to know if the write fails
+        ItemChange change = StockLedger.write(List.of(), conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, item.getItemCode());
+                stmt.setString(2, item.getItemName());
+                stmt.setInt(3, categoryId);
+                stmt.setString(4, item.getUnitOfMeasure());
+                // Starts empty; the initial stock goes through the ledger below
+                stmt.setBigDecimal(5, BigDecimal.ZERO);
+                stmt.setBigDecimal(6, item.getMinimumStockLevel());
+                stmt.setBigDecimal(7, item.getMaximumStockLevel());
+                stmt.setBigDecimal(8, item.getUnitCost());
+                stmt.setObject(9, supplierId);
+                stmt.setString(10, item.getBatchNumber());
+                stmt.setDate(11, item.getManufactureDate() != null ? Date.valueOf(item.getManufactureDate()) : null);
+                stmt.setDate(12, item.getExpirationDate() != null ? Date.valueOf(item.getExpirationDate()) : null);
+                stmt.setString(13, item.getStorageLocation());
+                stmt.setString(14, item.getStorageConditions());
+                stmt.setString(15, item.getStatus().name());
+                
+                stmt.executeUpdate();
+            }
             
-            stmt.executeUpdate();
+            // Get the generated ID
+            String getIdSql = DatabaseConfig.isUsingMySQL() ? 
+                "SELECT LAST_INSERT_ID() as id" : 
+                "SELECT last_insert_rowid() as id";
             
-            try (ResultSet keys = stmt.getGeneratedKeys()) {
-                if (keys.next()) {
-                    item.setId(keys.getInt(1));
+            try (PreparedStatement idStmt = conn.prepareStatement(getIdSql);
+                 ResultSet rs = idStmt.executeQuery()) {
+                if (rs.next()) {
+                    item.setId(rs.getInt("id"));
+                } else {
+                    throw new SQLException("Failed to get generated inventory item ID");
                 }
             }
             
-            // Record initial stock movement
-            if (item.getCurrentStock().compareTo(BigDecimal.ZERO) > 0) {
-                recordStockMovement(item.getId(), "IN", item.getCurrentStock(), "Initial stock");
+            int lowStockDelta = 0;
+            if (isLowStock(conn, item.getId())) {
+                StatCounters.add(conn, StatCounters.LOW_STOCK_ITEMS, StatCounters.ALL_TIME, 1);
+                lowStockDelta = 1;
             }
             
-            logger.info("Created inventory item: {}", item.getItemCode());
-        }
+            // Record initial stock movement
+            if (initialStock.signum() > 0) {
+                List<StockLedger.Balance> balances = StockLedger.apply(conn, List.of(new StockLedger.Movement(item.getId(),
+                    StockLedger.MovementType.IN, initialStock, item.getUnitCost(), null, "Initial stock",
+                    item.getBatchNumber(), item.getExpirationDate())), performedBy);
+                lowStockDelta += balances.get(0).lowStockDelta();
+            }
+            return new ItemChange(lowStockDelta, StatCounters.version(conn),
+                new AuditLog.Change(null, AuditLog.readValues(conn, AUDIT_VALUES, item.getId())));
+        });
+        
+        AuditLog.getInstance().record(AuditLog.INSERT, "inventory_items", item.getId(), change.audit());
+        EventBus.getInstance().publish(new InventoryItemChanged(item.getId(), change.lowStockDelta(), change.countersVersion()));
+        logger.info("Created inventory item: {}", item.getItemCode());
     }
     
     public void updateInventoryItem(InventoryItem item) throws SQLException {
@@ -146,203 +239,147 @@ public class InventoryService {
             "batch_number = ?, manufacture_date = ?, expiration_date = ?, storage_location = ?, " +
             "storage_conditions = ?, status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, item.getItemName());
-            stmt.setInt(2, getCategoryId(conn, item.getCategoryName()));
-            stmt.setString(3, item.getUnitOfMeasure());
-            stmt.setBigDecimal(4, item.getMinimumStockLevel());
-            stmt.setBigDecimal(5, item.getMaximumStockLevel());
-            stmt.setBigDecimal(6, item.getUnitCost());
-            stmt.setObject(7, getSupplierId(conn, item.getSupplierName()));
-            stmt.setString(8, item.getBatchNumber());
-            stmt.setDate(9, item.getManufactureDate() != null ? Date.valueOf(item.getManufactureDate()) : null);
-            stmt.setDate(10, item.getExpirationDate() != null ? Date.valueOf(item.getExpirationDate()) : null);
-            stmt.setString(11, item.getStorageLocation());
-            stmt.setString(12, item.getStorageConditions());
-            stmt.setString(13, item.getStatus().name());
-            stmt.setInt(14, item.getId());
-            
-            stmt.executeUpdate();
-            
-            logger.info("Updated inventory item: {}", item.getItemCode());
-        }
+        ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+        int categoryId = referenceData.categoryId(item.getCategoryName());
+        Integer supplierId = referenceData.supplierId(item.getSupplierName());
+        
+        ItemChange change = DatabaseConfig.executeWrite(conn -> {
+            Map<String, Object> oldValues = AuditLog.readValues(conn, AUDIT_VALUES, item.getId());
+            boolean wasLow = isLowStock(conn, item.getId());
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, item.getItemName());
+                stmt.setInt(2, categoryId);
+                stmt.setString(3, item.getUnitOfMeasure());
+                stmt.setBigDecimal(4, item.getMinimumStockLevel());
+                stmt.setBigDecimal(5, item.getMaximumStockLevel());
+                stmt.setBigDecimal(6, item.getUnitCost());
+                stmt.setObject(7, supplierId);
+                stmt.setString(8, item.getBatchNumber());
+                stmt.setDate(9, item.getManufactureDate() != null ? Date.valueOf(item.getManufactureDate()) : null);
+                stmt.setDate(10, item.getExpirationDate() != null ? Date.valueOf(item.getExpirationDate()) : null);
+                stmt.setString(11, item.getStorageLocation());
+                stmt.setString(12, item.getStorageConditions());
+                stmt.setString(13, item.getStatus().name());
+                stmt.setInt(14, item.getId());
+                
+                stmt.executeUpdate();
+            }
+            int lowStockDelta = updateLowStockCounter(conn, item.getId(), wasLow);
+            return new ItemChange(lowStockDelta, StatCounters.version(conn),
+                new AuditLog.Change(oldValues, AuditLog.readValues(conn, AUDIT_VALUES, item.getId())));
+        });
+        
+        AuditLog.getInstance().record(AuditLog.UPDATE, "inventory_items", item.getId(), change.audit());
+        EventBus.getInstance().publish(new InventoryItemChanged(item.getId(), change.lowStockDelta(), change.countersVersion()));
+        logger.info("Updated inventory item: {}", item.getItemCode());
     }
     
     public void deleteInventoryItem(int id) throws SQLException {
         String sql = "UPDATE inventory_items SET status = 'INACTIVE', updated_at = CURRENT_TIMESTAMP WHERE id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
-            
-            logger.info("Deleted inventory item with ID: {}", id);
-        }
+        ItemChange change = DatabaseConfig.executeWrite(conn -> {
+            Map<String, Object> oldValues = AuditLog.readValues(conn, AUDIT_VALUES, id);
+            boolean wasLow = isLowStock(conn, id);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                stmt.executeUpdate();
+            }
+            int lowStockDelta = updateLowStockCounter(conn, id, wasLow);
+            return new ItemChange(lowStockDelta, StatCounters.version(conn),
+                new AuditLog.Change(oldValues, AuditLog.readValues(conn, AUDIT_VALUES, id)));
+        });
+        
+        AuditLog.getInstance().record(AuditLog.DELETE, "inventory_items", id, change.audit());
+        EventBus.getInstance().publish(new InventoryItemChanged(id, change.lowStockDelta(), change.countersVersion()));
+        logger.info("Deleted inventory item with ID: {}", id);
     }
     
     public void recordStockMovement(int itemId, String movementType, BigDecimal quantity, String reason) throws SQLException {
-        Connection conn = DatabaseConfig.getConnection();
-        conn.setAutoCommit(false);
-        
-        try {
-            // Insert stock movement record
-            String movementSql = "INSERT INTO stock_movements (item_id, movement_type, quantity, reason, performed_by) " +
-                "VALUES (?, ?, ?, ?, ?)";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(movementSql)) {
-                stmt.setInt(1, itemId);
-                stmt.setString(2, movementType);
-                stmt.setBigDecimal(3, quantity);
-                stmt.setString(4, reason);
-                stmt.setInt(5, SessionManager.getInstance().getCurrentUser().getId());
-                
-                stmt.executeUpdate();
-            }
-            
-            // Update current stock
-            String updateSql;
-            switch (movementType) {
-                case "IN":
-                case "ADJUSTMENT":
-                    updateSql = "UPDATE inventory_items SET current_stock = current_stock + ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                    break;
-                case "OUT":
-                case "WRITEOFF":
-                    updateSql = "UPDATE inventory_items SET current_stock = current_stock - ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                    break;
-                default:
-                    updateSql = "UPDATE inventory_items SET current_stock = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                    break;
-            }
-            
-            try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-                stmt.setBigDecimal(1, quantity);
-                stmt.setInt(2, itemId);
-                
-                stmt.executeUpdate();
-            }
-            
-            conn.commit();
-            logger.info("Recorded stock movement: {} {} for item ID {}", movementType, quantity, itemId);
-            
-        } catch (SQLException e) {
-            conn.rollback();
-            throw e;
-        } finally {
-            conn.setAutoCommit(true);
-            conn.close();
-        }
+        recordStockMovement(itemId, StockLedger.MovementType.valueOf(movementType), quantity, reason,
+            SessionManager.getInstance().getCurrentUser().getId());
     }
     
-    public List<String> getAllCategories() throws SQLException {
-        List<String> categories = new ArrayList<>();
-        
-        String sql = "SELECT name FROM inventory_categories ORDER BY name";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                categories.add(rs.getString("name"));
-            }
-        }
-        
-        return categories;
+    /**
+     * Append a movement to the stock ledger and apply it to the item's balance.
+     */
+    public void recordStockMovement(int itemId, StockLedger.MovementType movementType, BigDecimal quantity,
+                                    String reason, int performedBy) throws SQLException {
+        recordStockMovement(new StockLedger.Movement(itemId, movementType, quantity, reason), performedBy);
     }
     
-    public List<String> getAllSuppliers() throws SQLException {
-        List<String> suppliers = new ArrayList<>();
-        
-        String sql = "SELECT name FROM suppliers WHERE status = 'ACTIVE' ORDER BY name";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                suppliers.add(rs.getString("name"));
-            }
-        }
-        
-        return suppliers;
+    /**
+     * Receive a delivery as a new lot with its own batch number and expiration date, so it is
+     * used before or after the item's other lots depending on when it expires.
+     */
+    public void receiveStock(int itemId, BigDecimal quantity, BigDecimal unitCost, String batchNumber,
+                             LocalDate expirationDate, String reason) throws SQLException {
+        recordStockMovement(new StockLedger.Movement(itemId, StockLedger.MovementType.IN, quantity, unitCost,
+            null, reason, batchNumber, expirationDate), SessionManager.getInstance().getCurrentUser().getId());
     }
     
-    private String generateItemCode(String categoryName) throws SQLException {
-        String categoryCode = getCategoryCode(categoryName);
-        
-        String sql = DatabaseConfig.isUsingMySQL() ?
-            "SELECT MAX(CAST(SUBSTRING(item_code, 6) AS UNSIGNED)) as max_id FROM inventory_items WHERE item_code LIKE ?" :
-            "SELECT MAX(CAST(SUBSTR(item_code, 6) AS INTEGER)) as max_id FROM inventory_items WHERE item_code LIKE ?";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, categoryCode + "%");
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                int nextId = 1;
-                if (rs.next()) {
-                    nextId = rs.getInt("max_id") + 1;
-                }
-                
-                return String.format("%s-%03d", categoryCode, nextId);
-            }
-        }
+    private void recordStockMovement(StockLedger.Movement movement, int performedBy) throws SQLException {
+        int itemId = movement.itemId();
+        StockLedger.MovementType movementType = movement.type();
+        BigDecimal quantity = movement.quantity();
+        String reason = movement.reason();
+        StockLedger.Recorded recorded = StockLedger.record(List.of(movement), performedBy);
+        StockLedger.Balance balance = recorded.balances().get(0);
+        
+        Map<String, Object> oldValues = new LinkedHashMap<>();
+        oldValues.put("item_code", balance.itemCode());
+        oldValues.put("item_name", balance.itemName());
+        oldValues.put("current_stock", balance.before());
+        Map<String, Object> newValues = new LinkedHashMap<>();
+        newValues.put("movement_type", movementType.name());
+        newValues.put("quantity", quantity);
+        newValues.put("reason", reason);
+        newValues.put("item_code", balance.itemCode());
+        newValues.put("item_name", balance.itemName());
+        newValues.put("current_stock", balance.after());
+        AuditLog.getInstance().record(AuditLog.STOCK_MOVEMENT, "inventory_items", itemId, oldValues, newValues);
+        EventBus.getInstance().publish(new StockMoved(itemId, movementType.name(), quantity, balance.lowStockDelta(),
+            recorded.countersVersion()));
+        logger.info("Recorded stock movement: {} {} for item ID {}", movementType, quantity, itemId);
     }
     
-    private String getCategoryCode(String categoryName) {
-        switch (categoryName) {
-            case "Food & Nutrition": return "FOOD";
-            case "Hygiene & Sanitation": return "HYGN";
-            case "Medical & Health": return "MEDL";
-            case "Clothing & Bedding": return "CLTH";
-            case "Shelter Materials": return "SHLT";
-            case "Cash Assistance": return "CASH";
-            case "Livelihood Support": return "LIVE";
-            case "Educational Materials": return "EDUC";
-            case "Specialized Kits": return "SPEC";
-            default: return "MISC";
-        }
+    public List<String> getAllCategories() throws SQLException {
+        return ReferenceDataCache.getInstance().categoryNames();
     }
     
-    private int getCategoryId(Connection conn, String categoryName) throws SQLException {
-        String sql = "SELECT id FROM inventory_categories WHERE name = ?";
-        
+    public List<String> getAllSuppliers() throws SQLException {
+        return ReferenceDataCache.getInstance().activeSupplierNames();
+    }
+    
+    /**
+     * Whether the item counts towards the dashboard's low-stock card, read inside the write.
+     */
+    private static boolean isLowStock(Connection conn, int itemId) throws SQLException {
+        String sql = "SELECT current_stock <= minimum_stock_level AND status = 'ACTIVE' FROM inventory_items WHERE id = ?";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, categoryName);
-            
+            stmt.setInt(1, itemId);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
-                } else {
-                    throw new SQLException("Category not found: " + categoryName);
-                }
+                return rs.next() && rs.getBoolean(1);
             }
         }
     }
     
-    private Integer getSupplierId(Connection conn, String supplierName) throws SQLException {
-        if (supplierName == null || supplierName.trim().isEmpty()) {
-            return null;
-        }
-        
-        String sql = "SELECT id FROM suppliers WHERE name = ?";
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, supplierName);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
-                } else {
-                    return null;
-                }
-            }
+    /**
+     * Adjust the low-stock counter if the change just made moved the item across the threshold,
+     * returning the adjustment.
+     */
+    private static int updateLowStockCounter(Connection conn, int itemId, boolean wasLow) throws SQLException {
+        boolean isLow = isLowStock(conn, itemId);
+        if (isLow == wasLow) {
+            return 0;
         }
+        int delta = isLow ? 1 : -1;
+        StatCounters.add(conn, StatCounters.LOW_STOCK_ITEMS, StatCounters.ALL_TIME, delta);
+        return delta;
+    }
+    
+    private String generateItemCode(String categoryName) throws SQLException {
+        String categoryCode = ReferenceDataCache.getInstance().categoryCode(categoryName);
+        return String.format("%s-%03d", categoryCode, IdSequences.next(categoryCode));
     }
     
     private InventoryItem mapResultSetToInventoryItem(ResultSet rs) throws SQLException {
@@ -0,0 +1,77 @@
+package com.aidsync.service;
+
+import com.aidsync.model.Page;
+import com.aidsync.model.PageCursor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL fragments and result reading shared by the keyset-paginated listings.
+ * <p>
+ * Pages are ordered by {@code (sortColumn, id)} and continue with rows strictly after the
+ * cursor, so each page costs an index seek plus {@code pageSize} rows no matter how deep the
+ * user has scrolled, unlike {@code OFFSET} which re-reads every skipped row.
+ */
+final class KeysetPage {
+
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private KeysetPage() {
+    }
+
+    /**
+     * Append the "after cursor" predicate. Written as OR/AND rather than a row-value comparison
+     * so MySQL and SQLite both turn it into a range scan on the sort index.
+     */
+    static void appendSeek(StringBuilder sql, List<Object> params, String sortColumn, String idColumn,
+                           boolean descending, PageCursor after) {
+        if (after == null) {
+            return;
+        }
+        String op = descending ? "<" : ">";
+        sql.append(" AND (").append(sortColumn).append(' ').append(op).append(" ? OR (")
+            .append(sortColumn).append(" = ? AND ").append(idColumn).append(' ').append(op).append(" ?))");
+        params.add(after.sortValue());
+        params.add(after.sortValue());
+        params.add(after.id());
+    }
+
+    /**
+     * Append ORDER BY and a LIMIT one past the page size, so the extra row tells us whether
+     * another page exists.
+     */
+    static void appendOrderAndLimit(StringBuilder sql, List<Object> params, String sortColumn, String idColumn,
+                                    boolean descending, int pageSize) {
+        String direction = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(sortColumn).append(direction)
+            .append(", ").append(idColumn).append(direction)
+            .append(" LIMIT ?");
+        params.add(pageSize + 1);
+    }
+
+    static <T> Page<T> read(ResultSet rs, int pageSize, String sortAlias, RowMapper<T> mapper) throws SQLException {
+        List<T> rows = new ArrayList<>(pageSize);
+        Object lastSortValue = null;
+        int lastId = 0;
+        boolean more = false;
+
+        while (rs.next()) {
+            if (rows.size() == pageSize) {
+                more = true;
+                break;
+            }
+            rows.add(mapper.map(rs));
+            // Keep the raw driver value so the cursor binds back in the column's own representation
+            lastSortValue = rs.getObject(sortAlias);
+            lastId = rs.getInt("id");
+        }
+
+        return new Page<>(rows, more ? new PageCursor(lastSortValue, lastId) : null);
+    }
+}
@@ -0,0 +1,35 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import at.favre.lib.crypto.bcrypt.BCrypt;
+
+/**
+ * Password hashing with bcrypt at the cost set by {@code auth.bcryptCost} (12 by default).
+ * Each step up doubles the time to hash and to verify, for logins and attackers alike.
+ */
+final class Passwords {
+
+    static final int COST = Math.max(4, Math.min(31, DatabaseConfig.intSetting("auth.bcryptCost", "AUTH_BCRYPT_COST", 12)));
+
+    /**
+     * Outcome of checking a password. {@code rehash} is set when the password matched a hash
+     * made at a lower cost than the current one, which should then be replaced.
+     */
+    record Check(boolean verified, boolean rehash) {
+    }
+
+    private Passwords() {
+    }
+
+    static String hash(String password) {
+        return BCrypt.withDefaults().hashToString(COST, password.toCharArray());
+    }
+
+    /**
+     * Check a password against a stored hash. A value that is not a bcrypt hash never matches.
+     */
+    static Check check(String password, String hash) {
+        BCrypt.Result result = BCrypt.verifyer().verify(password.toCharArray(), hash);
+        return new Check(result.verified, result.verified && result.details.cost < COST);
+    }
+}
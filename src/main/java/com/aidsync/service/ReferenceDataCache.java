@@ -0,0 +1,243 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Barangays, puroks, inventory categories and suppliers, held in memory as immutable
+ * name/id lookups so services and combo boxes do not query these small tables every time.
+ * <p>
+ * The tables are loaded together into one snapshot, tagged with the version stored in
+ * {@code reference_data_version}. Whoever edits reference data calls {@link #bumpVersion()};
+ * every instance compares its snapshot with the stored version at most every
+ * {@link #CHECK_INTERVAL_MS} (or sooner when a name is not found) and reloads when it changed.
+ * Names are matched ignoring case and surrounding spaces.
+ */
+public final class ReferenceDataCache {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private static final long CHECK_INTERVAL_MS = 30_000;
+    private static final long MISS_RECHECK_MS = 1_000;
+
+    private static final ReferenceDataCache instance = new ReferenceDataCache();
+
+    private volatile Snapshot snapshot;
+    private volatile long lastCheckMillis;
+
+    /**
+     * Names in display order, and ids by normalized name.
+     */
+    record Names(List<String> names, Map<String, Integer> ids) {
+        Integer id(String name) {
+            return name != null ? ids.get(normalize(name)) : null;
+        }
+    }
+
+    private record Snapshot(long version, Names barangays, Map<Integer, Names> puroksByBarangay,
+                            Names categories, Map<Integer, String> categoryCodes,
+                            Names suppliers, List<String> activeSuppliers) {
+    }
+
+    private ReferenceDataCache() {
+    }
+
+    public static ReferenceDataCache getInstance() {
+        return instance;
+    }
+
+    public List<String> barangayNames() throws SQLException {
+        return snapshot().barangays().names();
+    }
+
+    public int barangayId(String name) throws SQLException {
+        Integer id = lookup(s -> s.barangays().id(name));
+        if (id == null) {
+            throw new SQLException("Barangay not found: " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Barangay ids by normalized name, for bulk lookups such as imports.
+     */
+    Map<String, Integer> barangayIds() throws SQLException {
+        return snapshot().barangays().ids();
+    }
+
+    /**
+     * Id of the named purok in the barangay, or null when there is no such purok.
+     */
+    public Integer purokId(int barangayId, String name) throws SQLException {
+        return lookup(s -> {
+            Names puroks = s.puroksByBarangay().get(barangayId);
+            return puroks != null ? puroks.id(name) : null;
+        });
+    }
+
+    public List<String> categoryNames() throws SQLException {
+        return snapshot().categories().names();
+    }
+
+    public int categoryId(String name) throws SQLException {
+        Integer id = lookup(s -> s.categories().id(name));
+        if (id == null) {
+            throw new SQLException("Category not found: " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Short code of the category, used as the prefix of its item codes (e.g. {@code FOOD}).
+     */
+    public String categoryCode(String name) throws SQLException {
+        int id = categoryId(name);
+        return snapshot().categoryCodes().get(id);
+    }
+
+    public List<String> activeSupplierNames() throws SQLException {
+        return snapshot().activeSuppliers();
+    }
+
+    /**
+     * Id of the named supplier, or null when the name is blank or unknown.
+     */
+    public Integer supplierId(String name) throws SQLException {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        return lookup(s -> s.suppliers().id(name));
+    }
+
+    /**
+     * Record that reference data was edited, so every instance reloads it. Call after the
+     * edit has been written.
+     */
+    public void bumpVersion() throws SQLException {
+        DatabaseConfig.executeWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE reference_data_version SET version = version + 1 WHERE id = 1")) {
+                return stmt.executeUpdate();
+            }
+        });
+        invalidate();
+    }
+
+    /**
+     * Drop the snapshot held by this instance; the next lookup reloads it.
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    @FunctionalInterface
+    private interface Lookup<T> {
+        T find(Snapshot snapshot);
+    }
+
+    /**
+     * Look up in the current snapshot; on a miss, re-check the version once in case another
+     * instance has just added the entry.
+     */
+    private <T> T lookup(Lookup<T> lookup) throws SQLException {
+        T found = lookup.find(snapshot());
+        if (found == null && System.currentTimeMillis() - lastCheckMillis >= MISS_RECHECK_MS) {
+            found = lookup.find(check());
+        }
+        return found;
+    }
+
+    private Snapshot snapshot() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - lastCheckMillis < CHECK_INTERVAL_MS) {
+            return current;
+        }
+        return check();
+    }
+
+    private synchronized Snapshot check() throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection()) {
+            long version = readVersion(conn);
+            if (snapshot == null || snapshot.version() != version) {
+                long start = System.currentTimeMillis();
+                snapshot = load(conn, version);
+                logger.info("Loaded reference data version {} in {}ms", version, System.currentTimeMillis() - start);
+            }
+            lastCheckMillis = System.currentTimeMillis();
+            return snapshot;
+        }
+    }
+
+    private static long readVersion(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT version FROM reference_data_version WHERE id = 1");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static Snapshot load(Connection conn, long version) throws SQLException {
+        Names barangays = loadNames(conn, "SELECT id, name FROM barangays ORDER BY name");
+        Names categories = loadNames(conn, "SELECT id, name FROM inventory_categories ORDER BY name");
+        Names suppliers = loadNames(conn, "SELECT id, name FROM suppliers ORDER BY name");
+
+        Map<Integer, String> categoryCodes = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id, code FROM inventory_categories");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                categoryCodes.put(rs.getInt("id"), rs.getString("code"));
+            }
+        }
+
+        List<String> activeSuppliers = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT name FROM suppliers WHERE status = 'ACTIVE' ORDER BY name");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                activeSuppliers.add(rs.getString("name"));
+            }
+        }
+
+        Map<Integer, List<String>> purokNames = new HashMap<>();
+        Map<Integer, Map<String, Integer>> purokIds = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id, barangay_id, name FROM puroks ORDER BY name");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int barangayId = rs.getInt("barangay_id");
+                purokNames.computeIfAbsent(barangayId, id -> new ArrayList<>()).add(rs.getString("name"));
+                purokIds.computeIfAbsent(barangayId, id -> new HashMap<>()).putIfAbsent(normalize(rs.getString("name")), rs.getInt("id"));
+            }
+        }
+        Map<Integer, Names> puroks = new HashMap<>();
+        purokNames.forEach((barangayId, names) -> puroks.put(barangayId, new Names(List.copyOf(names), Map.copyOf(purokIds.get(barangayId)))));
+
+        return new Snapshot(version, barangays, Map.copyOf(puroks), categories, Map.copyOf(categoryCodes),
+            suppliers, List.copyOf(activeSuppliers));
+    }
+
+    private static Names loadNames(Connection conn, String sql) throws SQLException {
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String name = rs.getString("name");
+                names.add(name);
+                ids.putIfAbsent(normalize(name), rs.getInt("id"));
+            }
+        }
+        return new Names(List.copyOf(names), Map.copyOf(ids));
+    }
+
+    static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
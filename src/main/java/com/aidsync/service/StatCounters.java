@@ -0,0 +1,152 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+
+/**
+ * Running totals behind the dashboard, kept in {@code stat_counters} as one row per counter
+ * and period. Writers adjust them inside their own write transaction, so a counter always
+ * agrees with the rows it counts and the dashboard reads a handful of rows instead of
+ * scanning history.
+ * <p>
+ * Periods are {@link #ALL_TIME}, a month ({@code 2026-03}) or a day ({@code 2026-03-14}),
+ * in local time.
+ * <p>
+ * Every change also bumps {@link #VERSION} in the same transaction. Figures read together
+ * with it include exactly the changes stamped with that version or an earlier one, so a
+ * reader that also follows events can tell which of them it has already counted.
+ */
+final class StatCounters {
+
+    /** Beneficiaries whose status is ACTIVE. */
+    static final String ACTIVE_BENEFICIARIES = "beneficiaries.active";
+    /** Beneficiaries registered, per month. */
+    static final String BENEFICIARIES_REGISTERED = "beneficiaries.registered";
+    /** Distributions recorded, per day. */
+    static final String DISTRIBUTIONS_RECORDED = "distributions.recorded";
+    /** Active inventory items at or below their minimum stock level. */
+    static final String LOW_STOCK_ITEMS = "inventory.low_stock";
+    /** Changes made to the other counters, all time. */
+    static final String VERSION = "version";
+
+    static final String ALL_TIME = "all";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private StatCounters() {
+    }
+
+    static String month(LocalDate date) {
+        return date.format(MONTH);
+    }
+
+    static String day(LocalDate date) {
+        return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    /**
+     * Add {@code delta} to the counter for the period, creating the row if needed, and bump
+     * {@link #VERSION}. Must run inside the write transaction that makes the change being
+     * counted.
+     */
+    static void add(Connection conn, String counter, String period, long delta) throws SQLException {
+        if (delta == 0) {
+            return;
+        }
+        boolean mysql = DatabaseConfig.isUsingMySQL();
+        upsert(conn, mysql, counter, period, delta);
+        upsert(conn, mysql, VERSION, ALL_TIME, 1);
+    }
+
+    /**
+     * The {@link #VERSION} the counters are at, as seen by {@code conn}. Writers read it last
+     * in their transaction and publish it with their events.
+     */
+    static long version(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT value FROM stat_counters WHERE counter = ? AND period = ?")) {
+            stmt.setString(1, VERSION);
+            stmt.setString(2, ALL_TIME);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static void upsert(Connection conn, boolean mysql, String counter, String period, long delta)
+            throws SQLException {
+        String sql = mysql
+            ? "INSERT INTO stat_counters (counter, period, value) VALUES (?, ?, ?) " +
+              "ON DUPLICATE KEY UPDATE value = value + VALUES(value)"
+            : "INSERT INTO stat_counters (counter, period, value) VALUES (?, ?, ?) " +
+              "ON CONFLICT (counter, period) DO UPDATE SET value = value + excluded.value";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, counter);
+            stmt.setString(2, period);
+            stmt.setLong(3, delta);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Count a newly registered, active beneficiary (or {@code count} of them).
+     */
+    static void beneficiariesRegistered(Connection conn, int count) throws SQLException {
+        add(conn, ACTIVE_BENEFICIARIES, ALL_TIME, count);
+        add(conn, BENEFICIARIES_REGISTERED, month(LocalDate.now()), count);
+    }
+
+    /**
+     * Count again, from the rows themselves, the counters that depend on any of the given
+     * tables. For writers that change rows in bulk without knowing what they replaced, such
+     * as SyncEngine. {@code mysql} is the dialect of {@code conn}, which need not be the
+     * database this application works on.
+     */
+    static void recount(Connection conn, boolean mysql, Set<String> tables) throws SQLException {
+        boolean recounted = false;
+        try (Statement stmt = conn.createStatement()) {
+            if (tables.contains("beneficiaries")) {
+                recounted = true;
+                stmt.executeUpdate("DELETE FROM stat_counters WHERE counter IN ('" + ACTIVE_BENEFICIARIES + "', '" +
+                    BENEFICIARIES_REGISTERED + "')");
+                stmt.executeUpdate("INSERT INTO stat_counters (counter, period, value) SELECT '" + ACTIVE_BENEFICIARIES +
+                    "', '" + ALL_TIME + "', COUNT(*) FROM beneficiaries WHERE status = 'ACTIVE'");
+                stmt.executeUpdate("INSERT INTO stat_counters (counter, period, value) SELECT '" + BENEFICIARIES_REGISTERED +
+                    "', " + period(mysql, "%Y-%m") + ", COUNT(*) FROM beneficiaries WHERE created_at IS NOT NULL " +
+                    "GROUP BY " + period(mysql, "%Y-%m"));
+            }
+            if (tables.contains("distributions")) {
+                recounted = true;
+                stmt.executeUpdate("DELETE FROM stat_counters WHERE counter = '" + DISTRIBUTIONS_RECORDED + "'");
+                stmt.executeUpdate("INSERT INTO stat_counters (counter, period, value) SELECT '" + DISTRIBUTIONS_RECORDED +
+                    "', " + period(mysql, "%Y-%m-%d") + ", COUNT(*) FROM distributions WHERE created_at IS NOT NULL " +
+                    "GROUP BY " + period(mysql, "%Y-%m-%d"));
+            }
+            if (tables.contains("inventory_items") || tables.contains("stock_movements")) {
+                recounted = true;
+                stmt.executeUpdate("DELETE FROM stat_counters WHERE counter = '" + LOW_STOCK_ITEMS + "'");
+                stmt.executeUpdate("INSERT INTO stat_counters (counter, period, value) SELECT '" + LOW_STOCK_ITEMS +
+                    "', '" + ALL_TIME + "', COUNT(*) FROM inventory_items " +
+                    "WHERE current_stock <= minimum_stock_level AND status = 'ACTIVE'");
+            }
+        }
+        if (recounted) {
+            upsert(conn, mysql, VERSION, ALL_TIME, 1);
+        }
+    }
+
+    /**
+     * Local-time period of {@code created_at}; SQLite timestamps are stored in UTC.
+     */
+    private static String period(boolean mysql, String format) {
+        return mysql ? "DATE_FORMAT(created_at, '" + format + "')" : "strftime('" + format + "', created_at, 'localtime')";
+    }
+}
@@ -0,0 +1,329 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.event.EventBus;
+import com.aidsync.event.InventoryItemChanged;
+import com.aidsync.event.StockAlertRaised;
+import com.aidsync.event.StockMoved;
+import com.aidsync.model.StockAlert;
+import com.aidsync.util.IndexedMinHeap;
+import com.aidsync.util.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches inventory for items running low or close to expiry.
+ * <p>
+ * Active items are held in two {@link IndexedMinHeap}s, one ordered by the expiration date
+ * of the item's earliest expiring lot with stock left and one by stock relative to the
+ * minimum stock level, loaded once at startup and then updated one item at a time from
+ * {@link InventoryItemChanged} and {@link StockMoved} events. When an item crosses a threshold (low stock, out of stock, expiring within
+ * {@code stock.expiryWarningDays}, expired) a {@link StockAlertRaised} event is published;
+ * an item that recovers and crosses again raises a new alert. Expiry is also re-checked
+ * shortly after every midnight, when dates pass without any change to the item.
+ * <p>
+ * Queries such as {@link #nextToExpire(int)} read the heaps only and never touch the database.
+ */
+public final class StockAlertEngine {
+    private static final Logger logger = LoggerFactory.getLogger(StockAlertEngine.class);
+
+    private static final int EXPIRY_WARNING_DAYS = DatabaseConfig.intSetting(
+        "stock.expiryWarningDays", "STOCK_EXPIRY_WARNING_DAYS", 30);
+    private static final int RECENT_CAPACITY = 64;
+    private static final LocalTime EXPIRY_CHECK_AT = LocalTime.of(0, 1);
+
+    // An item expires with its earliest lot that still holds stock, not the date entered on the item
+    private static final String SELECT_ITEMS = "SELECT i.id, i.item_code, i.item_name, i.current_stock, " +
+        "i.minimum_stock_level, (SELECT MIN(l.expiration_date) FROM stock_lots l " +
+        "WHERE l.item_id = i.id AND l.quantity_remaining > 0) AS expiration_date " +
+        "FROM inventory_items i WHERE i.status = 'ACTIVE'";
+
+    // Compares stock / minimum without dividing; both minimums are positive
+    private static final Comparator<WatchedItem> BY_STOCK_RATIO = (a, b) -> {
+        int compared = a.currentStock().multiply(b.minimumStockLevel())
+            .compareTo(b.currentStock().multiply(a.minimumStockLevel()));
+        return compared != 0 ? compared : Integer.compare(a.itemId(), b.itemId());
+    };
+    private static final Comparator<WatchedItem> BY_EXPIRY =
+        Comparator.comparing(WatchedItem::expirationDate).thenComparingInt(WatchedItem::itemId);
+
+    private static final StockAlertEngine instance = new StockAlertEngine();
+
+    /**
+     * An active item as the engine sees it. The expiration date is that of its earliest
+     * expiring lot with stock left.
+     */
+    public record WatchedItem(int itemId, String itemCode, String itemName, BigDecimal currentStock,
+                              BigDecimal minimumStockLevel, LocalDate expirationDate) {
+
+        /**
+         * Stock as a multiple of the minimum stock level; 1 or less is low stock.
+         */
+        public double stockRatio() {
+            return minimumStockLevel.signum() > 0
+                ? currentStock.doubleValue() / minimumStockLevel.doubleValue()
+                : Double.POSITIVE_INFINITY;
+        }
+
+        boolean hasMinimum() {
+            return minimumStockLevel.signum() > 0;
+        }
+
+        boolean expires() {
+            return expirationDate != null && currentStock.signum() > 0;
+        }
+    }
+
+    // Guarded by this
+    private final IndexedMinHeap<Integer, WatchedItem> byExpiry = new IndexedMinHeap<>(BY_EXPIRY);
+    private final IndexedMinHeap<Integer, WatchedItem> byStockRatio = new IndexedMinHeap<>(BY_STOCK_RATIO);
+    private final Map<Integer, Set<StockAlert.Type>> raised = new HashMap<>();
+
+    private final RingBuffer<StockAlert> recent = new RingBuffer<>(RECENT_CAPACITY);
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+
+    // Loading, refreshes and the daily expiry check all run on this one thread
+    private ScheduledExecutorService worker;
+
+    private StockAlertEngine() {
+    }
+
+    public static StockAlertEngine getInstance() {
+        return instance;
+    }
+
+    /**
+     * Load the active items and start following changes. Items already past a threshold at
+     * startup are counted in the log but do not raise alerts.
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AIDSYNC-Stock-Alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        EventBus bus = EventBus.getInstance();
+        subscriptions.add(bus.subscribe(InventoryItemChanged.class, e -> refreshLater(e.itemId())));
+        subscriptions.add(bus.subscribe(StockMoved.class, e -> refreshLater(e.itemId())));
+        worker.execute(this::load);
+        scheduleExpiryCheck();
+    }
+
+    public synchronized void shutdown() {
+        subscriptions.forEach(EventBus.Subscription::close);
+        subscriptions.clear();
+        if (worker != null) {
+            worker.shutdownNow();
+            worker = null;
+        }
+    }
+
+    /**
+     * Up to {@code n} items with stock, earliest expiration date first.
+     */
+    public synchronized List<WatchedItem> nextToExpire(int n) {
+        return byExpiry.smallest(n);
+    }
+
+    /**
+     * Up to {@code n} items with a minimum stock level, lowest stock relative to it first.
+     */
+    public synchronized List<WatchedItem> lowestStock(int n) {
+        return byStockRatio.smallest(n);
+    }
+
+    /**
+     * Up to {@code limit} of the latest alerts, newest first.
+     */
+    public List<StockAlert> recentAlerts(int limit) {
+        return recent.latest(limit);
+    }
+
+    private void refreshLater(int itemId) {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = worker;
+        }
+        if (current != null) {
+            current.execute(() -> refresh(itemId));
+        }
+    }
+
+    private void load() {
+        List<WatchedItem> items = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ITEMS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                items.add(watchedItem(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to load inventory for stock alerts", e);
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<StockAlert.Type, Integer> counts = new HashMap<>();
+        synchronized (this) {
+            for (WatchedItem item : items) {
+                index(item.itemId(), item);
+                Set<StockAlert.Type> types = alertTypes(item, today);
+                raised.put(item.itemId(), types);
+                types.forEach(type -> counts.merge(type, 1, Integer::sum));
+            }
+        }
+        logger.info("Watching {} inventory items for stock alerts; currently {}", items.size(), counts);
+    }
+
+    private void refresh(int itemId) {
+        WatchedItem item;
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ITEMS + " AND i.id = ?")) {
+            stmt.setInt(1, itemId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                item = rs.next() ? watchedItem(rs) : null;
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to refresh stock alerts for item ID {}", itemId, e);
+            return;
+        }
+
+        List<StockAlert> alerts;
+        synchronized (this) {
+            index(itemId, item);
+            alerts = crossed(itemId, item, LocalDate.now());
+        }
+        alerts.forEach(this::raise);
+    }
+
+    /**
+     * Raise the expiry alerts that became due because the date changed. Only the items at
+     * the front of the expiry heap are looked at.
+     */
+    private void checkExpiry() {
+        LocalDate today = LocalDate.now();
+        LocalDate warnBefore = today.plusDays(EXPIRY_WARNING_DAYS);
+        List<StockAlert> alerts = new ArrayList<>();
+        synchronized (this) {
+            for (int n = 16; ; n *= 2) {
+                List<WatchedItem> front = byExpiry.smallest(n);
+                boolean beyond = front.size() < n || !front.get(front.size() - 1).expirationDate().isBefore(warnBefore);
+                if (beyond || n >= byExpiry.size()) {
+                    for (WatchedItem item : front) {
+                        if (!item.expirationDate().isBefore(warnBefore)) {
+                            break;
+                        }
+                        alerts.addAll(crossed(item.itemId(), item, today));
+                    }
+                    break;
+                }
+            }
+        }
+        alerts.forEach(this::raise);
+        scheduleExpiryCheck();
+    }
+
+    private synchronized void scheduleExpiryCheck() {
+        if (worker != null) {
+            LocalDateTime next = LocalDate.now().plusDays(1).atTime(EXPIRY_CHECK_AT);
+            worker.schedule(this::checkExpiry, Duration.between(LocalDateTime.now(), next).toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Put the item in the heaps it belongs in, or take it out when it is gone or inactive.
+     */
+    private void index(int itemId, WatchedItem item) {
+        if (item != null && item.expires()) {
+            byExpiry.put(itemId, item);
+        } else {
+            byExpiry.remove(itemId);
+        }
+        if (item != null && item.hasMinimum()) {
+            byStockRatio.put(itemId, item);
+        } else {
+            byStockRatio.remove(itemId);
+        }
+    }
+
+    /**
+     * Alerts for the thresholds the item is past now but was not before.
+     */
+    private List<StockAlert> crossed(int itemId, WatchedItem item, LocalDate today) {
+        Set<StockAlert.Type> now = item != null ? alertTypes(item, today) : EnumSet.noneOf(StockAlert.Type.class);
+        Set<StockAlert.Type> before = raised.getOrDefault(itemId, Set.of());
+        if (now.isEmpty()) {
+            raised.remove(itemId);
+        } else {
+            raised.put(itemId, now);
+        }
+
+        List<StockAlert> alerts = new ArrayList<>();
+        for (StockAlert.Type type : now) {
+            if (!before.contains(type)) {
+                alerts.add(new StockAlert(type, itemId, item.itemCode(), item.itemName(), item.currentStock(),
+                    item.minimumStockLevel(), item.expirationDate(), LocalDateTime.now()));
+            }
+        }
+        return alerts;
+    }
+
+    private static Set<StockAlert.Type> alertTypes(WatchedItem item, LocalDate today) {
+        Set<StockAlert.Type> types = EnumSet.noneOf(StockAlert.Type.class);
+        if (item.hasMinimum()) {
+            if (item.currentStock().signum() == 0) {
+                types.add(StockAlert.Type.OUT_OF_STOCK);
+            } else if (item.currentStock().compareTo(item.minimumStockLevel()) <= 0) {
+                types.add(StockAlert.Type.LOW_STOCK);
+            }
+        }
+        if (item.expires()) {
+            if (item.expirationDate().isBefore(today)) {
+                types.add(StockAlert.Type.EXPIRED);
+            } else if (item.expirationDate().isBefore(today.plusDays(EXPIRY_WARNING_DAYS))) {
+                types.add(StockAlert.Type.EXPIRING);
+            }
+        }
+        return types;
+    }
+
+    private void raise(StockAlert alert) {
+        recent.add(alert);
+        logger.warn("Stock alert - {}", alert.describe());
+        EventBus.getInstance().publish(new StockAlertRaised(alert));
+    }
+
+    private static WatchedItem watchedItem(ResultSet rs) throws SQLException {
+        BigDecimal stock = rs.getBigDecimal("current_stock");
+        BigDecimal minimum = rs.getBigDecimal("minimum_stock_level");
+        // SQLite stores dates bound with setDate as epoch milliseconds
+        Date expirationDate = rs.getDate("expiration_date");
+        return new WatchedItem(rs.getInt("id"), rs.getString("item_code"), rs.getString("item_name"),
+            stock != null ? stock : BigDecimal.ZERO, minimum != null ? minimum : BigDecimal.ZERO,
+            expirationDate != null ? expirationDate.toLocalDate() : null);
+    }
+}
@@ -0,0 +1,328 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.config.SqlWork;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The only way stock changes. Every change is appended to {@code stock_movements} and
+ * applied to {@code inventory_items.current_stock} in the same transaction, so the balance
+ * always equals the sum of the item's movements ({@link StockReconciler} checks this).
+ * <p>
+ * Writers lock the items they touch on one of {@link #STRIPES} striped locks before opening
+ * their transaction: movements on the same item queue up in memory instead of waiting on
+ * row locks, while movements on different items proceed in parallel (on MySQL; SQLite has a
+ * single writer anyway). Locks are taken in stripe order and rows are updated in id order,
+ * so two writers never deadlock. A balance can never go below zero.
+ * <p>
+ * Inbound stock is received into a new {@link StockLots lot}; outbound stock is taken from
+ * the item's lots first-expired-first-out, with one movement per lot used.
+ */
+public final class StockLedger {
+
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private static final String INSERT_MOVEMENT = "INSERT INTO stock_movements " +
+        "(item_id, lot_id, movement_type, quantity, unit_cost, reference_number, reason, performed_by) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // The guard is redundant with the check in apply() but keeps the balance safe regardless.
+    // Every movement receives into or takes from the item's lots, so it bumps their version too
+    private static final String UPDATE_BALANCE = "UPDATE inventory_items SET current_stock = current_stock + ?, " +
+        "lots_version = lots_version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND current_stock + ? >= 0";
+
+    public enum MovementType {
+        /** Stock received. */
+        IN,
+        /** Stock released. */
+        OUT,
+        /** Correction after a count; the quantity is signed. */
+        ADJUSTMENT,
+        /** Stock moved out to another site. */
+        TRANSFER,
+        /** Stock lost, damaged or expired. */
+        WRITEOFF;
+
+        /**
+         * Change to the balance for a movement of {@code quantity}.
+         */
+        public BigDecimal signed(BigDecimal quantity) {
+            return switch (this) {
+                case IN, ADJUSTMENT -> quantity;
+                case OUT, TRANSFER, WRITEOFF -> quantity.negate();
+            };
+        }
+    }
+
+    /**
+     * One line to append to the ledger. Quantities are positive, except for adjustments,
+     * which are signed and non-zero. The batch number and expiration date describe the lot
+     * that inbound stock is received into.
+     */
+    public record Movement(int itemId, MovementType type, BigDecimal quantity, BigDecimal unitCost,
+                           String referenceNumber, String reason, String batchNumber, LocalDate expirationDate) {
+
+        public Movement(int itemId, MovementType type, BigDecimal quantity, BigDecimal unitCost,
+                        String referenceNumber, String reason) {
+            this(itemId, type, quantity, unitCost, referenceNumber, reason, null, null);
+        }
+
+        public Movement(int itemId, MovementType type, BigDecimal quantity, String reason) {
+            this(itemId, type, quantity, null, null, reason);
+        }
+    }
+
+    /**
+     * An item's balance before and after the movements applied to it, and the resulting change
+     * to the low-stock count.
+     */
+    public record Balance(int itemId, String itemCode, String itemName,
+                          BigDecimal before, BigDecimal after, int lowStockDelta) {
+    }
+
+    /**
+     * What {@link #record} applied: the balances as from {@link #apply}, and the version it
+     * left the dashboard counters at (see StatCounters).
+     */
+    public record Recorded(List<Balance> balances, long countersVersion) {
+    }
+
+    private record Item(String itemCode, String itemName, BigDecimal balance, BigDecimal minimum, boolean active,
+                        long lotsVersion) {
+        boolean isLow(BigDecimal stock) {
+            return active && stock.compareTo(minimum) <= 0;
+        }
+    }
+
+    /**
+     * A movement as written: the part of it that went into or came out of one lot.
+     */
+    private record Line(Movement movement, Integer lotId, BigDecimal quantity) {
+    }
+
+    private StockLedger() {
+    }
+
+    /**
+     * Apply the movements in their own transaction, holding the items' locks.
+     */
+    public static Recorded record(List<Movement> movements, int performedBy) throws SQLException {
+        return write(itemIds(movements), conn -> {
+            List<Balance> balances = apply(conn, movements, performedBy);
+            return new Recorded(balances, StatCounters.version(conn));
+        });
+    }
+
+    /**
+     * Run write work that moves stock of the given items, holding their locks. Work that is
+     * already inside a write transaction runs as is: it cannot wait for a lock there without
+     * risking a deadlock with the thread that holds it, and its rows are locked by the
+     * enclosing transaction anyway.
+     */
+    static <T> T write(Collection<Integer> itemIds, SqlWork<T> work) throws SQLException {
+        if (DatabaseConfig.isInWrite()) {
+            return writeOrForgetLots(work);
+        }
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (int itemId : itemIds) {
+            stripes.add(stripe(itemId));
+        }
+        List<ReentrantLock> held = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+                held.add(locks[stripe]);
+            }
+            return writeOrForgetLots(work);
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Fibonacci hashing: the top bits of the product spread consecutive ids over the stripes.
+     */
+    private static int stripe(int itemId) {
+        return (itemId * 0x9E3779B9) >>> (Integer.SIZE - STRIPE_BITS);
+    }
+
+    private static <T> T writeOrForgetLots(SqlWork<T> work) throws SQLException {
+        try {
+            return DatabaseConfig.executeWrite(work);
+        } catch (SQLException | RuntimeException e) {
+            // Lots may have been taken in memory by work that was rolled back
+            StockLots.invalidate();
+            throw e;
+        }
+    }
+
+    /**
+     * Append the movements and update the balances in the caller's transaction. Fails, and
+     * the caller's transaction should be rolled back, if an item does not exist or would be
+     * left with negative stock.
+     *
+     * @return the balance of each item touched, in item id order
+     */
+    static List<Balance> apply(Connection conn, List<Movement> movements, int performedBy) throws SQLException {
+        if (movements.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, BigDecimal> changes = new TreeMap<>();
+        for (Movement movement : movements) {
+            validate(movement);
+            changes.merge(movement.itemId(), movement.type().signed(movement.quantity()), BigDecimal::add);
+        }
+        Map<Integer, Item> items = lockItems(conn, changes.keySet());
+
+        List<Balance> balances = new ArrayList<>(changes.size());
+        int lowStockDelta = 0;
+        for (Map.Entry<Integer, BigDecimal> change : changes.entrySet()) {
+            Item item = items.get(change.getKey());
+            if (item == null) {
+                throw new SQLException("Inventory item not found: " + change.getKey());
+            }
+            BigDecimal after = item.balance().add(change.getValue());
+            if (after.signum() < 0) {
+                throw new SQLException("Insufficient stock for " + item.itemName() + ": " +
+                    plain(item.balance()) + " available, " + plain(change.getValue().negate()) + " requested");
+            }
+            StockLots.refresh(conn, change.getKey(), item.lotsVersion());
+            int delta = (item.isLow(after) ? 1 : 0) - (item.isLow(item.balance()) ? 1 : 0);
+            lowStockDelta += delta;
+            balances.add(new Balance(change.getKey(), item.itemCode(), item.itemName(), item.balance(), after, delta));
+        }
+
+        List<Line> lines = new ArrayList<>(movements.size());
+        List<StockLots.Allocation> taken = new ArrayList<>();
+        for (Movement movement : movements) {
+            BigDecimal signed = movement.type().signed(movement.quantity());
+            if (signed.signum() > 0) {
+                int lotId = StockLots.receive(conn, movement.itemId(), signed, movement.unitCost(),
+                    movement.batchNumber(), movement.expirationDate());
+                lines.add(new Line(movement, lotId, movement.quantity()));
+                continue;
+            }
+            List<StockLots.Allocation> allocations = StockLots.allocate(conn, movement.itemId(), signed.negate());
+            for (StockLots.Allocation allocation : allocations) {
+                // Adjustments keep their sign
+                BigDecimal quantity = movement.type() == MovementType.ADJUSTMENT
+                    ? allocation.quantity().negate()
+                    : allocation.quantity();
+                lines.add(new Line(movement, allocation.lotId(), quantity));
+            }
+            taken.addAll(allocations);
+        }
+        StockLots.consume(conn, taken);
+
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_MOVEMENT)) {
+            for (Line line : lines) {
+                Movement movement = line.movement();
+                stmt.setInt(1, movement.itemId());
+                stmt.setObject(2, line.lotId());
+                stmt.setString(3, movement.type().name());
+                stmt.setBigDecimal(4, line.quantity());
+                stmt.setBigDecimal(5, movement.unitCost());
+                stmt.setString(6, movement.referenceNumber());
+                stmt.setString(7, movement.reason());
+                stmt.setInt(8, performedBy);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        int[] updated;
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATE_BALANCE)) {
+            for (Map.Entry<Integer, BigDecimal> change : changes.entrySet()) {
+                stmt.setBigDecimal(1, change.getValue());
+                stmt.setInt(2, change.getKey());
+                stmt.setBigDecimal(3, change.getValue());
+                stmt.addBatch();
+            }
+            updated = stmt.executeBatch();
+        }
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new SQLException("Insufficient stock for " + balances.get(i).itemName());
+            }
+        }
+
+        StatCounters.add(conn, StatCounters.LOW_STOCK_ITEMS, StatCounters.ALL_TIME, lowStockDelta);
+        return balances;
+    }
+
+    private static void validate(Movement movement) throws SQLException {
+        if (movement.type() == null || movement.quantity() == null) {
+            throw new SQLException("Movement type and quantity are required");
+        }
+        int sign = movement.quantity().signum();
+        if (movement.type() == MovementType.ADJUSTMENT ? sign == 0 : sign <= 0) {
+            throw new SQLException(movement.type() == MovementType.ADJUSTMENT
+                ? "Adjustment quantity must not be zero"
+                : "Quantity must be greater than zero");
+        }
+    }
+
+    /**
+     * Read the items' balances in one query, locking the rows on MySQL.
+     */
+    private static Map<Integer, Item> lockItems(Connection conn, Collection<Integer> itemIds) throws SQLException {
+        String sql = "SELECT id, item_code, item_name, current_stock, minimum_stock_level, status, lots_version " +
+            "FROM inventory_items WHERE id IN (" + String.join(", ", Collections.nCopies(itemIds.size(), "?")) + ")" +
+            (DatabaseConfig.isUsingMySQL() ? " FOR UPDATE" : "");
+
+        Map<Integer, Item> items = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int itemId : itemIds) {
+                stmt.setInt(index++, itemId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    BigDecimal balance = rs.getBigDecimal("current_stock");
+                    BigDecimal minimum = rs.getBigDecimal("minimum_stock_level");
+                    items.put(rs.getInt("id"), new Item(rs.getString("item_code"), rs.getString("item_name"),
+                        balance != null ? balance : BigDecimal.ZERO,
+                        minimum != null ? minimum : BigDecimal.ZERO,
+                        "ACTIVE".equals(rs.getString("status")), rs.getLong("lots_version")));
+                }
+            }
+        }
+        return items;
+    }
+
+    private static List<Integer> itemIds(List<Movement> movements) {
+        List<Integer> itemIds = new ArrayList<>(movements.size());
+        for (Movement movement : movements) {
+            itemIds.add(movement.itemId());
+        }
+        return itemIds;
+    }
+
+    private static String plain(BigDecimal value) {
+        return value.stripTrailingZeros().toPlainString();
+    }
+}
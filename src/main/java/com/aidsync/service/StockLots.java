@@ -0,0 +1,276 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lots of stock received under an item, each with its own batch number and expiration date,
+ * in {@code stock_lots}. The {@link StockLedger} receives inbound movements into new lots and
+ * takes outbound ones from the lots first-expired-first-out (FEFO); lots without an
+ * expiration date go last. An item's lots always add up to its {@code current_stock}.
+ * <p>
+ * Each item's open lots are kept in memory in expiry order once the ledger first touches the
+ * item, so taking stock costs O(log n) per lot used however many lots the item has. The
+ * copy is changed inside the write transaction, under the item's ledger lock, and dropped
+ * if the transaction fails ({@link #invalidate()}), to be reloaded from the database. Other
+ * terminals and processes writing to the same database change the lots without this copy
+ * seeing it, so each copy carries the item's {@code lots_version}, which every change to the
+ * lots bumps, and is read again when the item row says otherwise ({@link #refresh}).
+ */
+public final class StockLots {
+    private static final Logger logger = LoggerFactory.getLogger(StockLots.class);
+
+    private static final String INSERT_LOT = "INSERT INTO stock_lots " +
+        "(item_id, batch_number, expiration_date, quantity_received, quantity_remaining, unit_cost) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String CONSUME_LOT = "UPDATE stock_lots SET quantity_remaining = quantity_remaining - ? " +
+        "WHERE id = ? AND quantity_remaining >= ?";
+    private static final String SELECT_OPEN_LOTS = "SELECT id, batch_number, expiration_date, quantity_remaining " +
+        "FROM stock_lots WHERE item_id = ? AND quantity_remaining > 0";
+
+    // Version of a copy loaded outside refresh, which the next write always reloads
+    private static final long UNKNOWN_VERSION = -1;
+
+    private static final Map<Integer, ItemLots> cache = new ConcurrentHashMap<>();
+    // Items already reported as holding stock outside their lots, so each is logged once
+    private static final Set<Integer> reported = ConcurrentHashMap.newKeySet();
+
+    /**
+     * An open lot, as returned by {@link #lots(int)}.
+     */
+    public record Lot(int lotId, String batchNumber, LocalDate expirationDate, BigDecimal remaining) {
+    }
+
+    /**
+     * Quantity taken from one lot. {@code lotId} is null for stock that was not in any lot,
+     * which only happens if the lots and the balance disagree.
+     */
+    record Allocation(Integer lotId, BigDecimal quantity) {
+    }
+
+    private static final class OpenLot implements Comparable<OpenLot> {
+        final int lotId;
+        final String batchNumber;
+        final LocalDate expirationDate;
+        BigDecimal remaining;
+
+        OpenLot(int lotId, String batchNumber, LocalDate expirationDate, BigDecimal remaining) {
+            this.lotId = lotId;
+            this.batchNumber = batchNumber;
+            this.expirationDate = expirationDate;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int compareTo(OpenLot other) {
+            if (expirationDate == null || other.expirationDate == null) {
+                if (expirationDate != other.expirationDate) {
+                    return expirationDate == null ? 1 : -1;
+                }
+            } else {
+                int compared = expirationDate.compareTo(other.expirationDate);
+                if (compared != 0) {
+                    return compared;
+                }
+            }
+            return Integer.compare(lotId, other.lotId);
+        }
+
+        Lot toLot() {
+            return new Lot(lotId, batchNumber, expirationDate, remaining);
+        }
+    }
+
+    /**
+     * One item's open lots, soonest to expire first, as of the item's {@code lots_version}.
+     */
+    private static final class ItemLots {
+        private final TreeSet<OpenLot> open = new TreeSet<>();
+        private volatile long version = UNKNOWN_VERSION;
+
+        synchronized void add(OpenLot lot) {
+            open.add(lot);
+        }
+
+        synchronized List<Allocation> take(BigDecimal quantity) {
+            List<Allocation> allocations = new ArrayList<>();
+            BigDecimal left = quantity;
+            while (left.signum() > 0 && !open.isEmpty()) {
+                OpenLot first = open.first();
+                BigDecimal used = first.remaining.min(left);
+                first.remaining = first.remaining.subtract(used);
+                left = left.subtract(used);
+                allocations.add(new Allocation(first.lotId, used));
+                if (first.remaining.signum() == 0) {
+                    open.pollFirst();
+                }
+            }
+            if (left.signum() > 0) {
+                allocations.add(new Allocation(null, left));
+            }
+            return allocations;
+        }
+
+        synchronized List<Lot> snapshot() {
+            List<Lot> lots = new ArrayList<>(open.size());
+            for (OpenLot lot : open) {
+                lots.add(lot.toLot());
+            }
+            return lots;
+        }
+    }
+
+    private StockLots() {
+    }
+
+    /**
+     * The item's lots that still hold stock, in the order they will be used. Read from the
+     * database, so lots changed by another terminal are included.
+     */
+    public static List<Lot> lots(int itemId) throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection()) {
+            return load(conn, itemId, false).snapshot();
+        }
+    }
+
+    /**
+     * Make the item's lots in memory match the database before the ledger changes them. Must
+     * run in the ledger's write transaction, with {@code lotsVersion} as read there under the
+     * item's row lock, and the transaction must bump the version by one. The lots are read
+     * again only if another terminal or process changed them since this copy was taken.
+     */
+    static void refresh(Connection conn, int itemId, long lotsVersion) throws SQLException {
+        ItemLots cached = cache.get(itemId);
+        if (cached == null || cached.version != lotsVersion) {
+            if (cached != null) {
+                logger.debug("Lots of item ID {} changed elsewhere; reloading", itemId);
+            }
+            cached = load(conn, itemId, true);
+            cache.put(itemId, cached);
+        }
+        // What this transaction leaves; a rollback drops the copy (invalidate)
+        cached.version = lotsVersion + 1;
+    }
+
+    /**
+     * Record a new lot of {@code quantity} received for the item and return its id. Must run
+     * in the ledger's write transaction.
+     */
+    static int receive(Connection conn, int itemId, BigDecimal quantity, BigDecimal unitCost,
+                       String batchNumber, LocalDate expirationDate) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_LOT)) {
+            stmt.setInt(1, itemId);
+            stmt.setString(2, batchNumber);
+            stmt.setDate(3, expirationDate != null ? Date.valueOf(expirationDate) : null);
+            stmt.setBigDecimal(4, quantity);
+            stmt.setBigDecimal(5, quantity);
+            stmt.setBigDecimal(6, unitCost);
+            stmt.executeUpdate();
+        }
+
+        String getIdSql = DatabaseConfig.isUsingMySQL() ?
+            "SELECT LAST_INSERT_ID() as id" :
+            "SELECT last_insert_rowid() as id";
+        int lotId;
+        try (PreparedStatement stmt = conn.prepareStatement(getIdSql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Failed to get generated stock lot ID");
+            }
+            lotId = rs.getInt("id");
+        }
+
+        // Not cached yet: the lot is picked up with the rest when the item is first loaded
+        ItemLots cached = cache.get(itemId);
+        if (cached != null) {
+            cached.add(new OpenLot(lotId, batchNumber, expirationDate, quantity));
+        }
+        return lotId;
+    }
+
+    /**
+     * Take {@code quantity} of the item from its lots, soonest to expire first. The lots are
+     * only updated in memory; pass the allocations to {@link #consume} in the same transaction,
+     * after {@link #refresh} has run for the item in it.
+     */
+    static List<Allocation> allocate(Connection conn, int itemId, BigDecimal quantity) throws SQLException {
+        ItemLots lots = cache.get(itemId);
+        if (lots == null) {
+            // Dropped by a failed write on another item since refresh; the next write reloads it
+            lots = load(conn, itemId, true);
+            ItemLots raced = cache.putIfAbsent(itemId, lots);
+            if (raced != null) {
+                lots = raced;
+            }
+        }
+        List<Allocation> allocations = lots.take(quantity);
+        if (allocations.get(allocations.size() - 1).lotId() == null && reported.add(itemId)) {
+            logger.warn("Lots of item ID {} hold less than its balance; {} taken outside any lot",
+                itemId, allocations.get(allocations.size() - 1).quantity());
+        }
+        return allocations;
+    }
+
+    /**
+     * Write the allocations to {@code stock_lots} as one batch.
+     */
+    static void consume(Connection conn, List<Allocation> allocations) throws SQLException {
+        int[] updated;
+        try (PreparedStatement stmt = conn.prepareStatement(CONSUME_LOT)) {
+            for (Allocation allocation : allocations) {
+                if (allocation.lotId() == null) {
+                    continue;
+                }
+                stmt.setBigDecimal(1, allocation.quantity());
+                stmt.setInt(2, allocation.lotId());
+                stmt.setBigDecimal(3, allocation.quantity());
+                stmt.addBatch();
+            }
+            updated = stmt.executeBatch();
+        }
+        for (int count : updated) {
+            if (count == 0) {
+                throw new SQLException("Stock lot changed outside the ledger");
+            }
+        }
+    }
+
+    /**
+     * Forget the lots held in memory; called when a write that may have changed them fails.
+     */
+    static void invalidate() {
+        cache.clear();
+    }
+
+    private static ItemLots load(Connection conn, int itemId, boolean forUpdate) throws SQLException {
+        // In a MySQL write, a locking read sees the latest committed lots, not the transaction's snapshot
+        String sql = SELECT_OPEN_LOTS + (forUpdate && DatabaseConfig.isUsingMySQL() ? " FOR UPDATE" : "");
+        ItemLots lots = new ItemLots();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, itemId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    // SQLite stores dates bound with setDate as epoch milliseconds
+                    Date expirationDate = rs.getDate("expiration_date");
+                    lots.add(new OpenLot(rs.getInt("id"), rs.getString("batch_number"),
+                        expirationDate != null ? expirationDate.toLocalDate() : null, rs.getBigDecimal("quantity_remaining")));
+                }
+            }
+        }
+        return lots;
+    }
+}
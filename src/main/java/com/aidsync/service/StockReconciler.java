@@ -0,0 +1,120 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks in the background that every item's {@code current_stock} still equals the sum
+ * of its {@link StockLedger} movements, and logs the items that drifted.
+ * <p>
+ * The check is one grouped pass over {@code stock_movements} joined to the items, so its
+ * cost does not depend on how many items drifted.
+ */
+public final class StockReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(StockReconciler.class);
+
+    private static final int INTERVAL_MINUTES = DatabaseConfig.intSetting(
+        "stock.reconcileIntervalMinutes", "STOCK_RECONCILE_INTERVAL_MINUTES", 60);
+    private static final int LOGGED_DRIFTS = 20;
+
+    // Differences below this are rounding (SQLite keeps quantities as REAL)
+    private static final BigDecimal TOLERANCE = new BigDecimal("0.005");
+
+    private static final String DRIFT_SQL = "SELECT i.id, i.item_code, i.item_name, i.current_stock, " +
+        "COALESCE(m.net, 0) AS ledger FROM inventory_items i LEFT JOIN (" +
+        "SELECT item_id, SUM(CASE WHEN movement_type IN ('IN', 'ADJUSTMENT') THEN quantity ELSE -quantity END) AS net " +
+        "FROM stock_movements GROUP BY item_id) m ON m.item_id = i.id " +
+        "WHERE ABS(i.current_stock - COALESCE(m.net, 0)) >= ? ORDER BY i.id";
+
+    private static final StockReconciler instance = new StockReconciler();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * An item whose balance differs from its ledger.
+     */
+    public record Drift(int itemId, String itemCode, String itemName, BigDecimal balance, BigDecimal ledger) {
+        public BigDecimal difference() {
+            return balance.subtract(ledger);
+        }
+    }
+
+    private StockReconciler() {
+    }
+
+    public static StockReconciler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Reconcile now, then every {@code stock.reconcileIntervalMinutes} (60 by default) until
+     * {@link #shutdown()}.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AIDSYNC-Stock-Reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcileAndReport, 0, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Items whose balance does not match their ledger, in id order.
+     */
+    public List<Drift> reconcile() throws SQLException {
+        List<Drift> drifts = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(DRIFT_SQL)) {
+            stmt.setBigDecimal(1, TOLERANCE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    drifts.add(new Drift(rs.getInt("id"), rs.getString("item_code"), rs.getString("item_name"),
+                        rs.getBigDecimal("current_stock"), rs.getBigDecimal("ledger")));
+                }
+            }
+        }
+        return drifts;
+    }
+
+    private void reconcileAndReport() {
+        try {
+            long start = System.currentTimeMillis();
+            List<Drift> drifts = reconcile();
+            long elapsed = System.currentTimeMillis() - start;
+            if (drifts.isEmpty()) {
+                logger.info("Stock balances match the ledger ({}ms)", elapsed);
+                return;
+            }
+            logger.warn("{} item(s) have a stock balance that differs from the ledger ({}ms)", drifts.size(), elapsed);
+            for (Drift drift : drifts.subList(0, Math.min(drifts.size(), LOGGED_DRIFTS))) {
+                logger.warn("Stock drift on {} ({}): balance {}, ledger {}, difference {}", drift.itemName(),
+                    drift.itemCode(), drift.balance(), drift.ledger(), drift.difference());
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Stock reconciliation failed", e);
+        }
+    }
+}
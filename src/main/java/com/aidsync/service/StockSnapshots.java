@@ -0,0 +1,391 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time stock. A background job writes, for every item, the cumulative quantity
+ * moved in and out by the end of each day into {@code stock_snapshots}: daily rows for the
+ * last {@code stock.snapshotRetentionDays} (92 by default) and one row per month-end before
+ * that. Stock as of a date, and in/out totals for a period, are then the nearest snapshot
+ * plus the movements between it and the date, so a report reads at most about a month of
+ * movements however long the history is.
+ * <p>
+ * Days are local days. SQLite keeps {@code movement_date} as UTC text, MySQL in the
+ * session time zone.
+ */
+public final class StockSnapshots {
+    private static final Logger logger = LoggerFactory.getLogger(StockSnapshots.class);
+
+    private static final int RETENTION_DAYS = DatabaseConfig.intSetting(
+        "stock.snapshotRetentionDays", "STOCK_SNAPSHOT_RETENTION_DAYS", 92);
+    // Late enough that writes made just before midnight have committed
+    private static final LocalTime RUN_AT = LocalTime.of(0, 5);
+
+    private static final String DAY = "DAY";
+    private static final String MONTH = "MONTH";
+
+    private static final String SIGNED = "CASE WHEN movement_type IN ('IN', 'ADJUSTMENT') THEN quantity ELSE -quantity END";
+    private static final String SUM_IN_OUT =
+        "SUM(CASE WHEN " + SIGNED + " > 0 THEN " + SIGNED + " ELSE 0 END) AS quantity_in, " +
+        "SUM(CASE WHEN " + SIGNED + " < 0 THEN -(" + SIGNED + ") ELSE 0 END) AS quantity_out";
+    private static final DateTimeFormatter UTC_TEXT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final StockSnapshots instance = new StockSnapshots();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Quantity moved in and out of an item. For a point in time these are cumulative, and
+     * {@link #balance()} is the stock held.
+     */
+    public record Quantities(BigDecimal quantityIn, BigDecimal quantityOut) {
+        static final Quantities NONE = new Quantities(BigDecimal.ZERO, BigDecimal.ZERO);
+
+        public BigDecimal balance() {
+            return quantityIn.subtract(quantityOut);
+        }
+
+        Quantities plus(Quantities other) {
+            return new Quantities(quantityIn.add(other.quantityIn), quantityOut.add(other.quantityOut));
+        }
+
+        Quantities minus(Quantities other) {
+            return new Quantities(quantityIn.subtract(other.quantityIn), quantityOut.subtract(other.quantityOut));
+        }
+    }
+
+    /**
+     * An item's stock on a date, or its movements over a period, for reports.
+     */
+    public record ItemQuantities(int itemId, String itemCode, String itemName, String unitOfMeasure,
+                                 Quantities quantities) {
+    }
+
+    private record Row(LocalDate day, int itemId, String kind, Quantities quantities) {
+    }
+
+    private StockSnapshots() {
+    }
+
+    public static StockSnapshots getInstance() {
+        return instance;
+    }
+
+    /**
+     * Bring the snapshots up to yesterday now, then shortly after every midnight until
+     * {@link #shutdown()}.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AIDSYNC-Stock-Snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::snapshotAndReschedule);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Cumulative quantities of every item that had stock movements by the end of {@code date}.
+     */
+    public Map<Integer, Quantities> totalsAsOf(LocalDate date) throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection()) {
+            return totalsAsOf(conn, date);
+        }
+    }
+
+    /**
+     * Quantity of each item moved in and out from the start of {@code from} to the end of
+     * {@code to}; items without movements in the period are left out.
+     */
+    public Map<Integer, Quantities> periodTotals(LocalDate from, LocalDate to) throws SQLException {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Period ends before it starts: " + from + " to " + to);
+        }
+        Map<Integer, Quantities> period = new HashMap<>();
+        try (Connection conn = DatabaseConfig.getReadConnection()) {
+            Map<Integer, Quantities> before = totalsAsOf(conn, from.minusDays(1));
+            for (Map.Entry<Integer, Quantities> end : totalsAsOf(conn, to).entrySet()) {
+                Quantities moved = end.getValue().minus(before.getOrDefault(end.getKey(), Quantities.NONE));
+                if (moved.quantityIn().signum() != 0 || moved.quantityOut().signum() != 0) {
+                    period.put(end.getKey(), moved);
+                }
+            }
+        }
+        return period;
+    }
+
+    /**
+     * Stock of each item at the end of {@code date}, optionally only one category, by item name.
+     */
+    public List<ItemQuantities> stockAsOf(LocalDate date, String categoryName) throws SQLException {
+        return withItems(totalsAsOf(date), categoryName);
+    }
+
+    /**
+     * Movements of each item over a period, optionally only one category, by item name.
+     */
+    public List<ItemQuantities> movementsBetween(LocalDate from, LocalDate to, String categoryName) throws SQLException {
+        return withItems(periodTotals(from, to), categoryName);
+    }
+
+    /**
+     * Write the snapshots missing up to the end of yesterday and drop daily snapshots past
+     * the retention period. Returns the number of rows written.
+     */
+    public synchronized int snapshot() throws SQLException {
+        LocalDate target = LocalDate.now().minusDays(1);
+        LocalDate last;
+        Map<Integer, Quantities> running;
+        TreeMap<LocalDate, Map<Integer, Quantities>> days;
+        try (Connection conn = DatabaseConfig.getReadConnection()) {
+            last = latestSnapshot(conn, target);
+            if (last != null && !last.isBefore(target)) {
+                return 0;
+            }
+            running = last != null ? readSnapshot(conn, last) : new HashMap<>();
+            days = movementsByDay(conn, last != null ? last.plusDays(1) : null, target);
+        }
+        if (last == null && days.isEmpty()) {
+            return 0; // No movements yet
+        }
+
+        LocalDate keepDailyFrom = LocalDate.now().minusDays(RETENTION_DAYS);
+        LocalDate start = last != null ? last.plusDays(1) : days.firstKey();
+        List<Row> rows = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(target); day = day.plusDays(1)) {
+            Map<Integer, Quantities> moved = days.get(day);
+            if (moved != null) {
+                moved.forEach((itemId, quantities) -> running.merge(itemId, quantities, Quantities::plus));
+            }
+            boolean monthEnd = day.getDayOfMonth() == day.lengthOfMonth();
+            if (monthEnd || !day.isBefore(keepDailyFrom) || day.equals(target)) {
+                String kind = monthEnd ? MONTH : DAY;
+                for (Map.Entry<Integer, Quantities> item : running.entrySet()) {
+                    rows.add(new Row(day, item.getKey(), kind, item.getValue()));
+                }
+            }
+        }
+
+        String insert = (DatabaseConfig.isUsingMySQL() ? "INSERT IGNORE" : "INSERT OR IGNORE") +
+            " INTO stock_snapshots (snapshot_date, item_id, kind, quantity_in, quantity_out) VALUES (?, ?, ?, ?, ?)";
+        // Never drop the latest snapshot, it is where the next run continues
+        String pruneBefore = (keepDailyFrom.isBefore(target) ? keepDailyFrom : target).toString();
+        DatabaseConfig.executeWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+                for (Row row : rows) {
+                    stmt.setString(1, row.day().toString());
+                    stmt.setInt(2, row.itemId());
+                    stmt.setString(3, row.kind());
+                    stmt.setBigDecimal(4, row.quantities().quantityIn());
+                    stmt.setBigDecimal(5, row.quantities().quantityOut());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM stock_snapshots WHERE kind = ? AND snapshot_date < ?")) {
+                stmt.setString(1, DAY);
+                stmt.setString(2, pruneBefore);
+                return stmt.executeUpdate();
+            }
+        });
+        logger.info("Wrote {} stock snapshot rows from {} to {}", rows.size(), start, target);
+        return rows.size();
+    }
+
+    private void snapshotAndReschedule() {
+        try {
+            snapshot();
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Failed to write stock snapshots", e);
+        }
+        synchronized (this) {
+            if (scheduler != null) {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime next = LocalDate.now().plusDays(1).atTime(RUN_AT);
+                scheduler.schedule(this::snapshotAndReschedule, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Start from whichever snapshot is closer to {@code date}, the one before it or after it,
+     * and add or take away the movements in between. Without snapshots this replays history.
+     */
+    private static Map<Integer, Quantities> totalsAsOf(Connection conn, LocalDate date) throws SQLException {
+        LocalDate before = latestSnapshot(conn, date);
+        LocalDate after = before != null && before.equals(date) ? null : earliestSnapshotAfter(conn, date);
+
+        if (after != null && (before == null ||
+                ChronoUnit.DAYS.between(date, after) < ChronoUnit.DAYS.between(before, date))) {
+            Map<Integer, Quantities> totals = readSnapshot(conn, after);
+            for (Map.Entry<Integer, Quantities> moved : movements(conn, date.plusDays(1), after).entrySet()) {
+                totals.merge(moved.getKey(), moved.getValue(), Quantities::minus);
+            }
+            // Items that only came in after the date
+            totals.values().removeIf(q -> q.quantityIn().signum() == 0 && q.quantityOut().signum() == 0);
+            return totals;
+        }
+        Map<Integer, Quantities> totals = before != null ? readSnapshot(conn, before) : new HashMap<>();
+        if (before == null || before.isBefore(date)) {
+            for (Map.Entry<Integer, Quantities> moved : movements(conn, before != null ? before.plusDays(1) : null, date).entrySet()) {
+                totals.merge(moved.getKey(), moved.getValue(), Quantities::plus);
+            }
+        }
+        return totals;
+    }
+
+    private static LocalDate latestSnapshot(Connection conn, LocalDate onOrBefore) throws SQLException {
+        return snapshotDate(conn, "SELECT MAX(snapshot_date) FROM stock_snapshots WHERE snapshot_date <= ?", onOrBefore);
+    }
+
+    private static LocalDate earliestSnapshotAfter(Connection conn, LocalDate date) throws SQLException {
+        return snapshotDate(conn, "SELECT MIN(snapshot_date) FROM stock_snapshots WHERE snapshot_date > ?", date);
+    }
+
+    private static LocalDate snapshotDate(Connection conn, String sql, LocalDate date) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, date.toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                String value = rs.next() ? rs.getString(1) : null;
+                return value != null ? LocalDate.parse(value) : null;
+            }
+        }
+    }
+
+    private static Map<Integer, Quantities> readSnapshot(Connection conn, LocalDate date) throws SQLException {
+        Map<Integer, Quantities> totals = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT item_id, quantity_in, quantity_out FROM stock_snapshots WHERE snapshot_date = ?")) {
+            stmt.setString(1, date.toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getInt("item_id"), quantities(rs));
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Quantities moved per item from the start of {@code from} (or the beginning) to the end
+     * of {@code to}.
+     */
+    private static Map<Integer, Quantities> movements(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT item_id, " + SUM_IN_OUT + " FROM stock_movements WHERE " +
+            (from != null ? "movement_date >= ? AND " : "") + "movement_date < ? GROUP BY item_id";
+        Map<Integer, Quantities> moved = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (from != null) {
+                stmt.setObject(index++, startOf(from));
+            }
+            stmt.setObject(index, startOf(to.plusDays(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moved.put(rs.getInt("item_id"), quantities(rs));
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Quantities moved per local day and item, from the start of {@code from} (or the
+     * beginning) to the end of {@code to}.
+     */
+    private static TreeMap<LocalDate, Map<Integer, Quantities>> movementsByDay(Connection conn, LocalDate from,
+                                                                             LocalDate to) throws SQLException {
+        String day = DatabaseConfig.isUsingMySQL() ? "DATE(movement_date)" : "date(movement_date, 'localtime')";
+        String sql = "SELECT " + day + " AS day, item_id, " + SUM_IN_OUT + " FROM stock_movements WHERE " +
+            (from != null ? "movement_date >= ? AND " : "") + "movement_date < ? GROUP BY " + day + ", item_id";
+        TreeMap<LocalDate, Map<Integer, Quantities>> days = new TreeMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (from != null) {
+                stmt.setObject(index++, startOf(from));
+            }
+            stmt.setObject(index, startOf(to.plusDays(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    days.computeIfAbsent(LocalDate.parse(rs.getString("day")), d -> new HashMap<>())
+                        .put(rs.getInt("item_id"), quantities(rs));
+                }
+            }
+        }
+        return days;
+    }
+
+    private static List<ItemQuantities> withItems(Map<Integer, Quantities> totals, String categoryName) throws SQLException {
+        String sql = "SELECT id, item_code, item_name, unit_of_measure FROM inventory_items" +
+            (categoryName != null ? " WHERE category_id = ?" : "") + " ORDER BY item_name";
+        List<ItemQuantities> items = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (categoryName != null) {
+                stmt.setInt(1, ReferenceDataCache.getInstance().categoryId(categoryName));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Quantities quantities = totals.get(rs.getInt("id"));
+                    if (quantities != null) {
+                        items.add(new ItemQuantities(rs.getInt("id"), rs.getString("item_code"),
+                            rs.getString("item_name"), rs.getString("unit_of_measure"), quantities));
+                    }
+                }
+            }
+        }
+        return items;
+    }
+
+    private static Quantities quantities(ResultSet rs) throws SQLException {
+        BigDecimal in = rs.getBigDecimal("quantity_in");
+        BigDecimal out = rs.getBigDecimal("quantity_out");
+        return new Quantities(in != null ? in : BigDecimal.ZERO, out != null ? out : BigDecimal.ZERO);
+    }
+
+    /**
+     * Local midnight starting {@code day}, as {@code movement_date} stores it.
+     */
+    private static Object startOf(LocalDate day) {
+        if (DatabaseConfig.isUsingMySQL()) {
+            return Timestamp.valueOf(day.atStartOfDay());
+        }
+        return day.atStartOfDay(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).format(UTC_TEXT);
+    }
+}
@@ -0,0 +1,575 @@
+package com.aidsync.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies rows read from one database to the other for {@link SyncEngine}, inside a
+ * transaction on the target that the caller commits.
+ * <p>
+ * Rows are matched through {@code sync_row_map}, which records for each row copied which
+ * row it became on the other side; on first sight a row may also be matched by its key
+ * (see {@link SyncTables.KeyMode}). Ids in foreign-key columns are translated the same way,
+ * and a row whose references cannot be translated yet is held back rather than applied.
+ * <p>
+ * Conflicts are settled by last writer wins on the row version, compared the same way on
+ * both sides, so both end up with the same row whichever direction is applied first.
+ */
+final class SyncApplier {
+    private static final Logger logger = LoggerFactory.getLogger(SyncApplier.class);
+
+    private static final int IN_LIST_LIMIT = 500;
+
+    /**
+     * When a row was last changed and at which database. Later versions win; ties go to the
+     * site that sorts last, which only matters for edits in the same millisecond.
+     */
+    record Version(long changedAt, String site) implements Comparable<Version> {
+        @Override
+        public int compareTo(Version other) {
+            int compared = Long.compare(changedAt, other.changedAt);
+            return compared != 0 ? compared : site.compareTo(other.site);
+        }
+    }
+
+    /**
+     * A row as read from the source database; {@code values} is null if it no longer exists.
+     */
+    record SourceRow(SyncTables.Table table, int id, Object[] values, Version version) {
+    }
+
+    /**
+     * A row that could not be applied, identified by its id in the source database.
+     */
+    record Held(String table, int sourceId, String reason) {
+    }
+
+    /**
+     * What applying a batch did to the target.
+     */
+    static final class Outcome {
+        int applied;
+        int conflicts;
+        final List<Held> held = new ArrayList<>();
+        /** Rows applied or found already in place, by table and source id. */
+        final Map<String, Set<Integer>> settled = new HashMap<>();
+        final Set<String> tables = new HashSet<>();
+        /** Target ids of the inventory items whose row, stock or lots changed. */
+        final Set<Integer> itemIds = new HashSet<>();
+    }
+
+    /**
+     * Source id to target id per table, as far as known.
+     */
+    static final class IdMap {
+        private final Map<String, Map<Integer, Integer>> ids = new HashMap<>();
+
+        Integer get(String table, int sourceId) {
+            Map<Integer, Integer> forTable = ids.get(table);
+            return forTable != null ? forTable.get(sourceId) : null;
+        }
+
+        void put(String table, int sourceId, int targetId) {
+            ids.computeIfAbsent(table, key -> new HashMap<>()).put(sourceId, targetId);
+        }
+    }
+
+    private final Connection target;
+    private final boolean mysql;
+    private final String targetSite;
+    private final String sourceSite;
+    private final IdMap known;
+
+    private final Outcome outcome = new Outcome();
+    private final List<Object[]> newMappings = new ArrayList<>();
+    private final List<Object[]> logEntries = new ArrayList<>();
+    private final Map<Integer, BigDecimal> stockDeltas = new HashMap<>();
+    private final Map<Integer, BigDecimal> lotDeltas = new HashMap<>();
+    // Items whose lots were added to or changed, for their lots_version
+    private final Set<Integer> lotItemIds = new HashSet<>();
+    private LocalDate earliestMovement;
+
+    /**
+     * @param targetSite the target's own name, for versions its log records without an origin
+     * @param sourceSite the source's name, under which the target keeps its row map
+     * @param known      ids already known from the source's row map
+     */
+    SyncApplier(Connection target, boolean mysql, String targetSite, String sourceSite, IdMap known) {
+        this.target = target;
+        this.mysql = mysql;
+        this.targetSite = targetSite;
+        this.sourceSite = sourceSite;
+        this.known = known;
+    }
+
+    /**
+     * Stop the target's triggers from logging the changes about to be applied, or start
+     * them again. The flag lives in the transaction (SQLite) or the session (MySQL) of
+     * {@code conn}, so other writers are still captured.
+     */
+    static void setApplying(Connection conn, boolean mysql, boolean applying) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (mysql) {
+                stmt.execute(applying ? "SET @aidsync_sync_apply = 1" : "SET @aidsync_sync_apply = NULL");
+            } else {
+                stmt.executeUpdate(applying ? "INSERT INTO sync_applying (id) VALUES (1)" : "DELETE FROM sync_applying");
+            }
+        }
+    }
+
+    /**
+     * Latest version of each of the rows in the database's change log; rows without one are left out.
+     */
+    static Map<Integer, Version> versions(Connection conn, String table, Collection<Integer> ids, String selfSite)
+            throws SQLException {
+        Map<Integer, Version> versions = new HashMap<>();
+        for (List<Integer> chunk : chunks(ids)) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT row_id, changed_at, origin FROM sync_changes " +
+                    "WHERE table_name = ? AND row_id IN (" + placeholders(chunk.size()) + ")")) {
+                stmt.setString(1, table);
+                bindIds(stmt, 2, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String origin = rs.getString("origin");
+                        Version version = new Version(rs.getLong("changed_at"), origin != null ? origin : selfSite);
+                        versions.merge(rs.getInt("row_id"), version, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+                    }
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Look up in {@code sync_row_map} which rows the given rows of {@code peer} are here
+     * ({@code forward}), or which rows of {@code peer} the given rows here are.
+     */
+    static void lookUpMappings(Connection conn, String peer, String table, Collection<Integer> ids, boolean forward,
+                               IdMap into) throws SQLException {
+        String sql = forward
+            ? "SELECT peer_row_id, row_id FROM sync_row_map WHERE peer = ? AND table_name = ? AND peer_row_id IN ("
+            : "SELECT row_id, peer_row_id FROM sync_row_map WHERE peer = ? AND table_name = ? AND row_id IN (";
+        for (List<Integer> chunk : chunks(ids)) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql + placeholders(chunk.size()) + ")")) {
+                stmt.setString(1, peer);
+                stmt.setString(2, table);
+                bindIds(stmt, 3, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        into.put(table, rs.getInt(1), rs.getInt(2));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the rows, in dependency order, then bring the target's derived data up to date:
+     * stock balances, dashboard counters, the reference data version and stock snapshots.
+     */
+    Outcome apply(List<SourceRow> rows) throws SQLException {
+        Map<String, List<SourceRow>> byTable = new LinkedHashMap<>();
+        rows.stream()
+            .sorted(Comparator.comparingInt((SourceRow row) -> SyncTables.order(row.table().name())).thenComparingInt(SourceRow::id))
+            .forEach(row -> byTable.computeIfAbsent(row.table().name(), key -> new ArrayList<>()).add(row));
+        lookUpUnknownIds(byTable);
+
+        for (List<SourceRow> tableRows : byTable.values()) {
+            applyTable(tableRows.get(0).table(), tableRows);
+        }
+
+        writeLogAndMappings();
+        applyStockDeltas();
+        if (!outcome.tables.isEmpty()) {
+            StatCounters.recount(target, mysql, outcome.tables);
+            if (outcome.tables.stream().anyMatch(SyncTables.REFERENCE_TABLES::contains)) {
+                try (Statement stmt = target.createStatement()) {
+                    stmt.executeUpdate("UPDATE reference_data_version SET version = version + 1 WHERE id = 1");
+                }
+            }
+        }
+        if (earliestMovement != null) {
+            // Snapshots from that day on no longer add up; StockSnapshots writes them again
+            try (PreparedStatement stmt = target.prepareStatement("DELETE FROM stock_snapshots WHERE snapshot_date >= ?")) {
+                stmt.setString(1, earliestMovement.toString());
+                stmt.executeUpdate();
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Ask the target's row map about every row and reference not known from the source side.
+     */
+    private void lookUpUnknownIds(Map<String, List<SourceRow>> byTable) throws SQLException {
+        Map<String, Set<Integer>> unknown = new HashMap<>();
+        for (List<SourceRow> tableRows : byTable.values()) {
+            for (SourceRow row : tableRows) {
+                if (known.get(row.table().name(), row.id()) == null) {
+                    unknown.computeIfAbsent(row.table().name(), key -> new HashSet<>()).add(row.id());
+                }
+                if (row.values() == null) {
+                    continue;
+                }
+                for (SyncTables.Column column : row.table().references()) {
+                    Integer value = (Integer) row.values()[row.table().indexOf(column.name())];
+                    if (value != null && known.get(column.references(), value) == null) {
+                        unknown.computeIfAbsent(column.references(), key -> new HashSet<>()).add(value);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Set<Integer>> entry : unknown.entrySet()) {
+            lookUpMappings(target, sourceSite, entry.getKey(), entry.getValue(), true, known);
+        }
+    }
+
+    private void applyTable(SyncTables.Table table, List<SourceRow> rows) throws SQLException {
+        List<SourceRow> candidates = new ArrayList<>();
+        List<Object[]> translated = new ArrayList<>();
+        List<Integer> targetIds = new ArrayList<>();
+        for (SourceRow row : rows) {
+            if (row.values() == null) {
+                settle(row);
+                continue;
+            }
+            Object[] values = translate(row);
+            if (values == null) {
+                continue;
+            }
+            Integer targetId = known.get(table.name(), row.id());
+            if (targetId == null && table.keyMode() != SyncTables.KeyMode.NONE) {
+                Integer sameKey = findByKey(table, values);
+                if (sameKey != null && table.keyMode() == SyncTables.KeyMode.UNIQUE) {
+                    hold(row, String.join(", ", table.key()) + " " + keyText(table, values) + " is already used by another row");
+                    continue;
+                }
+                if (sameKey != null) {
+                    targetId = sameKey;
+                    map(table, row.id(), targetId);
+                }
+            }
+            candidates.add(row);
+            translated.add(values);
+            targetIds.add(targetId);
+        }
+
+        List<Integer> existing = targetIds.stream().filter(id -> id != null).toList();
+        Map<Integer, Version> current = existing.isEmpty() || table.insertOnly()
+            ? Map.of() : versions(target, table.name(), existing, targetSite);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            SourceRow row = candidates.get(i);
+            Object[] values = translated.get(i);
+            Integer targetId = targetIds.get(i);
+            if (targetId == null) {
+                try {
+                    targetId = insert(table, values);
+                } catch (SQLException e) {
+                    // Constraint violations only affect this row; anything else fails the batch
+                    if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                        throw e;
+                    }
+                    hold(row, "rejected by the database: " + e.getMessage());
+                    continue;
+                }
+                map(table, row.id(), targetId);
+            } else if (table.insertOnly()) {
+                settle(row);
+                continue;
+            } else {
+                Version version = current.getOrDefault(targetId, new Version(0, targetSite));
+                // Version 0 marks rows that predate sync: copied where missing, never overwriting
+                if (row.version().changedAt() == 0 || row.version().compareTo(version) <= 0) {
+                    if (row.version().changedAt() > 0 && row.version().compareTo(version) < 0) {
+                        outcome.conflicts++;
+                        logger.debug("Kept {} row {} (version {}) over incoming version {}", table.name(), targetId,
+                            version, row.version());
+                    }
+                    settle(row);
+                    continue;
+                }
+                update(table, targetId, values);
+            }
+            applied(table, row, targetId, values);
+        }
+    }
+
+    /**
+     * The row's values with references translated to target ids, or null (and the row held
+     * back) if a referenced row is not known on the target yet.
+     */
+    private Object[] translate(SourceRow row) {
+        Object[] values = row.values().clone();
+        for (SyncTables.Column column : row.table().references()) {
+            int index = row.table().indexOf(column.name());
+            Integer sourceId = (Integer) values[index];
+            if (sourceId == null) {
+                continue;
+            }
+            Integer targetId = known.get(column.references(), sourceId);
+            if (targetId == null) {
+                hold(row, column.name() + " refers to " + column.references() + " row " + sourceId + ", which is not synced yet");
+                return null;
+            }
+            values[index] = targetId;
+        }
+        return values;
+    }
+
+    private Integer findByKey(SyncTables.Table table, Object[] values) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id FROM ").append(table.name()).append(" WHERE ");
+        for (int i = 0; i < table.key().size(); i++) {
+            sql.append(i > 0 ? " AND " : "").append(table.key().get(i)).append(" = ?");
+        }
+        try (PreparedStatement stmt = target.prepareStatement(sql.toString())) {
+            for (int i = 0; i < table.key().size(); i++) {
+                int index = table.indexOf(table.key().get(i));
+                SyncTables.bind(stmt, i + 1, table.columns().get(index).kind(), values[index], mysql);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private int insert(SyncTables.Table table, Object[] values) throws SQLException {
+        StringBuilder columns = new StringBuilder(table.columnList());
+        StringBuilder marks = new StringBuilder(placeholders(values.length));
+        for (SyncTables.Derived derived : table.derived()) {
+            columns.append(", ").append(derived.column());
+            marks.append(", ?");
+        }
+        String sql = "INSERT INTO " + table.name() + " (" + columns + ") VALUES (" + marks + ")";
+        // On MySQL the generated key comes back with the insert, saving a round trip per row
+        // on slow links; the SQLite driver does not return generated keys
+        try (PreparedStatement stmt = mysql
+                ? target.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : target.prepareStatement(sql)) {
+            bindValues(stmt, table, values);
+            int index = values.length + 1;
+            for (SyncTables.Derived derived : table.derived()) {
+                Object value = derived.copyOf() != null ? values[table.indexOf(derived.copyOf())] : BigDecimal.ZERO;
+                stmt.setBigDecimal(index++, (BigDecimal) value);
+            }
+            stmt.executeUpdate();
+            if (mysql) {
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    return generatedId(keys, table);
+                }
+            }
+        }
+        try (PreparedStatement stmt = target.prepareStatement("SELECT last_insert_rowid()");
+             ResultSet rs = stmt.executeQuery()) {
+            return generatedId(rs, table);
+        }
+    }
+
+    private static int generatedId(ResultSet rs, SyncTables.Table table) throws SQLException {
+        if (!rs.next()) {
+            throw new SQLException("Failed to get generated ID for synced " + table.name() + " row");
+        }
+        return rs.getInt(1);
+    }
+
+    private void update(SyncTables.Table table, int targetId, Object[] values) throws SQLException {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table.name()).append(" SET ");
+        for (int i = 0; i < table.columns().size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(table.columns().get(i).name()).append(" = ?");
+        }
+        sql.append(" WHERE id = ?");
+        try (PreparedStatement stmt = target.prepareStatement(sql.toString())) {
+            bindValues(stmt, table, values);
+            stmt.setInt(values.length + 1, targetId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void bindValues(PreparedStatement stmt, SyncTables.Table table, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            SyncTables.bind(stmt, i + 1, table.columns().get(i).kind(), values[i], mysql);
+        }
+    }
+
+    private void applied(SyncTables.Table table, SourceRow row, int targetId, Object[] values) {
+        outcome.applied++;
+        outcome.tables.add(table.name());
+        settle(row);
+        String origin = row.version().site().equals(targetSite) ? null : row.version().site();
+        logEntries.add(new Object[] { table.name(), targetId, row.version().changedAt(), origin });
+
+        if (table.name().equals(SyncTables.INVENTORY_ITEMS)) {
+            outcome.itemIds.add(targetId);
+        } else if (table.name().equals(SyncTables.STOCK_LOTS)) {
+            int itemId = (Integer) values[table.indexOf("item_id")];
+            lotItemIds.add(itemId);
+            outcome.itemIds.add(itemId);
+        } else if (table.name().equals(SyncTables.STOCK_MOVEMENTS)) {
+            addMovement(table, values);
+        }
+    }
+
+    /**
+     * A movement copied over changes stock on this side as it did on the other: the balance
+     * by its signed quantity, and the lot it was taken from. Received stock is already in
+     * the lot, which starts with its full quantity.
+     */
+    private void addMovement(SyncTables.Table table, Object[] values) {
+        int itemId = (Integer) values[table.indexOf("item_id")];
+        Integer lotId = (Integer) values[table.indexOf("lot_id")];
+        String type = (String) values[table.indexOf("movement_type")];
+        BigDecimal quantity = (BigDecimal) values[table.indexOf("quantity")];
+        BigDecimal signed = StockLedger.MovementType.valueOf(type).signed(quantity);
+
+        stockDeltas.merge(itemId, signed, BigDecimal::add);
+        if (lotId != null && signed.signum() < 0) {
+            lotDeltas.merge(lotId, signed, BigDecimal::add);
+            lotItemIds.add(itemId);
+        }
+        outcome.itemIds.add(itemId);
+        Instant movedAt = (Instant) values[table.indexOf("movement_date")];
+        if (movedAt != null) {
+            LocalDate day = LocalDate.ofInstant(movedAt, ZoneId.systemDefault());
+            if (earliestMovement == null || day.isBefore(earliestMovement)) {
+                earliestMovement = day;
+            }
+        }
+    }
+
+    private void applyStockDeltas() throws SQLException {
+        if (!stockDeltas.isEmpty()) {
+            try (PreparedStatement stmt = target.prepareStatement(
+                    "UPDATE inventory_items SET current_stock = current_stock + ? WHERE id = ?")) {
+                for (Map.Entry<Integer, BigDecimal> delta : stockDeltas.entrySet()) {
+                    stmt.setBigDecimal(1, delta.getValue());
+                    stmt.setInt(2, delta.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            outcome.tables.add(SyncTables.INVENTORY_ITEMS);
+        }
+        if (!lotDeltas.isEmpty()) {
+            try (PreparedStatement stmt = target.prepareStatement(
+                    "UPDATE stock_lots SET quantity_remaining = quantity_remaining + ? WHERE id = ?")) {
+                for (Map.Entry<Integer, BigDecimal> delta : lotDeltas.entrySet()) {
+                    stmt.setBigDecimal(1, delta.getValue());
+                    stmt.setInt(2, delta.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+        if (!lotItemIds.isEmpty()) {
+            // So StockLots copies held by this database's terminals are read again
+            try (PreparedStatement stmt = target.prepareStatement(
+                    "UPDATE inventory_items SET lots_version = lots_version + 1 WHERE id = ?")) {
+                for (int itemId : lotItemIds) {
+                    stmt.setInt(1, itemId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Record the applied versions in the target's change log, replacing older entries for the
+     * same rows, and the new row mappings.
+     */
+    private void writeLogAndMappings() throws SQLException {
+        if (!logEntries.isEmpty()) {
+            try (PreparedStatement delete = target.prepareStatement(
+                     "DELETE FROM sync_changes WHERE table_name = ? AND row_id = ?");
+                 PreparedStatement insert = target.prepareStatement(
+                     "INSERT INTO sync_changes (table_name, row_id, changed_at, origin) VALUES (?, ?, ?, ?)")) {
+                for (Object[] entry : logEntries) {
+                    delete.setString(1, (String) entry[0]);
+                    delete.setInt(2, (Integer) entry[1]);
+                    delete.addBatch();
+                    insert.setString(1, (String) entry[0]);
+                    insert.setInt(2, (Integer) entry[1]);
+                    insert.setLong(3, (Long) entry[2]);
+                    insert.setString(4, (String) entry[3]);
+                    insert.addBatch();
+                }
+                delete.executeBatch();
+                insert.executeBatch();
+            }
+        }
+        if (!newMappings.isEmpty()) {
+            try (PreparedStatement stmt = target.prepareStatement(
+                    "INSERT INTO sync_row_map (peer, table_name, peer_row_id, row_id) VALUES (?, ?, ?, ?)")) {
+                for (Object[] mapping : newMappings) {
+                    stmt.setString(1, sourceSite);
+                    stmt.setString(2, (String) mapping[0]);
+                    stmt.setInt(3, (Integer) mapping[1]);
+                    stmt.setInt(4, (Integer) mapping[2]);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    private void map(SyncTables.Table table, int sourceId, int targetId) {
+        known.put(table.name(), sourceId, targetId);
+        newMappings.add(new Object[] { table.name(), sourceId, targetId });
+    }
+
+    private void settle(SourceRow row) {
+        outcome.settled.computeIfAbsent(row.table().name(), key -> new HashSet<>()).add(row.id());
+    }
+
+    private void hold(SourceRow row, String reason) {
+        // Fits sync_conflicts.reason
+        String text = reason.length() > 255 ? reason.substring(0, 252) + "..." : reason;
+        outcome.held.add(new Held(row.table().name(), row.id(), text));
+    }
+
+    private static String keyText(SyncTables.Table table, Object[] values) {
+        List<String> parts = new ArrayList<>();
+        for (String column : table.key()) {
+            parts.add(String.valueOf(values[table.indexOf(column)]));
+        }
+        return String.join("/", parts);
+    }
+
+    static List<List<Integer>> chunks(Collection<Integer> ids) {
+        List<Integer> all = new ArrayList<>(ids);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_LIST_LIMIT) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + IN_LIST_LIMIT)));
+        }
+        return chunks;
+    }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    static void bindIds(PreparedStatement stmt, int first, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            stmt.setInt(first + i, ids.get(i));
+        }
+    }
+}
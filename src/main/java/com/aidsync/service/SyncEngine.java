@@ -0,0 +1,644 @@
+package com.aidsync.service;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.config.IdSequences;
+import com.aidsync.event.EventBus;
+import com.aidsync.event.InventoryItemChanged;
+import com.aidsync.event.RemoteChangesApplied;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a laptop working from its local SQLite database (offline-first, or after falling
+ * back) in step with the central database, both ways, whenever the central database can
+ * be reached.
+ * <p>
+ * Triggers record every insert and edit of a synced table in {@code sync_changes}, with
+ * the time of the change. A sync pushes the local changes made since the last push, then
+ * pulls the central changes since the last pull, in batches of {@code sync.batchSize} rows
+ * that each commit together with the position reached, so an interrupted sync resumes
+ * where it stopped. Only the latest state of each changed row is sent, and the central
+ * connection compresses its traffic. Both logs keep only the latest entry of each row
+ * they have synced. When both sides edited a row, the later edit wins
+ * (see {@link SyncApplier}).
+ * <p>
+ * Ids are local to each database; {@code sync_row_map} records which row is which. So
+ * that human-readable codes such as beneficiary IDs made offline do not collide, each
+ * laptop leases ranges of {@code sync.idLeaseSize} values of every {@link IdSequences}
+ * counter from the central database and hands out codes from its own range.
+ * <p>
+ * Rows that cannot be applied yet, because they refer to rows not synced yet or take a
+ * code already used on the other side, are held back in {@code sync_conflicts} and tried
+ * again on every sync.
+ */
+public final class SyncEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SyncEngine.class);
+
+    private static final int INTERVAL_SECONDS = DatabaseConfig.intSetting(
+        "sync.intervalSeconds", "SYNC_INTERVAL_SECONDS", 300);
+    private static final int BATCH_SIZE = DatabaseConfig.intSetting("sync.batchSize", "SYNC_BATCH_SIZE", 500);
+    private static final int ID_LEASE_SIZE = DatabaseConfig.intSetting("sync.idLeaseSize", "SYNC_ID_LEASE_SIZE", 500);
+
+    /** Name under which a laptop knows the central database. */
+    private static final String CENTRAL = "central";
+    private static final String PUSH = "PUSH";
+    private static final String PULL = "PULL";
+
+    private static final String SITE_ID = "site.id";
+    private static final String PUSH_POSITION = "push.seq";
+    private static final String PULL_POSITION = "pull.seq";
+    private static final String LEASE_END = "lease.";
+
+    // A MySQL change is only pulled past once it is this old: auto-increment values are
+    // taken before commit, so a later seq can become visible before an earlier one
+    private static final String SETTLED_MYSQL = "logged_at < NOW(3) - INTERVAL 30 SECOND";
+
+    private static final SyncEngine instance = new SyncEngine();
+
+    /**
+     * What a sync did. {@code conflicts} counts edits that lost to a later edit of the same
+     * row; {@code held} is the number of rows held back after it.
+     */
+    public record Result(int pushed, int pulled, int conflicts, int held, long elapsedMs) {
+    }
+
+    /**
+     * A row held back, by its id in the database it comes from.
+     */
+    public record HeldRow(String direction, String table, int rowId, String reason) {
+    }
+
+    /**
+     * Rows read from the source for one batch, and the log position to store once applied.
+     */
+    private record Batch(List<SyncApplier.SourceRow> rows, SyncApplier.IdMap known, long position, int logged,
+                         Map<String, Map<Integer, Long>> latestSeq) {
+
+        boolean isEmpty(long from) {
+            return rows.isEmpty() && position == from;
+        }
+    }
+
+    private static final class Tally {
+        int pushed;
+        int pulled;
+        int conflicts;
+    }
+
+    private final Object syncLock = new Object();
+    private ScheduledExecutorService scheduler;
+    private volatile Result lastResult;
+    // Guarded by syncLock
+    private String siteId;
+
+    private SyncEngine() {
+    }
+
+    public static SyncEngine getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sync now, then every {@code sync.intervalSeconds} (300 by default, 0 to disable) until
+     * {@link #shutdown()}. Does nothing when the application works on the central database.
+     */
+    public synchronized void start() {
+        if (scheduler != null || INTERVAL_SECONDS <= 0 || DatabaseConfig.isUsingMySQL()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AIDSYNC-Sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncAndReport, 0, INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * The result of the last sync that completed, or null.
+     */
+    public Result lastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Push the local changes and pull the central ones. Fails if the central database cannot
+     * be reached; whatever was synced before the failure stays synced.
+     */
+    public Result sync() throws SQLException {
+        if (DatabaseConfig.isUsingMySQL()) {
+            throw new IllegalStateException("Only a laptop working from its local database syncs");
+        }
+        synchronized (syncLock) {
+            long start = System.currentTimeMillis();
+            String site = siteId();
+            Tally tally = new Tally();
+            try (Connection central = DatabaseConfig.openCentralConnection()) {
+                boolean centralMySQL = !"SQLite".equalsIgnoreCase(central.getMetaData().getDatabaseProductName());
+                push(central, centralMySQL, site, tally);
+                pull(central, centralMySQL, site, tally);
+                leaseIdRanges(central, centralMySQL);
+            }
+            Result result = new Result(tally.pushed, tally.pulled, tally.conflicts, heldRows().size(),
+                System.currentTimeMillis() - start);
+            lastResult = result;
+            return result;
+        }
+    }
+
+    /**
+     * Rows held back from syncing, oldest first.
+     */
+    public List<HeldRow> heldRows() throws SQLException {
+        List<HeldRow> held = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT direction, table_name, row_id, reason " +
+                 "FROM sync_conflicts ORDER BY recorded_at, table_name, row_id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                held.add(new HeldRow(rs.getString("direction"), rs.getString("table_name"), rs.getInt("row_id"),
+                    rs.getString("reason")));
+            }
+        }
+        return held;
+    }
+
+    private void syncAndReport() {
+        try {
+            Result result = sync();
+            if (result.pushed() > 0 || result.pulled() > 0 || result.held() > 0) {
+                logger.info("Synced with the central database: {} row(s) pushed, {} pulled, {} conflict(s) resolved, " +
+                    "{} held back ({}ms)", result.pushed(), result.pulled(), result.conflicts(), result.held(),
+                    result.elapsedMs());
+            } else {
+                logger.debug("Nothing to sync ({}ms)", result.elapsedMs());
+            }
+        } catch (SQLException e) {
+            logger.warn("Sync with the central database failed, retrying in {}s: {}", INTERVAL_SECONDS, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Sync with the central database failed", e);
+        }
+    }
+
+    private void push(Connection central, boolean centralMySQL, String site, Tally tally) throws SQLException {
+        Map<String, Set<Integer>> retries = heldIds(PUSH);
+        while (true) {
+            long position = Long.parseLong(localState(PUSH_POSITION, "0"));
+            Batch batch;
+            try (Connection local = DatabaseConfig.getReadConnection()) {
+                batch = readBatch(local, false, site, CENTRAL, position, retries);
+            }
+            if (batch.isEmpty(position)) {
+                return;
+            }
+
+            SyncApplier.Outcome outcome;
+            try {
+                SyncApplier.setApplying(central, centralMySQL, true);
+                outcome = new SyncApplier(central, centralMySQL, CENTRAL, site, batch.known()).apply(batch.rows());
+                SyncApplier.setApplying(central, centralMySQL, false);
+                central.commit();
+            } catch (SQLException | RuntimeException e) {
+                central.rollback();
+                if (centralMySQL) {
+                    SyncApplier.setApplying(central, true, false);
+                }
+                throw e;
+            }
+
+            // Applied centrally; if this fails the batch is sent again and found already in place
+            Map<String, Set<Integer>> tried = retries;
+            DatabaseConfig.executeWrite(conn -> {
+                writeState(conn, PUSH_POSITION, batch.position());
+                recordHeld(conn, PUSH, tried, outcome);
+                compact(conn, batch.latestSeq());
+                return null;
+            });
+            tally.pushed += outcome.applied;
+            tally.conflicts += outcome.conflicts;
+            retries = Map.of();
+            if (batch.logged() < BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private void pull(Connection central, boolean centralMySQL, String site, Tally tally) throws SQLException {
+        Map<String, Set<Integer>> retries = heldIds(PULL);
+        int pulled = 0;
+        while (true) {
+            long position = Long.parseLong(localState(PULL_POSITION, "0"));
+            Batch batch = readBatch(central, centralMySQL, CENTRAL, site, position, retries);
+            // Ends the read transaction, so the next batch sees newer commits on MySQL
+            central.commit();
+            if (batch.isEmpty(position)) {
+                break;
+            }
+
+            Map<String, Set<Integer>> tried = retries;
+            SyncApplier.Outcome outcome = DatabaseConfig.executeWrite(conn -> {
+                SyncApplier.setApplying(conn, false, true);
+                SyncApplier.Outcome applied = new SyncApplier(conn, false, site, CENTRAL, batch.known()).apply(batch.rows());
+                SyncApplier.setApplying(conn, false, false);
+                writeState(conn, PULL_POSITION, batch.position());
+                recordHeld(conn, PULL, tried, applied);
+                if (applied.applied > 0) {
+                    // Lots may have changed under the copies held in memory
+                    StockLots.invalidate();
+                }
+                return applied;
+            });
+            // The central log is shared by every laptop, but each reads only a row's latest
+            // entry, so the older ones can go whatever position the others have reached
+            try {
+                compact(central, batch.latestSeq());
+                central.commit();
+            } catch (SQLException | RuntimeException e) {
+                central.rollback();
+                throw e;
+            }
+            pulled += outcome.applied;
+            tally.conflicts += outcome.conflicts;
+            publishChanges(outcome);
+            retries = Map.of();
+            if (batch.logged() < BATCH_SIZE || batch.position() == position) {
+                break;
+            }
+        }
+        tally.pulled += pulled;
+        if (pulled > 0) {
+            EventBus.getInstance().publish(new RemoteChangesApplied(pulled));
+        }
+    }
+
+    private static void publishChanges(SyncApplier.Outcome outcome) {
+        if (outcome.tables.stream().anyMatch(SyncTables.REFERENCE_TABLES::contains)) {
+            ReferenceDataCache.getInstance().invalidate();
+        }
+        for (int itemId : outcome.itemIds) {
+            EventBus.getInstance().publish(new InventoryItemChanged(itemId, 0, 0));
+        }
+    }
+
+    /**
+     * Read the next batch of changes from the source's log, after {@code position}, along with
+     * the rows held back last time. Changes that came from the target itself are skipped.
+     *
+     * @param selfSite   the source's name, for versions its log records without an origin
+     * @param targetName the target's name, as the source knows it
+     */
+    private Batch readBatch(Connection source, boolean mysql, String selfSite, String targetName, long position,
+                            Map<String, Set<Integer>> retries) throws SQLException {
+        Map<String, Set<Integer>> ids = new LinkedHashMap<>();
+        retries.forEach((table, rowIds) -> ids.put(table, new HashSet<>(rowIds)));
+        Map<String, Map<Integer, Long>> latestSeq = new HashMap<>();
+        long next = position;
+        int logged = 0;
+        boolean settled = true;
+
+        // Only local changes are pushed: rows pulled from the central database are there already
+        String sql = targetName.equals(CENTRAL)
+            ? "SELECT seq, table_name, row_id, origin, 1 AS settled FROM sync_changes " +
+              "WHERE seq > ? AND origin IS NULL ORDER BY seq LIMIT ?"
+            : "SELECT seq, table_name, row_id, origin, " + (mysql ? SETTLED_MYSQL : "1") + " AS settled " +
+              "FROM sync_changes WHERE seq > ? ORDER BY seq LIMIT ?";
+        try (PreparedStatement stmt = source.prepareStatement(sql)) {
+            stmt.setLong(1, position);
+            stmt.setInt(2, BATCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    logged++;
+                    long seq = rs.getLong("seq");
+                    settled = settled && rs.getBoolean("settled");
+                    if (settled) {
+                        next = seq;
+                    }
+                    String table = rs.getString("table_name");
+                    if (targetName.equals(rs.getString("origin")) || !SyncTables.BY_NAME.containsKey(table)) {
+                        continue;
+                    }
+                    int rowId = rs.getInt("row_id");
+                    ids.computeIfAbsent(table, key -> new HashSet<>()).add(rowId);
+                    latestSeq.computeIfAbsent(table, key -> new HashMap<>()).merge(rowId, seq, Math::max);
+                }
+            }
+        }
+
+        List<SyncApplier.SourceRow> rows = new ArrayList<>();
+        SyncApplier.IdMap known = new SyncApplier.IdMap();
+        Map<String, Set<Integer>> references = new HashMap<>();
+        for (Map.Entry<String, Set<Integer>> entry : ids.entrySet()) {
+            SyncTables.Table table = SyncTables.BY_NAME.get(entry.getKey());
+            Map<Integer, Object[]> values = readRows(source, mysql, table, entry.getValue());
+            Map<Integer, SyncApplier.Version> versions = SyncApplier.versions(source, table.name(), entry.getValue(), selfSite);
+            for (int rowId : entry.getValue()) {
+                Object[] rowValues = values.get(rowId);
+                rows.add(new SyncApplier.SourceRow(table, rowId, rowValues,
+                    versions.getOrDefault(rowId, new SyncApplier.Version(0, selfSite))));
+                if (rowValues == null) {
+                    continue;
+                }
+                for (SyncTables.Column column : table.references()) {
+                    Object referenced = rowValues[table.indexOf(column.name())];
+                    if (referenced != null) {
+                        references.computeIfAbsent(column.references(), key -> new HashSet<>()).add((Integer) referenced);
+                    }
+                }
+            }
+            references.computeIfAbsent(table.name(), key -> new HashSet<>()).addAll(entry.getValue());
+        }
+        for (Map.Entry<String, Set<Integer>> entry : references.entrySet()) {
+            SyncApplier.lookUpMappings(source, targetName, entry.getKey(), entry.getValue(), false, known);
+            passDanglingReferences(source, entry.getKey(), entry.getValue(), known);
+        }
+        return new Batch(rows, known, next, logged, latestSeq);
+    }
+
+    /**
+     * Map references to rows that do not exist in the source either (such as the default
+     * purok new beneficiaries are given) to the same id, instead of holding the rows that
+     * hold them back forever. The target's foreign keys, if any, still decide.
+     */
+    private static void passDanglingReferences(Connection source, String table, Set<Integer> ids,
+                                               SyncApplier.IdMap known) throws SQLException {
+        Set<Integer> unknown = new HashSet<>();
+        for (int id : ids) {
+            if (known.get(table, id) == null) {
+                unknown.add(id);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        for (List<Integer> chunk : SyncApplier.chunks(unknown)) {
+            try (PreparedStatement stmt = source.prepareStatement("SELECT id FROM " + table + " WHERE id IN (" +
+                    SyncApplier.placeholders(chunk.size()) + ")")) {
+                SyncApplier.bindIds(stmt, 1, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        unknown.remove(rs.getInt(1));
+                    }
+                }
+            }
+        }
+        for (int id : unknown) {
+            known.put(table, id, id);
+        }
+    }
+
+    private static Map<Integer, Object[]> readRows(Connection conn, boolean mysql, SyncTables.Table table,
+                                                   Set<Integer> ids) throws SQLException {
+        Map<Integer, Object[]> rows = new HashMap<>();
+        for (List<Integer> chunk : SyncApplier.chunks(ids)) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id, " + table.columnList() + " FROM " +
+                    table.name() + " WHERE id IN (" + SyncApplier.placeholders(chunk.size()) + ")")) {
+                SyncApplier.bindIds(stmt, 1, chunk);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.put(rs.getInt(1), SyncTables.read(rs, table, mysql));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Lease a new range of every ID counter whose current lease is running out. The central
+     * counter first moves past whatever this laptop already handed out, so the ranges of
+     * different laptops and the central database never overlap.
+     */
+    private void leaseIdRanges(Connection central, boolean centralMySQL) throws SQLException {
+        Map<String, Long> localNext = new HashMap<>();
+        Map<String, Long> leaseEnds = new HashMap<>();
+        Set<String> names = new TreeSet<>();
+        names.add(BeneficiaryService.ID_SEQUENCE);
+        try (Connection conn = DatabaseConfig.getReadConnection()) {
+            localNext.putAll(counters(conn));
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT code FROM inventory_categories");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT name, value FROM sync_state WHERE name LIKE ?")) {
+                stmt.setString(1, LEASE_END + "%");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        leaseEnds.put(rs.getString(1).substring(LEASE_END.length()), Long.parseLong(rs.getString(2)));
+                    }
+                }
+            }
+        }
+        names.addAll(localNext.keySet());
+        names.addAll(counters(central).keySet());
+
+        Map<String, Long> leased = new TreeMap<>();
+        try {
+            for (String name : names) {
+                long next = localNext.getOrDefault(name, 1L);
+                Long end = leaseEnds.get(name);
+                if (end != null && end - next >= ID_LEASE_SIZE / 2) {
+                    continue;
+                }
+                leased.put(name, reserveCentrally(central, centralMySQL, name, next));
+            }
+            central.commit();
+        } catch (SQLException | RuntimeException e) {
+            central.rollback();
+            throw e;
+        }
+        if (leased.isEmpty()) {
+            return;
+        }
+
+        DatabaseConfig.executeWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO id_sequences (name, next_value) VALUES (?, ?) " +
+                    "ON CONFLICT(name) DO UPDATE SET next_value = excluded.next_value")) {
+                for (Map.Entry<String, Long> lease : leased.entrySet()) {
+                    stmt.setString(1, lease.getKey());
+                    stmt.setLong(2, lease.getValue() - ID_LEASE_SIZE);
+                    stmt.addBatch();
+                    writeState(conn, LEASE_END + lease.getKey(), lease.getValue());
+                }
+                stmt.executeBatch();
+            }
+            return null;
+        });
+        IdSequences.discardReserved();
+        logger.info("Leased {} value(s) of ID counters {} from the central database", ID_LEASE_SIZE, leased.keySet());
+    }
+
+    /**
+     * Move the central counter to at least {@code atLeast}, reserve a lease after that and
+     * return the end of the lease.
+     */
+    private static long reserveCentrally(Connection central, boolean mysql, String name, long atLeast) throws SQLException {
+        try (PreparedStatement create = central.prepareStatement(mysql
+                 ? "INSERT IGNORE INTO id_sequences (name, next_value) VALUES (?, 1)"
+                 : "INSERT OR IGNORE INTO id_sequences (name, next_value) VALUES (?, 1)");
+             PreparedStatement advance = central.prepareStatement("UPDATE id_sequences SET next_value = " +
+                 (mysql ? "GREATEST" : "MAX") + "(next_value, ?) + ? WHERE name = ?");
+             PreparedStatement read = central.prepareStatement("SELECT next_value FROM id_sequences WHERE name = ?")) {
+            create.setString(1, name);
+            create.executeUpdate();
+            advance.setLong(1, atLeast);
+            advance.setInt(2, ID_LEASE_SIZE);
+            advance.setString(3, name);
+            advance.executeUpdate();
+            read.setString(1, name);
+            try (ResultSet rs = read.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("ID sequence '" + name + "' could not be leased");
+                }
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static Map<String, Long> counters(Connection conn) throws SQLException {
+        Map<String, Long> counters = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT name, next_value FROM id_sequences");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                counters.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Clear the rows that went through from {@code sync_conflicts} and record the ones held back.
+     */
+    private static void recordHeld(Connection conn, String direction, Map<String, Set<Integer>> tried,
+                                   SyncApplier.Outcome outcome) throws SQLException {
+        try (PreparedStatement delete = conn.prepareStatement(
+                 "DELETE FROM sync_conflicts WHERE direction = ? AND table_name = ? AND row_id = ?");
+             PreparedStatement insert = conn.prepareStatement(
+                 "INSERT INTO sync_conflicts (direction, table_name, row_id, reason) VALUES (?, ?, ?, ?) " +
+                 "ON CONFLICT(direction, table_name, row_id) DO UPDATE SET reason = excluded.reason")) {
+            for (Map.Entry<String, Set<Integer>> entry : outcome.settled.entrySet()) {
+                for (int rowId : entry.getValue()) {
+                    // Only rows held before can be in the table
+                    if (tried.getOrDefault(entry.getKey(), Set.of()).contains(rowId)) {
+                        delete.setString(1, direction);
+                        delete.setString(2, entry.getKey());
+                        delete.setInt(3, rowId);
+                        delete.addBatch();
+                    }
+                }
+            }
+            for (SyncApplier.Held held : outcome.held) {
+                insert.setString(1, direction);
+                insert.setString(2, held.table());
+                insert.setInt(3, held.sourceId());
+                insert.setString(4, held.reason());
+                insert.addBatch();
+            }
+            delete.executeBatch();
+            insert.executeBatch();
+        }
+        for (SyncApplier.Held held : outcome.held) {
+            if (!tried.getOrDefault(held.table(), Set.of()).contains(held.sourceId())) {
+                logger.warn("Held back {} row {} from syncing: {}", held.table(), held.sourceId(), held.reason());
+            }
+        }
+    }
+
+    /**
+     * Drop the log entries of synced rows older than the latest one, which alone is needed
+     * to compare versions.
+     */
+    private static void compact(Connection conn, Map<String, Map<Integer, Long>> latestSeq) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM sync_changes WHERE table_name = ? AND row_id = ? AND seq < ?")) {
+            for (Map.Entry<String, Map<Integer, Long>> table : latestSeq.entrySet()) {
+                for (Map.Entry<Integer, Long> row : table.getValue().entrySet()) {
+                    stmt.setString(1, table.getKey());
+                    stmt.setInt(2, row.getKey());
+                    stmt.setLong(3, row.getValue());
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private Map<String, Set<Integer>> heldIds(String direction) throws SQLException {
+        Map<String, Set<Integer>> held = new HashMap<>();
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT table_name, row_id FROM sync_conflicts WHERE direction = ?")) {
+            stmt.setString(1, direction);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    held.computeIfAbsent(rs.getString(1), key -> new HashSet<>()).add(rs.getInt(2));
+                }
+            }
+        }
+        return held;
+    }
+
+    /**
+     * This laptop's name in the central database, generated on its first sync.
+     */
+    private String siteId() throws SQLException {
+        if (siteId == null) {
+            String stored = localState(SITE_ID, null);
+            if (stored == null) {
+                String generated = UUID.randomUUID().toString();
+                DatabaseConfig.executeWrite(conn -> {
+                    writeState(conn, SITE_ID, generated);
+                    return null;
+                });
+                stored = generated;
+            }
+            siteId = stored;
+        }
+        return siteId;
+    }
+
+    private static String localState(String name, String defaultValue) throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT value FROM sync_state WHERE name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : defaultValue;
+            }
+        }
+    }
+
+    private static void writeState(Connection conn, String name, Object value) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO sync_state (name, value) VALUES (?, ?) " +
+                "ON CONFLICT(name) DO UPDATE SET value = excluded.value")) {
+            stmt.setString(1, name);
+            stmt.setString(2, String.valueOf(value));
+            stmt.executeUpdate();
+        }
+    }
+}
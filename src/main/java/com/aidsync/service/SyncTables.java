@@ -0,0 +1,297 @@
+package com.aidsync.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The tables {@link SyncEngine} copies between the local and the central database, in
+ * dependency order, and how their values are read and written in each dialect.
+ * <p>
+ * Columns whose value depends on the rest of the database rather than on the row are not
+ * copied: {@code current_stock} and {@code quantity_remaining} start at what the row's own
+ * movements make them and follow the stock movements synced after it. Local bookkeeping
+ * such as failed login attempts stays local.
+ */
+final class SyncTables {
+
+    static final String USERS = "users";
+    static final String BENEFICIARIES = "beneficiaries";
+    static final String INVENTORY_ITEMS = "inventory_items";
+    static final String STOCK_LOTS = "stock_lots";
+    static final String STOCK_MOVEMENTS = "stock_movements";
+    static final String DISTRIBUTIONS = "distributions";
+
+    /** Tables ReferenceDataCache is loaded from. */
+    static final List<String> REFERENCE_TABLES = List.of("barangays", "puroks", "inventory_categories", "suppliers");
+
+    enum Kind { TEXT, INT, DECIMAL, BOOL, DATE, TIMESTAMP }
+
+    /**
+     * A copied column; {@code references} names the synced table it holds ids of, if any.
+     */
+    record Column(String name, Kind kind, String references) {
+    }
+
+    /**
+     * How a row seen for the first time is matched to the other database. With a
+     * {@link #MERGE} key, a row with the same key there is the same row (seeded reference
+     * data, the admin user). With a {@link #UNIQUE} key, a row with the same key there is a
+     * different row that took the same code, and the incoming row is held back as a conflict.
+     */
+    enum KeyMode { NONE, MERGE, UNIQUE }
+
+    /**
+     * A column that is not copied but set on insert, to the value of column {@code copyOf} or
+     * to zero when that is null.
+     */
+    record Derived(String column, String copyOf) {
+    }
+
+    /**
+     * A synced table. Rows of {@code insertOnly} tables never change once written.
+     */
+    record Table(String name, List<Column> columns, KeyMode keyMode, List<String> key, boolean insertOnly,
+                 List<Derived> derived) {
+
+        String columnList() {
+            return columns.stream().map(Column::name).collect(Collectors.joining(", "));
+        }
+
+        int indexOf(String column) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).name().equals(column)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException(name + " has no synced column " + column);
+        }
+
+        List<Column> references() {
+            return columns.stream().filter(column -> column.references() != null).toList();
+        }
+    }
+
+    static final List<Table> ALL = List.of(
+        table(USERS, KeyMode.MERGE, List.of("username"), false, List.of(),
+            text("username"), text("password_hash"), text("email"), text("full_name"), text("role"), text("status"),
+            timestamp("created_at")),
+        table("barangays", KeyMode.MERGE, List.of("code"), false, List.of(),
+            text("name"), text("code"), integer("population"), timestamp("created_at")),
+        table("puroks", KeyMode.MERGE, List.of("barangay_id", "code"), false, List.of(),
+            ref("barangay_id", "barangays"), text("name"), text("code")),
+        table("inventory_categories", KeyMode.MERGE, List.of("code"), false, List.of(),
+            text("name"), text("code"), text("description"), timestamp("created_at")),
+        table("suppliers", KeyMode.NONE, List.of(), false, List.of(),
+            text("name"), text("contact_person"), text("contact_number"), text("email"), text("address"),
+            text("status"), timestamp("created_at")),
+        table(BENEFICIARIES, KeyMode.UNIQUE, List.of("beneficiary_id"), false, List.of(),
+            text("beneficiary_id"), text("full_name"), date("birth_date"), text("gender"), text("civil_status"),
+            text("contact_number"), text("email"), ref("barangay_id", "barangays"), ref("purok_id", "puroks"),
+            text("street_sitio"), bool("is_household_head"), integer("family_size"), text("monthly_income_range"),
+            text("employment_status"), integer("priority_level"), text("status"), text("photo_path"),
+            timestamp("created_at"), timestamp("updated_at"), ref("created_by", USERS)),
+        table("beneficiary_vulnerabilities", KeyMode.NONE, List.of(), false, List.of(),
+            ref("beneficiary_id", BENEFICIARIES), bool("is_pwd"), bool("is_senior_citizen"), bool("is_pregnant_lactating"),
+            bool("is_solo_parent"), bool("has_chronic_illness"), bool("is_orphan"), bool("is_indigenous"),
+            bool("is_homeless"), timestamp("created_at")),
+        table(INVENTORY_ITEMS, KeyMode.UNIQUE, List.of("item_code"), false, List.of(new Derived("current_stock", null)),
+            text("item_code"), text("item_name"), ref("category_id", "inventory_categories"), text("unit_of_measure"),
+            decimal("minimum_stock_level"), decimal("maximum_stock_level"), decimal("unit_cost"),
+            ref("supplier_id", "suppliers"), text("batch_number"), date("manufacture_date"), date("expiration_date"),
+            text("storage_location"), text("storage_conditions"), text("photo_path"), text("barcode"), text("status"),
+            timestamp("created_at"), timestamp("updated_at")),
+        table(STOCK_LOTS, KeyMode.NONE, List.of(), false, List.of(new Derived("quantity_remaining", "quantity_received")),
+            ref("item_id", INVENTORY_ITEMS), text("batch_number"), date("expiration_date"), decimal("quantity_received"),
+            decimal("unit_cost"), timestamp("received_at")),
+        table(STOCK_MOVEMENTS, KeyMode.NONE, List.of(), true, List.of(),
+            ref("item_id", INVENTORY_ITEMS), ref("lot_id", STOCK_LOTS), text("movement_type"), decimal("quantity"),
+            decimal("unit_cost"), text("reference_number"), text("reason"), ref("performed_by", USERS),
+            timestamp("movement_date")),
+        table("distribution_events", KeyMode.NONE, List.of(), false, List.of(),
+            text("event_name"), text("event_type"), text("description"), date("planned_date"), text("status"),
+            ref("created_by", USERS), timestamp("created_at")),
+        table(DISTRIBUTIONS, KeyMode.NONE, List.of(), false, List.of(),
+            ref("distribution_event_id", "distribution_events"), ref("beneficiary_id", BENEFICIARIES),
+            timestamp("distribution_date"), ref("distributed_by", USERS), decimal("total_value"), text("status"),
+            timestamp("created_at")),
+        table("distribution_items", KeyMode.NONE, List.of(), true, List.of(),
+            ref("distribution_id", DISTRIBUTIONS), ref("item_id", INVENTORY_ITEMS), decimal("quantity"),
+            decimal("unit_cost"), decimal("total_cost")));
+
+    static final Map<String, Table> BY_NAME = ALL.stream().collect(Collectors.toMap(Table::name, Function.identity()));
+
+    // How SQLite renders CURRENT_TIMESTAMP, which is what the columns hold unless set by the sync
+    private static final DateTimeFormatter SQLITE_TIMESTAMP = new DateTimeFormatterBuilder()
+        .appendPattern("yyyy-MM-dd[ ]['T']HH:mm:ss")
+        .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+        .toFormatter();
+    private static final DateTimeFormatter SQLITE_TIMESTAMP_OUT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private SyncTables() {
+    }
+
+    /**
+     * Position of each table in dependency order, so rows can be sorted before they are applied.
+     */
+    static int order(String table) {
+        for (int i = 0; i < ALL.size(); i++) {
+            if (ALL.get(i).name().equals(table)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read the copied columns from a row selected as {@code id, <columnList>}.
+     */
+    static Object[] read(ResultSet rs, Table table, boolean mysql) throws SQLException {
+        Object[] values = new Object[table.columns().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = read(rs, i + 2, table.columns().get(i).kind(), mysql);
+        }
+        return values;
+    }
+
+    static Object read(ResultSet rs, int index, Kind kind, boolean mysql) throws SQLException {
+        switch (kind) {
+            case TEXT:
+                return rs.getString(index);
+            case INT: {
+                int value = rs.getInt(index);
+                return rs.wasNull() ? null : value;
+            }
+            case DECIMAL:
+                return rs.getBigDecimal(index);
+            case BOOL: {
+                boolean value = rs.getBoolean(index);
+                return rs.wasNull() ? null : value;
+            }
+            case DATE:
+                if (mysql) {
+                    Date date = rs.getDate(index);
+                    return date != null ? date.toLocalDate() : null;
+                }
+                return sqliteDate(rs.getObject(index));
+            case TIMESTAMP:
+                if (mysql) {
+                    Timestamp timestamp = rs.getTimestamp(index);
+                    return timestamp != null ? timestamp.toInstant() : null;
+                }
+                return sqliteTimestamp(rs.getObject(index));
+            default:
+                throw new IllegalArgumentException("Unknown column kind " + kind);
+        }
+    }
+
+    /**
+     * Bind a value read by {@link #read} the way the application writes it: dates as
+     * {@code setDate} (epoch milliseconds on SQLite), timestamps on SQLite as UTC text like
+     * {@code CURRENT_TIMESTAMP}, so {@code strftime} keeps working on them.
+     */
+    static void bind(PreparedStatement stmt, int index, Kind kind, Object value, boolean mysql) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, switch (kind) {
+                case TEXT -> Types.VARCHAR;
+                case INT -> Types.INTEGER;
+                case DECIMAL -> Types.DECIMAL;
+                case BOOL -> Types.BOOLEAN;
+                case DATE -> Types.DATE;
+                case TIMESTAMP -> Types.TIMESTAMP;
+            });
+            return;
+        }
+        switch (kind) {
+            case TEXT -> stmt.setString(index, (String) value);
+            case INT -> stmt.setInt(index, (Integer) value);
+            case DECIMAL -> stmt.setBigDecimal(index, (BigDecimal) value);
+            case BOOL -> stmt.setBoolean(index, (Boolean) value);
+            case DATE -> stmt.setDate(index, Date.valueOf((LocalDate) value));
+            case TIMESTAMP -> {
+                Instant instant = (Instant) value;
+                if (mysql) {
+                    stmt.setTimestamp(index, Timestamp.from(instant));
+                } else {
+                    stmt.setString(index, SQLITE_TIMESTAMP_OUT.format(LocalDateTime.ofInstant(instant, ZoneOffset.UTC)));
+                }
+            }
+        }
+    }
+
+    private static LocalDate sqliteDate(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number millis) {
+            return new Date(millis.longValue()).toLocalDate();
+        }
+        String text = value.toString().trim();
+        if (text.chars().allMatch(Character::isDigit)) {
+            return new Date(Long.parseLong(text)).toLocalDate();
+        }
+        return LocalDate.parse(text.substring(0, Math.min(10, text.length())));
+    }
+
+    private static Instant sqliteTimestamp(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number millis) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        String text = value.toString().trim();
+        if (text.chars().allMatch(Character::isDigit)) {
+            return Instant.ofEpochMilli(Long.parseLong(text));
+        }
+        return LocalDateTime.parse(text, SQLITE_TIMESTAMP).toInstant(ZoneOffset.UTC);
+    }
+
+    private static Table table(String name, KeyMode keyMode, List<String> key, boolean insertOnly,
+                               List<Derived> derived, Column... columns) {
+        return new Table(name, List.of(columns), keyMode, key, insertOnly, derived);
+    }
+
+    private static Column text(String name) {
+        return new Column(name, Kind.TEXT, null);
+    }
+
+    private static Column integer(String name) {
+        return new Column(name, Kind.INT, null);
+    }
+
+    private static Column decimal(String name) {
+        return new Column(name, Kind.DECIMAL, null);
+    }
+
+    private static Column bool(String name) {
+        return new Column(name, Kind.BOOL, null);
+    }
+
+    private static Column date(String name) {
+        return new Column(name, Kind.DATE, null);
+    }
+
+    private static Column timestamp(String name) {
+        return new Column(name, Kind.TIMESTAMP, null);
+    }
+
+    private static Column ref(String name, String table) {
+        return new Column(name, Kind.INT, table);
+    }
+}
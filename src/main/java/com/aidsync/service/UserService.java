@@ -2,11 +2,12 @@ package com.aidsync.service;
 
 import com.aidsync.config.DatabaseConfig;
 import com.aidsync.model.User;
-import at.favre.lib.crypto.bcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
@@ -22,18 +23,27 @@ public class UserService {
         
         String sql = "INSERT INTO users (username, email, full_name, password_hash, role, status) VALUES (?, ?, ?, ?, ?, 'ACTIVE')";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, user.getUsername());
-            stmt.setString(2, user.getEmail());
-            stmt.setString(3, user.getFullName());
-            stmt.setString(4, BCrypt.withDefaults().hashToString(12, password.toCharArray()));
-            stmt.setString(5, user.getRole().name());
-            
-            stmt.executeUpdate();
-            logger.info("Created new user: {}", user.getUsername());
-        }
+        String passwordHash = Passwords.hash(password);
+        
+        DatabaseConfig.executeWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, user.getUsername());
+                stmt.setString(2, user.getEmail());
+                stmt.setString(3, user.getFullName());
+                stmt.setString(4, passwordHash);
+                stmt.setString(5, user.getRole().name());
+                
+                return stmt.executeUpdate();
+            }
+        });
+        
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("username", user.getUsername());
+        values.put("email", user.getEmail());
+        values.put("full_name", user.getFullName());
+        values.put("role", user.getRole().name());
+        AuditLog.getInstance().record(AuditLog.INSERT, "users", null, null, values);
+        logger.info("Created new user: {}", user.getUsername());
     }
     
     private boolean isUsernameExists(String username) throws SQLException {
@@ -0,0 +1,134 @@
+package com.aidsync.util;
+
+import com.aidsync.service.ExportService;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.concurrent.Task;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.stage.FileChooser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Runs an {@link ExportService} export from a screen as a cancellable background task.
+ * <p>
+ * While the export runs the given button becomes its cancel button, and the label and
+ * progress bar (normally hidden) show how many rows have been written.
+ */
+public final class ExportRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ExportRunner.class);
+
+    private final Button button;
+    private final Label statusLabel;
+    private final ProgressBar progressBar;
+    private final String buttonText;
+    private final ReadOnlyBooleanWrapper running = new ReadOnlyBooleanWrapper(false);
+
+    private Task<ExportService.Result> task;
+
+    public ExportRunner(Button button, Label statusLabel, ProgressBar progressBar) {
+        this.button = button;
+        this.statusLabel = statusLabel;
+        this.progressBar = progressBar;
+        this.buttonText = button.getText();
+    }
+
+    public ReadOnlyBooleanProperty runningProperty() {
+        return running.getReadOnlyProperty();
+    }
+
+    /**
+     * Cancel the running export, if any.
+     */
+    public void cancel() {
+        if (task != null) {
+            task.cancel(false); // The export checks isCancelled() every few rows and cleans up
+        }
+    }
+
+    /**
+     * Ask where to save the dataset and export it in the background.
+     */
+    public void start(ExportService.Dataset dataset) {
+        if (task != null) {
+            return;
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export " + dataset.getTitle());
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Excel workbook (*.xlsx)", "*.xlsx"),
+            new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv"));
+        chooser.setInitialFileName(dataset.defaultFileName("xlsx"));
+        File file = chooser.showSaveDialog(button.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Path target = withExtension(file.toPath(), chooser.getSelectedExtensionFilter());
+        ExportService exportService = new ExportService();
+        Task<ExportService.Result> exportTask = new Task<>() {
+            @Override
+            protected ExportService.Result call() throws Exception {
+                return exportService.export(dataset, target, (rowsWritten, totalRows) -> {
+                    updateMessage(String.format("%,d of %,d exported", rowsWritten, totalRows));
+                    updateProgress(Math.min(rowsWritten, totalRows), Math.max(totalRows, 1));
+                }, this::isCancelled);
+            }
+        };
+
+        task = exportTask;
+        running.set(true);
+        button.setText("Cancel Export");
+        progressBar.progressProperty().bind(exportTask.progressProperty());
+        statusLabel.textProperty().bind(exportTask.messageProperty());
+        showProgress(true);
+
+        exportTask.setOnSucceeded(event -> {
+            finish();
+            ExportService.Result result = exportTask.getValue();
+            AlertUtil.showInfo("Export Complete", String.format("Exported %,d row(s) to %s in %.1f s.",
+                result.rows(), result.file(), result.elapsedMillis() / 1000.0));
+        });
+        exportTask.setOnFailed(event -> {
+            finish();
+            logger.error("Error exporting {}", dataset, exportTask.getException());
+            AlertUtil.showError("Export Failed", "Failed to export " + dataset.getTitle() + ": " + exportTask.getException().getMessage());
+        });
+        exportTask.setOnCancelled(event -> finish());
+
+        TaskRunner.run(TaskRunner.Category.BULK, "export " + dataset, exportTask);
+    }
+
+    private void finish() {
+        task = null;
+        running.set(false);
+        button.setText(buttonText);
+        progressBar.progressProperty().unbind();
+        statusLabel.textProperty().unbind();
+        showProgress(false);
+    }
+
+    private void showProgress(boolean visible) {
+        progressBar.setVisible(visible);
+        progressBar.setManaged(visible);
+        statusLabel.setVisible(visible);
+        statusLabel.setManaged(visible);
+    }
+
+    /**
+     * Add the chosen filter's extension when the user typed a name without one.
+     */
+    private static Path withExtension(Path file, FileChooser.ExtensionFilter filter) {
+        if (ExportService.isSupported(file) || filter == null) {
+            return file;
+        }
+        String extension = filter.getExtensions().get(0).substring(1);
+        return file.resolveSibling(file.getFileName() + extension);
+    }
+}
@@ -0,0 +1,160 @@
+package com.aidsync.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Binary min-heap of values stored under a key, so a value can be replaced or removed in
+ * O(log n) when the thing it describes changes. The smallest value is read in O(1) and the
+ * {@code n} smallest in O(n log n), without touching the rest of the heap.
+ * <p>
+ * Not thread-safe.
+ */
+public final class IndexedMinHeap<K, V> {
+
+    private final Comparator<? super V> order;
+    private final List<K> keys = new ArrayList<>();
+    private final List<V> values = new ArrayList<>();
+    private final Map<K, Integer> positions = new HashMap<>();
+
+    public IndexedMinHeap(Comparator<? super V> order) {
+        this.order = order;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public boolean contains(K key) {
+        return positions.containsKey(key);
+    }
+
+    /**
+     * Store {@code value} under {@code key}, replacing and re-ordering any value it had.
+     */
+    public void put(K key, V value) {
+        Integer position = positions.get(key);
+        if (position == null) {
+            keys.add(key);
+            values.add(value);
+            positions.put(key, values.size() - 1);
+            siftUp(values.size() - 1);
+            return;
+        }
+        V old = values.set(position, value);
+        if (order.compare(value, old) < 0) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    /**
+     * Remove the value stored under {@code key}, if any, and return it.
+     */
+    public V remove(K key) {
+        Integer position = positions.remove(key);
+        if (position == null) {
+            return null;
+        }
+        V removed = values.get(position);
+        int last = values.size() - 1;
+        if (position != last) {
+            move(last, position);
+        }
+        keys.remove(last);
+        values.remove(last);
+        if (position != last) {
+            siftDown(position);
+            siftUp(position);
+        }
+        return removed;
+    }
+
+    /**
+     * The smallest value, or null when the heap is empty.
+     */
+    public V peek() {
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Up to {@code n} of the smallest values, smallest first. Walks the heap from the root,
+     * only ever looking at the children of values already taken.
+     */
+    public List<V> smallest(int n) {
+        List<V> result = new ArrayList<>(Math.min(n, values.size()));
+        if (n <= 0 || values.isEmpty()) {
+            return result;
+        }
+        PriorityQueue<Integer> frontier = new PriorityQueue<>(Math.min(n, values.size()) * 2,
+            (a, b) -> order.compare(values.get(a), values.get(b)));
+        frontier.add(0);
+        while (result.size() < n && !frontier.isEmpty()) {
+            int position = frontier.poll();
+            result.add(values.get(position));
+            int child = 2 * position + 1;
+            if (child < values.size()) {
+                frontier.add(child);
+            }
+            if (child + 1 < values.size()) {
+                frontier.add(child + 1);
+            }
+        }
+        return result;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (order.compare(values.get(position), values.get(parent)) >= 0) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int size = values.size();
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            if (left < size && order.compare(values.get(left), values.get(smallest)) < 0) {
+                smallest = left;
+            }
+            if (left + 1 < size && order.compare(values.get(left + 1), values.get(smallest)) < 0) {
+                smallest = left + 1;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        K key = keys.get(a);
+        V value = values.get(a);
+        move(b, a);
+        keys.set(b, key);
+        values.set(b, value);
+        positions.put(key, b);
+    }
+
+    private void move(int from, int to) {
+        K key = keys.get(from);
+        keys.set(to, key);
+        values.set(to, values.get(from));
+        positions.put(key, to);
+    }
+}
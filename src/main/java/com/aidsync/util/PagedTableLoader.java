@@ -0,0 +1,175 @@
+package com.aidsync.util;
+
+import com.aidsync.model.Page;
+import com.aidsync.model.PageCursor;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Fills a TableView one keyset page at a time as the user scrolls.
+ * <p>
+ * Only the first page is fetched up front, so the screen renders in the same time whether
+ * the table holds a hundred rows or a hundred thousand. When the vertical scrollbar nears
+ * the bottom the next page is fetched on a background thread and appended. Calling
+ * {@link #reset(PageFetcher)} (new filters or sort) discards any page still in flight and
+ * cancels its statement through {@link QueryCancellation}, as does closing the screen's
+ * {@link TaskRunner.Scope}. All methods must be called on the JavaFX application thread.
+ */
+public class PagedTableLoader<T> {
+    private static final Logger logger = LoggerFactory.getLogger(PagedTableLoader.class);
+
+    private static final double PREFETCH_THRESHOLD = 0.85;
+
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        Page<T> fetch(PageCursor after, int pageSize) throws SQLException;
+    }
+
+    private final TableView<T> table;
+    private final ObservableList<T> items;
+    private final int pageSize;
+    private final Consumer<Throwable> errorHandler;
+    private final TaskRunner.Scope scope;
+
+    private PageFetcher<T> fetcher;
+    private PageCursor nextCursor;
+    private boolean hasMore;
+    private TaskRunner.Handle inFlight;
+    private ScrollBar verticalBar;
+
+    public PagedTableLoader(TableView<T> table, ObservableList<T> items, int pageSize, TaskRunner.Scope scope,
+                            Consumer<Throwable> errorHandler) {
+        this.table = table;
+        this.items = items;
+        this.pageSize = pageSize;
+        this.scope = scope;
+        this.errorHandler = errorHandler;
+
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> attachScrollBar());
+        attachScrollBar();
+    }
+
+    /**
+     * Clear the table and start over from the first page of the given query.
+     */
+    public void reset(PageFetcher<T> newFetcher) {
+        fetcher = newFetcher;
+        cancelPending();
+        nextCursor = null;
+        hasMore = true;
+        items.clear();
+        loadNextPage();
+    }
+
+    /**
+     * Reload from the first page with the current query, e.g. after a save or delete.
+     */
+    public void reload() {
+        if (fetcher != null) {
+            reset(fetcher);
+        }
+    }
+
+    /**
+     * Abandon the page being fetched, if any, cancelling its statement on the database.
+     * The rows already shown stay; the next reset or scroll fetches again.
+     */
+    public void cancelPending() {
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Make column header clicks re-query the server instead of sorting only the loaded rows.
+     * The callback should work out the new sort from {@link TableView#getSortOrder()} and
+     * call {@link #reset(PageFetcher)}.
+     */
+    public void enableServerSort(Runnable onSortChanged) {
+        table.setSortPolicy(t -> true);
+        table.getSortOrder().addListener((ListChangeListener<TableColumn<T, ?>>) change -> onSortChanged.run());
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            column.sortTypeProperty().addListener((obs, oldType, newType) -> {
+                if (table.getSortOrder().contains(column)) {
+                    onSortChanged.run();
+                }
+            });
+        }
+    }
+
+    private void loadNextPage() {
+        if (inFlight != null || !hasMore || fetcher == null) {
+            return;
+        }
+
+        PageFetcher<T> requestFetcher = fetcher;
+        PageCursor after = nextCursor;
+        // A cancelled page never calls back, so these handlers only see the current query
+        inFlight = TaskRunner.task(TaskRunner.Category.DB_READ, "load page", () -> requestFetcher.fetch(after, pageSize))
+            .onSuccess(page -> {
+                inFlight = null;
+                items.addAll(page.items());
+                nextCursor = page.next();
+                hasMore = page.hasMore();
+                logger.debug("Loaded page of {} row(s), {} shown, more={}", page.items().size(), items.size(), hasMore);
+                fillViewport();
+            })
+            .onFailure(e -> {
+                inFlight = null;
+                hasMore = false;
+                errorHandler.accept(e);
+            })
+            .in(scope)
+            .start();
+    }
+
+    /**
+     * If the loaded rows do not yet overflow the viewport there is no scrollbar to drive
+     * loading, so keep fetching until there is one (or the data runs out).
+     */
+    private void fillViewport() {
+        if (!hasMore) {
+            return;
+        }
+        Platform.runLater(() -> {
+            attachScrollBar();
+            if (verticalBar != null && !verticalBar.isVisible()) {
+                loadNextPage();
+            } else if (verticalBar != null) {
+                maybeLoadMore(verticalBar.getValue());
+            }
+        });
+    }
+
+    private void attachScrollBar() {
+        if (verticalBar != null || table.getSkin() == null) {
+            return;
+        }
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                verticalBar = bar;
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> maybeLoadMore(newValue.doubleValue()));
+                return;
+            }
+        }
+    }
+
+    private void maybeLoadMore(double value) {
+        ScrollBar bar = verticalBar;
+        if (bar != null && value >= bar.getMin() + (bar.getMax() - bar.getMin()) * PREFETCH_THRESHOLD) {
+            loadNextPage();
+        }
+    }
+}
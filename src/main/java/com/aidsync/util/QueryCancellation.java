@@ -0,0 +1,94 @@
+package com.aidsync.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets the UI abandon a query that is already running on the database.
+ * <p>
+ * A background task binds a token to its thread with {@link #run(Callable)}; services wrap
+ * their long-running {@code executeQuery} in {@link #track(Statement)}. Cancelling the token
+ * then calls {@link Statement#cancel()} on whatever statement is executing, so a superseded
+ * search stops using the database instead of running to completion. Outside a bound task
+ * {@code track} does nothing.
+ */
+public final class QueryCancellation {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCancellation.class);
+
+    private static final ThreadLocal<QueryCancellation> current = new ThreadLocal<>();
+
+    private Statement running;
+    private boolean cancelled;
+
+    /**
+     * Handle returned by {@link #track(Statement)}; closing it unregisters the statement.
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Registration NONE = () -> { };
+
+    /**
+     * Run work on the calling thread with this token bound, so statements it tracks can be cancelled.
+     */
+    public <T> T run(Callable<T> work) throws Exception {
+        QueryCancellation previous = current.get();
+        current.set(this);
+        try {
+            return work.call();
+        } finally {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Register a statement that is about to execute with the token bound to this thread.
+     * Must be closed before the statement is closed: pooled statements are reused, and a
+     * late cancel must not hit another query.
+     */
+    public static Registration track(Statement statement) throws SQLException {
+        QueryCancellation token = current.get();
+        if (token == null) {
+            return NONE;
+        }
+        synchronized (token) {
+            if (token.cancelled) {
+                throw new SQLException("Query cancelled before it started");
+            }
+            token.running = statement;
+        }
+        return () -> {
+            synchronized (token) {
+                token.running = null;
+            }
+        };
+    }
+
+    /**
+     * Cancel the statement currently running under this token, and any it would start later.
+     */
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (running != null) {
+            try {
+                running.cancel();
+                logger.debug("Cancelled superseded query");
+            } catch (SQLException e) {
+                logger.debug("Could not cancel query: {}", e.getMessage());
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,70 @@
+package com.aidsync.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free buffer of the most recently added values.
+ * <p>
+ * Writers claim a sequence number and store into its slot, overwriting the value
+ * {@code capacity} places older. Readers never block writers: a slot that is overwritten
+ * while being read is recognised by its sequence number and skipped.
+ */
+public final class RingBuffer<T> {
+
+    private record Slot<T>(long sequence, T value) {
+    }
+
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * @param capacity number of values kept, rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    public void add(T value) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence & mask), new Slot<>(sequence, value));
+    }
+
+    /**
+     * Up to {@code limit} of the latest values, newest first.
+     */
+    public List<T> latest(int limit) {
+        long end = next.get();
+        long start = Math.max(0, end - slots.length());
+        List<T> values = new ArrayList<>(Math.min(limit, slots.length()));
+        for (long sequence = end - 1; sequence >= start && values.size() < limit; sequence--) {
+            Slot<T> slot = slots.get((int) (sequence & mask));
+            if (slot != null && slot.sequence() == sequence) {
+                values.add(slot.value());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Number of values added so far; changes whenever {@link #latest(int)} would.
+     */
+    public long added() {
+        return next.get();
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -1,14 +1,79 @@
 package com.aidsync.util;
 
+import javafx.css.CssParser;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class SceneManager {
     private static final Logger logger = LoggerFactory.getLogger(SceneManager.class);
     
+    private static final String[][] PRELOADED_SCREENS = {
+        { "/fxml/register.fxml", "/css/register.css" },
+        { "/fxml/dashboard.fxml", "/css/dashboard.css" },
+        { "/fxml/beneficiary-management.fxml", "/css/beneficiary.css" },
+        { "/fxml/inventory-management.fxml", "/css/inventory.css" }
+    };
+    private static final Pattern CONTROLLER_ATTRIBUTE = Pattern.compile("fx:controller=\"([\\w.$]+)\"");
+    
+    // FXML read ahead of time, keyed by resource path
+    private static final Map<String, byte[]> preloadedFxml = new ConcurrentHashMap<>();
+    
+    /**
+     * Read the remaining screens' FXML, load their controller classes and parse their
+     * stylesheets in parallel in the background, so the first switch to each screen
+     * only pays for building its scene graph.
+     */
+    public static CompletableFuture<Void> preloadScreens() {
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[PRELOADED_SCREENS.length];
+        for (int i = 0; i < PRELOADED_SCREENS.length; i++) {
+            String fxmlPath = PRELOADED_SCREENS[i][0];
+            String cssPath = PRELOADED_SCREENS[i][1];
+            tasks[i] = TaskRunner.submit(TaskRunner.Category.BACKGROUND, "preload " + fxmlPath, () -> {
+                preloadScreen(fxmlPath, cssPath);
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(tasks);
+    }
+    
+    private static void preloadScreen(String fxmlPath, String cssPath) {
+        try (InputStream in = SceneManager.class.getResourceAsStream(fxmlPath)) {
+            if (in == null) {
+                logger.warn("Cannot preload missing FXML resource: {}", fxmlPath);
+                return;
+            }
+            byte[] fxml = in.readAllBytes();
+            preloadedFxml.put(fxmlPath, fxml);
+            
+            Matcher controller = CONTROLLER_ATTRIBUTE.matcher(new String(fxml, StandardCharsets.UTF_8));
+            if (controller.find()) {
+                Class.forName(controller.group(1), false, SceneManager.class.getClassLoader());
+            }
+            
+            java.net.URL cssResource = SceneManager.class.getResource(cssPath);
+            if (cssResource != null) {
+                new CssParser().parse(cssResource);
+            }
+            logger.debug("Preloaded screen {}", fxmlPath);
+        } catch (IOException | ClassNotFoundException e) {
+            logger.warn("Failed to preload screen {}: {}", fxmlPath, e.getMessage());
+        }
+    }
+    
     private static void loadScene(String fxmlPath, String cssPath, String title, int width, int height, boolean maximized) {
         try {
             Stage stage = SessionManager.getInstance().getPrimaryStage();
@@ -33,7 +98,9 @@ public class SceneManager {
             }
             
             FXMLLoader loader = new FXMLLoader(fxmlResource);
-            Scene scene = new Scene(loader.load(), width, height);
+            byte[] preloaded = preloadedFxml.get(fxmlPath);
+            Parent root = preloaded != null ? loader.load(new ByteArrayInputStream(preloaded)) : loader.load();
+            Scene scene = new Scene(root, width, height);
             scene.getStylesheets().add(cssResource.toExternalForm());
             
             stage.setScene(scene);
@@ -76,6 +143,10 @@ public class SceneManager {
         loadScene("/fxml/inventory-management.fxml", "/css/inventory.css", "AIDSYNC - Inventory Management", 1200, 800, true);
     }
     
+    public static void switchToPerformanceMonitor() {
+        loadScene("/fxml/performance-monitor.fxml", "/css/performance.css", "AIDSYNC - Performance Monitor", 1200, 800, true);
+    }
+    
     public static void switchToDistributionManagement() {
         loadScene("/fxml/distribution-management.fxml", "/css/distribution.css", "AIDSYNC - Distribution Management", 1200, 800, true);
     }
@@ -0,0 +1,79 @@
+package com.aidsync.util;
+
+import javafx.animation.PauseTransition;
+import javafx.beans.value.ObservableValue;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns search-box keystrokes and filter changes into paged table queries.
+ * <p>
+ * Typing restarts a short pause; the search only runs once the user stops typing. Each
+ * keystroke also cancels the page already being fetched (and its statement), so stale
+ * queries do not pile up behind the latest one. Filter combo boxes search immediately.
+ * The search itself and the input check run on a background thread via
+ * {@link PagedTableLoader}, and only the latest result reaches the table.
+ */
+public final class SearchPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(SearchPipeline.class);
+
+    private static final Duration DEBOUNCE = Duration.millis(250);
+
+    /**
+     * Thrown from a page fetch when the search text fails {@link SecurityUtil#isInputSafe(String)}.
+     */
+    public static final class UnsafeInputException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        public UnsafeInputException() {
+            super("Search contains invalid characters.");
+        }
+    }
+
+    private final PagedTableLoader<?> loader;
+    private final Runnable search;
+    private final PauseTransition pause = new PauseTransition(DEBOUNCE);
+
+    /**
+     * @param loader the table's loader, whose pending page is cancelled on each keystroke
+     * @param search reads the current filters and calls {@link PagedTableLoader#reset}
+     */
+    public SearchPipeline(PagedTableLoader<?> loader, Runnable search) {
+        this.loader = loader;
+        this.search = search;
+        pause.setOnFinished(event -> search.run());
+    }
+
+    /**
+     * Search after the user pauses typing in the given text.
+     */
+    public SearchPipeline debounce(ObservableValue<String> text) {
+        text.addListener((obs, oldText, newText) -> {
+            loader.cancelPending();
+            pause.playFromStart();
+        });
+        return this;
+    }
+
+    /**
+     * Search as soon as the given value (e.g. a filter combo box) changes.
+     */
+    public SearchPipeline immediate(ObservableValue<?> value) {
+        value.addListener((obs, oldValue, newValue) -> {
+            pause.stop();
+            search.run();
+        });
+        return this;
+    }
+
+    /**
+     * Reject unsafe search text. Call from the page fetcher, i.e. off the JavaFX thread.
+     */
+    public static void requireSafeInput(String searchText) {
+        if (searchText != null && !SecurityUtil.isInputSafe(searchText)) {
+            logger.warn("Suspicious search input detected: {}", SecurityUtil.sanitizeForLogging(searchText));
+            throw new UnsafeInputException();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.aidsync.util;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Streams the rows of a CSV or XLSX file without loading the whole file into memory.
+ * <p>
+ * CSV is parsed as RFC 4180 (quoted fields may contain commas, quotes and line breaks).
+ * XLSX is read from the first sheet with POI's SAX event API, so memory stays flat however
+ * many rows the sheet holds; date cells are returned as ISO dates ({@code yyyy-MM-dd}).
+ * Every row, including the header, is handed to the {@link RowHandler} as it is read.
+ */
+public final class SpreadsheetReader {
+
+    /**
+     * Receives each row as it is read. Row numbers are 1-based, as shown in a spreadsheet.
+     * Throwing stops the read and propagates the exception.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(int rowNumber, List<String> cells) throws Exception;
+    }
+
+    private SpreadsheetReader() {
+    }
+
+    public static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".csv") || name.endsWith(".xlsx");
+    }
+
+    /**
+     * Read every row of the file in order.
+     *
+     * @param progress receives the fraction of the file read so far (0..1), or -1 when the
+     *                 format does not allow measuring it
+     */
+    public static void read(Path file, RowHandler handler, DoubleConsumer progress) throws Exception {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            readCsv(file, handler, progress);
+        } else if (name.endsWith(".xlsx")) {
+            readXlsx(file, handler, progress);
+        } else {
+            throw new IllegalArgumentException("Unsupported file type (expected .csv or .xlsx): " + file.getFileName());
+        }
+    }
+
+    private static void readCsv(Path file, RowHandler handler, DoubleConsumer progress) throws Exception {
+        long size = Math.max(1, Files.size(file));
+        try (CountingInputStream counted = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(counted, StandardCharsets.UTF_8), 64 * 1024)) {
+
+            List<String> row = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldStarted = false;
+            int rowNumber = 0;
+            int c = reader.read();
+            if (c == '\uFEFF') {
+                c = reader.read(); // Excel writes a byte order mark
+            }
+
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                    fieldStarted = true;
+                } else if (c == ',') {
+                    row.add(field.toString());
+                    field.setLength(0);
+                    fieldStarted = true;
+                } else if (c == '\r' || c == '\n') {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    rowNumber++;
+                    if (fieldStarted || field.length() > 0) {
+                        row.add(field.toString());
+                        handler.row(rowNumber, row);
+                        row = new ArrayList<>(row.size());
+                        if ((rowNumber & 1023) == 0) {
+                            progress.accept(Math.min(1.0, (double) counted.count / size));
+                        }
+                    }
+                    field.setLength(0);
+                    fieldStarted = false;
+                } else {
+                    field.append((char) c);
+                    fieldStarted = true;
+                }
+                c = reader.read();
+            }
+
+            if (fieldStarted || field.length() > 0) {
+                row.add(field.toString());
+                handler.row(rowNumber + 1, row);
+            }
+            progress.accept(1.0);
+        }
+    }
+
+    private static void readXlsx(Path file, RowHandler handler, DoubleConsumer progress) throws Exception {
+        progress.accept(-1);
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(
+                xssfReader.getStylesTable(), null, strings, new SheetRows(handler), new IsoDateFormatter(), false));
+
+            try (InputStream sheet = sheets.next()) {
+                parser.parse(new InputSource(sheet));
+            } catch (SAXException e) {
+                if (e.getException() != null) {
+                    throw e.getException();
+                }
+                throw e;
+            }
+        } catch (RowHandlerException e) {
+            throw e.cause;
+        }
+        progress.accept(1.0);
+    }
+
+    /**
+     * Collects the (sparse) cells of each sheet row into a dense list.
+     */
+    private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+
+        private SheetRows(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (cells.isEmpty()) {
+                return;
+            }
+            try {
+                handler.row(rowNum + 1, new ArrayList<>(cells));
+            } catch (Exception e) {
+                throw new RowHandlerException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? columnIndex(cellReference) : cells.size();
+            if (column >= cells.size()) {
+                cells.addAll(Collections.nCopies(column - cells.size() + 1, ""));
+            }
+            cells.set(column, formattedValue != null ? formattedValue : "");
+        }
+    }
+
+    /**
+     * Zero-based column of a cell reference such as {@code "AB12"}. Decoded by hand: POI's
+     * {@code CellReference} parses with a regular expression, which dominated read time.
+     */
+    private static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Formats date cells as ISO dates instead of the sheet's display format, which is often
+     * a two-digit year.
+     */
+    private static final class IsoDateFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().format(DateTimeFormatter.ISO_LOCAL_DATE);
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+
+    /**
+     * Carries a row handler's exception out through the SAX callbacks.
+     */
+    private static final class RowHandlerException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final Exception cause;
+
+        private RowHandlerException(Exception cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
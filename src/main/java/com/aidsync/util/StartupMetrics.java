@@ -0,0 +1,96 @@
+package com.aidsync.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long each startup phase takes, measured from JVM start.
+ * <p>
+ * Every phase is logged as it completes. When the application becomes interactive (login
+ * screen shown and database ready) one line is appended to {@code logs/startup-metrics.csv},
+ * so time-to-interactive can be compared across releases and machines.
+ */
+public final class StartupMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private static final Path CSV_FILE = Paths.get("logs", "startup-metrics.csv");
+    private static final String CSV_HEADER = "timestamp,version,database,time_to_interactive_ms,phases";
+
+    private static final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+    private static long lastMarkMillis = jvmStartMillis;
+    private static boolean interactiveRecorded;
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * Mark the end of a startup phase and log its duration.
+     */
+    public static synchronized void mark(String phase) {
+        long now = System.currentTimeMillis();
+        long sinceStart = now - jvmStartMillis;
+        phases.put(phase, sinceStart);
+        logger.info("Startup phase '{}' done in {}ms ({}ms since JVM start)", phase, now - lastMarkMillis, sinceStart);
+        lastMarkMillis = now;
+    }
+
+    /**
+     * Record time-to-interactive once and append it to the startup metrics CSV.
+     */
+    public static synchronized void interactive(String database) {
+        if (interactiveRecorded) {
+            return;
+        }
+        interactiveRecorded = true;
+        mark("interactive");
+
+        long timeToInteractive = phases.get("interactive");
+        logger.info("Time to interactive: {}ms ({})", timeToInteractive, database);
+        appendCsv(database, timeToInteractive);
+    }
+
+    private static void appendCsv(String database, long timeToInteractive) {
+        StringBuilder phaseSummary = new StringBuilder();
+        phases.forEach((name, millis) -> {
+            if (phaseSummary.length() > 0) {
+                phaseSummary.append(';');
+            }
+            phaseSummary.append(name).append('=').append(millis);
+        });
+
+        String line = String.join(",",
+            LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+            applicationVersion(),
+            database,
+            String.valueOf(timeToInteractive),
+            phaseSummary.toString()) + System.lineSeparator();
+
+        try {
+            Files.createDirectories(CSV_FILE.getParent());
+            if (Files.notExists(CSV_FILE)) {
+                Files.writeString(CSV_FILE, CSV_HEADER + System.lineSeparator(), StandardCharsets.UTF_8);
+            }
+            Files.writeString(CSV_FILE, line, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("Could not write startup metrics to {}: {}", CSV_FILE, e.getMessage());
+        }
+    }
+
+    private static String applicationVersion() {
+        String version = StartupMetrics.class.getPackage().getImplementationVersion();
+        return System.getProperty("aidsync.version", version != null ? version : "dev");
+    }
+}
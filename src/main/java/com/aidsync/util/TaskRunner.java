@@ -0,0 +1,520 @@
+package com.aidsync.util;
+
+import com.aidsync.config.DatabaseConfig;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs background work for the screens, each task on its own virtual thread.
+ * <p>
+ * Every task belongs to a {@link Category} that caps how many of its kind run at once, so
+ * a burst of searches cannot take every pooled connection and two logins cannot take every
+ * core. Screens build tasks with {@link #task(Category, String, Callable)}: the result or the
+ * failure comes back on the JavaFX thread, failures go to the first handler registered for
+ * their type, and a task started in a {@link Scope} is cancelled, with its callbacks dropped,
+ * once the screen that started it has been left. Run and queue times are kept per category
+ * ({@link #stats()}) and logged per task at debug level.
+ */
+public final class TaskRunner {
+    private static final Logger logger = LoggerFactory.getLogger(TaskRunner.class);
+
+    private static final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("AIDSYNC-Task-", 1).factory());
+
+    /**
+     * Kinds of background work, each with its own limit on how many run at once. Tasks over
+     * the limit wait their turn, except {@code BCRYPT}, which turns tasks away once
+     * {@code auth.queueSize} are already waiting.
+     */
+    public enum Category {
+        /** Queries behind lists, lookups and the dashboard ({@code tasks.dbReads}, 8). */
+        DB_READ("tasks.dbReads", "TASKS_DB_READS", 8),
+        /** Saves, deletes and stock movements ({@code tasks.dbWrites}, 4). */
+        DB_WRITE("tasks.dbWrites", "TASKS_DB_WRITES", 4),
+        /** Imports and exports, long jobs that report their own progress ({@code tasks.bulkJobs}, 2). */
+        BULK("tasks.bulkJobs", "TASKS_BULK_JOBS", 2),
+        /** Password hashing and checking ({@code auth.threads}, 2), which keeps a core busy for its whole run. */
+        BCRYPT("auth.threads", "AUTH_THREADS", 2,
+            Math.max(1, DatabaseConfig.intSetting("auth.queueSize", "AUTH_QUEUE_SIZE", 16))),
+        /** Anything else, such as preloading screens ({@code tasks.background}, 4). */
+        BACKGROUND("tasks.background", "TASKS_BACKGROUND", 4);
+
+        private final int limit;
+        private final int queueLimit;
+        private final Semaphore permits;
+
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder runNanos = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+
+        Category(String property, String environmentVariable, int defaultLimit) {
+            this(property, environmentVariable, defaultLimit, Integer.MAX_VALUE);
+        }
+
+        Category(String property, String environmentVariable, int defaultLimit, int queueLimit) {
+            this.limit = Math.max(1, DatabaseConfig.intSetting(property, environmentVariable, defaultLimit));
+            this.queueLimit = queueLimit;
+            this.permits = new Semaphore(limit, true);
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        private void acquire(String name) throws InterruptedException {
+            // The timed form honours fairness; plain tryAcquire() would jump the queue
+            if (permits.tryAcquire(0, TimeUnit.SECONDS)) {
+                running.incrementAndGet();
+                return;
+            }
+            if (waiting.incrementAndGet() > queueLimit) {
+                waiting.decrementAndGet();
+                rejected.increment();
+                logger.warn("{} task '{}' turned away: {} already waiting", this, name, queueLimit);
+                throw new RejectedExecutionException(queueLimit + " " + this + " tasks already waiting");
+            }
+            try {
+                permits.acquire();
+            } finally {
+                waiting.decrementAndGet();
+            }
+            running.incrementAndGet();
+        }
+
+        private void release() {
+            running.decrementAndGet();
+            permits.release();
+        }
+
+        private void record(String name, Outcome outcome, long queuedNanos, long ranNanos) {
+            switch (outcome) {
+                case COMPLETED -> completed.increment();
+                case FAILED -> failed.increment();
+                case CANCELLED -> cancelled.increment();
+            }
+            waitNanos.add(queuedNanos);
+            runNanos.add(ranNanos);
+            maxRunNanos.accumulate(ranNanos);
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} task '{}' {} in {} ms after {} ms queued", this, name, outcome.name().toLowerCase(),
+                    TimeUnit.NANOSECONDS.toMillis(ranNanos), TimeUnit.NANOSECONDS.toMillis(queuedNanos));
+            }
+        }
+
+        private Stats stats() {
+            return new Stats(this, limit, running.get(), waiting.get(), completed.sum(), failed.sum(), cancelled.sum(),
+                rejected.sum(), TimeUnit.NANOSECONDS.toMillis(runNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(maxRunNanos.get()), TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+        }
+    }
+
+    private enum Outcome { COMPLETED, FAILED, CANCELLED }
+
+    /**
+     * Counts and times for one category since startup. Times are totals over finished tasks.
+     */
+    public record Stats(Category category, int limit, int running, int waiting, long completed, long failed,
+                        long cancelled, long rejected, long totalRunMillis, long maxRunMillis, long totalWaitMillis) {
+
+        public long finished() {
+            return completed + failed + cancelled;
+        }
+
+        public double averageRunMillis() {
+            return finished() == 0 ? 0 : (double) totalRunMillis / finished();
+        }
+
+        public double averageWaitMillis() {
+            return finished() == 0 ? 0 : (double) totalWaitMillis / finished();
+        }
+    }
+
+    /**
+     * A started task that can be abandoned.
+     */
+    public interface Handle {
+        /**
+         * Stop waiting for the task. A task still queued never runs; a running one has its
+         * current statement cancelled through {@link QueryCancellation}, and its callbacks
+         * are not called.
+         */
+        void cancel();
+    }
+
+    private TaskRunner() {
+    }
+
+    /**
+     * Run work in the background and complete the returned future with its result, on the
+     * task's own thread. Cancelling the future cancels the task. When the category's queue
+     * is full the future fails with a {@link RejectedExecutionException}.
+     */
+    public static <T> CompletableFuture<T> submit(Category category, String name, Callable<T> work) {
+        Run<T> run = launch(category, name, work);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        run.result.whenComplete((value, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(value);
+            }
+        });
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                run.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Build a task for a screen. Nothing runs until {@link UiTask#start()}.
+     *
+     * @param name what the task does, in the form "load barangays"; shown as "Failed to load
+     *             barangays: ..." when a failure has no handler
+     */
+    public static <T> UiTask<T> task(Category category, String name, Callable<T> work) {
+        return new UiTask<>(category, name, work);
+    }
+
+    /**
+     * Run a JavaFX task that reports its own progress, within the category's limit. The
+     * task's handlers and {@link Task#cancel} work as usual.
+     */
+    public static void run(Category category, String name, Task<?> task) {
+        launch(category, name, () -> {
+            task.run();
+            return task.get();
+        });
+    }
+
+    /**
+     * Current counts and times for every category.
+     */
+    public static List<Stats> stats() {
+        List<Stats> stats = new ArrayList<>();
+        for (Category category : Category.values()) {
+            stats.add(category.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Stop accepting tasks; those already running finish on their own.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    private static <T> Run<T> launch(Category category, String name, Callable<T> work) {
+        Run<T> run = new Run<>(category, name);
+        try {
+            executor.execute(() -> run.execute(work));
+        } catch (RejectedExecutionException e) {
+            run.result.completeExceptionally(e);
+        }
+        return run;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static final class Run<T> implements Handle {
+        private final Category category;
+        private final String name;
+        private final long submitted = System.nanoTime();
+        private final QueryCancellation query = new QueryCancellation();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private boolean cancelled;
+        private Thread waiter;
+
+        private Run(Category category, String name) {
+            this.category = category;
+            this.name = name;
+        }
+
+        private void execute(Callable<T> work) {
+            if (!awaitPermit()) {
+                return;
+            }
+            long started = System.nanoTime();
+            try {
+                T value = query.run(work);
+                category.record(name, Outcome.COMPLETED, started - submitted, System.nanoTime() - started);
+                result.complete(value);
+            } catch (Throwable e) {
+                Throwable cause = unwrap(e);
+                boolean abandoned = isCancelled() || cause instanceof CancellationException;
+                category.record(name, abandoned ? Outcome.CANCELLED : Outcome.FAILED, started - submitted, System.nanoTime() - started);
+                result.completeExceptionally(cause);
+            } finally {
+                category.release();
+            }
+        }
+
+        /**
+         * Wait for a slot in the category. Only this wait is interrupted by {@link #cancel()}:
+         * interrupting JDBC work would close the connection under the pool.
+         */
+        private boolean awaitPermit() {
+            synchronized (this) {
+                if (cancelled) {
+                    category.record(name, Outcome.CANCELLED, System.nanoTime() - submitted, 0);
+                    return false;
+                }
+                waiter = Thread.currentThread();
+            }
+            boolean acquired = false;
+            try {
+                category.acquire(name);
+                acquired = true;
+            } catch (InterruptedException e) {
+                // Cancelled while waiting
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+            synchronized (this) {
+                waiter = null;
+                Thread.interrupted(); // A cancel may have landed just after the permit was granted
+                if (acquired && !cancelled) {
+                    return true;
+                }
+                if (cancelled) {
+                    category.record(name, Outcome.CANCELLED, System.nanoTime() - submitted, 0);
+                }
+            }
+            if (acquired) {
+                category.release();
+            }
+            return false;
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                if (waiter != null) {
+                    waiter.interrupt();
+                }
+            }
+            query.cancel();
+            result.cancel(false);
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * A task for a screen, configured before it is started. Callbacks run on the JavaFX thread.
+     */
+    public static final class UiTask<T> {
+        private final Category category;
+        private final String name;
+        private final Callable<T> work;
+        private final List<FailureHandler<?>> failureHandlers = new ArrayList<>();
+        private Consumer<? super T> successHandler;
+        private Runnable doneHandler;
+        private Scope scope;
+
+        private UiTask(Category category, String name, Callable<T> work) {
+            this.category = category;
+            this.name = name;
+            this.work = work;
+        }
+
+        public UiTask<T> onSuccess(Consumer<? super T> handler) {
+            successHandler = handler;
+            return this;
+        }
+
+        /**
+         * Handle failures of the given type. Handlers are tried in the order they were added
+         * and the first that matches is the only one called; a failure nothing matches is
+         * logged and shown as "Failed to <i>name</i>".
+         */
+        public <E extends Throwable> UiTask<T> onFailure(Class<E> type, Consumer<? super E> handler) {
+            failureHandlers.add(new FailureHandler<>(type, handler));
+            return this;
+        }
+
+        public UiTask<T> onFailure(Consumer<Throwable> handler) {
+            return onFailure(Throwable.class, handler);
+        }
+
+        /**
+         * Run before the success or failure handler either way, e.g. to re-enable a button.
+         */
+        public UiTask<T> onDone(Runnable handler) {
+            doneHandler = handler;
+            return this;
+        }
+
+        /**
+         * Cancel the task when the scope closes.
+         */
+        public UiTask<T> in(Scope scope) {
+            this.scope = scope;
+            return this;
+        }
+
+        public Handle start() {
+            if (scope != null && scope.isClosed()) {
+                return () -> { };
+            }
+            Run<T> run = launch(category, name, work);
+            if (scope != null) {
+                scope.add(run);
+            }
+            run.result.whenComplete((value, error) -> {
+                if (!run.isCancelled()) {
+                    Platform.runLater(() -> deliver(run, value, error));
+                } else if (scope != null) {
+                    scope.remove(run);
+                }
+            });
+            return run;
+        }
+
+        private void deliver(Run<T> run, T value, Throwable error) {
+            if (scope != null) {
+                scope.remove(run);
+            }
+            if (run.isCancelled()) {
+                return; // Cancelled after finishing: nobody is waiting for the result
+            }
+            if (doneHandler != null) {
+                doneHandler.run();
+            }
+            if (error == null) {
+                if (successHandler != null) {
+                    successHandler.accept(value);
+                }
+                return;
+            }
+            Throwable cause = unwrap(error);
+            for (FailureHandler<?> handler : failureHandlers) {
+                if (handler.handle(cause)) {
+                    return;
+                }
+            }
+            logger.error("Failed to {}", name, cause);
+            AlertUtil.showError("Error", "Failed to " + name + ": " + cause.getMessage());
+        }
+    }
+
+    private record FailureHandler<E extends Throwable>(Class<E> type, Consumer<? super E> handler) {
+        boolean handle(Throwable error) {
+            if (!type.isInstance(error)) {
+                return false;
+            }
+            handler.accept(type.cast(error));
+            return true;
+        }
+    }
+
+    /**
+     * The tasks started by one screen, cancelled together when it closes.
+     */
+    public static final class Scope {
+        private final Set<Handle> tasks = ConcurrentHashMap.newKeySet();
+        private final List<Runnable> closeHandlers = new ArrayList<>();
+        private volatile boolean closed;
+
+        /**
+         * A scope that closes when the given node's scene leaves its window, as happens when
+         * the application switches to another screen.
+         */
+        public static Scope forView(Node node) {
+            Scope scope = new Scope();
+            node.sceneProperty().addListener((sceneObs, oldScene, scene) -> {
+                if (scene != null) {
+                    scene.windowProperty().addListener((windowObs, oldWindow, window) -> {
+                        if (window == null) {
+                            scope.close();
+                        }
+                    });
+                }
+            });
+            return scope;
+        }
+
+        /**
+         * Also run the given action on the JavaFX thread when the scope closes.
+         */
+        public void onClose(Runnable handler) {
+            closeHandlers.add(handler);
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Cancel every task still running in this scope. Tasks started afterwards do not run.
+         */
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Handle task : tasks) {
+                task.cancel();
+            }
+            if (!tasks.isEmpty()) {
+                logger.debug("Cancelled {} task(s) of a closed screen", tasks.size());
+            }
+            tasks.clear();
+            closeHandlers.forEach(Runnable::run);
+        }
+
+        private void add(Handle task) {
+            tasks.add(task);
+            if (closed) {
+                task.cancel();
+            }
+        }
+
+        private void remove(Handle task) {
+            tasks.remove(task);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.aidsync.bench;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.model.InventoryItem;
+import com.aidsync.model.User;
+import com.aidsync.service.InventoryService;
+import com.aidsync.util.SessionManager;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared setup for the benchmarks in this package. Each one is a plain main class that
+ * writes to a scratch SQLite file by default, or to the configured MySQL server with
+ * {@code -Dbench.db=mysql} (point {@code db.mysql.url}, {@code db.username} and
+ * {@code db.password} at a scratch schema: the benchmarks write to it). From the project
+ * directory:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/bench.classpath
+ * java -cp target/test-classes:target/classes:$(cat target/bench.classpath) com.aidsync.bench.ImportBenchmark
+ * </pre>
+ * Sizes and durations are read from {@code bench.*} system properties, listed on each class.
+ */
+final class BenchSupport {
+
+    private BenchSupport() {
+    }
+
+    /**
+     * Connect and migrate the database selected by {@code bench.db}, then log in as the
+     * seeded admin so services that record who made a change can run.
+     */
+    static void openDatabase() throws Exception {
+        String target = System.getProperty("bench.db", "sqlite");
+        if (!target.equals("sqlite") && !target.equals("mysql")) {
+            throw new IllegalArgumentException("bench.db must be sqlite or mysql, not " + target);
+        }
+        // Also where DatabaseConfig falls back to when MySQL cannot be reached
+        if (System.getProperty("db.sqlite.url") == null) {
+            Path file = Files.createTempFile("aidsync-bench", ".db");
+            for (String suffix : new String[] { "", "-wal", "-shm" }) {
+                new File(file + suffix).deleteOnExit();
+            }
+            System.setProperty("db.sqlite.url", "jdbc:sqlite:" + file);
+        }
+        if (target.equals("sqlite")) {
+            System.setProperty("db.offlineFirst", "true");
+        }
+
+        DatabaseConfig.initialize();
+        DatabaseConfig.whenReady().join();
+        if (DatabaseConfig.isUsingMySQL() != target.equals("mysql")) {
+            throw new IllegalStateException("MySQL could not be reached; see the log above");
+        }
+
+        User admin = new User();
+        admin.setId(queryInt("SELECT id FROM users WHERE username = 'admin'"));
+        admin.setUsername("admin");
+        SessionManager.getInstance().login(admin);
+
+        System.out.printf("Database: %s, %d CPU(s), Java %s%n", DatabaseConfig.isUsingMySQL() ? "MySQL" : "SQLite",
+            Runtime.getRuntime().availableProcessors(), System.getProperty("java.version"));
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        return Integer.getInteger(name, defaultValue);
+    }
+
+    static int queryInt(String sql) throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    static BigDecimal queryDecimal(String sql) throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getBigDecimal(1) : null;
+        }
+    }
+
+    /**
+     * Insert active beneficiaries in barangay 1 directly, in one transaction, and return
+     * their ids. Far quicker than registering them through the service one by one.
+     */
+    static List<Integer> seedBeneficiaries(int count) throws SQLException {
+        String prefix = "Z" + Long.toString(System.nanoTime() % 100_000, 36);
+        return DatabaseConfig.executeWrite(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                // Beneficiaries default to purok 1
+                stmt.executeUpdate("INSERT INTO puroks (barangay_id, name, code) " +
+                    "SELECT id, 'Purok 1', 'P1' FROM barangays WHERE id = 1 AND NOT EXISTS (SELECT 1 FROM puroks)");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO beneficiaries " +
+                    "(beneficiary_id, full_name, birth_date, gender, civil_status, barangay_id, purok_id) " +
+                    "VALUES (?, ?, ?, 'FEMALE', 'SINGLE', 1, 1)")) {
+                for (int i = 0; i < count; i++) {
+                    stmt.setString(1, prefix + i);
+                    stmt.setString(2, "Bench Beneficiary " + i);
+                    stmt.setDate(3, Date.valueOf(LocalDate.of(1980, 1, 1).plusDays(i % 10_000)));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            List<Integer> ids = new ArrayList<>(count);
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM beneficiaries WHERE beneficiary_id LIKE ?")) {
+                stmt.setString(1, prefix + "%");
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+            }
+            return ids;
+        });
+    }
+
+    static InventoryItem createItem(InventoryService service, String name, String stock) throws SQLException {
+        InventoryItem item = new InventoryItem();
+        item.setItemName(name);
+        item.setCategoryName(service.getAllCategories().get(0));
+        item.setUnitOfMeasure("pc");
+        item.setCurrentStock(new BigDecimal(stock));
+        item.setMinimumStockLevel(new BigDecimal("10"));
+        item.setUnitCost(new BigDecimal("12.50"));
+        item.setStatus(InventoryItem.ItemStatus.ACTIVE);
+        service.createInventoryItem(item);
+        return item;
+    }
+
+    static double perSecond(long operations, long nanos) {
+        return operations * 1_000_000_000.0 / nanos;
+    }
+}
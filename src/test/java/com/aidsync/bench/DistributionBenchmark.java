@@ -0,0 +1,102 @@
+package com.aidsync.bench;
+
+import com.aidsync.model.Distribution;
+import com.aidsync.model.InventoryItem;
+import com.aidsync.service.DistributionService;
+import com.aidsync.service.InventoryService;
+import com.aidsync.util.SessionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sustained distributions per second through {@link DistributionService#recordDistribution},
+ * each releasing three items to one beneficiary, with one to many terminals recording at once.
+ * Afterwards each item's stock is checked against what the recorded distributions took out.
+ * <p>
+ * {@code -Dbench.seconds} per run (10), {@code -Dbench.threads} as a comma separated list of
+ * concurrent recorders ({@code 1,4,16}), {@code -Dbench.beneficiaries} to seed (2000).
+ */
+public final class DistributionBenchmark {
+
+    private static final String STOCK = "10000000";
+    private static final BigDecimal[] QUANTITIES = { new BigDecimal("5"), new BigDecimal("6"), BigDecimal.ONE };
+
+    private DistributionBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = BenchSupport.intProperty("bench.seconds", 10);
+        String threadCounts = System.getProperty("bench.threads", "1,4,16");
+        int beneficiaryCount = BenchSupport.intProperty("bench.beneficiaries", 2_000);
+
+        try {
+            BenchSupport.openDatabase();
+            InventoryService inventory = new InventoryService();
+            List<InventoryItem> items = List.of(
+                BenchSupport.createItem(inventory, "Bench Rice", STOCK),
+                BenchSupport.createItem(inventory, "Bench Water", STOCK),
+                BenchSupport.createItem(inventory, "Bench Hygiene Kit", STOCK));
+            List<Integer> beneficiaries = BenchSupport.seedBeneficiaries(beneficiaryCount);
+            int distributedBy = SessionManager.getInstance().getCurrentUser().getId();
+            DistributionService service = new DistributionService();
+
+            AtomicInteger next = new AtomicInteger();
+            for (String count : threadCounts.split(",")) {
+                int threads = Integer.parseInt(count.trim());
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+                List<Future<Integer>> recorders = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    recorders.add(executor.submit(() -> {
+                        int recorded = 0;
+                        while (System.nanoTime() < deadline) {
+                            Distribution distribution = new Distribution(
+                                beneficiaries.get(Math.floorMod(next.getAndIncrement(), beneficiaries.size())));
+                            distribution.setDistributedBy(distributedBy);
+                            for (int i = 0; i < items.size(); i++) {
+                                distribution.addItem(items.get(i).getId(), QUANTITIES[i]);
+                            }
+                            service.recordDistribution(distribution);
+                            recorded++;
+                        }
+                        return recorded;
+                    }));
+                }
+                int recorded = 0;
+                for (Future<Integer> recorder : recorders) {
+                    recorded += recorder.get();
+                }
+                long elapsed = System.nanoTime() - start;
+                executor.shutdown();
+                System.out.printf("%d thread(s): %d distributions in %.1fs = %.0f/s%n",
+                    threads, recorded, elapsed / 1e9, BenchSupport.perSecond(recorded, elapsed));
+            }
+
+            for (InventoryItem item : items) {
+                BigDecimal stock = BenchSupport.queryDecimal(
+                    "SELECT current_stock FROM inventory_items WHERE id = " + item.getId());
+                BigDecimal released = BenchSupport.queryDecimal(
+                    "SELECT COALESCE(SUM(quantity), 0) FROM distribution_items WHERE item_id = " + item.getId());
+                BigDecimal moved = BenchSupport.queryDecimal(
+                    "SELECT COALESCE(SUM(quantity), 0) FROM stock_movements WHERE item_id = " + item.getId()
+                        + " AND movement_type = 'OUT'");
+                boolean reconciles = new BigDecimal(STOCK).subtract(released).compareTo(stock) == 0
+                    && released.compareTo(moved) == 0;
+                System.out.printf("%s: stock %s, released %s, moved out %s: %s%n", item.getItemName(),
+                    stock.stripTrailingZeros().toPlainString(), released.stripTrailingZeros().toPlainString(),
+                    moved.stripTrailingZeros().toPlainString(), reconciles ? "reconciles" : "DOES NOT RECONCILE");
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,73 @@
+package com.aidsync.bench;
+
+import com.aidsync.event.BeneficiariesRegistered;
+import com.aidsync.event.EventBus;
+import com.aidsync.event.StockMoved;
+import com.aidsync.model.InventoryItem;
+import com.aidsync.service.InventoryService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What publishing a domain event adds to a write. Times {@link EventBus#publish} on its own
+ * with a counting subscriber attached, as the dashboard has, and then a stock movement
+ * end to end for comparison, since every movement publishes one event after it commits.
+ * <p>
+ * {@code -Dbench.events} events per round (1000000) over {@code -Dbench.rounds} rounds (3),
+ * then {@code -Dbench.movements} stock movements (2000).
+ */
+public final class EventBusBenchmark {
+
+    private EventBusBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int events = BenchSupport.intProperty("bench.events", 1_000_000);
+        int rounds = BenchSupport.intProperty("bench.rounds", 3);
+        int movements = BenchSupport.intProperty("bench.movements", 2_000);
+
+        try {
+            EventBus bus = EventBus.getInstance();
+            LongAdder delivered = new LongAdder();
+            bus.subscribe(BeneficiariesRegistered.class, event -> delivered.add(event.count()));
+
+            double publishNanos = 0;
+            for (int round = 1; round <= rounds; round++) {
+                delivered.reset();
+                long start = System.nanoTime();
+                for (int i = 0; i < events; i++) {
+                    bus.publish(new BeneficiariesRegistered(1, i));
+                }
+                long published = System.nanoTime() - start;
+                while (delivered.sum() < events) {
+                    Thread.onSpinWait();
+                }
+                long all = System.nanoTime() - start;
+                publishNanos = published / (double) events;
+                System.out.printf("Round %d: publish %.0f ns/event, all %d delivered after %d ms%n",
+                    round, publishNanos, events, all / 1_000_000);
+            }
+
+            BenchSupport.openDatabase();
+            LongAdder moved = new LongAdder();
+            bus.subscribe(StockMoved.class, event -> moved.increment());
+            InventoryService service = new InventoryService();
+            InventoryItem item = BenchSupport.createItem(service, "Bench Rice", "1000000");
+            for (int i = 0; i < movements / 10; i++) {
+                service.recordStockMovement(item.getId(), "OUT", BigDecimal.ONE, "warm-up");
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < movements; i++) {
+                service.recordStockMovement(item.getId(), "OUT", BigDecimal.ONE, "bench");
+            }
+            double movementMicros = (System.nanoTime() - start) / 1000.0 / movements;
+            System.out.printf("recordStockMovement: %.1f us/call; one publish is %.3f%% of that (%d StockMoved seen)%n",
+                movementMicros, publishNanos / 10 / movementMicros, moved.sum());
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
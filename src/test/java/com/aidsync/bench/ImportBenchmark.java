@@ -0,0 +1,129 @@
+package com.aidsync.bench;
+
+import com.aidsync.service.BeneficiaryImportService;
+import com.aidsync.util.CsvWriter;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Rows per second for {@link BeneficiaryImportService} on a generated beneficiary list, once
+ * as CSV and once as XLSX, into the same database one after the other. About 1% of the rows
+ * name an unknown barangay and 0.4% carry an invalid date, so the reject path is exercised too.
+ * <p>
+ * {@code -Dbench.rows} sets the list length (100000).
+ */
+public final class ImportBenchmark {
+
+    private static final String[] HEADER = { "Full Name", "Birth Date", "Sex", "Civil Status", "Barangay",
+        "Contact Number", "Street/Sitio", "PWD", "Senior Citizen", "Family Size" };
+    private static final String[] FIRST_NAMES = { "Maria", "Jose", "Juan", "Ana", "Pedro", "Rosa", "Carlos", "Elena" };
+    private static final String[] LAST_NAMES = { "Santos", "Reyes", "Cruz", "Bautista", "Dela Cruz", "Ramos" };
+    private static final String[] BARANGAYS = { "Badas", "Bato", "Central", "Dahican", "Mayo" };
+
+    private ImportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = BenchSupport.intProperty("bench.rows", 100_000);
+        Path directory = Files.createTempDirectory("aidsync-import-bench");
+        Path csv = directory.resolve("beneficiaries.csv");
+        Path xlsx = directory.resolve("beneficiaries.xlsx");
+        writeCsv(csv, rows);
+        writeXlsx(xlsx, rows);
+        System.out.printf("Generated %d rows: CSV %d KB, XLSX %d KB%n", rows, Files.size(csv) / 1024, Files.size(xlsx) / 1024);
+
+        try {
+            BenchSupport.openDatabase();
+            BeneficiaryImportService service = new BeneficiaryImportService();
+            for (Path file : List.of(csv, xlsx)) {
+                System.gc();
+                BeneficiaryImportService.Result result = service.importFile(file,
+                    BeneficiaryImportService.rejectReportFor(file), (read, imported, rejected, fraction) -> { }, () -> false);
+                Runtime runtime = Runtime.getRuntime();
+                System.out.printf("%s: %d read, %d imported, %d rejected in %.1fs = %d rows/s, heap %d MB%n",
+                    file.getFileName(), result.rowsRead(), result.imported(), result.rejected(),
+                    result.elapsedMillis() / 1000.0, result.rowsPerSecond(),
+                    (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static List<String> row(Random random, int index) {
+        String barangay = index % 100 == 7 ? "Nowhere" : BARANGAYS[random.nextInt(BARANGAYS.length)];
+        String birthDate = index % 250 == 3 ? "31/31/1990"
+            : LocalDate.of(1940 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28)).toString();
+        return List.of(
+            FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + (char) ('A' + random.nextInt(26)) + ". "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+            birthDate,
+            random.nextBoolean() ? "M" : "Female",
+            "Single",
+            barangay,
+            "0917" + (1_000_000 + random.nextInt(8_999_999)),
+            "Purok " + random.nextInt(9),
+            random.nextInt(10) == 0 ? "yes" : "",
+            "no",
+            String.valueOf(1 + random.nextInt(8)));
+    }
+
+    private static void writeCsv(Path file, int rows) throws Exception {
+        Random random = new Random(3);
+        try (CsvWriter writer = new CsvWriter(file)) {
+            writer.writeRow(List.of(HEADER));
+            for (int i = 0; i < rows; i++) {
+                writer.writeRow(row(random, i));
+            }
+        }
+    }
+
+    /**
+     * Same rows as the CSV, with valid birth dates stored as date cells like a spreadsheet would.
+     */
+    private static void writeXlsx(Path file, int rows) throws Exception {
+        Random random = new Random(3);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(500);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Beneficiaries");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("m/d/yy"));
+
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < HEADER.length; c++) {
+                header.createCell(c).setCellValue(HEADER[c]);
+            }
+            for (int i = 0; i < rows; i++) {
+                List<String> values = row(random, i);
+                Row row = sheet.createRow(i + 1);
+                for (int c = 0; c < values.size(); c++) {
+                    String value = values.get(c);
+                    if (c == 1 && !value.startsWith("31/")) {
+                        Cell cell = row.createCell(c);
+                        cell.setCellValue(LocalDate.parse(value));
+                        cell.setCellStyle(dateStyle);
+                    } else if (!value.isEmpty()) {
+                        row.createCell(c).setCellValue(value);
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
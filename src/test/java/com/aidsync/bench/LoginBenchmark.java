@@ -0,0 +1,105 @@
+package com.aidsync.bench;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.model.User;
+import com.aidsync.service.AuthenticationService;
+import com.aidsync.service.UserService;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Logins per second through {@link AuthenticationService} for each bcrypt cost. A login
+ * verifies at the cost of the stored hash, so the benchmark user's hash is rewritten at each
+ * cost in turn, with {@code auth.bcryptCost} held at the minimum so no login rehashes it.
+ * Each cost is timed one login at a time, then as a burst of logins submitted at once, as at
+ * shift change, which also shows how many the bounded pool turns away.
+ * <p>
+ * {@code -Dbench.costs} as a comma separated list ({@code 10,11,12}), {@code -Dbench.logins}
+ * one at a time per cost (10), {@code -Dbench.burst} submitted at once (32). The pool is
+ * sized with {@code auth.threads} and {@code auth.queueSize} as in the application.
+ */
+public final class LoginBenchmark {
+
+    private static final String USERNAME = "bench.login";
+    private static final String PASSWORD = "bench-login-password";
+
+    private LoginBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String costs = System.getProperty("bench.costs", "10,11,12");
+        int logins = BenchSupport.intProperty("bench.logins", 10);
+        int burst = BenchSupport.intProperty("bench.burst", 32);
+        System.setProperty("auth.bcryptCost", "4");
+
+        try {
+            BenchSupport.openDatabase();
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setEmail(USERNAME + "@aidsync.local");
+            user.setFullName("Login Benchmark");
+            user.setRole(User.UserRole.LGU_ADMIN);
+            new UserService().createUser(user, PASSWORD);
+            AuthenticationService auth = new AuthenticationService();
+
+            for (String value : costs.split(",")) {
+                int cost = Integer.parseInt(value.trim());
+                storeHash(BCrypt.withDefaults().hashToString(cost, PASSWORD.toCharArray()));
+                if (auth.authenticate(USERNAME, PASSWORD) == null) {
+                    throw new IllegalStateException("Benchmark user could not log in");
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < logins; i++) {
+                    auth.authenticate(USERNAME, PASSWORD);
+                }
+                long sequential = System.nanoTime() - start;
+
+                List<CompletableFuture<User>> submitted = new ArrayList<>(burst);
+                start = System.nanoTime();
+                for (int i = 0; i < burst; i++) {
+                    submitted.add(auth.authenticateAsync(USERNAME, PASSWORD));
+                }
+                int accepted = 0;
+                int turnedAway = 0;
+                for (CompletableFuture<User> login : submitted) {
+                    try {
+                        if (login.join() != null) {
+                            accepted++;
+                        }
+                    } catch (CompletionException e) {
+                        if (!(e.getCause() instanceof RejectedExecutionException)) {
+                            throw e;
+                        }
+                        turnedAway++;
+                    }
+                }
+                long burstNanos = System.nanoTime() - start;
+                System.out.printf("Cost %d: %.0f ms/login, %.1f logins/s one at a time; burst of %d: %d logged in, "
+                        + "%d turned away, %.1f logins/s%n",
+                    cost, sequential / 1e6 / logins, BenchSupport.perSecond(logins, sequential), burst, accepted,
+                    turnedAway, BenchSupport.perSecond(accepted, burstNanos));
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static void storeHash(String hash) throws Exception {
+        DatabaseConfig.executeWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE users SET password_hash = ? WHERE username = ?")) {
+                stmt.setString(1, hash);
+                stmt.setString(2, USERNAME);
+                return stmt.executeUpdate();
+            }
+        });
+    }
+}
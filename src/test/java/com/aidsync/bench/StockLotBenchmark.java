@@ -0,0 +1,114 @@
+package com.aidsync.bench;
+
+import com.aidsync.config.DatabaseConfig;
+import com.aidsync.model.InventoryItem;
+import com.aidsync.service.InventoryService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Cost of first-expired-first-out allocation as an item's lot count grows. For each lot
+ * count an item is seeded with that many lots of random expiry, then stock is issued from it
+ * through {@link InventoryService#recordStockMovement}, each issue of 25 spanning up to three
+ * 10-piece lots (larger lots when there are too few to cover every issue), and new lots are
+ * received into it. The first issue also reads the item's lots into memory and is reported
+ * on its own.
+ * <p>
+ * {@code -Dbench.lots} as a comma separated list of lot counts ({@code 1,5000,50000}),
+ * {@code -Dbench.movements} issues per lot count (2000).
+ */
+public final class StockLotBenchmark {
+
+    private static final BigDecimal ISSUE = new BigDecimal("25");
+    private static final BigDecimal LOT_SIZE = BigDecimal.TEN;
+
+    private StockLotBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String lotCounts = System.getProperty("bench.lots", "1,5000,50000");
+        int movements = BenchSupport.intProperty("bench.movements", 2_000);
+
+        try {
+            BenchSupport.openDatabase();
+            InventoryService service = new InventoryService();
+            for (String count : lotCounts.split(",")) {
+                int lots = Integer.parseInt(count.trim());
+                InventoryItem item = BenchSupport.createItem(service, "Bench Lots " + lots, "0");
+                // Small lot counts need bigger lots to cover every issue
+                BigDecimal needed = ISSUE.multiply(BigDecimal.valueOf(movements + 1));
+                BigDecimal lotSize = LOT_SIZE.max(needed.divide(BigDecimal.valueOf(lots), 0, RoundingMode.CEILING));
+                seedLots(item.getId(), lots, lotSize);
+
+                long start = System.nanoTime();
+                service.recordStockMovement(item.getId(), "OUT", ISSUE, "bench");
+                long first = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < movements; i++) {
+                    service.recordStockMovement(item.getId(), "OUT", ISSUE, "bench");
+                }
+                long issued = System.nanoTime() - start;
+
+                int receipts = Math.max(1, movements / 10);
+                start = System.nanoTime();
+                for (int i = 0; i < receipts; i++) {
+                    service.receiveStock(item.getId(), LOT_SIZE, new BigDecimal("12.50"), "BENCH-R" + i,
+                        LocalDate.now().plusDays(1 + i % 365), "bench");
+                }
+                long received = System.nanoTime() - start;
+
+                BigDecimal remaining = BenchSupport.queryDecimal(
+                    "SELECT SUM(quantity_remaining) FROM stock_lots WHERE item_id = " + item.getId());
+                BigDecimal balance = BenchSupport.queryDecimal(
+                    "SELECT current_stock FROM inventory_items WHERE id = " + item.getId());
+                int outsideLots = BenchSupport.queryInt(
+                    "SELECT COUNT(*) FROM stock_movements WHERE lot_id IS NULL AND item_id = " + item.getId());
+                System.out.printf("%d lot(s): first issue %.1f ms, then %.0f us/issue, %.0f us/receipt; "
+                        + "lots %s, balance %s, %d movements outside a lot%n",
+                    lots, first / 1e6, issued / 1000.0 / movements, received / 1000.0 / receipts,
+                    remaining.stripTrailingZeros().toPlainString(), balance.stripTrailingZeros().toPlainString(),
+                    outsideLots);
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Insert the lots directly, expiring on random days over the next three years, and set the
+     * item's balance to their total.
+     */
+    private static void seedLots(int itemId, int lots, BigDecimal lotSize) throws Exception {
+        Random random = new Random(itemId);
+        LocalDate today = LocalDate.now();
+        DatabaseConfig.executeWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO stock_lots (item_id, batch_number, " +
+                    "expiration_date, quantity_received, quantity_remaining, unit_cost) VALUES (?, ?, ?, ?, ?, 12.50)")) {
+                for (int i = 0; i < lots; i++) {
+                    stmt.setInt(1, itemId);
+                    stmt.setString(2, "BENCH-" + i);
+                    stmt.setDate(3, Date.valueOf(today.plusDays(1 + random.nextInt(3 * 365))));
+                    stmt.setBigDecimal(4, lotSize);
+                    stmt.setBigDecimal(5, lotSize);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE inventory_items SET current_stock = ? WHERE id = ?")) {
+                stmt.setBigDecimal(1, lotSize.multiply(BigDecimal.valueOf(lots)));
+                stmt.setInt(2, itemId);
+                stmt.executeUpdate();
+            }
+            return null;
+        });
+    }
+}